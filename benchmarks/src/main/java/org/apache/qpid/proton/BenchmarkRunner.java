@@ -0,0 +1,75 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.proton;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs benchmarks from an IDE or the command line with the GC profiler enabled, so that
+ * every result reports both ops/s and the bytes allocated per operation.
+ *
+ * With no arguments every benchmark in the module is run, otherwise each argument is
+ * treated as a regular expression selecting the benchmarks to include.
+ */
+public final class BenchmarkRunner
+{
+    private BenchmarkRunner()
+    {
+    }
+
+    public static void run(Class<?>... benchmarks) throws RunnerException
+    {
+        String[] includes = new String[benchmarks.length];
+        for (int i = 0; i < benchmarks.length; i++)
+        {
+            includes[i] = benchmarks[i].getName();
+        }
+        run(includes);
+    }
+
+    public static void run(String... includes) throws RunnerException
+    {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+            .addProfiler(GCProfiler.class)
+            .shouldDoGC(true);
+
+        if (includes.length == 0)
+        {
+            options.include(".*");
+        }
+
+        for (String include : includes)
+        {
+            options.include(include);
+        }
+
+        new Runner(options.build()).run();
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        run(args);
+    }
+}
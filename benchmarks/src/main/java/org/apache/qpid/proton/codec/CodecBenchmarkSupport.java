@@ -0,0 +1,79 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.proton.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Holds an encoder/decoder pair with all the AMQP defined types registered, the same way
+ * the transport sets up its own codec, plus a scratch buffer to encode into.
+ */
+class CodecBenchmarkSupport
+{
+    static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+
+    final DecoderImpl decoder = new DecoderImpl();
+    final EncoderImpl encoder = new EncoderImpl(decoder);
+    final ByteBuffer buffer;
+
+    CodecBenchmarkSupport()
+    {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    CodecBenchmarkSupport(int bufferSize)
+    {
+        AMQPDefinedTypes.registerAllTypes(decoder, encoder);
+        buffer = ByteBuffer.allocate(bufferSize);
+        encoder.setByteBuffer(buffer);
+    }
+
+    /**
+     * Encodes the given value into a freshly allocated buffer which is then positioned
+     * for reading, ready to be handed to {@link #decode(ByteBuffer)} repeatedly.
+     */
+    ByteBuffer encoded(Object value)
+    {
+        buffer.clear();
+        encoder.writeObject(value);
+        buffer.flip();
+
+        ByteBuffer encoded = ByteBuffer.allocate(buffer.remaining());
+        encoded.put(buffer);
+        encoded.flip();
+        buffer.clear();
+        return encoded;
+    }
+
+    int encode(Object value)
+    {
+        buffer.clear();
+        encoder.writeObject(value);
+        return buffer.position();
+    }
+
+    Object decode(ByteBuffer encoded)
+    {
+        encoded.rewind();
+        decoder.setByteBuffer(encoded);
+        return decoder.readObject();
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.proton.codec;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.qpid.proton.BenchmarkRunner;
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.UnsignedInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.RunnerException;
+
+/**
+ * Measures the {@link StringType}, {@link SymbolType}, {@link MapType} and {@link ListType}
+ * encodings with values shaped like those found in message properties and annotations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimitiveTypesBenchmark
+{
+    private CodecBenchmarkSupport codec;
+
+    private String asciiString;
+    private String unicodeString;
+    private Symbol symbol;
+    private Map<Object, Object> map;
+    private List<Object> list;
+
+    private ByteBuffer encodedAsciiString;
+    private ByteBuffer encodedUnicodeString;
+    private ByteBuffer encodedSymbol;
+    private ByteBuffer encodedMap;
+    private ByteBuffer encodedList;
+
+    @Setup
+    public void init()
+    {
+        codec = new CodecBenchmarkSupport();
+
+        asciiString = "queue://orders.incoming";
+        unicodeString = "r\u00e9sum\u00e9-\u65e5\u672c-\u0434\u0430\u043d\u043d\u044b\u0435";
+        symbol = Symbol.valueOf("x-opt-jms-msg-type");
+
+        map = new HashMap<Object, Object>();
+        map.put("region", "emea");
+        map.put("customerId", 123456789L);
+        map.put("priority", Boolean.TRUE);
+        map.put(Symbol.valueOf("x-opt-delivery-delay"), 0L);
+        map.put("retries", UnsignedInteger.valueOf(3));
+
+        list = new ArrayList<Object>();
+        list.add(UnsignedInteger.ZERO);
+        list.add("container-1");
+        list.add(Symbol.valueOf("amqp:accepted:list"));
+        list.add(1500000000000L);
+        list.add(null);
+        list.add(Boolean.FALSE);
+
+        encodedAsciiString = codec.encoded(asciiString);
+        encodedUnicodeString = codec.encoded(unicodeString);
+        encodedSymbol = codec.encoded(symbol);
+        encodedMap = codec.encoded(map);
+        encodedList = codec.encoded(list);
+    }
+
+    @Benchmark
+    public int encodeAsciiString()
+    {
+        return codec.encode(asciiString);
+    }
+
+    @Benchmark
+    public Object decodeAsciiString()
+    {
+        return codec.decode(encodedAsciiString);
+    }
+
+    @Benchmark
+    public int encodeUnicodeString()
+    {
+        return codec.encode(unicodeString);
+    }
+
+    @Benchmark
+    public Object decodeUnicodeString()
+    {
+        return codec.decode(encodedUnicodeString);
+    }
+
+    @Benchmark
+    public int encodeSymbol()
+    {
+        return codec.encode(symbol);
+    }
+
+    @Benchmark
+    public Object decodeSymbol()
+    {
+        return codec.decode(encodedSymbol);
+    }
+
+    @Benchmark
+    public int encodeMap()
+    {
+        return codec.encode(map);
+    }
+
+    @Benchmark
+    public Object decodeMap()
+    {
+        return codec.decode(encodedMap);
+    }
+
+    @Benchmark
+    public int encodeList()
+    {
+        return codec.encode(list);
+    }
+
+    @Benchmark
+    public Object decodeList()
+    {
+        return codec.decode(encodedList);
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        BenchmarkRunner.run(PrimitiveTypesBenchmark.class);
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.proton.codec;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.qpid.proton.BenchmarkRunner;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.UnsignedInteger;
+import org.apache.qpid.proton.amqp.messaging.Accepted;
+import org.apache.qpid.proton.amqp.transport.Disposition;
+import org.apache.qpid.proton.amqp.transport.Flow;
+import org.apache.qpid.proton.amqp.transport.Role;
+import org.apache.qpid.proton.amqp.transport.Transfer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.RunnerException;
+
+/**
+ * Measures {@link EncoderImpl#writeObject(Object)} and {@link DecoderImpl#readObject()} for
+ * the performatives which are written or read once per frame on a busy link.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransportPerformativesBenchmark
+{
+    private CodecBenchmarkSupport codec;
+
+    private Transfer transfer;
+    private Flow flow;
+    private Disposition disposition;
+
+    private ByteBuffer encodedTransfer;
+    private ByteBuffer encodedFlow;
+    private ByteBuffer encodedDisposition;
+
+    @Setup
+    public void init()
+    {
+        codec = new CodecBenchmarkSupport();
+
+        transfer = new Transfer();
+        transfer.setHandle(UnsignedInteger.ZERO);
+        transfer.setDeliveryId(UnsignedInteger.valueOf(1024));
+        transfer.setDeliveryTag(new Binary(new byte[] {0, 0, 4, 0}));
+        transfer.setMessageFormat(UnsignedInteger.ZERO);
+
+        flow = new Flow();
+        flow.setNextIncomingId(UnsignedInteger.valueOf(1024));
+        flow.setIncomingWindow(UnsignedInteger.valueOf(2047));
+        flow.setNextOutgoingId(UnsignedInteger.ONE);
+        flow.setOutgoingWindow(UnsignedInteger.valueOf(Integer.MAX_VALUE));
+        flow.setHandle(UnsignedInteger.ZERO);
+        flow.setDeliveryCount(UnsignedInteger.valueOf(1024));
+        flow.setLinkCredit(UnsignedInteger.valueOf(1000));
+
+        disposition = new Disposition();
+        disposition.setRole(Role.RECEIVER);
+        disposition.setFirst(UnsignedInteger.valueOf(1024));
+        disposition.setLast(UnsignedInteger.valueOf(1024));
+        disposition.setSettled(true);
+        disposition.setState(Accepted.getInstance());
+
+        encodedTransfer = codec.encoded(transfer);
+        encodedFlow = codec.encoded(flow);
+        encodedDisposition = codec.encoded(disposition);
+    }
+
+    @Benchmark
+    public int encodeTransfer()
+    {
+        return codec.encode(transfer);
+    }
+
+    @Benchmark
+    public Object decodeTransfer()
+    {
+        return codec.decode(encodedTransfer);
+    }
+
+    @Benchmark
+    public int encodeFlow()
+    {
+        return codec.encode(flow);
+    }
+
+    @Benchmark
+    public Object decodeFlow()
+    {
+        return codec.decode(encodedFlow);
+    }
+
+    @Benchmark
+    public int encodeDisposition()
+    {
+        return codec.encode(disposition);
+    }
+
+    @Benchmark
+    public Object decodeDisposition()
+    {
+        return codec.decode(encodedDisposition);
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        BenchmarkRunner.run(TransportPerformativesBenchmark.class);
+    }
+}
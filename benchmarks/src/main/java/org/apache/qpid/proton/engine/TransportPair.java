@@ -0,0 +1,347 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.proton.engine;
+
+import java.nio.ByteBuffer;
+import java.util.EnumSet;
+
+import org.apache.qpid.proton.amqp.messaging.Accepted;
+import org.apache.qpid.proton.amqp.messaging.Source;
+import org.apache.qpid.proton.amqp.messaging.Target;
+import org.apache.qpid.proton.amqp.transport.ReceiverSettleMode;
+import org.apache.qpid.proton.amqp.transport.SenderSettleMode;
+
+/**
+ * Two connections whose transports are wired back-to-back in memory: bytes taken from the
+ * {@link Transport#head()} of one side are copied into the {@link Transport#tail()} of the
+ * other and processed, so the engine can be driven without any socket I/O.
+ *
+ * The client side owns the senders and the server side the matching receivers. Deliveries
+ * are acknowledged according to the {@link DeliveryMode} the pair was opened with.
+ */
+public class TransportPair
+{
+    public enum DeliveryMode
+    {
+        /** The sender settles before the transfer is written, the receiver only consumes. */
+        PRE_SETTLED,
+        /** The receiver accepts and settles on receipt, the sender settles once it sees that. */
+        SETTLED,
+        /**
+         * The receiver accepts without settling, the sender settles on seeing the outcome and
+         * the receiver settles last, once the sender's settlement arrives.
+         */
+        UNSETTLED
+    }
+
+    private static final EnumSet<EndpointState> UNINITIALIZED = EnumSet.of(EndpointState.UNINITIALIZED);
+    private static final EnumSet<EndpointState> ANY = EnumSet.allOf(EndpointState.class);
+
+    private static final int CREDIT_WINDOW = 1000;
+    private static final int MAX_IDLE_PUMPS = 10;
+
+    private final DeliveryMode _mode;
+
+    private final Connection _clientConnection = Connection.Factory.create();
+    private final Transport _clientTransport = Transport.Factory.create();
+    private final Connection _serverConnection = Connection.Factory.create();
+    private final Transport _serverTransport = Transport.Factory.create();
+
+    private Sender[] _senders;
+    private Receiver[] _receivers;
+
+    private byte[] _scratch = new byte[1024];
+    private long _nextTag;
+    private int _nextSender;
+
+    private long _bytesTransferred;
+    private long _sent;
+    private long _received;
+    private long _senderSettled;
+    private long _receiverSettled;
+
+    TransportPair(DeliveryMode mode)
+    {
+        _mode = mode;
+        _clientTransport.bind(_clientConnection);
+        _serverTransport.bind(_serverConnection);
+    }
+
+    void open(int sessions, int linksPerSession)
+    {
+        _clientConnection.setContainer("client");
+        _clientConnection.open();
+        _serverConnection.setContainer("server");
+
+        _senders = new Sender[sessions * linksPerSession];
+        for (int i = 0; i < sessions; i++)
+        {
+            Session session = _clientConnection.session();
+            session.open();
+            for (int j = 0; j < linksPerSession; j++)
+            {
+                String name = "link-" + i + "-" + j;
+                Sender sender = session.sender(name);
+                if (_mode == DeliveryMode.PRE_SETTLED)
+                {
+                    sender.setSenderSettleMode(SenderSettleMode.SETTLED);
+                }
+                else
+                {
+                    sender.setSenderSettleMode(SenderSettleMode.UNSETTLED);
+                }
+                sender.setReceiverSettleMode(_mode == DeliveryMode.UNSETTLED
+                                             ? ReceiverSettleMode.SECOND
+                                             : ReceiverSettleMode.FIRST);
+                Target target = new Target();
+                target.setAddress(name);
+                sender.setTarget(target);
+                sender.setSource(new Source());
+                sender.open();
+                _senders[i * linksPerSession + j] = sender;
+            }
+        }
+
+        pump();
+        _serverConnection.open();
+        for (Session session = _serverConnection.sessionHead(UNINITIALIZED, ANY);
+             session != null; session = session.next(UNINITIALIZED, ANY))
+        {
+            session.open();
+        }
+        pump();
+
+        _receivers = new Receiver[_senders.length];
+        int count = 0;
+        for (Link link = _serverConnection.linkHead(UNINITIALIZED, ANY);
+             link != null; link = link.next(UNINITIALIZED, ANY))
+        {
+            Receiver receiver = (Receiver) link;
+            receiver.setSource(link.getRemoteSource());
+            receiver.setTarget(link.getRemoteTarget());
+            receiver.setSenderSettleMode(link.getRemoteSenderSettleMode());
+            receiver.setReceiverSettleMode(link.getRemoteReceiverSettleMode());
+            receiver.open();
+            receiver.flow(CREDIT_WINDOW);
+            _receivers[count++] = receiver;
+        }
+        pump();
+
+        for (Sender sender : _senders)
+        {
+            if (sender.getRemoteState() != EndpointState.ACTIVE || sender.getCredit() == 0)
+            {
+                throw new IllegalStateException("Link " + sender.getName() + " failed to attach");
+            }
+        }
+    }
+
+    void close()
+    {
+        _clientConnection.close();
+        _serverConnection.close();
+        pump();
+    }
+
+    /**
+     * Sends one message on each of the next {@code count} senders, in round robin order.
+     */
+    void send(byte[] payload, int count)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            Sender sender = _senders[_nextSender];
+            _nextSender = (_nextSender + 1) % _senders.length;
+
+            Delivery delivery = sender.delivery(nextTag());
+            sender.send(payload, 0, payload.length);
+            sender.advance();
+            if (_mode == DeliveryMode.PRE_SETTLED)
+            {
+                delivery.settle();
+                _senderSettled++;
+            }
+            _sent++;
+        }
+    }
+
+    /**
+     * Pumps both transports and processes deliveries on each side until everything sent so
+     * far has been received and settled as the delivery mode requires.
+     */
+    void awaitCompletion()
+    {
+        int idle = 0;
+        while (!isComplete())
+        {
+            long progress = _received + _senderSettled + _receiverSettled;
+            int moved = pump();
+            receive();
+            processUpdates(_clientConnection);
+            processUpdates(_serverConnection);
+
+            if (moved == 0 && progress == _received + _senderSettled + _receiverSettled)
+            {
+                if (++idle > MAX_IDLE_PUMPS)
+                {
+                    throw new IllegalStateException("Transfer stalled: sent=" + _sent + ", received=" + _received
+                                                    + ", sender settled=" + _senderSettled
+                                                    + ", receiver settled=" + _receiverSettled);
+                }
+            }
+            else
+            {
+                idle = 0;
+            }
+        }
+    }
+
+    long getBytesTransferred()
+    {
+        return _bytesTransferred;
+    }
+
+    private boolean isComplete()
+    {
+        if (_received != _sent || _senderSettled != _sent)
+        {
+            return false;
+        }
+        return _mode != DeliveryMode.UNSETTLED || _receiverSettled == _sent;
+    }
+
+    private byte[] nextTag()
+    {
+        long tag = _nextTag++;
+        return new byte[] {(byte) (tag >>> 24), (byte) (tag >>> 16), (byte) (tag >>> 8), (byte) tag};
+    }
+
+    private void receive()
+    {
+        for (Receiver receiver : _receivers)
+        {
+            Delivery delivery = receiver.current();
+            while (delivery != null && delivery.isReadable() && !delivery.isPartial())
+            {
+                int pending = delivery.pending();
+                if (pending > _scratch.length)
+                {
+                    _scratch = new byte[pending];
+                }
+                receiver.recv(_scratch, 0, pending);
+                receiver.advance();
+                _received++;
+
+                switch (_mode)
+                {
+                    case PRE_SETTLED:
+                        delivery.settle();
+                        break;
+                    case SETTLED:
+                        delivery.disposition(Accepted.getInstance());
+                        delivery.settle();
+                        break;
+                    case UNSETTLED:
+                        delivery.disposition(Accepted.getInstance());
+                        break;
+                }
+
+                delivery = receiver.current();
+            }
+
+            int credit = receiver.getCredit();
+            if (credit < CREDIT_WINDOW / 2)
+            {
+                receiver.flow(CREDIT_WINDOW - credit);
+            }
+        }
+    }
+
+    private void processUpdates(Connection connection)
+    {
+        Delivery delivery = connection.getWorkHead();
+        while (delivery != null)
+        {
+            Delivery next = delivery.getWorkNext();
+            if (delivery.isUpdated() && !delivery.isSettled())
+            {
+                if (delivery.getLink() instanceof Sender)
+                {
+                    if (delivery.remotelySettled() || delivery.getRemoteState() != null)
+                    {
+                        // the transport only writes the sender's settlement alongside a
+                        // local state, so echo the receiver's outcome before settling
+                        delivery.disposition(delivery.getRemoteState());
+                        delivery.settle();
+                        _senderSettled++;
+                    }
+                }
+                else if (delivery.remotelySettled())
+                {
+                    delivery.settle();
+                    _receiverSettled++;
+                }
+            }
+            delivery = next;
+        }
+    }
+
+    private int pump()
+    {
+        int moved = 0;
+        int transferred;
+        do
+        {
+            transferred = pump(_clientTransport, _serverTransport) + pump(_serverTransport, _clientTransport);
+            moved += transferred;
+        }
+        while (transferred > 0);
+
+        _bytesTransferred += moved;
+        return moved;
+    }
+
+    private static int pump(Transport from, Transport to)
+    {
+        int moved = 0;
+        int pending = from.pending();
+        while (pending > 0)
+        {
+            int capacity = to.capacity();
+            if (capacity <= 0)
+            {
+                break;
+            }
+
+            ByteBuffer head = from.head();
+            int length = Math.min(pending, capacity);
+            ByteBuffer slice = head.duplicate();
+            slice.limit(slice.position() + length);
+            to.tail().put(slice);
+            to.process();
+            from.pop(length);
+
+            moved += length;
+            pending = from.pending();
+        }
+        return moved;
+    }
+}
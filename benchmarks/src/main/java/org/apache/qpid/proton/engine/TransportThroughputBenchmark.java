@@ -0,0 +1,144 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.proton.engine;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.qpid.proton.BenchmarkRunner;
+import org.apache.qpid.proton.engine.TransportPair.DeliveryMode;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.RunnerException;
+
+/**
+ * Measures the engine end to end, from {@link Sender#send(byte[], int, int)} through frame
+ * writing, frame parsing and transfer handling to {@link Receiver#recv(byte[], int, int)} and
+ * back for the settlement, using a {@link TransportPair} so no socket I/O is involved.
+ *
+ * Each operation is one message. {@link #transfer} and {@link #transferBatch} report
+ * messages/sec along with the payload and wire bytes/sec, {@link #transferLatency} reports
+ * the round trip latency distribution of a single message.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransportThroughputBenchmark
+{
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"PRE_SETTLED", "SETTLED", "UNSETTLED"})
+    public DeliveryMode deliveryMode;
+
+    @Param({"32", "1024", "65536"})
+    public int messageSize;
+
+    @Param({"1", "4"})
+    public int sessions;
+
+    @Param({"1", "16"})
+    public int linksPerSession;
+
+    private TransportPair pair;
+    private byte[] payload;
+
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class Traffic
+    {
+        public long payloadBytes;
+        public long wireBytes;
+
+        @Setup(Level.Iteration)
+        public void reset()
+        {
+            payloadBytes = 0;
+            wireBytes = 0;
+        }
+    }
+
+    @Setup
+    public void init()
+    {
+        payload = new byte[messageSize];
+        pair = new TransportPair(deliveryMode);
+        pair.open(sessions, linksPerSession);
+    }
+
+    @TearDown
+    public void destroy()
+    {
+        pair.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public void transfer(Traffic traffic)
+    {
+        transfer(traffic, 1);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void transferBatch(Traffic traffic)
+    {
+        transfer(traffic, BATCH_SIZE);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void transferLatency()
+    {
+        pair.send(payload, 1);
+        pair.awaitCompletion();
+    }
+
+    private void transfer(Traffic traffic, int count)
+    {
+        long before = pair.getBytesTransferred();
+        pair.send(payload, count);
+        pair.awaitCompletion();
+
+        traffic.payloadBytes += (long) count * payload.length;
+        traffic.wireBytes += pair.getBytesTransferred() - before;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        BenchmarkRunner.run(TransportThroughputBenchmark.class);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.proton.message;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.qpid.proton.BenchmarkRunner;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
+import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
+import org.apache.qpid.proton.message.impl.MessageImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.RunnerException;
+
+/**
+ * Measures {@link Message#encode(byte[], int, int)} and {@link Message#decode(byte[], int, int)}
+ * for a typical message carrying a header, properties, annotations, application properties
+ * and a {@link Data} body of varying size. {@link #decodeLazy} decodes with
+ * {@link MessageImpl#setLazyDecode(boolean)} enabled and reads only the address, as a router would.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageBenchmark
+{
+    private static final int MESSAGE_OVERHEAD = 1024;
+
+    @Param({"0", "128", "1024", "65536"})
+    public int bodySize;
+
+    private Message message;
+    private byte[] encodeBuffer;
+    private byte[] encoded;
+    private int encodedLength;
+
+    @Setup
+    public void init()
+    {
+        message = Message.Factory.create();
+        message.setDurable(true);
+        message.setPriority((short) 4);
+        message.setMessageId("ID:a8e4d3b0-8ad5-4c1f-9f1e-3c5d0b0c9f1a:1:1:1:1");
+        message.setAddress("queue://orders.incoming");
+        message.setSubject("order-created");
+        message.setContentType("application/octet-stream");
+        message.setCreationTime(1500000000000L);
+
+        Map<Symbol, Object> annotations = new HashMap<Symbol, Object>();
+        annotations.put(Symbol.valueOf("x-opt-jms-msg-type"), (byte) 3);
+        annotations.put(Symbol.valueOf("x-opt-jms-dest"), (byte) 0);
+        message.setMessageAnnotations(new MessageAnnotations(annotations));
+
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put("region", "emea");
+        properties.put("customerId", 123456789L);
+        properties.put("priority", Boolean.TRUE);
+        message.setApplicationProperties(new ApplicationProperties(properties));
+
+        message.setBody(new Data(new Binary(new byte[bodySize])));
+
+        encodeBuffer = new byte[bodySize + MESSAGE_OVERHEAD];
+        encodedLength = message.encode(encodeBuffer, 0, encodeBuffer.length);
+        encoded = new byte[encodedLength];
+        System.arraycopy(encodeBuffer, 0, encoded, 0, encodedLength);
+    }
+
+    @Benchmark
+    public int encode()
+    {
+        return message.encode(encodeBuffer, 0, encodeBuffer.length);
+    }
+
+    @Benchmark
+    public Message decode()
+    {
+        Message decoded = Message.Factory.create();
+        decoded.decode(encoded, 0, encodedLength);
+        return decoded;
+    }
+
+    @Benchmark
+    public String decodeLazy()
+    {
+        MessageImpl decoded = new MessageImpl();
+        decoded.setLazyDecode(true);
+        decoded.decode(encoded, 0, encodedLength);
+        return decoded.getAddress();
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        BenchmarkRunner.run(MessageBenchmark.class);
+    }
+}
@@ -162,6 +162,17 @@ public final class Binary
         return new Binary(data);
     }
 
+    /**
+     * Returns a Binary holding its own copy of the bytes of this one, for retaining a value
+     * which refers to a buffer that may later be reused.
+     */
+    public Binary copy()
+    {
+        byte[] data = new byte[_length];
+        System.arraycopy(_data, _offset, data, 0, _length);
+        return new Binary(data);
+    }
+
     public Binary subBinary(final int offset, final int length)
     {
         return new Binary(_data, _offset+offset, length);
@@ -65,6 +65,16 @@ public final class Symbol implements Comparable<Symbol>, CharSequence
         return _underlying.hashCode();
     }
 
+    @Override
+    public boolean equals(Object o)
+    {
+        if(this == o)
+        {
+            return true;
+        }
+        return o instanceof Symbol && _underlying.equals(((Symbol) o)._underlying);
+    }
+
     public static Symbol valueOf(String symbolVal)
     {
         return getSymbol(symbolVal);
@@ -90,5 +100,34 @@ public final class Symbol implements Comparable<Symbol>, CharSequence
         return symbol;
     }
 
+    /**
+     * Returns the symbol for the given value if one has already been created by {@link
+     * #getSymbol(String)}, without creating one otherwise.
+     *
+     * @return the existing symbol, or null if there is none
+     */
+    public static Symbol lookup(String symbolVal)
+    {
+        return symbolVal == null ? null : _symbols.get(symbolVal);
+    }
 
+    /**
+     * Returns the symbol for the given value, creating it if need be. When intern is false a
+     * symbol which does not already exist is not retained, so later calls for the same value
+     * return different, although equal, symbols. This suits values received from a peer, which
+     * could otherwise grow the set of retained symbols without limit.
+     */
+    public static Symbol getSymbol(String symbolVal, boolean intern)
+    {
+        if(intern)
+        {
+            return getSymbol(symbolVal);
+        }
+        if(symbolVal == null)
+        {
+            return null;
+        }
+        Symbol symbol = _symbols.get(symbolVal);
+        return symbol == null ? new Symbol(symbolVal) : symbol;
+    }
 }
@@ -109,6 +109,22 @@ public final class Disposition implements FrameBody
         handler.handleDisposition(this, payload, context);
     }
 
+    /**
+     * Returns a copy of this disposition. The transport reuses the dispositions it writes and hands
+     * to its frame handler, so one that is to be held on to after it has been handled must be copied.
+     */
+    public Disposition copy()
+    {
+        Disposition copy = new Disposition();
+        copy._role = _role;
+        copy._first = _first;
+        copy._last = _last;
+        copy._settled = _settled;
+        copy._state = _state;
+        copy._batchable = _batchable;
+        return copy;
+    }
+
     @Override
     public String toString()
     {
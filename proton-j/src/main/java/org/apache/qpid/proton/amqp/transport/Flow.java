@@ -172,6 +172,27 @@ public final class Flow implements FrameBody
         handler.handleFlow(this, payload, context);
     }
 
+    /**
+     * Returns a copy of this flow. The transport reuses the flows it writes and hands to its frame
+     * handler, so one that is to be held on to after it has been handled must be copied.
+     */
+    public Flow copy()
+    {
+        Flow copy = new Flow();
+        copy._nextIncomingId = _nextIncomingId;
+        copy._incomingWindow = _incomingWindow;
+        copy._nextOutgoingId = _nextOutgoingId;
+        copy._outgoingWindow = _outgoingWindow;
+        copy._handle = _handle;
+        copy._deliveryCount = _deliveryCount;
+        copy._linkCredit = _linkCredit;
+        copy._available = _available;
+        copy._drain = _drain;
+        copy._echo = _echo;
+        copy._properties = _properties;
+        return copy;
+    }
+
     @Override
     public String toString()
     {
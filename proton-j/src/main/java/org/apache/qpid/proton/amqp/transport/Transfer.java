@@ -31,6 +31,10 @@ public final class Transfer implements FrameBody
     private UnsignedInteger _handle;
     private UnsignedInteger _deliveryId;
     private Binary _deliveryTag;
+    // the bytes of the tag, which is only wrapped in _deliveryTag when asked for if set from them
+    private byte[] _deliveryTagArray;
+    private int _deliveryTagOffset;
+    private int _deliveryTagLength;
     private UnsignedInteger _messageFormat;
     private Boolean _settled;
     private boolean _more;
@@ -67,12 +71,58 @@ public final class Transfer implements FrameBody
 
     public Binary getDeliveryTag()
     {
+        if(_deliveryTag == null && _deliveryTagArray != null)
+        {
+            _deliveryTag = new Binary(_deliveryTagArray, _deliveryTagOffset, _deliveryTagLength);
+        }
         return _deliveryTag;
     }
 
     public void setDeliveryTag(Binary deliveryTag)
     {
         _deliveryTag = deliveryTag;
+        if(deliveryTag == null)
+        {
+            _deliveryTagArray = null;
+            _deliveryTagOffset = 0;
+            _deliveryTagLength = 0;
+        }
+        else
+        {
+            _deliveryTagArray = deliveryTag.getArray();
+            _deliveryTagOffset = deliveryTag.getArrayOffset();
+            _deliveryTagLength = deliveryTag.getLength();
+        }
+    }
+
+    /**
+     * Sets the delivery tag to the given range of bytes, without wrapping them in a {@link Binary}.
+     * The bytes must not change while the transfer refers to them.
+     */
+    public void setDeliveryTag(byte[] deliveryTag, int offset, int length)
+    {
+        _deliveryTag = null;
+        _deliveryTagArray = deliveryTag;
+        _deliveryTagOffset = offset;
+        _deliveryTagLength = length;
+    }
+
+    /**
+     * Returns the array holding the bytes of the delivery tag, or null if there is no tag.
+     */
+    public byte[] getDeliveryTagArray()
+    {
+        return _deliveryTagArray;
+    }
+
+    public int getDeliveryTagOffset()
+    {
+        return _deliveryTagOffset;
+    }
+
+    public int getDeliveryTagLength()
+    {
+        return _deliveryTagLength;
     }
 
     public UnsignedInteger getMessageFormat()
@@ -160,13 +210,35 @@ public final class Transfer implements FrameBody
         handler.handleTransfer(this, payload, context);
     }
 
+    /**
+     * Returns a copy of this transfer. The transport reuses the transfers it writes and hands to
+     * its frame handler, so one that is to be held on to after it has been handled must be copied.
+     */
+    public Transfer copy()
+    {
+        Transfer copy = new Transfer();
+        copy._handle = _handle;
+        copy._deliveryId = _deliveryId;
+        Binary deliveryTag = getDeliveryTag();
+        copy.setDeliveryTag(deliveryTag == null ? null : deliveryTag.copy());
+        copy._messageFormat = _messageFormat;
+        copy._settled = _settled;
+        copy._more = _more;
+        copy._rcvSettleMode = _rcvSettleMode;
+        copy._state = _state;
+        copy._resume = _resume;
+        copy._aborted = _aborted;
+        copy._batchable = _batchable;
+        return copy;
+    }
+
     @Override
     public String toString()
     {
         return "Transfer{" +
                "handle=" + _handle +
                ", deliveryId=" + _deliveryId +
-               ", deliveryTag=" + _deliveryTag +
+               ", deliveryTag=" + getDeliveryTag() +
                ", messageFormat=" + _messageFormat +
                ", settled=" + _settled +
                ", more=" + _more +
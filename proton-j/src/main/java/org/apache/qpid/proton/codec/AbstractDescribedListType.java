@@ -0,0 +1,155 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.proton.codec;
+
+import java.util.List;
+
+/**
+ * Base class for described types whose value is a list of fields, which writes those fields
+ * straight to the encoder's buffer when the value is encoded at the top level or as a field of
+ * another such type.
+ *
+ * Rather than wrapping the value in a {@link List} and sizing every field before writing it,
+ * {@link #write(Object)} reserves space for the list size, writes the fields and then goes
+ * back to fill in the size. The short list encoding is tried first, and the fields are written
+ * again using the long encoding should they turn out not to fit. {@link #getEncodedSize(Object)}
+ * writes the fields the same way to a buffer that only counts them. The wrapping encoding from
+ * {@link AbstractDescribedType} is still used wherever the size of the value must be known
+ * up front, such as when it appears in an array or a plain list.
+ */
+public abstract class AbstractDescribedListType<T> extends AbstractDescribedType<T,List>
+{
+    // must produce the same encoding choice as ListType
+    private static final int MAX_SHORT_LIST_FIELDS_SIZE = 253;
+
+    // counts the bytes a value is written as, see getEncodedSize
+    private final DroppingWritableBuffer _sizingBuffer = new DroppingWritableBuffer();
+
+    public AbstractDescribedListType(EncoderImpl encoder)
+    {
+        super(encoder);
+    }
+
+    /**
+     * Returns the number of fields to be written for the given value, which may leave out
+     * trailing fields holding their default value.
+     */
+    protected abstract int getElementCount(T val);
+
+    /**
+     * Writes the field at the given index of the given value.
+     */
+    protected abstract void writeElement(T val, int index);
+
+    /**
+     * Returns the number of bytes {@link #write(Object)} writes for the given value, found by
+     * writing it to a buffer that only counts the bytes, so the value is neither wrapped nor
+     * sized field by field through {@link ListType}.
+     */
+    @Override
+    public int getEncodedSize(final T val)
+    {
+        EncoderImpl encoder = getEncoder();
+        WritableBuffer buffer = encoder.getBuffer();
+        _sizingBuffer.position(0);
+        encoder.setByteBuffer(_sizingBuffer);
+        try
+        {
+            write(val);
+            return _sizingBuffer.position();
+        }
+        finally
+        {
+            encoder.setByteBuffer(buffer);
+        }
+    }
+
+    @Override
+    public void write(final T val)
+    {
+        EncoderImpl encoder = getEncoder();
+        final int count = getElementCount(val);
+
+        encoder.writeRaw(EncodingCodes.DESCRIBED_TYPE_INDICATOR);
+        encoder.writeUnsignedLong(getDescriptor());
+
+        if(count == 0)
+        {
+            encoder.writeRaw(EncodingCodes.LIST0);
+        }
+        else
+        {
+            WritableBuffer buffer = encoder.getBuffer();
+            final int start = buffer.position();
+
+            if(count > 255 || !writeShortList(val, count, encoder, buffer))
+            {
+                buffer.position(start);
+                writeList(val, count, encoder, buffer);
+            }
+        }
+    }
+
+    private boolean writeShortList(final T val, final int count, EncoderImpl encoder, WritableBuffer buffer)
+    {
+        encoder.writeRaw(EncodingCodes.LIST8);
+        final int sizePosition = buffer.position();
+        encoder.writeRaw((byte) 0);
+        encoder.writeRaw((byte) count);
+
+        writeElements(val, count);
+
+        final int end = buffer.position();
+        final int fieldsSize = end - sizePosition - 2;
+        if(fieldsSize > MAX_SHORT_LIST_FIELDS_SIZE)
+        {
+            return false;
+        }
+
+        buffer.position(sizePosition);
+        encoder.writeRaw((byte) (fieldsSize + 1));
+        buffer.position(end);
+        return true;
+    }
+
+    private void writeList(final T val, final int count, EncoderImpl encoder, WritableBuffer buffer)
+    {
+        encoder.writeRaw(EncodingCodes.LIST32);
+        final int sizePosition = buffer.position();
+        encoder.writeRaw(0);
+        encoder.writeRaw(count);
+
+        writeElements(val, count);
+
+        final int end = buffer.position();
+        buffer.position(sizePosition);
+        encoder.writeRaw(end - sizePosition - 4);
+        buffer.position(end);
+    }
+
+    private void writeElements(final T val, final int count)
+    {
+        for(int i = 0; i < count; i++)
+        {
+            writeElement(val, i);
+        }
+    }
+}
@@ -39,11 +39,31 @@ abstract public class AbstractDescribedType<T,M> implements AMQPType<T>
 
     abstract protected UnsignedLong getDescriptor();
 
+    protected EncoderImpl getEncoder()
+    {
+        return _encoder;
+    }
+
 
     public TypeEncoding<T> getEncoding(final T val)
+    {
+        M asUnderlying = wrap(val);
+        return describedEncoding(_encoder.getType(asUnderlying).getEncoding(asUnderlying));
+    }
+
+    /**
+     * Returns the number of bytes {@link #write(Object)} writes for the given value. Unlike sizing
+     * it through {@link #getEncoding(Object)}, the value is wrapped and its fields sized only once.
+     */
+    public int getEncodedSize(final T val)
     {
         M asUnderlying = wrap(val);
         TypeEncoding<M> underlyingEncoding = _encoder.getType(asUnderlying).getEncoding(asUnderlying);
+        return describedEncoding(underlyingEncoding).getConstructorSize() + underlyingEncoding.getValueSize(asUnderlying);
+    }
+
+    private TypeEncoding<T> describedEncoding(final TypeEncoding<M> underlyingEncoding)
+    {
         TypeEncoding<T> encoding = _encodings.get(underlyingEncoding);
         if(encoding == null)
         {
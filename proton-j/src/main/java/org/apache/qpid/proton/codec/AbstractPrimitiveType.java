@@ -22,7 +22,7 @@ package org.apache.qpid.proton.codec;
 
 abstract class AbstractPrimitiveType<T> implements PrimitiveType<T>
 {
-    public final void write(T val)
+    public void write(T val)
     {
         final TypeEncoding<T> encoding = getEncoding(val);
         encoding.writeConstructor();
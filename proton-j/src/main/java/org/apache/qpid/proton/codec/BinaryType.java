@@ -111,9 +111,7 @@ public class BinaryType extends AbstractPrimitiveType<Binary>
                 throw new IllegalArgumentException("Binary data size "+size+" is specified to be greater than the amount of data available ("+
                                                    decoder.getByteBufferRemaining()+")");
             }
-            byte[] data = new byte[size];
-            decoder.readRaw(data, 0, size);
-            return new Binary(data);
+            return decoder.readRawBinary(size);
         }
     }
 
@@ -159,9 +157,7 @@ public class BinaryType extends AbstractPrimitiveType<Binary>
         public Binary readValue()
         {
             int size = ((int)getDecoder().readRawByte()) & 0xff;
-            byte[] data = new byte[size];
-            getDecoder().readRaw(data, 0, size);
-            return new Binary(data);
+            return getDecoder().readRawBinary(size);
         }
     }
 }
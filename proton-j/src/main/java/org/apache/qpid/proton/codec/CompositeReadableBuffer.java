@@ -0,0 +1,386 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.proton.codec;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A read only {@link ReadableBuffer} over a sequence of byte array regions, which are read in
+ * turn as if they were one buffer. Regions are referenced, not copied, both when they are
+ * appended and when the buffer is sliced or duplicated.
+ */
+public class CompositeReadableBuffer implements ReadableBuffer
+{
+    private static final int INITIAL_REGIONS = 4;
+
+    private byte[][] _arrays;
+    private int[] _offsets;
+    private int[] _lengths;
+    private int _regions;
+
+    private int _capacity;
+    private int _position;
+    private int _limit;
+
+    // the region holding the byte at _position, and the offset of that byte within it
+    private int _region;
+    private int _regionPosition;
+
+    public CompositeReadableBuffer()
+    {
+        _arrays = new byte[INITIAL_REGIONS][];
+        _offsets = new int[INITIAL_REGIONS];
+        _lengths = new int[INITIAL_REGIONS];
+    }
+
+    private CompositeReadableBuffer(CompositeReadableBuffer other, int firstRegion, int firstOffset,
+                                    int lastRegion, int lastLength)
+    {
+        int regions = lastRegion - firstRegion + 1;
+        _arrays = Arrays.copyOfRange(other._arrays, firstRegion, firstRegion + Math.max(regions, 1));
+        _offsets = Arrays.copyOfRange(other._offsets, firstRegion, firstRegion + Math.max(regions, 1));
+        _lengths = Arrays.copyOfRange(other._lengths, firstRegion, firstRegion + Math.max(regions, 1));
+        _regions = regions;
+        if (regions > 0)
+        {
+            _offsets[0] += firstOffset;
+            _lengths[regions - 1] = lastLength;
+            _lengths[0] -= firstOffset;
+            for (int i = 0; i < regions; i++)
+            {
+                _capacity += _lengths[i];
+            }
+        }
+        _limit = _capacity;
+    }
+
+    /**
+     * Appends a region to the end of the buffer. The limit moves with the end of the buffer if it
+     * was at the end before.
+     */
+    public CompositeReadableBuffer append(byte[] array, int offset, int length)
+    {
+        if (length == 0)
+        {
+            return this;
+        }
+
+        int last = _regions - 1;
+        if (last >= 0 && _arrays[last] == array && _offsets[last] + _lengths[last] == offset)
+        {
+            _lengths[last] += length;
+        }
+        else
+        {
+            if (_regions == _arrays.length)
+            {
+                int regions = _regions * 2;
+                _arrays = Arrays.copyOf(_arrays, regions);
+                _offsets = Arrays.copyOf(_offsets, regions);
+                _lengths = Arrays.copyOf(_lengths, regions);
+            }
+            _arrays[_regions] = array;
+            _offsets[_regions] = offset;
+            _lengths[_regions] = length;
+            _regions++;
+        }
+
+        if (_limit == _capacity)
+        {
+            _limit += length;
+        }
+        _capacity += length;
+        return this;
+    }
+
+    /**
+     * @return the number of bytes in the buffer, regardless of its position and limit.
+     */
+    public int capacity()
+    {
+        return _capacity;
+    }
+
+    @Override
+    public void put(ReadableBuffer other)
+    {
+        throw new ReadOnlyBufferException();
+    }
+
+    @Override
+    public byte get()
+    {
+        if (_position >= _limit)
+        {
+            throw new BufferUnderflowException();
+        }
+        while (_regionPosition == _lengths[_region])
+        {
+            _region++;
+            _regionPosition = 0;
+        }
+        _position++;
+        return _arrays[_region][_offsets[_region] + _regionPosition++];
+    }
+
+    @Override
+    public int getInt()
+    {
+        checkRemaining(4);
+        return ((get() & 0xFF) << 24) | ((get() & 0xFF) << 16) | ((get() & 0xFF) << 8) | (get() & 0xFF);
+    }
+
+    @Override
+    public long getLong()
+    {
+        checkRemaining(8);
+        return ((long) getInt() << 32) | (getInt() & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public short getShort()
+    {
+        checkRemaining(2);
+        return (short) (((get() & 0xFF) << 8) | (get() & 0xFF));
+    }
+
+    @Override
+    public float getFloat()
+    {
+        return Float.intBitsToFloat(getInt());
+    }
+
+    @Override
+    public double getDouble()
+    {
+        return Double.longBitsToDouble(getLong());
+    }
+
+    @Override
+    public ReadableBuffer get(byte[] data, int offset, int length)
+    {
+        checkRemaining(length);
+        while (length > 0)
+        {
+            int available = _lengths[_region] - _regionPosition;
+            if (available == 0)
+            {
+                _region++;
+                _regionPosition = 0;
+                continue;
+            }
+
+            int size = Math.min(available, length);
+            System.arraycopy(_arrays[_region], _offsets[_region] + _regionPosition, data, offset, size);
+            _regionPosition += size;
+            _position += size;
+            offset += size;
+            length -= size;
+        }
+        return this;
+    }
+
+    /**
+     * Copies the next {@code length} bytes into the given buffer, advancing the position past them.
+     */
+    public CompositeReadableBuffer get(WritableBuffer target, int length)
+    {
+        checkRemaining(length);
+        while (length > 0)
+        {
+            int available = _lengths[_region] - _regionPosition;
+            if (available == 0)
+            {
+                _region++;
+                _regionPosition = 0;
+                continue;
+            }
+
+            int size = Math.min(available, length);
+            target.put(_arrays[_region], _offsets[_region] + _regionPosition, size);
+            _regionPosition += size;
+            _position += size;
+            length -= size;
+        }
+        return this;
+    }
+
+    @Override
+    public ReadableBuffer get(byte[] data)
+    {
+        return get(data, 0, data.length);
+    }
+
+    @Override
+    public ReadableBuffer position(int position)
+    {
+        if (position < 0 || position > _limit)
+        {
+            throw new IllegalArgumentException("Position " + position + " is outside the limit " + _limit);
+        }
+
+        _position = position;
+        _region = 0;
+        while (_region < _regions - 1 && position > _lengths[_region])
+        {
+            position -= _lengths[_region];
+            _region++;
+        }
+        _regionPosition = position;
+        return this;
+    }
+
+    /**
+     * Returns a buffer over the remaining content of this one, sharing the underlying arrays.
+     */
+    @Override
+    public CompositeReadableBuffer slice()
+    {
+        if (!hasRemaining())
+        {
+            return new CompositeReadableBuffer();
+        }
+
+        // find the region holding the last byte before the limit
+        int lastRegion = _region;
+        int end = _regionPosition + remaining();
+        while (end > _lengths[lastRegion])
+        {
+            end -= _lengths[lastRegion];
+            lastRegion++;
+        }
+        return new CompositeReadableBuffer(this, _region, _regionPosition, lastRegion, end);
+    }
+
+    @Override
+    public ReadableBuffer flip()
+    {
+        _limit = _position;
+        return position(0);
+    }
+
+    @Override
+    public ReadableBuffer limit(int limit)
+    {
+        if (limit < 0 || limit > _capacity)
+        {
+            throw new IllegalArgumentException("Limit " + limit + " is outside the capacity " + _capacity);
+        }
+
+        _limit = limit;
+        if (_position > limit)
+        {
+            position(limit);
+        }
+        return this;
+    }
+
+    @Override
+    public int limit()
+    {
+        return _limit;
+    }
+
+    @Override
+    public int remaining()
+    {
+        return _limit - _position;
+    }
+
+    @Override
+    public int position()
+    {
+        return _position;
+    }
+
+    @Override
+    public boolean hasRemaining()
+    {
+        return _position < _limit;
+    }
+
+    @Override
+    public CompositeReadableBuffer duplicate()
+    {
+        CompositeReadableBuffer duplicate = new CompositeReadableBuffer(this, 0, 0, _regions - 1,
+                                                                        _regions == 0 ? 0 : _lengths[_regions - 1]);
+        duplicate._limit = _limit;
+        duplicate._position = _position;
+        duplicate._region = _region;
+        duplicate._regionPosition = _regionPosition;
+        return duplicate;
+    }
+
+    /**
+     * Returns a read only {@link ByteBuffer} holding the remaining content, without changing the
+     * position of this buffer. The content is only copied if it spans more than one region.
+     */
+    @Override
+    public ByteBuffer byteBuffer()
+    {
+        int remaining = remaining();
+        int region = _region;
+        int regionPosition = _regionPosition;
+        while (region < _regions - 1 && regionPosition == _lengths[region])
+        {
+            region++;
+            regionPosition = 0;
+        }
+
+        if (remaining == 0 || _lengths[region] - regionPosition >= remaining)
+        {
+            byte[] array = _regions == 0 ? new byte[0] : _arrays[region];
+            int offset = _regions == 0 ? 0 : _offsets[region] + regionPosition;
+            return ByteBuffer.wrap(array, offset, remaining).slice().asReadOnlyBuffer();
+        }
+
+        byte[] copy = new byte[remaining];
+        duplicate().get(copy);
+        return ByteBuffer.wrap(copy).asReadOnlyBuffer();
+    }
+
+    @Override
+    public String readUTF8()
+    {
+        byte[] bytes = new byte[remaining()];
+        get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void checkRemaining(int length)
+    {
+        if (remaining() < length)
+        {
+            throw new BufferUnderflowException();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CompositeReadableBuffer[position=" + _position + ", limit=" + _limit
+               + ", capacity=" + _capacity + ", regions=" + _regions + "]";
+    }
+}
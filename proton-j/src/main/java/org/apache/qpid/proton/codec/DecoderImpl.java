@@ -32,6 +32,7 @@ import org.apache.qpid.proton.amqp.UnsignedLong;
 import org.apache.qpid.proton.amqp.UnsignedShort;
 
 import java.lang.reflect.Array;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.util.*;
 
@@ -42,6 +43,20 @@ public class DecoderImpl implements ByteBufferDecoder
     private PrimitiveTypeEncoding[] _constructors = new PrimitiveTypeEncoding[256];
     private Map<Object, DescribedTypeConstructor> _dynamicTypeConstructors =
             new HashMap<Object, DescribedTypeConstructor>();
+    private Map<Object, FastPathTypeConstructor[]> _fastPathTypeConstructors =
+            new HashMap<Object, FastPathTypeConstructor[]>();
+    private boolean _binaryViews;
+    private boolean _recyclePerformatives;
+
+    private static final int STRING_CACHE_SIZE = 256;
+    private static final int MAX_CACHED_STRING_SIZE = 64;
+    // the largest string the scratch arrays are kept for, as a decoder may be held by its thread
+    // for good, larger strings are decoded through arrays of their own
+    private static final int MAX_SCRATCH_STRING_SIZE = 4096;
+
+    private char[] _chars = new char[MAX_CACHED_STRING_SIZE];
+    private byte[] _bytes;
+    private String[] _stringCache;
 
 
     public DecoderImpl()
@@ -56,11 +71,29 @@ public class DecoderImpl implements ByteBufferDecoder
 
     TypeConstructor readConstructor()
     {
-        int code = ((int)readRawByte()) & 0xff;
+        return readConstructor(((int)readRawByte()) & 0xff);
+    }
+
+    private TypeConstructor readConstructor(final int code)
+    {
         if(code == EncodingCodes.DESCRIBED_TYPE_INDICATOR)
         {
             final Object descriptor = readObject();
-            TypeConstructor nestedEncoding = readConstructor();
+            final int nestedCode = ((int)readRawByte()) & 0xff;
+            FastPathTypeConstructor[] fastPathConstructors = _fastPathTypeConstructors.get(descriptor);
+            if(fastPathConstructors != null)
+            {
+                switch(nestedCode)
+                {
+                    case EncodingCodes.LIST0 & 0xff:
+                        return fastPathConstructors[0];
+                    case EncodingCodes.LIST8 & 0xff:
+                        return fastPathConstructors[1];
+                    case EncodingCodes.LIST32 & 0xff:
+                        return fastPathConstructors[2];
+                }
+            }
+            TypeConstructor nestedEncoding = readConstructor(nestedCode);
             DescribedTypeConstructor dtc = _dynamicTypeConstructors.get(descriptor);
             if(dtc == null)
             {
@@ -90,6 +123,19 @@ public class DecoderImpl implements ByteBufferDecoder
     public void register(final Object descriptor, final DescribedTypeConstructor dtc)
     {
         _dynamicTypeConstructors.put(descriptor, dtc);
+        if(dtc instanceof FastPathDescribedTypeConstructor)
+        {
+            FastPathDescribedTypeConstructor fastPath = (FastPathDescribedTypeConstructor) dtc;
+            _fastPathTypeConstructors.put(descriptor, new FastPathTypeConstructor[] {
+                new FastPathTypeConstructor(this, fastPath, EncodingCodes.LIST0),
+                new FastPathTypeConstructor(this, fastPath, EncodingCodes.LIST8),
+                new FastPathTypeConstructor(this, fastPath, EncodingCodes.LIST32)
+            });
+        }
+        else
+        {
+            _fastPathTypeConstructors.remove(descriptor);
+        }
     }
 
     private ClassCastException unexpectedType(final Object val, Class clazz)
@@ -893,6 +939,64 @@ public class DecoderImpl implements ByteBufferDecoder
         return val == null ? defaultValue : val;
     }
 
+    /**
+     * Moves past the next encoded value without decoding it, using only the constructor and
+     * any size prefix of the value to work out how many bytes it occupies.
+     */
+    public void skipValue()
+    {
+        int code = ((int)readRawByte()) & 0xff;
+        if(code == EncodingCodes.DESCRIBED_TYPE_INDICATOR)
+        {
+            // the descriptor followed by the described value
+            skipValue();
+            skipValue();
+            return;
+        }
+
+        int size;
+        switch(code >>> 4)
+        {
+            case 0x4:
+                size = 0;
+                break;
+            case 0x5:
+                size = 1;
+                break;
+            case 0x6:
+                size = 2;
+                break;
+            case 0x7:
+                size = 4;
+                break;
+            case 0x8:
+                size = 8;
+                break;
+            case 0x9:
+                size = 16;
+                break;
+            case 0xa:
+            case 0xc:
+            case 0xe:
+                size = ((int)readRawByte()) & 0xff;
+                break;
+            case 0xb:
+            case 0xd:
+            case 0xf:
+                size = readRawInt();
+                break;
+            default:
+                throw new DecodeException("Unknown constructor");
+        }
+
+        if(size < 0 || size > _buffer.remaining())
+        {
+            throw new DecodeException("Encoded size " + size + " is greater than the amount of data available ("
+                                      + _buffer.remaining() + ")");
+        }
+        _buffer.position(_buffer.position() + size);
+    }
+
     <V> void register(PrimitiveType<V> type)
     {
         Collection<? extends PrimitiveTypeEncoding<V>> encodings = type.getAllEncodings();
@@ -940,6 +1044,112 @@ public class DecoderImpl implements ByteBufferDecoder
     }
 
 
+    Binary readRawBinary(final int size)
+    {
+        if(_binaryViews && _buffer.hasArray())
+        {
+            if(size > _buffer.remaining())
+            {
+                throw new BufferUnderflowException();
+            }
+            int position = _buffer.position();
+            _buffer.position(position + size);
+            return new Binary(_buffer.array(), _buffer.arrayOffset() + position, size);
+        }
+
+        byte[] data = new byte[size];
+        _buffer.get(data, 0, size);
+        return new Binary(data);
+    }
+
+    String readRawString(final int size)
+    {
+        if(size > _buffer.remaining())
+        {
+            throw new IllegalArgumentException("String size " + size + " is specified to be greater than the amount of data available ("
+                                               + _buffer.remaining() + ")");
+        }
+
+        final byte[] bytes;
+        final int offset;
+        final int position = _buffer.position();
+        if(_buffer.hasArray())
+        {
+            bytes = _buffer.array();
+            offset = _buffer.arrayOffset() + position;
+            _buffer.position(position + size);
+        }
+        else
+        {
+            if(size > MAX_SCRATCH_STRING_SIZE)
+            {
+                bytes = new byte[size];
+            }
+            else
+            {
+                if(_bytes == null || _bytes.length < size)
+                {
+                    _bytes = new byte[Math.max(size, MAX_CACHED_STRING_SIZE)];
+                }
+                bytes = _bytes;
+            }
+            offset = 0;
+            _buffer.get(bytes, 0, size);
+        }
+
+        int cacheIndex = -1;
+        if(_stringCache != null && size <= MAX_CACHED_STRING_SIZE)
+        {
+            int hash = 0;
+            for(int i = offset; i < offset + size; i++)
+            {
+                hash = 31 * hash + bytes[i];
+            }
+            cacheIndex = (hash ^ (hash >>> 16)) & (STRING_CACHE_SIZE - 1);
+
+            String cached = _stringCache[cacheIndex];
+            if(cached != null && isAsciiEqual(cached, bytes, offset, size))
+            {
+                return cached;
+            }
+        }
+
+        char[] chars = _chars;
+        if(size > MAX_SCRATCH_STRING_SIZE)
+        {
+            chars = new char[size];
+        }
+        else if(chars.length < size)
+        {
+            chars = _chars = new char[size];
+        }
+        final int count = StringType.decodeUTF8(bytes, offset, size, chars);
+        final String value = new String(chars, 0, count);
+
+        // only ascii strings are cached, so that a hit can be checked without decoding
+        if(cacheIndex >= 0 && count == size)
+        {
+            _stringCache[cacheIndex] = value;
+        }
+        return value;
+    }
+
+    private static boolean isAsciiEqual(final String string, final byte[] bytes, final int offset, final int size)
+    {
+        if(string.length() != size)
+        {
+            return false;
+        }
+        for(int i = 0; i < size; i++)
+        {
+            if(string.charAt(i) != bytes[offset + i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
     <V> V readRaw(TypeDecoder<V> decoder, int size)
     {
         V decode = decoder.decode((ByteBuffer) _buffer.slice().limit(size));
@@ -952,6 +1162,69 @@ public class DecoderImpl implements ByteBufferDecoder
         _buffer = buffer;
     }
 
+    ByteBuffer getBuffer()
+    {
+        return _buffer;
+    }
+
+    /**
+     * Sets whether decoded {@link Binary} values, including the content of {@link
+     * org.apache.qpid.proton.amqp.messaging.Data} sections, refer directly to the bytes of the
+     * buffer being decoded rather than to a copy of them. Views are only returned for buffers
+     * backed by an accessible array, values decoded from other buffers are always copied.
+     *
+     * A view is only valid for as long as the content of the buffer it was decoded from is left
+     * unchanged. Values which must outlive that should be retained with {@link Binary#copy()}.
+     *
+     * @param binaryViews true to decode binary values as views of the buffer, false to copy them
+     */
+    public void setBinaryViews(final boolean binaryViews)
+    {
+        _binaryViews = binaryViews;
+    }
+
+    public boolean isBinaryViews()
+    {
+        return _binaryViews;
+    }
+
+    /**
+     * Sets whether short ascii strings are cached as they are decoded, so that a string which
+     * is decoded again, such as an address or content type repeated on every message, is
+     * returned from the cache rather than being decoded and allocated afresh. The cache holds a
+     * fixed number of the most recently decoded strings.
+     *
+     * @param stringCaching true to cache decoded strings, false to decode every string afresh
+     */
+    public void setStringCaching(final boolean stringCaching)
+    {
+        _stringCache = stringCaching ? new String[STRING_CACHE_SIZE] : null;
+    }
+
+    public boolean isStringCaching()
+    {
+        return _stringCache != null;
+    }
+
+    /**
+     * Sets whether transfer, flow and disposition performatives are decoded into one instance of
+     * each kept by this decoder, rather than into a new instance for every frame. A recycled
+     * performative is only valid until the next one of its kind is decoded, so one which must
+     * outlive that should be retained with its {@code copy()} method.
+     *
+     * @param recyclePerformatives true to decode into recycled performatives, false to decode
+     * each one afresh
+     */
+    public void setRecyclePerformatives(final boolean recyclePerformatives)
+    {
+        _recyclePerformatives = recyclePerformatives;
+    }
+
+    public boolean isRecyclePerformatives()
+    {
+        return _recyclePerformatives;
+    }
+
     interface TypeDecoder<V>
     {
         V decode(ByteBuffer buf);
@@ -21,11 +21,13 @@
 package org.apache.qpid.proton.codec;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.qpid.proton.amqp.Binary;
 import org.apache.qpid.proton.amqp.Decimal128;
@@ -41,6 +43,23 @@ import org.apache.qpid.proton.amqp.UnsignedShort;
 public final class EncoderImpl implements ByteBufferEncoder
 {
     private static final byte DESCRIBED_TYPE_OP = (byte)0;
+    private static final int INITIAL_CLASS_TYPES = 32;
+
+    /**
+     * Gives every class written by any encoder a small index into the per encoder table of resolved
+     * types. The value deliberately holds no reference to an encoder, as that would keep the encoder
+     * reachable from the class for as long as the class is loaded.
+     */
+    private static final ClassValue<Integer> CLASS_INDEX = new ClassValue<Integer>()
+    {
+        private final AtomicInteger _nextIndex = new AtomicInteger();
+
+        @Override
+        protected Integer computeValue(final Class<?> clazz)
+        {
+            return _nextIndex.getAndIncrement();
+        }
+    };
 
 
     private WritableBuffer _buffer;
@@ -49,6 +68,10 @@ public final class EncoderImpl implements ByteBufferEncoder
     private Map<Object, AMQPType> _describedDescriptorRegistry = new HashMap<Object, AMQPType>();
     private Map<Class, AMQPType>  _describedTypesClassRegistry = new HashMap<Class, AMQPType>();
 
+    // the types resolved by this encoder, indexed by CLASS_INDEX
+    private AMQPType[] _classTypes = new AMQPType[INITIAL_CLASS_TYPES];
+    private boolean[] _classTypesResolved = new boolean[INITIAL_CLASS_TYPES];
+
     private final NullType              _nullType;
     private final BooleanType           _booleanType;
     private final ByteType              _byteType;
@@ -143,60 +166,150 @@ public final class EncoderImpl implements ByteBufferEncoder
         _buffer = buf;
     }
 
+    WritableBuffer getBuffer()
+    {
+        return _buffer;
+    }
+
+    /**
+     * Returns the number of bytes {@link #writeObject(Object)} writes for the given object, so
+     * that space for it can be made before it is written.
+     */
+    public int getEncodedSize(final Object o)
+    {
+        AMQPType type = getType(o);
+        if(type == null)
+        {
+            throw new IllegalArgumentException("Do not know how to write Objects of class " + o.getClass().getName());
+        }
+        if(type instanceof AbstractDescribedType)
+        {
+            return ((AbstractDescribedType) type).getEncodedSize(o);
+        }
+
+        TypeEncoding encoding = type.getEncoding(o);
+        return encoding.getConstructorSize() + encoding.getValueSize(o);
+    }
+
 
     @Override
     public AMQPType getType(final Object element)
     {
-        if(element instanceof DescribedType)
+        if(element == null)
         {
-            AMQPType amqpType;
-
-            Object descriptor = ((DescribedType)element).getDescriptor();
-            amqpType = _describedDescriptorRegistry.get(descriptor);
-            if(amqpType == null)
-            {
-                amqpType = new DynamicDescribedType(this, descriptor);
-                _describedDescriptorRegistry.put(descriptor, amqpType);
-            }
-            return amqpType;
+            return _nullType;
+        }
 
+        final Class<?> clazz = element.getClass();
+        if(clazz == String.class)
+        {
+            return _stringType;
         }
-        else
+        else if(clazz == Symbol.class)
         {
-            return getTypeFromClass(element == null ? Void.class : element.getClass());
+            return _symbolType;
         }
+        else if(clazz == Long.class)
+        {
+            return _longType;
+        }
+        else if(clazz == Integer.class)
+        {
+            return _integerType;
+        }
+        else if(clazz == Boolean.class)
+        {
+            return _booleanType;
+        }
+        else if(clazz == UnsignedInteger.class)
+        {
+            return _unsignedIntegerType;
+        }
+        else if(clazz == Binary.class)
+        {
+            return _binaryType;
+        }
+
+        AMQPType amqpType = lookupType(clazz);
+        if(amqpType == null)
+        {
+            if(element instanceof DescribedType)
+            {
+                Object descriptor = ((DescribedType)element).getDescriptor();
+                amqpType = _describedDescriptorRegistry.get(descriptor);
+                if(amqpType == null)
+                {
+                    amqpType = new DynamicDescribedType(this, descriptor);
+                    _describedDescriptorRegistry.put(descriptor, amqpType);
+                }
+            }
+            else if(clazz.isArray())
+            {
+                amqpType = _arrayType;
+            }
+        }
+        return amqpType;
     }
 
     public AMQPType getTypeFromClass(final Class clazz)
     {
-        AMQPType amqpType = _typeRegistry.get(clazz);
+        AMQPType amqpType = lookupType(clazz);
         if(amqpType == null)
         {
-
             if(clazz.isArray())
             {
                 amqpType = _arrayType;
             }
-            else
+            else if(DescribedType.class.isAssignableFrom(clazz))
             {
-                if(List.class.isAssignableFrom(clazz))
-                {
-                    amqpType = _listType;
-                }
-                else if(Map.class.isAssignableFrom(clazz))
-                {
-                    amqpType = _mapType;
-                }
-                else if(DescribedType.class.isAssignableFrom(clazz))
-                {
-                    amqpType = _describedTypesClassRegistry.get(clazz);
-                }
+                amqpType = _describedTypesClassRegistry.get(clazz);
+            }
+        }
+        return amqpType;
+    }
+
+    /**
+     * Resolves the type used for instances of the given class: the registered type, or the list or
+     * map type for implementations of those interfaces. Arrays and {@link DescribedType}s resolve to
+     * null here as their type depends on the component type or the descriptor.
+     */
+    private AMQPType resolveType(final Class<?> clazz)
+    {
+        AMQPType amqpType = _typeRegistry.get(clazz);
+        if(amqpType == null && !clazz.isArray() && !DescribedType.class.isAssignableFrom(clazz))
+        {
+            if(List.class.isAssignableFrom(clazz))
+            {
+                amqpType = _listType;
+            }
+            else if(Map.class.isAssignableFrom(clazz))
+            {
+                amqpType = _mapType;
             }
-            _typeRegistry.put(clazz, amqpType);
         }
         return amqpType;
     }
 
+    private AMQPType lookupType(final Class<?> clazz)
+    {
+        final int index = CLASS_INDEX.get(clazz);
+        if(index < _classTypes.length && _classTypesResolved[index])
+        {
+            return _classTypes[index];
+        }
+
+        AMQPType amqpType = resolveType(clazz);
+        if(index >= _classTypes.length)
+        {
+            int length = Math.max(index + 1, _classTypes.length * 2);
+            _classTypes = Arrays.copyOf(_classTypes, length);
+            _classTypesResolved = Arrays.copyOf(_classTypesResolved, length);
+        }
+        _classTypes[index] = amqpType;
+        _classTypesResolved[index] = true;
+        return amqpType;
+    }
+
     @Override
     public <V> void register(AMQPType<V> type)
     {
@@ -206,6 +319,8 @@ public final class EncoderImpl implements ByteBufferEncoder
     <T> void register(Class<T> clazz, AMQPType<T> type)
     {
         _typeRegistry.put(clazz, type);
+        // anything resolved so far may now resolve differently
+        Arrays.fill(_classTypesResolved, false);
     }
 
     public void registerDescribedType(Class clazz, Object descriptor)
@@ -488,6 +603,25 @@ public final class EncoderImpl implements ByteBufferEncoder
         }
     }
 
+    /**
+     * Writes the given range of bytes as a binary value, encoded as {@link #writeBinary(Binary)}
+     * would encode it, without the bytes having to be wrapped in a {@link Binary}.
+     */
+    public void writeBinary(final byte[] data, final int offset, final int length)
+    {
+        if(length <= 255)
+        {
+            writeRaw(EncodingCodes.VBIN8);
+            writeRaw((byte) length);
+        }
+        else
+        {
+            writeRaw(EncodingCodes.VBIN32);
+            writeRaw(length);
+        }
+        writeRaw(data, offset, length);
+    }
+
     public void writeString(final String s)
     {
         if(s == null)
@@ -662,13 +796,56 @@ public final class EncoderImpl implements ByteBufferEncoder
 
     public void writeObject(final Object o)
     {
-        AMQPType type = _typeRegistry.get(o == null ? Void.class : o.getClass());
+        if(o == null)
+        {
+            _nullType.write();
+            return;
+        }
+
+        final Class<?> clazz = o.getClass();
+        if(clazz == String.class)
+        {
+            _stringType.write((String) o);
+            return;
+        }
+        else if(clazz == Symbol.class)
+        {
+            _symbolType.write((Symbol) o);
+            return;
+        }
+        else if(clazz == Long.class)
+        {
+            _longType.write(((Long) o).longValue());
+            return;
+        }
+        else if(clazz == Integer.class)
+        {
+            _integerType.write(((Integer) o).intValue());
+            return;
+        }
+        else if(clazz == Boolean.class)
+        {
+            _booleanType.writeValue(((Boolean) o).booleanValue());
+            return;
+        }
+        else if(clazz == UnsignedInteger.class)
+        {
+            _unsignedIntegerType.write((UnsignedInteger) o);
+            return;
+        }
+        else if(clazz == Binary.class)
+        {
+            _binaryType.write((Binary) o);
+            return;
+        }
+
+        AMQPType type = lookupType(clazz);
 
         if(type == null)
         {
-            if(o.getClass().isArray())
+            if(clazz.isArray())
             {
-                Class<?> componentType = o.getClass().getComponentType();
+                Class<?> componentType = clazz.getComponentType();
                 if(componentType.isPrimitive())
                 {
                     if(componentType == Boolean.TYPE)
@@ -713,22 +890,13 @@ public final class EncoderImpl implements ByteBufferEncoder
                     writeArray((Object[]) o);
                 }
             }
-            else if(o instanceof List)
-            {
-                writeList((List)o);
-            }
-            else if(o instanceof Map)
-            {
-                writeMap((Map)o);
-            }
             else if(o instanceof DescribedType)
             {
                 writeDescribedType((DescribedType)o);
             }
             else
             {
-                throw new IllegalArgumentException("Do not know how to write Objects of class " + o.getClass()
-                                                                                                       .getName());
+                throw new IllegalArgumentException("Do not know how to write Objects of class " + clazz.getName());
 
             }
         }
@@ -0,0 +1,44 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.proton.codec;
+
+/**
+ * A {@link DescribedTypeConstructor} for a described list type which can build its value
+ * directly from the encoded fields, rather than from a {@link java.util.List} holding every
+ * field already decoded.
+ *
+ * When a type implementing this interface is registered with a {@link DecoderImpl} and a value
+ * of it is encoded using one of the list encodings, the decoder reads the list header and then
+ * hands over to {@link #readFields(DecoderImpl, int)}. Any other encoding of the described value
+ * is still passed to {@link #newInstance(Object)}.
+ */
+public interface FastPathDescribedTypeConstructor<V> extends DescribedTypeConstructor<V>
+{
+    /**
+     * Reads the fields of one value, the decoder being positioned at the first of them.
+     *
+     * @param decoder the decoder to read the fields from
+     * @param count the number of fields in the encoded list, all of which must be consumed
+     *
+     * @return the decoded value
+     */
+    V readFields(DecoderImpl decoder, int count);
+}
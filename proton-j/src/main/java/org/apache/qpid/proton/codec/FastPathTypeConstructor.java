@@ -0,0 +1,88 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.proton.codec;
+
+/**
+ * Reads a described list value for a {@link FastPathDescribedTypeConstructor}, taking care of
+ * the header of one particular list encoding before the fields themselves are read.
+ */
+class FastPathTypeConstructor implements TypeConstructor
+{
+    private final DecoderImpl _decoder;
+    private final FastPathDescribedTypeConstructor _describedTypeConstructor;
+    private final byte _encodingCode;
+
+    FastPathTypeConstructor(final DecoderImpl decoder,
+                            final FastPathDescribedTypeConstructor dtc,
+                            final byte encodingCode)
+    {
+        _decoder = decoder;
+        _describedTypeConstructor = dtc;
+        _encodingCode = encodingCode;
+    }
+
+    public Object readValue()
+    {
+        final int count;
+        switch(_encodingCode)
+        {
+            case EncodingCodes.LIST0:
+                count = 0;
+                break;
+            case EncodingCodes.LIST8:
+                // skip the size, the fields are read in full
+                _decoder.readRawByte();
+                count = ((int)_decoder.readRawByte()) & 0xff;
+                break;
+            default:
+                _decoder.readRawInt();
+                count = _decoder.readRawInt();
+                // Ensure we do not try to read more fields than there is data available
+                if (count > _decoder.getByteBufferRemaining()) {
+                    throw new IllegalArgumentException("List element count "+count+" is specified to be greater than the amount of data available ("+
+                                                       _decoder.getByteBufferRemaining()+")");
+                }
+        }
+
+        try
+        {
+            return _describedTypeConstructor.readFields(_decoder, count);
+        }
+        catch (NullPointerException npe)
+        {
+            throw new DecodeException("Unexpected null value - mandatory field not set? ("+npe.getMessage()+")", npe);
+        }
+        catch (ClassCastException cce)
+        {
+            throw new DecodeException("Incorrect type used", cce);
+        }
+    }
+
+    public boolean encodesJavaPrimitive()
+    {
+        return false;
+    }
+
+    public Class getTypeClass()
+    {
+        return _describedTypeConstructor.getTypeClass();
+    }
+}
@@ -20,37 +20,13 @@
  */
 package org.apache.qpid.proton.codec;
 
-import java.nio.ByteBuffer;
-import java.nio.CharBuffer;
-import java.nio.charset.CharacterCodingException;
-import java.nio.charset.Charset;
-import java.nio.charset.CharsetDecoder;
 import java.util.Arrays;
 import java.util.Collection;
 
 public class StringType extends AbstractPrimitiveType<String>
 {
-    private static final Charset Charset_UTF8 = Charset.forName("UTF-8");
-    private static final DecoderImpl.TypeDecoder<String> _stringCreator =
-            new DecoderImpl.TypeDecoder<String>()
-            {
-
-                public String decode(final ByteBuffer buf)
-                {
-                    CharsetDecoder charsetDecoder = Charset_UTF8.newDecoder();
-                    try
-                    {
-                        CharBuffer charBuf = charsetDecoder.decode(buf);
-                        return charBuf.toString();
-                    }
-                    catch (CharacterCodingException e)
-                    {
-                        throw new IllegalArgumentException("Cannot parse String");
-                    }
-
-                }
-            };
-
+    // strings of up to this many chars always fit the short encoding, whatever their content
+    private static final int MAX_SHORT_STRING_CHARS = 255 / 3;
 
     public static interface StringEncoding extends PrimitiveTypeEncoding<String>
     {
@@ -59,9 +35,11 @@ public class StringType extends AbstractPrimitiveType<String>
 
     private final StringEncoding _stringEncoding;
     private final StringEncoding _shortStringEncoding;
+    private final EncoderImpl _encoder;
 
     StringType(final EncoderImpl encoder, final DecoderImpl decoder)
     {
+        _encoder = encoder;
         _stringEncoding = new AllStringEncoding(encoder, decoder);
         _shortStringEncoding = new ShortStringEncoding(encoder, decoder);
         encoder.register(String.class, this);
@@ -83,6 +61,72 @@ public class StringType extends AbstractPrimitiveType<String>
         return encoding;
     }
 
+    /**
+     * Writes the given string in a single pass, reserving space for the size and going back to
+     * fill it in once the string has been written, rather than calculating its encoded length
+     * beforehand. Strings which might or might not fit the short encoding are written using it
+     * first, and written again using the long encoding should they turn out not to fit.
+     */
+    @Override
+    public void write(final String val)
+    {
+        final EncoderImpl encoder = _encoder;
+        final WritableBuffer buffer = encoder.getBuffer();
+        final int chars = val.length();
+        if(chars <= MAX_SHORT_STRING_CHARS)
+        {
+            writeShortString(val, encoder, buffer);
+        }
+        else if(chars <= 255)
+        {
+            final int start = buffer.position();
+            if(!writeShortString(val, encoder, buffer))
+            {
+                buffer.position(start);
+                writeString(val, encoder, buffer);
+            }
+        }
+        else
+        {
+            writeString(val, encoder, buffer);
+        }
+    }
+
+    private static boolean writeShortString(final String val, EncoderImpl encoder, WritableBuffer buffer)
+    {
+        encoder.writeRaw(EncodingCodes.STR8);
+        final int sizePosition = buffer.position();
+        encoder.writeRaw((byte) 0);
+
+        encoder.writeRaw(val);
+
+        final int end = buffer.position();
+        final int size = end - sizePosition - 1;
+        if(size > 255)
+        {
+            return false;
+        }
+
+        buffer.position(sizePosition);
+        encoder.writeRaw((byte) size);
+        buffer.position(end);
+        return true;
+    }
+
+    private static void writeString(final String val, EncoderImpl encoder, WritableBuffer buffer)
+    {
+        encoder.writeRaw(EncodingCodes.STR32);
+        final int sizePosition = buffer.position();
+        encoder.writeRaw(0);
+
+        encoder.writeRaw(val);
+
+        final int end = buffer.position();
+        buffer.position(sizePosition);
+        encoder.writeRaw(end - sizePosition - 4);
+        buffer.position(end);
+    }
+
     static int calculateUTF8Length(final String s)
     {
         int len = s.length();
@@ -108,6 +152,83 @@ public class StringType extends AbstractPrimitiveType<String>
     }
 
 
+    /**
+     * Decodes the given UTF-8 bytes into the given array, which must have room for at least as
+     * many chars as there are bytes, returning the number of chars decoded. Malformed input,
+     * including overlong forms and encoded surrogates, is rejected.
+     */
+    static int decodeUTF8(final byte[] src, final int offset, final int length, final char[] dst)
+    {
+        final int end = offset + length;
+        int i = offset;
+        int count = 0;
+
+        while(i < end && src[i] >= 0)
+        {
+            dst[count++] = (char) src[i++];
+        }
+
+        while(i < end)
+        {
+            int b = src[i++];
+            if(b >= 0)
+            {
+                dst[count++] = (char) b;
+            }
+            else if((b & 0xE0) == 0xC0 && b >= (byte) 0xC2)
+            {
+                if(i >= end)
+                {
+                    throw new IllegalArgumentException("Cannot parse String");
+                }
+                dst[count++] = (char) (((b & 0x1F) << 6) | continuation(src[i++]));
+            }
+            else if((b & 0xF0) == 0xE0)
+            {
+                if(i + 1 >= end)
+                {
+                    throw new IllegalArgumentException("Cannot parse String");
+                }
+                int c = ((b & 0x0F) << 12) | (continuation(src[i++]) << 6) | continuation(src[i++]);
+                if(c < 0x800 || (c >= 0xD800 && c <= 0xDFFF))
+                {
+                    throw new IllegalArgumentException("Cannot parse String");
+                }
+                dst[count++] = (char) c;
+            }
+            else if((b & 0xF8) == 0xF0)
+            {
+                if(i + 2 >= end)
+                {
+                    throw new IllegalArgumentException("Cannot parse String");
+                }
+                int c = ((b & 0x07) << 18) | (continuation(src[i++]) << 12)
+                        | (continuation(src[i++]) << 6) | continuation(src[i++]);
+                if(c < 0x10000 || c > Character.MAX_CODE_POINT)
+                {
+                    throw new IllegalArgumentException("Cannot parse String");
+                }
+                dst[count++] = Character.highSurrogate(c);
+                dst[count++] = Character.lowSurrogate(c);
+            }
+            else
+            {
+                throw new IllegalArgumentException("Cannot parse String");
+            }
+        }
+
+        return count;
+    }
+
+    private static int continuation(final byte b)
+    {
+        if((b & 0xC0) != 0x80)
+        {
+            throw new IllegalArgumentException("Cannot parse String");
+        }
+        return b & 0x3F;
+    }
+
     public StringEncoding getCanonicalEncoding()
     {
         return _stringEncoding;
@@ -166,7 +287,7 @@ public class StringType extends AbstractPrimitiveType<String>
 
             DecoderImpl decoder = getDecoder();
             int size = decoder.readRawInt();
-            return decoder.readRaw(_stringCreator, size);
+            return decoder.readRawString(size);
         }
 
         public void setValue(final String val, final int length)
@@ -225,7 +346,7 @@ public class StringType extends AbstractPrimitiveType<String>
 
             DecoderImpl decoder = getDecoder();
             int size = ((int)decoder.readRawByte()) & 0xff;
-            return decoder.readRaw(_stringCreator, size);
+            return decoder.readRawString(size);
         }
 
         public void setValue(final String val, final int length)
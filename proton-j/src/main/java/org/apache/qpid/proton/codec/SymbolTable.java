@@ -0,0 +1,150 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.proton.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import org.apache.qpid.proton.amqp.Symbol;
+
+/**
+ * A fixed size table of recently decoded symbols, shared by all decoders, which finds the
+ * symbol for an encoded value by hashing and comparing the encoded bytes where they lie, so
+ * that decoding a symbol found in the table allocates nothing.
+ *
+ * The table is two way set associative. Symbols which were already known before they were
+ * decoded, such as descriptors and the symbols defined by the specification or created by the
+ * application, are preferred over others when making room for a new entry, so that a peer
+ * sending arbitrary symbols can neither grow the table nor push the well known symbols out of
+ * it. Symbols which were not already known are not interned, see
+ * {@link Symbol#getSymbol(String, boolean)}.
+ *
+ * Entries are immutable and the table is read and updated without locking; a lookup racing
+ * with an update may simply miss, and a racing update may be lost.
+ */
+final class SymbolTable
+{
+    private static final Charset ASCII_CHARSET = Charset.forName("US-ASCII");
+
+    private static final int DEFAULT_SETS = 512;
+
+    static final SymbolTable SHARED = new SymbolTable(DEFAULT_SETS);
+
+    private static final class Entry
+    {
+        private final Symbol _symbol;
+        private final boolean _wellKnown;
+
+        Entry(final Symbol symbol, final boolean wellKnown)
+        {
+            _symbol = symbol;
+            _wellKnown = wellKnown;
+        }
+    }
+
+    private final Entry[] _entries;
+    private final int _mask;
+
+    SymbolTable(final int sets)
+    {
+        if(Integer.bitCount(sets) != 1)
+        {
+            throw new IllegalArgumentException("Number of sets must be a power of two: " + sets);
+        }
+        _entries = new Entry[2 * sets];
+        _mask = sets - 1;
+    }
+
+    /**
+     * Returns the symbol encoded by the given bytes of the buffer, leaving the buffer position
+     * unchanged.
+     */
+    Symbol getSymbol(final ByteBuffer buffer, final int offset, final int length)
+    {
+        int hash = 0;
+        for(int i = offset; i < offset + length; i++)
+        {
+            hash = 31 * hash + buffer.get(i);
+        }
+        final int index = ((hash ^ (hash >>> 16)) & _mask) << 1;
+
+        final Entry[] entries = _entries;
+        Entry first = entries[index];
+        if(first != null && matches(first._symbol, buffer, offset, length))
+        {
+            return first._symbol;
+        }
+        Entry second = entries[index + 1];
+        if(second != null && matches(second._symbol, buffer, offset, length))
+        {
+            return second._symbol;
+        }
+
+        final byte[] bytes = new byte[length];
+        for(int i = 0; i < length; i++)
+        {
+            bytes[i] = buffer.get(offset + i);
+        }
+        final String value = new String(bytes, ASCII_CHARSET);
+
+        Symbol symbol = Symbol.lookup(value);
+        final boolean wellKnown = symbol != null;
+        if(!wellKnown)
+        {
+            symbol = Symbol.getSymbol(value, false);
+        }
+
+        final Entry entry = new Entry(symbol, wellKnown);
+        if(first == null || (second != null && !first._wellKnown && second._wellKnown))
+        {
+            entries[index] = entry;
+        }
+        else if(second == null || !second._wellKnown || wellKnown)
+        {
+            // the most recent entry goes first, so a well known symbol displaces the older one
+            entries[index + 1] = first;
+            entries[index] = entry;
+        }
+        return symbol;
+    }
+
+    Symbol peek(final int entry)
+    {
+        Entry e = _entries[entry];
+        return e == null ? null : e._symbol;
+    }
+
+    private static boolean matches(final Symbol symbol, final ByteBuffer buffer, final int offset, final int length)
+    {
+        if(symbol.length() != length)
+        {
+            return false;
+        }
+        for(int i = 0; i < length; i++)
+        {
+            if(symbol.charAt(i) != buffer.get(offset + i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -23,41 +23,14 @@ package org.apache.qpid.proton.codec;
 import org.apache.qpid.proton.amqp.Symbol;
 
 import java.nio.ByteBuffer;
-import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
 
 public class SymbolType extends AbstractPrimitiveType<Symbol>
 {
-    private static final Charset ASCII_CHARSET = Charset.forName("US-ASCII");
     private final SymbolEncoding _symbolEncoding;
     private final SymbolEncoding _shortSymbolEncoding;
 
-    private final Map<ByteBuffer, Symbol> _symbolCache = new HashMap<ByteBuffer, Symbol>();
-    private DecoderImpl.TypeDecoder<Symbol> _symbolCreator =
-            new DecoderImpl.TypeDecoder<Symbol>()
-            {
-
-                public Symbol decode(final ByteBuffer buf)
-                {
-
-                    Symbol symbol = _symbolCache.get(buf);
-                    if(symbol == null)
-                    {
-                        byte[] bytes = new byte[buf.limit()];
-                        buf.get(bytes);
-
-                        String str = new String(bytes, ASCII_CHARSET);
-                        symbol = Symbol.getSymbol(str);
-
-                        _symbolCache.put(ByteBuffer.wrap(bytes), symbol);
-                    }
-                    return symbol;
-                }
-            };
-
     public static interface SymbolEncoding extends PrimitiveTypeEncoding<Symbol>
     {
 
@@ -82,6 +55,20 @@ public class SymbolType extends AbstractPrimitiveType<Symbol>
     }
 
 
+    private static Symbol readSymbol(final DecoderImpl decoder, final int size)
+    {
+        ByteBuffer buffer = decoder.getBuffer();
+        if(size > buffer.remaining())
+        {
+            throw new IllegalArgumentException("Symbol size " + size + " is specified to be greater than the amount of data available ("
+                                               + buffer.remaining() + ")");
+        }
+        final int position = buffer.position();
+        Symbol symbol = SymbolTable.SHARED.getSymbol(buffer, position, size);
+        buffer.position(position + size);
+        return symbol;
+    }
+
     public SymbolEncoding getCanonicalEncoding()
     {
         return _symbolEncoding;
@@ -141,7 +128,7 @@ public class SymbolType extends AbstractPrimitiveType<Symbol>
         {
             DecoderImpl decoder = getDecoder();
             int size = decoder.readRawInt();
-            return decoder.readRaw(_symbolCreator, size);
+            return readSymbol(decoder, size);
         }
     }
     
@@ -195,7 +182,7 @@ public class SymbolType extends AbstractPrimitiveType<Symbol>
         {
             DecoderImpl decoder = getDecoder();
             int size = ((int)decoder.readRawByte()) & 0xff;
-            return decoder.readRaw(_symbolCreator, size);
+            return readSymbol(decoder, size);
         }
     }
 }
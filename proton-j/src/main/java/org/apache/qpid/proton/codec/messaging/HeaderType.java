@@ -30,13 +30,14 @@ import org.apache.qpid.proton.amqp.UnsignedByte;
 import org.apache.qpid.proton.amqp.UnsignedInteger;
 import org.apache.qpid.proton.amqp.UnsignedLong;
 import org.apache.qpid.proton.amqp.messaging.Header;
-import org.apache.qpid.proton.codec.AbstractDescribedType;
+import org.apache.qpid.proton.codec.AbstractDescribedListType;
 import org.apache.qpid.proton.codec.Decoder;
-import org.apache.qpid.proton.codec.DescribedTypeConstructor;
+import org.apache.qpid.proton.codec.DecoderImpl;
 import org.apache.qpid.proton.codec.EncoderImpl;
+import org.apache.qpid.proton.codec.FastPathDescribedTypeConstructor;
 
 
-public class HeaderType extends AbstractDescribedType<Header,List> implements DescribedTypeConstructor<Header>
+public class HeaderType extends AbstractDescribedListType<Header> implements FastPathDescribedTypeConstructor<Header>
 {
     private static final Object[] DESCRIPTORS =
     {
@@ -62,6 +63,47 @@ public class HeaderType extends AbstractDescribedType<Header,List> implements De
         return new HeaderWrapper(val);
     }
 
+    @Override
+    protected int getElementCount(Header val)
+    {
+        return val.getDeliveryCount() != null
+                  ? 5
+                  : val.getFirstAcquirer() != null
+                  ? 4
+                  : val.getTtl() != null
+                  ? 3
+                  : val.getPriority() != null
+                  ? 2
+                  : val.getDurable() != null
+                  ? 1
+                  : 0;
+    }
+
+    @Override
+    protected void writeElement(Header val, int index)
+    {
+        switch(index)
+        {
+            case 0:
+                getEncoder().writeBoolean(val.getDurable());
+                break;
+            case 1:
+                getEncoder().writeUnsignedByte(val.getPriority());
+                break;
+            case 2:
+                getEncoder().writeUnsignedInteger(val.getTtl());
+                break;
+            case 3:
+                getEncoder().writeBoolean(val.getFirstAcquirer());
+                break;
+            case 4:
+                getEncoder().writeUnsignedInteger(val.getDeliveryCount());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown index " + index);
+        }
+    }
+
 
     public static final class HeaderWrapper extends AbstractList
     {
@@ -140,6 +182,37 @@ public class HeaderType extends AbstractDescribedType<Header,List> implements De
         return o;
     }
 
+    public Header readFields(DecoderImpl decoder, int count)
+    {
+        Header o = new Header();
+
+        for(int index = 0; index < count; index++)
+        {
+            switch(index)
+            {
+                case 0:
+                    o.setDurable( decoder.readBoolean() );
+                    break;
+                case 1:
+                    o.setPriority( decoder.readUnsignedByte() );
+                    break;
+                case 2:
+                    o.setTtl( decoder.readUnsignedInteger() );
+                    break;
+                case 3:
+                    o.setFirstAcquirer( decoder.readBoolean() );
+                    break;
+                case 4:
+                    o.setDeliveryCount( decoder.readUnsignedInteger() );
+                    break;
+                default:
+                    decoder.readObject();
+            }
+        }
+
+        return o;
+    }
+
     public Class<Header> getTypeClass()
     {
         return Header.class;
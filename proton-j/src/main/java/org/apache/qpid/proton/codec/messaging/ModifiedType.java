@@ -31,11 +31,12 @@ import org.apache.qpid.proton.amqp.UnsignedLong;
 import org.apache.qpid.proton.amqp.messaging.Modified;
 import org.apache.qpid.proton.codec.AbstractDescribedType;
 import org.apache.qpid.proton.codec.Decoder;
-import org.apache.qpid.proton.codec.DescribedTypeConstructor;
+import org.apache.qpid.proton.codec.DecoderImpl;
 import org.apache.qpid.proton.codec.EncoderImpl;
+import org.apache.qpid.proton.codec.FastPathDescribedTypeConstructor;
 
 
-public class ModifiedType  extends AbstractDescribedType<Modified,List> implements DescribedTypeConstructor<Modified>
+public class ModifiedType  extends AbstractDescribedType<Modified,List> implements FastPathDescribedTypeConstructor<Modified>
 {
     private static final Object[] DESCRIPTORS =
     {
@@ -123,6 +124,31 @@ public class ModifiedType  extends AbstractDescribedType<Modified,List> implemen
         return o;
     }
 
+    public Modified readFields(DecoderImpl decoder, int count)
+    {
+        Modified o = new Modified();
+
+        for(int index = 0; index < count; index++)
+        {
+            switch(index)
+            {
+                case 0:
+                    o.setDeliveryFailed( decoder.readBoolean() );
+                    break;
+                case 1:
+                    o.setUndeliverableHere( decoder.readBoolean() );
+                    break;
+                case 2:
+                    o.setMessageAnnotations( decoder.readMap() );
+                    break;
+                default:
+                    decoder.readObject();
+            }
+        }
+
+        return o;
+    }
+
     public Class<Modified> getTypeClass()
     {
         return Modified.class;
@@ -31,13 +31,14 @@ import org.apache.qpid.proton.amqp.Symbol;
 import org.apache.qpid.proton.amqp.UnsignedInteger;
 import org.apache.qpid.proton.amqp.UnsignedLong;
 import org.apache.qpid.proton.amqp.messaging.Properties;
-import org.apache.qpid.proton.codec.AbstractDescribedType;
+import org.apache.qpid.proton.codec.AbstractDescribedListType;
 import org.apache.qpid.proton.codec.Decoder;
-import org.apache.qpid.proton.codec.DescribedTypeConstructor;
+import org.apache.qpid.proton.codec.DecoderImpl;
 import org.apache.qpid.proton.codec.EncoderImpl;
+import org.apache.qpid.proton.codec.FastPathDescribedTypeConstructor;
 
 
-public class PropertiesType  extends AbstractDescribedType<Properties,List> implements DescribedTypeConstructor<Properties>
+public class PropertiesType  extends AbstractDescribedListType<Properties> implements FastPathDescribedTypeConstructor<Properties>
 {
     private static final Object[] DESCRIPTORS =
     {
@@ -62,6 +63,87 @@ public class PropertiesType  extends AbstractDescribedType<Properties,List> impl
         return new PropertiesWrapper(val);
     }
 
+    @Override
+    protected int getElementCount(Properties val)
+    {
+        return val.getReplyToGroupId() != null
+                  ? 13
+                  : val.getGroupSequence() != null
+                  ? 12
+                  : val.getGroupId() != null
+                  ? 11
+                  : val.getCreationTime() != null
+                  ? 10
+                  : val.getAbsoluteExpiryTime() != null
+                  ? 9
+                  : val.getContentEncoding() != null
+                  ? 8
+                  : val.getContentType() != null
+                  ? 7
+                  : val.getCorrelationId() != null
+                  ? 6
+                  : val.getReplyTo() != null
+                  ? 5
+                  : val.getSubject() != null
+                  ? 4
+                  : val.getTo() != null
+                  ? 3
+                  : val.getUserId() != null
+                  ? 2
+                  : val.getMessageId() != null
+                  ? 1
+                  : 0;
+    }
+
+    @Override
+    protected void writeElement(Properties val, int index)
+    {
+        switch(index)
+        {
+            case 0:
+                getEncoder().writeObject(val.getMessageId());
+                break;
+            case 1:
+                getEncoder().writeBinary(val.getUserId());
+                break;
+            case 2:
+                getEncoder().writeString(val.getTo());
+                break;
+            case 3:
+                getEncoder().writeString(val.getSubject());
+                break;
+            case 4:
+                getEncoder().writeString(val.getReplyTo());
+                break;
+            case 5:
+                getEncoder().writeObject(val.getCorrelationId());
+                break;
+            case 6:
+                getEncoder().writeSymbol(val.getContentType());
+                break;
+            case 7:
+                getEncoder().writeSymbol(val.getContentEncoding());
+                break;
+            case 8:
+                getEncoder().writeTimestamp(val.getAbsoluteExpiryTime());
+                break;
+            case 9:
+                getEncoder().writeTimestamp(val.getCreationTime());
+                break;
+            case 10:
+                getEncoder().writeString(val.getGroupId());
+                break;
+            case 11:
+                getEncoder().writeUnsignedInteger(val.getGroupSequence());
+                break;
+            case 12:
+                getEncoder().writeString(val.getReplyToGroupId());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown index " + index);
+        }
+    }
+
     private static final class PropertiesWrapper extends AbstractList
     {
 
@@ -185,6 +267,61 @@ public class PropertiesType  extends AbstractDescribedType<Properties,List> impl
             return o;
         }
 
+        public Properties readFields(DecoderImpl decoder, int count)
+        {
+            Properties o = new Properties();
+
+            for(int index = 0; index < count; index++)
+            {
+                switch(index)
+                {
+                    case 0:
+                        o.setMessageId( decoder.readObject() );
+                        break;
+                    case 1:
+                        o.setUserId( decoder.readBinary() );
+                        break;
+                    case 2:
+                        o.setTo( decoder.readString() );
+                        break;
+                    case 3:
+                        o.setSubject( decoder.readString() );
+                        break;
+                    case 4:
+                        o.setReplyTo( decoder.readString() );
+                        break;
+                    case 5:
+                        o.setCorrelationId( decoder.readObject() );
+                        break;
+                    case 6:
+                        o.setContentType( decoder.readSymbol() );
+                        break;
+                    case 7:
+                        o.setContentEncoding( decoder.readSymbol() );
+                        break;
+                    case 8:
+                        o.setAbsoluteExpiryTime( decoder.readTimestamp() );
+                        break;
+                    case 9:
+                        o.setCreationTime( decoder.readTimestamp() );
+                        break;
+                    case 10:
+                        o.setGroupId( decoder.readString() );
+                        break;
+                    case 11:
+                        o.setGroupSequence( decoder.readUnsignedInteger() );
+                        break;
+                    case 12:
+                        o.setReplyToGroupId( decoder.readString() );
+                        break;
+                    default:
+                        decoder.readObject();
+                }
+            }
+
+            return o;
+        }
+
         public Class<Properties> getTypeClass()
         {
             return Properties.class;
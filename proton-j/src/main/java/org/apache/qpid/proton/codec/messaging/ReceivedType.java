@@ -31,11 +31,12 @@ import org.apache.qpid.proton.amqp.UnsignedLong;
 import org.apache.qpid.proton.amqp.messaging.Received;
 import org.apache.qpid.proton.codec.AbstractDescribedType;
 import org.apache.qpid.proton.codec.Decoder;
-import org.apache.qpid.proton.codec.DescribedTypeConstructor;
+import org.apache.qpid.proton.codec.DecoderImpl;
 import org.apache.qpid.proton.codec.EncoderImpl;
+import org.apache.qpid.proton.codec.FastPathDescribedTypeConstructor;
 
 
-public final class ReceivedType extends AbstractDescribedType<Received,List> implements DescribedTypeConstructor<Received>
+public final class ReceivedType extends AbstractDescribedType<Received,List> implements FastPathDescribedTypeConstructor<Received>
 {
     private static final Object[] DESCRIPTORS =
     {
@@ -116,6 +117,28 @@ public final class ReceivedType extends AbstractDescribedType<Received,List> imp
         return o;
     }
 
+    public Received readFields(DecoderImpl decoder, int count)
+    {
+        Received o = new Received();
+
+        for(int index = 0; index < count; index++)
+        {
+            switch(index)
+            {
+                case 0:
+                    o.setSectionNumber( decoder.readUnsignedInteger() );
+                    break;
+                case 1:
+                    o.setSectionOffset( decoder.readUnsignedLong() );
+                    break;
+                default:
+                    decoder.readObject();
+            }
+        }
+
+        return o;
+    }
+
     public Class<Received> getTypeClass()
     {
         return Received.class;
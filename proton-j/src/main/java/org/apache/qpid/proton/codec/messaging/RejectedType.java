@@ -30,12 +30,13 @@ import org.apache.qpid.proton.amqp.UnsignedLong;
 import org.apache.qpid.proton.amqp.messaging.Rejected;
 import org.apache.qpid.proton.codec.AbstractDescribedType;
 import org.apache.qpid.proton.codec.Decoder;
-import org.apache.qpid.proton.codec.DescribedTypeConstructor;
+import org.apache.qpid.proton.codec.DecoderImpl;
 import org.apache.qpid.proton.codec.EncoderImpl;
+import org.apache.qpid.proton.codec.FastPathDescribedTypeConstructor;
 import org.apache.qpid.proton.amqp.transport.ErrorCondition;
 
 
-public class RejectedType  extends AbstractDescribedType<Rejected,List> implements DescribedTypeConstructor<Rejected>
+public class RejectedType  extends AbstractDescribedType<Rejected,List> implements FastPathDescribedTypeConstructor<Rejected>
 {
     private static final Object[] DESCRIPTORS =
     {
@@ -108,6 +109,25 @@ public class RejectedType  extends AbstractDescribedType<Rejected,List> implemen
         return o;
     }
 
+    public Rejected readFields(DecoderImpl decoder, int count)
+    {
+        Rejected o = new Rejected();
+
+        for(int index = 0; index < count; index++)
+        {
+            switch(index)
+            {
+                case 0:
+                    o.setError( (ErrorCondition) decoder.readObject() );
+                    break;
+                default:
+                    decoder.readObject();
+            }
+        }
+
+        return o;
+    }
+
     public Class<Rejected> getTypeClass()
     {
         return Rejected.class;
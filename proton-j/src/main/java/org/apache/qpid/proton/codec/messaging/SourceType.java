@@ -31,15 +31,16 @@ import org.apache.qpid.proton.amqp.UnsignedInteger;
 import org.apache.qpid.proton.amqp.UnsignedLong;
 import org.apache.qpid.proton.amqp.messaging.Outcome;
 import org.apache.qpid.proton.amqp.messaging.Source;
-import org.apache.qpid.proton.codec.AbstractDescribedType;
+import org.apache.qpid.proton.codec.AbstractDescribedListType;
 import org.apache.qpid.proton.codec.Decoder;
-import org.apache.qpid.proton.codec.DescribedTypeConstructor;
+import org.apache.qpid.proton.codec.DecoderImpl;
 import org.apache.qpid.proton.codec.EncoderImpl;
+import org.apache.qpid.proton.codec.FastPathDescribedTypeConstructor;
 import org.apache.qpid.proton.amqp.messaging.TerminusDurability;
 import org.apache.qpid.proton.amqp.messaging.TerminusExpiryPolicy;
 
 
-public class SourceType extends AbstractDescribedType<Source,List> implements DescribedTypeConstructor<Source>
+public class SourceType extends AbstractDescribedListType<Source> implements FastPathDescribedTypeConstructor<Source>
 {
     private static final Object[] DESCRIPTORS =
     {
@@ -64,6 +65,77 @@ public class SourceType extends AbstractDescribedType<Source,List> implements De
         return new SourceWrapper(val);
     }
 
+    @Override
+    protected int getElementCount(Source val)
+    {
+        return val.getCapabilities() != null
+                  ? 11
+                  : val.getOutcomes() != null
+                  ? 10
+                  : val.getDefaultOutcome() != null
+                  ? 9
+                  : val.getFilter() != null
+                  ? 8
+                  : val.getDistributionMode() != null
+                  ? 7
+                  : val.getDynamicNodeProperties() != null
+                  ? 6
+                  : val.getDynamic()
+                  ? 5
+                  : (val.getTimeout() != null && !val.getTimeout().equals(UnsignedInteger.ZERO))
+                  ? 4
+                  : val.getExpiryPolicy() != TerminusExpiryPolicy.SESSION_END
+                  ? 3
+                  : val.getDurable() != TerminusDurability.NONE
+                  ? 2
+                  : val.getAddress() != null
+                  ? 1
+                  : 0;
+    }
+
+    @Override
+    protected void writeElement(Source val, int index)
+    {
+        switch(index)
+        {
+            case 0:
+                getEncoder().writeString(val.getAddress());
+                break;
+            case 1:
+                getEncoder().writeUnsignedInteger(val.getDurable().getValue());
+                break;
+            case 2:
+                getEncoder().writeSymbol(val.getExpiryPolicy().getPolicy());
+                break;
+            case 3:
+                getEncoder().writeUnsignedInteger(val.getTimeout());
+                break;
+            case 4:
+                getEncoder().writeBoolean(val.getDynamic());
+                break;
+            case 5:
+                getEncoder().writeMap(val.getDynamicNodeProperties());
+                break;
+            case 6:
+                getEncoder().writeSymbol(val.getDistributionMode());
+                break;
+            case 7:
+                getEncoder().writeMap(val.getFilter());
+                break;
+            case 8:
+                getEncoder().writeObject(val.getDefaultOutcome());
+                break;
+            case 9:
+                getEncoder().writeObject(val.getOutcomes());
+                break;
+            case 10:
+                getEncoder().writeObject(val.getCapabilities());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown index " + index);
+        }
+    }
+
 
     private static final class SourceWrapper extends AbstractList
     {
@@ -195,6 +267,61 @@ public class SourceType extends AbstractDescribedType<Source,List> implements De
         return o;
     }
 
+    public Source readFields(DecoderImpl decoder, int count)
+    {
+        Source o = new Source();
+
+        for(int index = 0; index < count; index++)
+        {
+            switch(index)
+            {
+                case 0:
+                    o.setAddress( decoder.readString() );
+                    break;
+                case 1:
+                {
+                    UnsignedInteger durable = decoder.readUnsignedInteger();
+                    o.setDurable(durable == null ? TerminusDurability.NONE : TerminusDurability.get(durable));
+                    break;
+                }
+                case 2:
+                {
+                    Symbol expiryPolicy = decoder.readSymbol();
+                    o.setExpiryPolicy(expiryPolicy == null ? TerminusExpiryPolicy.SESSION_END : TerminusExpiryPolicy.valueOf(expiryPolicy));
+                    break;
+                }
+                case 3:
+                    o.setTimeout( decoder.readUnsignedInteger(UnsignedInteger.ZERO) );
+                    break;
+                case 4:
+                    o.setDynamic( decoder.readBoolean(false) );
+                    break;
+                case 5:
+                    o.setDynamicNodeProperties( decoder.readMap() );
+                    break;
+                case 6:
+                    o.setDistributionMode( decoder.readSymbol() );
+                    break;
+                case 7:
+                    o.setFilter( decoder.readMap() );
+                    break;
+                case 8:
+                    o.setDefaultOutcome( (Outcome) decoder.readObject() );
+                    break;
+                case 9:
+                    o.setOutcomes( decoder.readMultiple(Symbol.class) );
+                    break;
+                case 10:
+                    o.setCapabilities( decoder.readMultiple(Symbol.class) );
+                    break;
+                default:
+                    decoder.readObject();
+            }
+        }
+
+        return o;
+    }
+
     public Class<Source> getTypeClass()
     {
         return Source.class;
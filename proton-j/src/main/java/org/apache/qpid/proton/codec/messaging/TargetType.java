@@ -30,15 +30,16 @@ import org.apache.qpid.proton.amqp.Symbol;
 import org.apache.qpid.proton.amqp.UnsignedInteger;
 import org.apache.qpid.proton.amqp.UnsignedLong;
 import org.apache.qpid.proton.amqp.messaging.Target;
-import org.apache.qpid.proton.codec.AbstractDescribedType;
+import org.apache.qpid.proton.codec.AbstractDescribedListType;
 import org.apache.qpid.proton.codec.Decoder;
-import org.apache.qpid.proton.codec.DescribedTypeConstructor;
+import org.apache.qpid.proton.codec.DecoderImpl;
 import org.apache.qpid.proton.codec.EncoderImpl;
+import org.apache.qpid.proton.codec.FastPathDescribedTypeConstructor;
 import org.apache.qpid.proton.amqp.messaging.TerminusDurability;
 import org.apache.qpid.proton.amqp.messaging.TerminusExpiryPolicy;
 
 
-public class TargetType extends AbstractDescribedType<Target,List> implements DescribedTypeConstructor<Target>
+public class TargetType extends AbstractDescribedListType<Target> implements FastPathDescribedTypeConstructor<Target>
 {
     private static final Object[] DESCRIPTORS =
     {
@@ -63,6 +64,57 @@ public class TargetType extends AbstractDescribedType<Target,List> implements De
         return new TargetWrapper(val);
     }
 
+    @Override
+    protected int getElementCount(Target val)
+    {
+        return val.getCapabilities() != null
+                  ? 7
+                  : val.getDynamicNodeProperties() != null
+                  ? 6
+                  : val.getDynamic()
+                  ? 5
+                  : (val.getTimeout() != null && !val.getTimeout().equals(UnsignedInteger.ZERO))
+                  ? 4
+                  : !val.getExpiryPolicy().equals(TerminusExpiryPolicy.SESSION_END)
+                  ? 3
+                  : !val.getDurable().equals(TerminusDurability.NONE)
+                  ? 2
+                  : val.getAddress() != null
+                  ? 1
+                  : 0;
+    }
+
+    @Override
+    protected void writeElement(Target val, int index)
+    {
+        switch(index)
+        {
+            case 0:
+                getEncoder().writeString(val.getAddress());
+                break;
+            case 1:
+                getEncoder().writeUnsignedInteger(val.getDurable().getValue());
+                break;
+            case 2:
+                getEncoder().writeSymbol(val.getExpiryPolicy().getPolicy());
+                break;
+            case 3:
+                getEncoder().writeUnsignedInteger(val.getTimeout());
+                break;
+            case 4:
+                getEncoder().writeBoolean(val.getDynamic());
+                break;
+            case 5:
+                getEncoder().writeMap(val.getDynamicNodeProperties());
+                break;
+            case 6:
+                getEncoder().writeObject(val.getCapabilities());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown index " + index);
+        }
+    }
+
 
     private static final class TargetWrapper extends AbstractList
     {
@@ -161,6 +213,49 @@ public class TargetType extends AbstractDescribedType<Target,List> implements De
         return o;
     }
 
+    public Target readFields(DecoderImpl decoder, int count)
+    {
+        Target o = new Target();
+
+        for(int index = 0; index < count; index++)
+        {
+            switch(index)
+            {
+                case 0:
+                    o.setAddress( decoder.readString() );
+                    break;
+                case 1:
+                {
+                    UnsignedInteger durable = decoder.readUnsignedInteger();
+                    o.setDurable(durable == null ? TerminusDurability.NONE : TerminusDurability.get(durable));
+                    break;
+                }
+                case 2:
+                {
+                    Symbol expiryPolicy = decoder.readSymbol();
+                    o.setExpiryPolicy(expiryPolicy == null ? TerminusExpiryPolicy.SESSION_END : TerminusExpiryPolicy.valueOf(expiryPolicy));
+                    break;
+                }
+                case 3:
+                    o.setTimeout( decoder.readUnsignedInteger(UnsignedInteger.ZERO) );
+                    break;
+                case 4:
+                    o.setDynamic( decoder.readBoolean(false) );
+                    break;
+                case 5:
+                    o.setDynamicNodeProperties( decoder.readMap() );
+                    break;
+                case 6:
+                    o.setCapabilities( decoder.readMultiple(Symbol.class) );
+                    break;
+                default:
+                    decoder.readObject();
+            }
+        }
+
+        return o;
+    }
+
     public Class<Target> getTypeClass()
     {
         return Target.class;
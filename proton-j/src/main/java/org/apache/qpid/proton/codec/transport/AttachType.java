@@ -36,14 +36,15 @@ import org.apache.qpid.proton.amqp.transport.Role;
 import org.apache.qpid.proton.amqp.transport.SenderSettleMode;
 import org.apache.qpid.proton.amqp.transport.Source;
 import org.apache.qpid.proton.amqp.transport.Target;
-import org.apache.qpid.proton.codec.AbstractDescribedType;
+import org.apache.qpid.proton.codec.AbstractDescribedListType;
 import org.apache.qpid.proton.codec.DecodeException;
 import org.apache.qpid.proton.codec.Decoder;
-import org.apache.qpid.proton.codec.DescribedTypeConstructor;
+import org.apache.qpid.proton.codec.DecoderImpl;
 import org.apache.qpid.proton.codec.EncoderImpl;
+import org.apache.qpid.proton.codec.FastPathDescribedTypeConstructor;
 
 
-public final class AttachType extends AbstractDescribedType<Attach,List> implements DescribedTypeConstructor<Attach>
+public final class AttachType extends AbstractDescribedListType<Attach> implements FastPathDescribedTypeConstructor<Attach>
 {
     private static final Object[] DESCRIPTORS =
     {
@@ -68,6 +69,86 @@ public final class AttachType extends AbstractDescribedType<Attach,List> impleme
         return new AttachWrapper(val);
     }
 
+    @Override
+    protected int getElementCount(Attach val)
+    {
+        return val.getProperties() != null
+                  ? 14
+                  : val.getDesiredCapabilities() != null
+                  ? 13
+                  : val.getOfferedCapabilities() != null
+                  ? 12
+                  : val.getMaxMessageSize() != null
+                  ? 11
+                  : val.getInitialDeliveryCount() != null
+                  ? 10
+                  : val.getIncompleteUnsettled()
+                  ? 9
+                  : val.getUnsettled() != null
+                  ? 8
+                  : val.getTarget() != null
+                  ? 7
+                  : val.getSource() != null
+                  ? 6
+                  : (val.getRcvSettleMode() != null && !val.getRcvSettleMode().equals(ReceiverSettleMode.FIRST))
+                  ? 5
+                  : (val.getSndSettleMode() != null && !val.getSndSettleMode().equals(SenderSettleMode.MIXED))
+                  ? 4
+                  : 3;
+    }
+
+    @Override
+    protected void writeElement(Attach val, int index)
+    {
+        switch(index)
+        {
+            case 0:
+                getEncoder().writeString(val.getName());
+                break;
+            case 1:
+                getEncoder().writeUnsignedInteger(val.getHandle());
+                break;
+            case 2:
+                getEncoder().writeBoolean(val.getRole().getValue());
+                break;
+            case 3:
+                getEncoder().writeUnsignedByte(val.getSndSettleMode().getValue());
+                break;
+            case 4:
+                getEncoder().writeUnsignedByte(val.getRcvSettleMode().getValue());
+                break;
+            case 5:
+                getEncoder().writeObject(val.getSource());
+                break;
+            case 6:
+                getEncoder().writeObject(val.getTarget());
+                break;
+            case 7:
+                getEncoder().writeMap(val.getUnsettled());
+                break;
+            case 8:
+                getEncoder().writeBoolean(val.getIncompleteUnsettled());
+                break;
+            case 9:
+                getEncoder().writeUnsignedInteger(val.getInitialDeliveryCount());
+                break;
+            case 10:
+                getEncoder().writeUnsignedLong(val.getMaxMessageSize());
+                break;
+            case 11:
+                getEncoder().writeObject(val.getOfferedCapabilities());
+                break;
+            case 12:
+                getEncoder().writeObject(val.getDesiredCapabilities());
+                break;
+            case 13:
+                getEncoder().writeMap(val.getProperties());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown index " + index);
+        }
+    }
+
 
     public static class AttachWrapper extends AbstractList
     {
@@ -215,6 +296,75 @@ public final class AttachType extends AbstractDescribedType<Attach,List> impleme
         return o;
     }
 
+    public Attach readFields(DecoderImpl decoder, int count)
+    {
+        Attach o = new Attach();
+
+        if(count <= 2)
+        {
+            throw new DecodeException("The role field cannot be omitted");
+        }
+
+        for(int index = 0; index < count; index++)
+        {
+            switch(index)
+            {
+                case 0:
+                    o.setName( decoder.readString() );
+                    break;
+                case 1:
+                    o.setHandle( decoder.readUnsignedInteger() );
+                    break;
+                case 2:
+                    o.setRole( Boolean.TRUE.equals( decoder.readObject() ) ? Role.RECEIVER : Role.SENDER );
+                    break;
+                case 3:
+                {
+                    UnsignedByte sndSettleMode = decoder.readUnsignedByte();
+                    o.setSndSettleMode(sndSettleMode == null ? SenderSettleMode.MIXED : SenderSettleMode.values()[sndSettleMode.intValue()]);
+                    break;
+                }
+                case 4:
+                {
+                    UnsignedByte rcvSettleMode = decoder.readUnsignedByte();
+                    o.setRcvSettleMode(rcvSettleMode == null ? ReceiverSettleMode.FIRST : ReceiverSettleMode.values()[rcvSettleMode.intValue()]);
+                    break;
+                }
+                case 5:
+                    o.setSource( (Source) decoder.readObject() );
+                    break;
+                case 6:
+                    o.setTarget( (Target) decoder.readObject() );
+                    break;
+                case 7:
+                    o.setUnsettled( decoder.readMap() );
+                    break;
+                case 8:
+                    o.setIncompleteUnsettled( decoder.readBoolean(false) );
+                    break;
+                case 9:
+                    o.setInitialDeliveryCount( decoder.readUnsignedInteger() );
+                    break;
+                case 10:
+                    o.setMaxMessageSize( decoder.readUnsignedLong() );
+                    break;
+                case 11:
+                    o.setOfferedCapabilities( decoder.readMultiple(Symbol.class) );
+                    break;
+                case 12:
+                    o.setDesiredCapabilities( decoder.readMultiple(Symbol.class) );
+                    break;
+                case 13:
+                    o.setProperties( decoder.readMap() );
+                    break;
+                default:
+                    decoder.readObject();
+            }
+        }
+
+        return o;
+    }
+
     public Class<Attach> getTypeClass()
     {
         return Attach.class;
@@ -31,14 +31,15 @@ import org.apache.qpid.proton.amqp.UnsignedInteger;
 import org.apache.qpid.proton.amqp.UnsignedLong;
 import org.apache.qpid.proton.amqp.UnsignedShort;
 import org.apache.qpid.proton.amqp.transport.Begin;
-import org.apache.qpid.proton.codec.AbstractDescribedType;
+import org.apache.qpid.proton.codec.AbstractDescribedListType;
 import org.apache.qpid.proton.codec.DecodeException;
 import org.apache.qpid.proton.codec.Decoder;
-import org.apache.qpid.proton.codec.DescribedTypeConstructor;
+import org.apache.qpid.proton.codec.DecoderImpl;
 import org.apache.qpid.proton.codec.EncoderImpl;
+import org.apache.qpid.proton.codec.FastPathDescribedTypeConstructor;
 
 
-public final class BeginType extends AbstractDescribedType<Begin,List> implements DescribedTypeConstructor<Begin>
+public final class BeginType extends AbstractDescribedListType<Begin> implements FastPathDescribedTypeConstructor<Begin>
 {
     private static final Object[] DESCRIPTORS =
     {
@@ -63,6 +64,54 @@ public final class BeginType extends AbstractDescribedType<Begin,List> implement
         return new BeginWrapper(val);
     }
 
+    @Override
+    protected int getElementCount(Begin val)
+    {
+        return val.getProperties() != null
+                  ? 8
+                  : val.getDesiredCapabilities() != null
+                  ? 7
+                  : val.getOfferedCapabilities() != null
+                  ? 6
+                  : (val.getHandleMax() != null && !val.getHandleMax().equals(UnsignedInteger.MAX_VALUE))
+                  ? 5
+                  : 4;
+    }
+
+    @Override
+    protected void writeElement(Begin val, int index)
+    {
+        switch(index)
+        {
+            case 0:
+                getEncoder().writeUnsignedShort(val.getRemoteChannel());
+                break;
+            case 1:
+                getEncoder().writeUnsignedInteger(val.getNextOutgoingId());
+                break;
+            case 2:
+                getEncoder().writeUnsignedInteger(val.getIncomingWindow());
+                break;
+            case 3:
+                getEncoder().writeUnsignedInteger(val.getOutgoingWindow());
+                break;
+            case 4:
+                getEncoder().writeUnsignedInteger(val.getHandleMax());
+                break;
+            case 5:
+                getEncoder().writeObject(val.getOfferedCapabilities());
+                break;
+            case 6:
+                getEncoder().writeObject(val.getDesiredCapabilities());
+                break;
+            case 7:
+                getEncoder().writeMap(val.getProperties());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown index " + index);
+        }
+    }
+
     private static class BeginWrapper extends AbstractList
     {
 
@@ -168,6 +217,51 @@ public final class BeginType extends AbstractDescribedType<Begin,List> implement
         return o;
     }
 
+    public Begin readFields(DecoderImpl decoder, int count)
+    {
+        Begin o = new Begin();
+
+        if(count <= 3)
+        {
+            throw new DecodeException("The outgoing-window field cannot be omitted");
+        }
+
+        for(int index = 0; index < count; index++)
+        {
+            switch(index)
+            {
+                case 0:
+                    o.setRemoteChannel( decoder.readUnsignedShort() );
+                    break;
+                case 1:
+                    o.setNextOutgoingId( decoder.readUnsignedInteger() );
+                    break;
+                case 2:
+                    o.setIncomingWindow( decoder.readUnsignedInteger() );
+                    break;
+                case 3:
+                    o.setOutgoingWindow( decoder.readUnsignedInteger() );
+                    break;
+                case 4:
+                    o.setHandleMax( decoder.readUnsignedInteger(UnsignedInteger.MAX_VALUE) );
+                    break;
+                case 5:
+                    o.setOfferedCapabilities( decoder.readMultiple(Symbol.class) );
+                    break;
+                case 6:
+                    o.setDesiredCapabilities( decoder.readMultiple(Symbol.class) );
+                    break;
+                case 7:
+                    o.setProperties( decoder.readMap() );
+                    break;
+                default:
+                    decoder.readObject();
+            }
+        }
+
+        return o;
+    }
+
     public Class<Begin> getTypeClass()
     {
         return Begin.class;
@@ -29,13 +29,14 @@ import org.apache.qpid.proton.amqp.Symbol;
 import org.apache.qpid.proton.amqp.UnsignedLong;
 import org.apache.qpid.proton.amqp.transport.Close;
 import org.apache.qpid.proton.amqp.transport.ErrorCondition;
-import org.apache.qpid.proton.codec.AbstractDescribedType;
+import org.apache.qpid.proton.codec.AbstractDescribedListType;
 import org.apache.qpid.proton.codec.Decoder;
-import org.apache.qpid.proton.codec.DescribedTypeConstructor;
+import org.apache.qpid.proton.codec.DecoderImpl;
 import org.apache.qpid.proton.codec.EncoderImpl;
+import org.apache.qpid.proton.codec.FastPathDescribedTypeConstructor;
 
 
-public final class CloseType extends AbstractDescribedType<Close,List> implements DescribedTypeConstructor<Close>
+public final class CloseType extends AbstractDescribedListType<Close> implements FastPathDescribedTypeConstructor<Close>
 {
     private static final Object[] DESCRIPTORS =
     {
@@ -61,6 +62,18 @@ public final class CloseType extends AbstractDescribedType<Close,List> implement
         return error == null ? Collections.EMPTY_LIST : Collections.singletonList(error);
     }
 
+    @Override
+    protected int getElementCount(Close val)
+    {
+        return val.getError() == null ? 0 : 1;
+    }
+
+    @Override
+    protected void writeElement(Close val, int index)
+    {
+        getEncoder().writeObject(val.getError());
+    }
+
     public Close newInstance(Object described)
     {
         List l = (List) described;
@@ -75,6 +88,25 @@ public final class CloseType extends AbstractDescribedType<Close,List> implement
         return o;
     }
 
+    public Close readFields(DecoderImpl decoder, int count)
+    {
+        Close o = new Close();
+
+        for(int index = 0; index < count; index++)
+        {
+            switch(index)
+            {
+                case 0:
+                    o.setError( (ErrorCondition) decoder.readObject() );
+                    break;
+                default:
+                    decoder.readObject();
+            }
+        }
+
+        return o;
+    }
+
     public Class<Close> getTypeClass()
     {
         return Close.class;
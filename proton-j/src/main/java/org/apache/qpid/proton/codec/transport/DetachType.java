@@ -30,14 +30,15 @@ import org.apache.qpid.proton.amqp.UnsignedInteger;
 import org.apache.qpid.proton.amqp.UnsignedLong;
 import org.apache.qpid.proton.amqp.transport.Detach;
 import org.apache.qpid.proton.amqp.transport.ErrorCondition;
-import org.apache.qpid.proton.codec.AbstractDescribedType;
+import org.apache.qpid.proton.codec.AbstractDescribedListType;
 import org.apache.qpid.proton.codec.DecodeException;
 import org.apache.qpid.proton.codec.Decoder;
-import org.apache.qpid.proton.codec.DescribedTypeConstructor;
+import org.apache.qpid.proton.codec.DecoderImpl;
 import org.apache.qpid.proton.codec.EncoderImpl;
+import org.apache.qpid.proton.codec.FastPathDescribedTypeConstructor;
 
 
-public final class DetachType extends AbstractDescribedType<Detach,List> implements DescribedTypeConstructor<Detach>
+public final class DetachType extends AbstractDescribedListType<Detach> implements FastPathDescribedTypeConstructor<Detach>
 {
     private static final Object[] DESCRIPTORS =
     {
@@ -62,6 +63,35 @@ public final class DetachType extends AbstractDescribedType<Detach,List> impleme
         return new DetachWrapper(val);
     }
 
+    @Override
+    protected int getElementCount(Detach val)
+    {
+        return val.getError() != null
+                  ? 3
+                  : val.getClosed()
+                  ? 2
+                  : 1;
+    }
+
+    @Override
+    protected void writeElement(Detach val, int index)
+    {
+        switch(index)
+        {
+            case 0:
+                getEncoder().writeUnsignedInteger(val.getHandle());
+                break;
+            case 1:
+                getEncoder().writeBoolean(val.getClosed());
+                break;
+            case 2:
+                getEncoder().writeObject(val.getError());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown index " + index);
+        }
+    }
+
     public static class DetachWrapper extends AbstractList
     {
 
@@ -127,6 +157,36 @@ public final class DetachType extends AbstractDescribedType<Detach,List> impleme
         return o;
     }
 
+    public Detach readFields(DecoderImpl decoder, int count)
+    {
+        Detach o = new Detach();
+
+        if(count == 0)
+        {
+            throw new DecodeException("The handle field cannot be omitted");
+        }
+
+        for(int index = 0; index < count; index++)
+        {
+            switch(index)
+            {
+                case 0:
+                    o.setHandle( decoder.readUnsignedInteger() );
+                    break;
+                case 1:
+                    o.setClosed( decoder.readBoolean(false) );
+                    break;
+                case 2:
+                    o.setError( (ErrorCondition) decoder.readObject() );
+                    break;
+                default:
+                    decoder.readObject();
+            }
+        }
+
+        return o;
+    }
+
     public Class<Detach> getTypeClass()
     {
         return Detach.class;
@@ -31,14 +31,15 @@ import org.apache.qpid.proton.amqp.UnsignedLong;
 import org.apache.qpid.proton.amqp.transport.DeliveryState;
 import org.apache.qpid.proton.amqp.transport.Disposition;
 import org.apache.qpid.proton.amqp.transport.Role;
-import org.apache.qpid.proton.codec.AbstractDescribedType;
+import org.apache.qpid.proton.codec.AbstractDescribedListType;
 import org.apache.qpid.proton.codec.DecodeException;
 import org.apache.qpid.proton.codec.Decoder;
-import org.apache.qpid.proton.codec.DescribedTypeConstructor;
+import org.apache.qpid.proton.codec.DecoderImpl;
 import org.apache.qpid.proton.codec.EncoderImpl;
+import org.apache.qpid.proton.codec.FastPathDescribedTypeConstructor;
 
 
-public final class DispositionType extends AbstractDescribedType<Disposition,List> implements DescribedTypeConstructor<Disposition>
+public final class DispositionType extends AbstractDescribedListType<Disposition> implements FastPathDescribedTypeConstructor<Disposition>
 {
     private static final Object[] DESCRIPTORS =
     {
@@ -47,6 +48,9 @@ public final class DispositionType extends AbstractDescribedType<Disposition,Lis
 
     private static final UnsignedLong DESCRIPTOR = UnsignedLong.valueOf(0x0000000000000015L);
 
+    // the disposition decoded into when the decoder recycles performatives
+    private Disposition _recycled;
+
     private DispositionType(EncoderImpl encoder)
     {
         super(encoder);
@@ -63,6 +67,48 @@ public final class DispositionType extends AbstractDescribedType<Disposition,Lis
         return new DispositionWrapper(val);
     }
 
+    @Override
+    protected int getElementCount(Disposition val)
+    {
+        return val.getBatchable()
+                  ? 6
+                  : val.getState() != null
+                  ? 5
+                  : val.getSettled()
+                  ? 4
+                  : val.getLast() != null
+                  ? 3
+                  : 2;
+    }
+
+    @Override
+    protected void writeElement(Disposition val, int index)
+    {
+        switch(index)
+        {
+            case 0:
+                getEncoder().writeBoolean(val.getRole().getValue());
+                break;
+            case 1:
+                getEncoder().writeUnsignedInteger(val.getFirst());
+                break;
+            case 2:
+                getEncoder().writeUnsignedInteger(val.getLast());
+                break;
+            case 3:
+                getEncoder().writeBoolean(val.getSettled());
+                break;
+            case 4:
+                getEncoder().writeObject(val.getState());
+                break;
+            case 5:
+                getEncoder().writeBoolean(val.getBatchable());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown index " + index);
+        }
+    }
+
 
     private static final class DispositionWrapper extends AbstractList
     {
@@ -146,6 +192,63 @@ public final class DispositionType extends AbstractDescribedType<Disposition,Lis
             return o;
         }
 
+        public Disposition readFields(DecoderImpl decoder, int count)
+        {
+            if(count == 0)
+            {
+                throw new DecodeException("The first field cannot be omitted");
+            }
+
+            Disposition o = decoder.isRecyclePerformatives() ? recycled() : new Disposition();
+
+            for(int index = 0; index < count; index++)
+            {
+                switch(index)
+                {
+                    case 0:
+                        o.setRole( Boolean.TRUE.equals( decoder.readObject() ) ? Role.RECEIVER : Role.SENDER );
+                        break;
+                    case 1:
+                        o.setFirst( decoder.readUnsignedInteger() );
+                        break;
+                    case 2:
+                        o.setLast( decoder.readUnsignedInteger() );
+                        break;
+                    case 3:
+                        o.setSettled( decoder.readBoolean(false) );
+                        break;
+                    case 4:
+                        o.setState( (DeliveryState) decoder.readObject() );
+                        break;
+                    case 5:
+                        o.setBatchable( decoder.readBoolean(false) );
+                        break;
+                    default:
+                        decoder.readObject();
+                }
+            }
+
+            return o;
+        }
+
+        private Disposition recycled()
+        {
+            Disposition o = _recycled;
+            if(o == null)
+            {
+                o = _recycled = new Disposition();
+            }
+            else
+            {
+                o.setRole(Role.SENDER);
+                o.setLast(null);
+                o.setSettled(false);
+                o.setState(null);
+                o.setBatchable(false);
+            }
+            return o;
+        }
+
         public Class<Disposition> getTypeClass()
         {
             return Disposition.class;
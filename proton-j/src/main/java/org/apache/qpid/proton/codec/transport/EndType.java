@@ -29,13 +29,14 @@ import org.apache.qpid.proton.amqp.Symbol;
 import org.apache.qpid.proton.amqp.UnsignedLong;
 import org.apache.qpid.proton.amqp.transport.End;
 import org.apache.qpid.proton.amqp.transport.ErrorCondition;
-import org.apache.qpid.proton.codec.AbstractDescribedType;
+import org.apache.qpid.proton.codec.AbstractDescribedListType;
 import org.apache.qpid.proton.codec.Decoder;
-import org.apache.qpid.proton.codec.DescribedTypeConstructor;
+import org.apache.qpid.proton.codec.DecoderImpl;
 import org.apache.qpid.proton.codec.EncoderImpl;
+import org.apache.qpid.proton.codec.FastPathDescribedTypeConstructor;
 
 
-public final class EndType extends AbstractDescribedType<End,List> implements DescribedTypeConstructor<End>
+public final class EndType extends AbstractDescribedListType<End> implements FastPathDescribedTypeConstructor<End>
 {
     private static final Object[] DESCRIPTORS =
     {
@@ -61,6 +62,18 @@ public final class EndType extends AbstractDescribedType<End,List> implements De
         return errorCondition == null ? Collections.EMPTY_LIST : Collections.singletonList(errorCondition);
     }
 
+    @Override
+    protected int getElementCount(End val)
+    {
+        return val.getError() == null ? 0 : 1;
+    }
+
+    @Override
+    protected void writeElement(End val, int index)
+    {
+        getEncoder().writeObject(val.getError());
+    }
+
 
     public End newInstance(Object described)
     {
@@ -77,6 +90,25 @@ public final class EndType extends AbstractDescribedType<End,List> implements De
         return o;
     }
 
+    public End readFields(DecoderImpl decoder, int count)
+    {
+        End o = new End();
+
+        for(int index = 0; index < count; index++)
+        {
+            switch(index)
+            {
+                case 0:
+                    o.setError( (ErrorCondition) decoder.readObject() );
+                    break;
+                default:
+                    decoder.readObject();
+            }
+        }
+
+        return o;
+    }
+
     public Class<End> getTypeClass()
     {
         return End.class;
@@ -29,14 +29,15 @@ import java.util.Map;
 import org.apache.qpid.proton.amqp.Symbol;
 import org.apache.qpid.proton.amqp.UnsignedLong;
 import org.apache.qpid.proton.amqp.transport.ErrorCondition;
-import org.apache.qpid.proton.codec.AbstractDescribedType;
+import org.apache.qpid.proton.codec.AbstractDescribedListType;
 import org.apache.qpid.proton.codec.DecodeException;
 import org.apache.qpid.proton.codec.Decoder;
-import org.apache.qpid.proton.codec.DescribedTypeConstructor;
+import org.apache.qpid.proton.codec.DecoderImpl;
 import org.apache.qpid.proton.codec.EncoderImpl;
+import org.apache.qpid.proton.codec.FastPathDescribedTypeConstructor;
 
 
-public final class ErrorConditionType extends AbstractDescribedType<ErrorCondition,List> implements DescribedTypeConstructor<ErrorCondition>
+public final class ErrorConditionType extends AbstractDescribedListType<ErrorCondition> implements FastPathDescribedTypeConstructor<ErrorCondition>
 {
     private static final Object[] DESCRIPTORS =
     {
@@ -61,6 +62,35 @@ public final class ErrorConditionType extends AbstractDescribedType<ErrorConditi
         return new ErrorConditionWrapper(val);
     }
 
+    @Override
+    protected int getElementCount(ErrorCondition val)
+    {
+        return val.getInfo() != null
+                  ? 3
+                  : val.getDescription() != null
+                  ? 2
+                  : 1;
+    }
+
+    @Override
+    protected void writeElement(ErrorCondition val, int index)
+    {
+        switch(index)
+        {
+            case 0:
+                getEncoder().writeSymbol(val.getCondition());
+                break;
+            case 1:
+                getEncoder().writeString(val.getDescription());
+                break;
+            case 2:
+                getEncoder().writeMap(val.getInfo());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown index " + index);
+        }
+    }
+
     public static class ErrorConditionWrapper extends AbstractList
     {
 
@@ -126,6 +156,36 @@ public final class ErrorConditionType extends AbstractDescribedType<ErrorConditi
         return o;
     }
 
+    public ErrorCondition readFields(DecoderImpl decoder, int count)
+    {
+        ErrorCondition o = new ErrorCondition();
+
+        if(count == 0)
+        {
+            throw new DecodeException("The condition field cannot be omitted");
+        }
+
+        for(int index = 0; index < count; index++)
+        {
+            switch(index)
+            {
+                case 0:
+                    o.setCondition( decoder.readSymbol() );
+                    break;
+                case 1:
+                    o.setDescription( decoder.readString() );
+                    break;
+                case 2:
+                    o.setInfo( decoder.readMap() );
+                    break;
+                default:
+                    decoder.readObject();
+            }
+        }
+
+        return o;
+    }
+
     public Class<ErrorCondition> getTypeClass()
     {
         return ErrorCondition.class;
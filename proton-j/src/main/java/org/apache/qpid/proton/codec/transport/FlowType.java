@@ -30,14 +30,15 @@ import org.apache.qpid.proton.amqp.Symbol;
 import org.apache.qpid.proton.amqp.UnsignedInteger;
 import org.apache.qpid.proton.amqp.UnsignedLong;
 import org.apache.qpid.proton.amqp.transport.Flow;
-import org.apache.qpid.proton.codec.AbstractDescribedType;
+import org.apache.qpid.proton.codec.AbstractDescribedListType;
 import org.apache.qpid.proton.codec.DecodeException;
 import org.apache.qpid.proton.codec.Decoder;
-import org.apache.qpid.proton.codec.DescribedTypeConstructor;
+import org.apache.qpid.proton.codec.DecoderImpl;
 import org.apache.qpid.proton.codec.EncoderImpl;
+import org.apache.qpid.proton.codec.FastPathDescribedTypeConstructor;
 
 
-public final class FlowType extends AbstractDescribedType<Flow,List> implements DescribedTypeConstructor<Flow>
+public final class FlowType extends AbstractDescribedListType<Flow> implements FastPathDescribedTypeConstructor<Flow>
 {
     private static final Object[] DESCRIPTORS =
     {
@@ -46,6 +47,9 @@ public final class FlowType extends AbstractDescribedType<Flow,List> implements
 
     private static final UnsignedLong DESCRIPTOR = UnsignedLong.valueOf(0x0000000000000013L);
 
+    // the flow decoded into when the decoder recycles performatives
+    private Flow _recycled;
+
     private FlowType(EncoderImpl encoder)
     {
         super(encoder);
@@ -62,6 +66,69 @@ public final class FlowType extends AbstractDescribedType<Flow,List> implements
         return new FlowWrapper(val);
     }
 
+    @Override
+    protected int getElementCount(Flow val)
+    {
+        return val.getProperties() != null
+                  ? 11
+                  : val.getEcho()
+                  ? 10
+                  : val.getDrain()
+                  ? 9
+                  : val.getAvailable() != null
+                  ? 8
+                  : val.getLinkCredit() != null
+                  ? 7
+                  : val.getDeliveryCount() != null
+                  ? 6
+                  : val.getHandle() != null
+                  ? 5
+                  : 4;
+    }
+
+    @Override
+    protected void writeElement(Flow val, int index)
+    {
+        switch(index)
+        {
+            case 0:
+                getEncoder().writeUnsignedInteger(val.getNextIncomingId());
+                break;
+            case 1:
+                getEncoder().writeUnsignedInteger(val.getIncomingWindow());
+                break;
+            case 2:
+                getEncoder().writeUnsignedInteger(val.getNextOutgoingId());
+                break;
+            case 3:
+                getEncoder().writeUnsignedInteger(val.getOutgoingWindow());
+                break;
+            case 4:
+                getEncoder().writeUnsignedInteger(val.getHandle());
+                break;
+            case 5:
+                getEncoder().writeUnsignedInteger(val.getDeliveryCount());
+                break;
+            case 6:
+                getEncoder().writeUnsignedInteger(val.getLinkCredit());
+                break;
+            case 7:
+                getEncoder().writeUnsignedInteger(val.getAvailable());
+                break;
+            case 8:
+                getEncoder().writeBoolean(val.getDrain());
+                break;
+            case 9:
+                getEncoder().writeBoolean(val.getEcho());
+                break;
+            case 10:
+                getEncoder().writeMap(val.getProperties());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown index " + index);
+        }
+    }
+
     public static class FlowWrapper extends AbstractList
     {
 
@@ -171,6 +238,81 @@ public final class FlowType extends AbstractDescribedType<Flow,List> implements
         return o;
     }
 
+    public Flow readFields(DecoderImpl decoder, int count)
+    {
+        if(count <= 3)
+        {
+            throw new DecodeException("The outgoing-window field cannot be omitted");
+        }
+
+        Flow o = decoder.isRecyclePerformatives() ? recycled() : new Flow();
+
+        for(int index = 0; index < count; index++)
+        {
+            switch(index)
+            {
+                case 0:
+                    o.setNextIncomingId( decoder.readUnsignedInteger() );
+                    break;
+                case 1:
+                    o.setIncomingWindow( decoder.readUnsignedInteger() );
+                    break;
+                case 2:
+                    o.setNextOutgoingId( decoder.readUnsignedInteger() );
+                    break;
+                case 3:
+                    o.setOutgoingWindow( decoder.readUnsignedInteger() );
+                    break;
+                case 4:
+                    o.setHandle( decoder.readUnsignedInteger() );
+                    break;
+                case 5:
+                    o.setDeliveryCount( decoder.readUnsignedInteger() );
+                    break;
+                case 6:
+                    o.setLinkCredit( decoder.readUnsignedInteger() );
+                    break;
+                case 7:
+                    o.setAvailable( decoder.readUnsignedInteger() );
+                    break;
+                case 8:
+                    o.setDrain( decoder.readBoolean(false) );
+                    break;
+                case 9:
+                    o.setEcho( decoder.readBoolean(false) );
+                    break;
+                case 10:
+                    o.setProperties( decoder.readMap() );
+                    break;
+                default:
+                    decoder.readObject();
+            }
+        }
+
+        return o;
+    }
+
+    private Flow recycled()
+    {
+        Flow o = _recycled;
+        if(o == null)
+        {
+            o = _recycled = new Flow();
+        }
+        else
+        {
+            o.setNextIncomingId(null);
+            o.setHandle(null);
+            o.setDeliveryCount(null);
+            o.setLinkCredit(null);
+            o.setAvailable(null);
+            o.setDrain(false);
+            o.setEcho(false);
+            o.setProperties(null);
+        }
+        return o;
+    }
+
     public Class<Flow> getTypeClass()
     {
         return Flow.class;
@@ -31,14 +31,15 @@ import org.apache.qpid.proton.amqp.UnsignedInteger;
 import org.apache.qpid.proton.amqp.UnsignedLong;
 import org.apache.qpid.proton.amqp.UnsignedShort;
 import org.apache.qpid.proton.amqp.transport.Open;
-import org.apache.qpid.proton.codec.AbstractDescribedType;
+import org.apache.qpid.proton.codec.AbstractDescribedListType;
 import org.apache.qpid.proton.codec.DecodeException;
 import org.apache.qpid.proton.codec.Decoder;
-import org.apache.qpid.proton.codec.DescribedTypeConstructor;
+import org.apache.qpid.proton.codec.DecoderImpl;
 import org.apache.qpid.proton.codec.EncoderImpl;
+import org.apache.qpid.proton.codec.FastPathDescribedTypeConstructor;
 
 
-public final class OpenType extends AbstractDescribedType<Open,List> implements DescribedTypeConstructor<Open>
+public final class OpenType extends AbstractDescribedListType<Open> implements FastPathDescribedTypeConstructor<Open>
 {
     private static final Object[] DESCRIPTORS =
     {
@@ -64,6 +65,70 @@ public final class OpenType extends AbstractDescribedType<Open,List> implements
         return new OpenWrapper(val);
     }
 
+    @Override
+    protected int getElementCount(Open val)
+    {
+        return val.getProperties() != null
+                  ? 10
+                  : val.getDesiredCapabilities() != null
+                  ? 9
+                  : val.getOfferedCapabilities() != null
+                  ? 8
+                  : val.getIncomingLocales() != null
+                  ? 7
+                  : val.getOutgoingLocales() != null
+                  ? 6
+                  : val.getIdleTimeOut() != null
+                  ? 5
+                  : (val.getChannelMax() != null && !val.getChannelMax().equals(UnsignedShort.MAX_VALUE))
+                  ? 4
+                  : (val.getMaxFrameSize() != null && !val.getMaxFrameSize().equals(UnsignedInteger.MAX_VALUE))
+                  ? 3
+                  : val.getHostname() != null
+                  ? 2
+                  : 1;
+    }
+
+    @Override
+    protected void writeElement(Open val, int index)
+    {
+        switch(index)
+        {
+            case 0:
+                getEncoder().writeString(val.getContainerId());
+                break;
+            case 1:
+                getEncoder().writeString(val.getHostname());
+                break;
+            case 2:
+                getEncoder().writeUnsignedInteger(val.getMaxFrameSize());
+                break;
+            case 3:
+                getEncoder().writeUnsignedShort(val.getChannelMax());
+                break;
+            case 4:
+                getEncoder().writeUnsignedInteger(val.getIdleTimeOut());
+                break;
+            case 5:
+                getEncoder().writeObject(val.getOutgoingLocales());
+                break;
+            case 6:
+                getEncoder().writeObject(val.getIncomingLocales());
+                break;
+            case 7:
+                getEncoder().writeObject(val.getOfferedCapabilities());
+                break;
+            case 8:
+                getEncoder().writeObject(val.getDesiredCapabilities());
+                break;
+            case 9:
+                getEncoder().writeMap(val.getProperties());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown index " + index);
+        }
+    }
+
 
     public static class OpenWrapper extends AbstractList
     {
@@ -206,6 +271,57 @@ public final class OpenType extends AbstractDescribedType<Open,List> implements
         return o;
     }
 
+    public Open readFields(DecoderImpl decoder, int count)
+    {
+        Open o = new Open();
+
+        if(count == 0)
+        {
+            throw new DecodeException("The container-id field cannot be omitted");
+        }
+
+        for(int index = 0; index < count; index++)
+        {
+            switch(index)
+            {
+                case 0:
+                    o.setContainerId( decoder.readString() );
+                    break;
+                case 1:
+                    o.setHostname( decoder.readString() );
+                    break;
+                case 2:
+                    o.setMaxFrameSize( decoder.readUnsignedInteger(UnsignedInteger.MAX_VALUE) );
+                    break;
+                case 3:
+                    o.setChannelMax( decoder.readUnsignedShort(UnsignedShort.MAX_VALUE) );
+                    break;
+                case 4:
+                    o.setIdleTimeOut( decoder.readUnsignedInteger() );
+                    break;
+                case 5:
+                    o.setOutgoingLocales( decoder.readMultiple(Symbol.class) );
+                    break;
+                case 6:
+                    o.setIncomingLocales( decoder.readMultiple(Symbol.class) );
+                    break;
+                case 7:
+                    o.setOfferedCapabilities( decoder.readMultiple(Symbol.class) );
+                    break;
+                case 8:
+                    o.setDesiredCapabilities( decoder.readMultiple(Symbol.class) );
+                    break;
+                case 9:
+                    o.setProperties( decoder.readMap() );
+                    break;
+                default:
+                    decoder.readObject();
+            }
+        }
+
+        return o;
+    }
+
     public Class<Open> getTypeClass()
     {
         return Open.class;
@@ -33,14 +33,15 @@ import org.apache.qpid.proton.amqp.UnsignedLong;
 import org.apache.qpid.proton.amqp.transport.DeliveryState;
 import org.apache.qpid.proton.amqp.transport.ReceiverSettleMode;
 import org.apache.qpid.proton.amqp.transport.Transfer;
-import org.apache.qpid.proton.codec.AbstractDescribedType;
+import org.apache.qpid.proton.codec.AbstractDescribedListType;
 import org.apache.qpid.proton.codec.DecodeException;
 import org.apache.qpid.proton.codec.Decoder;
-import org.apache.qpid.proton.codec.DescribedTypeConstructor;
+import org.apache.qpid.proton.codec.DecoderImpl;
 import org.apache.qpid.proton.codec.EncoderImpl;
+import org.apache.qpid.proton.codec.FastPathDescribedTypeConstructor;
 
 
-public final class TransferType extends AbstractDescribedType<Transfer,List> implements DescribedTypeConstructor<Transfer>
+public final class TransferType extends AbstractDescribedListType<Transfer> implements FastPathDescribedTypeConstructor<Transfer>
 {
     private static final Object[] DESCRIPTORS =
     {
@@ -49,6 +50,9 @@ public final class TransferType extends AbstractDescribedType<Transfer,List> imp
 
     private static final UnsignedLong DESCRIPTOR = UnsignedLong.valueOf(0x0000000000000014L);
 
+    // the transfer decoded into when the decoder recycles performatives
+    private Transfer _recycled;
+
     private TransferType(EncoderImpl encoder)
     {
         super(encoder);
@@ -66,6 +70,83 @@ public final class TransferType extends AbstractDescribedType<Transfer,List> imp
         return new TransferWrapper(val);
     }
 
+    @Override
+    protected int getElementCount(Transfer val)
+    {
+        return val.getBatchable()
+                  ? 11
+                  : val.getAborted()
+                  ? 10
+                  : val.getResume()
+                  ? 9
+                  : val.getState() != null
+                  ? 8
+                  : val.getRcvSettleMode() != null
+                  ? 7
+                  : val.getMore()
+                  ? 6
+                  : val.getSettled() != null
+                  ? 5
+                  : val.getMessageFormat() != null
+                  ? 4
+                  : val.getDeliveryTagArray() != null
+                  ? 3
+                  : val.getDeliveryId() != null
+                  ? 2
+                  : 1;
+    }
+
+    @Override
+    protected void writeElement(Transfer val, int index)
+    {
+        switch(index)
+        {
+            case 0:
+                getEncoder().writeUnsignedInteger(val.getHandle());
+                break;
+            case 1:
+                getEncoder().writeUnsignedInteger(val.getDeliveryId());
+                break;
+            case 2:
+                if(val.getDeliveryTagArray() == null)
+                {
+                    getEncoder().writeNull();
+                }
+                else
+                {
+                    getEncoder().writeBinary(val.getDeliveryTagArray(), val.getDeliveryTagOffset(),
+                                             val.getDeliveryTagLength());
+                }
+                break;
+            case 3:
+                getEncoder().writeUnsignedInteger(val.getMessageFormat());
+                break;
+            case 4:
+                getEncoder().writeBoolean(val.getSettled());
+                break;
+            case 5:
+                getEncoder().writeBoolean(val.getMore());
+                break;
+            case 6:
+                getEncoder().writeUnsignedByte(val.getRcvSettleMode() == null ? null : val.getRcvSettleMode().getValue());
+                break;
+            case 7:
+                getEncoder().writeObject(val.getState());
+                break;
+            case 8:
+                getEncoder().writeBoolean(val.getResume());
+                break;
+            case 9:
+                getEncoder().writeBoolean(val.getAborted());
+                break;
+            case 10:
+                getEncoder().writeBoolean(val.getBatchable());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown index " + index);
+        }
+    }
+
 
     public static class TransferWrapper extends AbstractList
     {
@@ -185,6 +266,86 @@ public final class TransferType extends AbstractDescribedType<Transfer,List> imp
             return o;
         }
 
+        public Transfer readFields(DecoderImpl decoder, int count)
+        {
+            if(count == 0)
+            {
+                throw new DecodeException("The handle field cannot be omitted");
+            }
+
+            Transfer o = decoder.isRecyclePerformatives() ? recycled() : new Transfer();
+
+            for(int index = 0; index < count; index++)
+            {
+                switch(index)
+                {
+                    case 0:
+                        o.setHandle( decoder.readUnsignedInteger() );
+                        break;
+                    case 1:
+                        o.setDeliveryId( decoder.readUnsignedInteger() );
+                        break;
+                    case 2:
+                        o.setDeliveryTag( decoder.readBinary() );
+                        break;
+                    case 3:
+                        o.setMessageFormat( decoder.readUnsignedInteger() );
+                        break;
+                    case 4:
+                        o.setSettled( decoder.readBoolean() );
+                        break;
+                    case 5:
+                        o.setMore( decoder.readBoolean(false) );
+                        break;
+                    case 6:
+                    {
+                        UnsignedByte receiverSettleMode = decoder.readUnsignedByte();
+                        o.setRcvSettleMode(receiverSettleMode == null ? null : ReceiverSettleMode.values()[receiverSettleMode.intValue()]);
+                        break;
+                    }
+                    case 7:
+                        o.setState( (DeliveryState) decoder.readObject() );
+                        break;
+                    case 8:
+                        o.setResume( decoder.readBoolean(false) );
+                        break;
+                    case 9:
+                        o.setAborted( decoder.readBoolean(false) );
+                        break;
+                    case 10:
+                        o.setBatchable( decoder.readBoolean(false) );
+                        break;
+                    default:
+                        decoder.readObject();
+                }
+            }
+
+            return o;
+        }
+
+        private Transfer recycled()
+        {
+            Transfer o = _recycled;
+            if(o == null)
+            {
+                o = _recycled = new Transfer();
+            }
+            else
+            {
+                o.setDeliveryId(null);
+                o.setDeliveryTag(null);
+                o.setMessageFormat(null);
+                o.setSettled(null);
+                o.setMore(false);
+                o.setRcvSettleMode(null);
+                o.setState(null);
+                o.setResume(false);
+                o.setAborted(false);
+                o.setBatchable(false);
+            }
+            return o;
+        }
+
         public Class<Transfer> getTypeClass()
         {
             return Transfer.class;
@@ -20,6 +20,8 @@
  */
 package org.apache.qpid.proton.engine;
 
+import java.util.EnumSet;
+
 import org.apache.qpid.proton.engine.impl.CollectorImpl;
 
 /**
@@ -42,4 +44,32 @@ public interface Collector
     void pop();
 
     boolean more();
+
+    /**
+     * Restricts the events collected to those of the given types. Events of any other
+     * {@link Event.Type} are discarded as they are put, rather than being queued, while events of
+     * types defined elsewhere are always collected. The types handled by the reactor itself must
+     * be left subscribed for a collector belonging to a reactor.
+     *
+     * @param types the types of event to collect, or null to collect events of every type
+     */
+    void setSubscribedTypes(EnumSet<Event.Type> types);
+
+    /**
+     * @return the types of event collected, or null if events of every type are
+     * @see #setSubscribedTypes(EnumSet)
+     */
+    EnumSet<Event.Type> getSubscribedTypes();
+
+    /**
+     * Sets whether an event is discarded as it is put if an event of the same type for the same
+     * context is already queued and has not yet been returned by {@link #peek()}. The queued event
+     * stands for both, as its context will reflect both updates by the time it is handled. Off by
+     * default, in which case only an event repeating the last queued one is discarded.
+     *
+     * @param coalescing true to coalesce events for the same context
+     */
+    void setCoalescing(boolean coalescing);
+
+    boolean isCoalescing();
 }
@@ -65,14 +65,14 @@ public interface Link extends Endpoint
 
     /**
      * Create a delivery object based on the specified tag. This form
-     * of the method is intended to allow the tag to be formed from a
-     * subsequence of the byte array passed in. This might allow more
-     * optimisation options in future but at present is not
-     * implemented.
-     *
-     * @param tag a tag for the delivery
-     * @param offset (currently ignored and must be 0)
-     * @param length (currently ignored and must be the length of the <code>tag</code> array
+     * of the method allows the tag to be formed from a subsequence of
+     * the byte array passed in, so that the tags of many deliveries
+     * can be held in one array. The bytes must not be changed while
+     * the delivery is in use.
+     *
+     * @param tag the array holding the tag for the delivery
+     * @param offset the offset of the tag in the array
+     * @param length the length of the tag
      * @return a Delivery object
      */
     public Delivery delivery(byte[] tag, int offset, int length);
@@ -20,6 +20,7 @@
  */
 package org.apache.qpid.proton.engine;
 
+import org.apache.qpid.proton.codec.ReadableBuffer;
 import org.apache.qpid.proton.codec.WritableBuffer;
 
 /**
@@ -69,6 +70,20 @@ public interface Receiver extends Link
      */
     public int recv(WritableBuffer buffer);
 
+    /**
+     * Receive message data for the current delivery without copying it. The returned buffer is a
+     * read only view of all the bytes the Receiver currently has for the delivery, which are then
+     * considered received.
+     *
+     * The view refers to buffers owned by the delivery, which are reused once the delivery is
+     * settled, so it must not be used after that.
+     *
+     * @return the message data, which is empty if there is none.
+     *
+     * @see org.apache.qpid.proton.message.impl.MessageImpl#decode(ReadableBuffer)
+     */
+    public ReadableBuffer recv();
+
     public void drain(int credit);
 
     /**
@@ -37,6 +37,18 @@ public interface Sender extends Link
     //TODO is this absolute or cumulative?
     public void offer(int credits);
 
+    /**
+     * Creates a delivery tagged with the next value of a sequence kept by this sender, encoded in
+     * as few bytes as it needs. The tags are held in blocks shared by many deliveries, so no array
+     * is allocated for each one.
+     *
+     * The tags are only unique amongst the deliveries created by this method, so a sender should
+     * not mix it with deliveries tagged by the application.
+     *
+     * @return a Delivery object
+     */
+    public Delivery delivery();
+
     /**
      * Sends some data for the current delivery.  The application may call this method multiple
      * times for the same delivery.
@@ -50,6 +62,8 @@ public interface Sender extends Link
      * TODO Proton-j current copies all the bytes it has been given so the return value will always be
      * length.  Should this be changed? How does Proton-c behave?   What should the application do if
      * the number of bytes accepted is smaller than length.
+     *
+     * @see #sendNoCopy(ReadableBuffer, ReleaseCallback)
      */
     public int send(byte[] bytes, int offset, int length);
 
@@ -63,6 +77,23 @@ public interface Sender extends Link
      */
     public int send(ReadableBuffer buffer);
 
+    /**
+     * Sends the remaining content of the given buffer for the current delivery without copying it.
+     * The application may call this method multiple times for the same delivery, and may mix it
+     * with the copying send methods.
+     *
+     * The delivery references the buffer's content until it has all been written to the transport
+     * output, at which point the callback, if any, is given the buffer back. The application must
+     * not modify the content before then. The callback is not invoked for content that is never
+     * written, for example because the connection is closed first.
+     *
+     * @param buffer the buffer to send the content of, its position is moved to its limit.
+     * @param callback notified once the content has been written, may be null.
+     *
+     * @return the number of bytes referenced from the provided buffer.
+     */
+    public int sendNoCopy(ReadableBuffer buffer, ReleaseCallback callback);
+
     /**
      * Abort the current delivery.
      *
@@ -84,4 +115,13 @@ public interface Sender extends Link
     @Override
     public boolean advance();
 
+    /**
+     * Notified when the transport no longer references a buffer passed to
+     * {@link Sender#sendNoCopy(ReadableBuffer, ReleaseCallback)}.
+     */
+    public interface ReleaseCallback
+    {
+        void released(ReadableBuffer buffer);
+    }
+
 }
@@ -20,7 +20,9 @@
  */
 package org.apache.qpid.proton.engine;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
 
 import org.apache.qpid.proton.amqp.transport.ErrorCondition;
 import org.apache.qpid.proton.engine.impl.TransportImpl;
@@ -177,6 +179,20 @@ public interface Transport extends Endpoint
      */
     void outputConsumed();
 
+    /**
+     * Writes pending output to the given channel with a single gathering write, as an alternative
+     * to {@link #head()} and {@link #pop(int)}. Where the transport's layers allow it, frames and
+     * the payloads of transfers are written from where they are, rather than being copied into a
+     * single buffer first.
+     *
+     * @param channel the channel to write to
+     *
+     * @return the number of bytes written, which may be zero. {@link #pending()} reports whether
+     *         the output has ended.
+     * @throws IOException if the channel fails to write
+     */
+    int writeTo(GatheringByteChannel channel) throws IOException;
+
     /**
      * Signal the transport to expect SASL frames used to establish a SASL layer prior to
      * performing the AMQP protocol version negotiation. This must first be performed before
@@ -282,4 +298,38 @@ public interface Transport extends Endpoint
     void setEmitFlowEventOnSend(boolean emitFlowEventOnSend);
 
     boolean isEmitFlowEventOnSend();
+
+    /**
+     * Sets the number of bytes of output, generated but not yet written, above which the transport
+     * stops generating transfer frames until some of that output has been written. A lower value
+     * bounds the memory held by each transport, a higher one lets it batch more frames per write.
+     *
+     * Defaults to 64KiB.
+     *
+     * @param outputThreshold the threshold in bytes, which must be positive
+     * @throws IllegalArgumentException if the value supplied is not positive
+     */
+    void setOutputThreshold(int outputThreshold);
+
+    int getOutputThreshold();
+
+    /**
+     * Sets how long dispositions may be held back so that those for further deliveries can be
+     * coalesced with them. Dispositions for consecutive deliveries of a session that share a role,
+     * settled flag and state are always sent as one ranged disposition when they arise together.
+     * With a linger they are held from when the first of them becomes pending until the linger has
+     * passed, or until a disposition that cannot be coalesced with them, or the detach, end or close
+     * of their link, session or connection, is to be sent. Once it has passed they are sent when
+     * output is next generated or {@link #tick(long)} is called, so an application that sets a
+     * linger must call {@link #tick(long)}, which returns no deadline later than the linger allows,
+     * for them to be sent when nothing else is.
+     *
+     * Defaults to 0, dispositions are sent as soon as output is next generated.
+     *
+     * @param linger the linger in milliseconds, which must not be negative
+     * @throws IllegalArgumentException if the value supplied is negative
+     */
+    void setDispositionLinger(int linger);
+
+    int getDispositionLinger();
 }
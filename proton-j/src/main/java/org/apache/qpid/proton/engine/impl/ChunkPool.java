@@ -0,0 +1,111 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.proton.engine.impl;
+
+/**
+ * A per thread pool of byte arrays used to hold delivery data and encoded frames, in power of two
+ * size classes from {@link #MIN_CHUNK_SIZE} to {@link #MAX_CHUNK_SIZE}. Each size class retains at
+ * most {@link #MAX_POOLED_CHUNKS} free chunks, so a thread never holds on to more than about twice
+ * that many maximum sized chunks.
+ *
+ * A chunk may be released on a different thread to the one it was acquired on, it then simply
+ * joins that thread's pool.
+ */
+final class ChunkPool
+{
+    static final int MIN_CHUNK_SIZE = 256;
+    static final int MAX_CHUNK_SIZE = 64 * 1024;
+    static final int MAX_POOLED_CHUNKS = 8;
+
+    private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_CHUNK_SIZE);
+    private static final int SIZE_CLASSES = Integer.numberOfTrailingZeros(MAX_CHUNK_SIZE) - MIN_SHIFT + 1;
+
+    private static final ThreadLocal<ChunkPool> POOL = new ThreadLocal<ChunkPool>()
+    {
+        @Override
+        protected ChunkPool initialValue()
+        {
+            return new ChunkPool();
+        }
+    };
+
+    private final byte[][][] _free = new byte[SIZE_CLASSES][MAX_POOLED_CHUNKS][];
+    private final int[] _freeCount = new int[SIZE_CLASSES];
+
+    private ChunkPool()
+    {
+    }
+
+    static ChunkPool get()
+    {
+        return POOL.get();
+    }
+
+    /**
+     * @return a chunk of at least the given size, or of {@link #MAX_CHUNK_SIZE} if the size is
+     *         larger than that. Its content is unspecified.
+     */
+    byte[] acquire(int size)
+    {
+        int sizeClass = sizeClass(size);
+        int count = _freeCount[sizeClass];
+        if (count > 0)
+        {
+            _freeCount[sizeClass] = --count;
+            byte[] chunk = _free[sizeClass][count];
+            _free[sizeClass][count] = null;
+            return chunk;
+        }
+        return new byte[MIN_CHUNK_SIZE << sizeClass];
+    }
+
+    /**
+     * Returns a chunk obtained from {@link #acquire(int)} to the pool. It must not be used afterwards.
+     */
+    void release(byte[] chunk)
+    {
+        int sizeClass = Integer.numberOfTrailingZeros(chunk.length) - MIN_SHIFT;
+        int count = _freeCount[sizeClass];
+        if (count < MAX_POOLED_CHUNKS)
+        {
+            _free[sizeClass][count] = chunk;
+            _freeCount[sizeClass] = count + 1;
+        }
+    }
+
+    private static int sizeClass(int size)
+    {
+        if (size <= MIN_CHUNK_SIZE)
+        {
+            return 0;
+        }
+        if (size >= MAX_CHUNK_SIZE)
+        {
+            return SIZE_CLASSES - 1;
+        }
+        return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+    }
+
+    int getPooledCount(int size)
+    {
+        return _freeCount[sizeClass(size)];
+    }
+}
@@ -20,6 +20,8 @@
  */
 package org.apache.qpid.proton.engine.impl;
 
+import java.util.EnumSet;
+
 import org.apache.qpid.proton.engine.Collector;
 import org.apache.qpid.proton.engine.Event;
 import org.apache.qpid.proton.engine.EventType;
@@ -33,16 +35,29 @@ import org.apache.qpid.proton.engine.EventType;
 public class CollectorImpl implements Collector
 {
 
+    private static final int INITIAL_PENDING_CAPACITY = 16;
+
     private EventImpl head;
     private EventImpl tail;
     private EventImpl free;
 
+    private EnumSet<Event.Type> subscribed;
+    private boolean coalescing;
+    // the queued events not yet peeked at, in a table keyed by type and context that is probed
+    // linearly, through which a put event finds one it coalesces with
+    private EventImpl[] pending;
+    private int pendingCount;
+
     public CollectorImpl()
     {}
 
     @Override
     public Event peek()
     {
+        // once peeked at the event may be being handled, so later events are no longer folded into it
+        if (head != null && head.pending) {
+            removePending(head);
+        }
         return head;
     }
 
@@ -50,6 +65,9 @@ public class CollectorImpl implements Collector
     public void pop()
     {
         if (head != null) {
+            if (head.pending) {
+                removePending(head);
+            }
             EventImpl next = head.next;
             head.next = free;
             free = head;
@@ -66,10 +84,16 @@ public class CollectorImpl implements Collector
         if (!type.isValid()) {
             throw new IllegalArgumentException("Cannot put events of type " + type);
         }
+        if (subscribed != null && type instanceof Event.Type && !subscribed.contains(type)) {
+            return null;
+        }
         if (tail != null && tail.getEventType() == type &&
             tail.getContext() == context) {
             return null;
         }
+        if (coalescing && pendingCount > 0 && findPending(type, context) != null) {
+            return null;
+        }
 
         EventImpl event;
         if (free == null) {
@@ -90,6 +114,10 @@ public class CollectorImpl implements Collector
             tail = event;
         }
 
+        if (coalescing) {
+            addPending(event);
+        }
+
         return event;
     }
 
@@ -98,4 +126,100 @@ public class CollectorImpl implements Collector
         return head != null && head.next != null;
     }
 
+    @Override
+    public void setSubscribedTypes(EnumSet<Event.Type> types)
+    {
+        subscribed = types == null ? null : EnumSet.copyOf(types);
+    }
+
+    @Override
+    public EnumSet<Event.Type> getSubscribedTypes()
+    {
+        return subscribed == null ? null : EnumSet.copyOf(subscribed);
+    }
+
+    @Override
+    public void setCoalescing(boolean coalescing)
+    {
+        this.coalescing = coalescing;
+    }
+
+    @Override
+    public boolean isCoalescing()
+    {
+        return coalescing;
+    }
+
+    private static int hash(EventType type, Object context)
+    {
+        int h = System.identityHashCode(context) * 31 + type.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private EventImpl findPending(EventType type, Object context)
+    {
+        int mask = pending.length - 1;
+        for (int i = hash(type, context) & mask; pending[i] != null; i = (i + 1) & mask) {
+            EventImpl event = pending[i];
+            if (event.type == type && event.context == context) {
+                return event;
+            }
+        }
+        return null;
+    }
+
+    private void addPending(EventImpl event)
+    {
+        if (pending == null) {
+            pending = new EventImpl[INITIAL_PENDING_CAPACITY];
+        } else if ((pendingCount + 1) * 2 > pending.length) {
+            EventImpl[] old = pending;
+            pending = new EventImpl[old.length * 2];
+            pendingCount = 0;
+            for (EventImpl e : old) {
+                if (e != null) {
+                    insertPending(e);
+                }
+            }
+        }
+        insertPending(event);
+        event.pending = true;
+    }
+
+    private void insertPending(EventImpl event)
+    {
+        int mask = pending.length - 1;
+        int i = hash(event.type, event.context) & mask;
+        while (pending[i] != null) {
+            i = (i + 1) & mask;
+        }
+        pending[i] = event;
+        pendingCount++;
+    }
+
+    private void removePending(EventImpl event)
+    {
+        event.pending = false;
+        int mask = pending.length - 1;
+        int i = hash(event.type, event.context) & mask;
+        while (pending[i] != event) {
+            if (pending[i] == null) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        pending[i] = null;
+        pendingCount--;
+
+        // move back any later events of the same run that could no longer be found past the gap
+        for (int j = (i + 1) & mask; pending[j] != null; j = (j + 1) & mask) {
+            int home = hash(pending[j].type, pending[j].context) & mask;
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                pending[i] = pending[j];
+                pending[j] = null;
+                i = j;
+            }
+        }
+    }
+
 }
@@ -41,8 +41,12 @@ public class ConnectionImpl extends EndpointImpl implements ProtonJConnection
     public static final int MAX_CHANNELS = 65535;
 
     private List<SessionImpl> _sessions = new ArrayList<SessionImpl>();
-    private EndpointImpl _transportTail;
-    private EndpointImpl _transportHead;
+    // the modified sessions and links, queued separately so that each phase of output processing
+    // only visits the kind of endpoint it acts on
+    private EndpointImpl _modifiedSessionHead;
+    private EndpointImpl _modifiedSessionTail;
+    private EndpointImpl _modifiedLinkHead;
+    private EndpointImpl _modifiedLinkTail;
     private int _maxChannels = MAX_CHANNELS;
 
     private LinkNode<SessionImpl> _sessionHead;
@@ -236,51 +240,89 @@ public class ConnectionImpl extends EndpointImpl implements ProtonJConnection
     }
 
 
-    EndpointImpl getTransportHead()
+    EndpointImpl getModifiedSessionHead()
     {
-        return _transportHead;
+        return _modifiedSessionHead;
     }
 
-    EndpointImpl getTransportTail()
+    EndpointImpl getModifiedLinkHead()
     {
-        return _transportTail;
+        return _modifiedLinkHead;
     }
 
     void addModified(EndpointImpl endpoint)
     {
-        if(_transportTail == null)
+        endpoint.setTransportNext(null);
+        if(endpoint instanceof LinkImpl)
         {
-            endpoint.setTransportNext(null);
-            endpoint.setTransportPrev(null);
-            _transportHead = _transportTail = endpoint;
+            endpoint.setTransportPrev(_modifiedLinkTail);
+            if(_modifiedLinkTail == null)
+            {
+                _modifiedLinkHead = endpoint;
+            }
+            else
+            {
+                _modifiedLinkTail.setTransportNext(endpoint);
+            }
+            _modifiedLinkTail = endpoint;
         }
-        else
+        else if(endpoint instanceof SessionImpl)
         {
-            _transportTail.setTransportNext(endpoint);
-            endpoint.setTransportPrev(_transportTail);
-            _transportTail = endpoint;
-            _transportTail.setTransportNext(null);
+            endpoint.setTransportPrev(_modifiedSessionTail);
+            if(_modifiedSessionTail == null)
+            {
+                _modifiedSessionHead = endpoint;
+            }
+            else
+            {
+                _modifiedSessionTail.setTransportNext(endpoint);
+            }
+            _modifiedSessionTail = endpoint;
         }
+        // the connection itself is only ever checked through its own modified flag
     }
 
     void removeModified(EndpointImpl endpoint)
     {
-        if(_transportHead == endpoint)
+        if(endpoint instanceof LinkImpl)
         {
-            _transportHead = endpoint.transportNext();
-        }
-        else
-        {
-            endpoint.transportPrev().setTransportNext(endpoint.transportNext());
-        }
+            if(_modifiedLinkHead == endpoint)
+            {
+                _modifiedLinkHead = endpoint.transportNext();
+            }
+            else
+            {
+                endpoint.transportPrev().setTransportNext(endpoint.transportNext());
+            }
 
-        if(_transportTail == endpoint)
-        {
-            _transportTail = endpoint.transportPrev();
+            if(_modifiedLinkTail == endpoint)
+            {
+                _modifiedLinkTail = endpoint.transportPrev();
+            }
+            else
+            {
+                endpoint.transportNext().setTransportPrev(endpoint.transportPrev());
+            }
         }
-        else
+        else if(endpoint instanceof SessionImpl)
         {
-            endpoint.transportNext().setTransportPrev(endpoint.transportPrev());
+            if(_modifiedSessionHead == endpoint)
+            {
+                _modifiedSessionHead = endpoint.transportNext();
+            }
+            else
+            {
+                endpoint.transportPrev().setTransportNext(endpoint.transportNext());
+            }
+
+            if(_modifiedSessionTail == endpoint)
+            {
+                _modifiedSessionTail = endpoint.transportPrev();
+            }
+            else
+            {
+                endpoint.transportNext().setTransportPrev(endpoint.transportPrev());
+            }
         }
     }
 
@@ -572,7 +614,7 @@ public class ConnectionImpl extends EndpointImpl implements ProtonJConnection
     void addTransportWork(DeliveryImpl delivery)
     {
         modified();
-        if (delivery._transportWork) return;
+        if (delivery._transportWork || delivery._parked) return;
 
         delivery.setTransportWorkNext(null);
         delivery.setTransportWorkPrev(_transportWorkTail);
@@ -20,13 +20,16 @@
  */
 package org.apache.qpid.proton.engine.impl;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 import org.apache.qpid.proton.amqp.transport.DeliveryState;
+import org.apache.qpid.proton.codec.CompositeReadableBuffer;
 import org.apache.qpid.proton.codec.ReadableBuffer;
 import org.apache.qpid.proton.codec.WritableBuffer;
 import org.apache.qpid.proton.engine.Delivery;
 import org.apache.qpid.proton.engine.Record;
+import org.apache.qpid.proton.engine.Sender.ReleaseCallback;
 import org.apache.qpid.proton.engine.Transport;
 
 public class DeliveryImpl implements Delivery
@@ -43,11 +46,16 @@ public class DeliveryImpl implements Delivery
     private DeliveryImpl _transportWorkNext;
     private DeliveryImpl _transportWorkPrev;
     boolean _transportWork;
+    // set while the delivery waits on its link to be sent, linked through _transportWorkNext
+    boolean _parked;
 
     private Record _attachments;
     private Object _context;
 
-    private final byte[] _tag;
+    // the tag is the given range of _tag, which may be shared with the tags of other deliveries
+    private byte[] _tag;
+    private int _tagOffset;
+    private final int _tagLength;
     private final LinkImpl _link;
     private DeliveryState _deliveryState;
     private boolean _settled;
@@ -63,16 +71,62 @@ public class DeliveryImpl implements Delivery
     private int _flags = (byte) 0;
 
     private TransportDelivery _transportDelivery;
-    private byte[] _data;
     private int _dataSize;
     private boolean _complete;
     private boolean _updated;
     private boolean _done;
-    private int _offset;
+
+    /**
+     * The content still to be sent, in the order it is to be written, and _dataSize is the total
+     * remaining across these buffers. Content referenced by sendNoCopy is held as is, copied
+     * content is held in chunks from the ChunkPool, which are released by a ChunkRelease.
+     */
+    private ByteBuffer[] _sendBuffers;
+    private ReadableBuffer[] _sendBufferSources;
+    private ReleaseCallback[] _releaseCallbacks;
+    private int _sendBufferCount;
+
+    // the chunk copied content is appended to, and how much of it is used
+    private byte[] _sendChunk;
+    private int _sendChunkUsed;
+
+    /**
+     * Returns a send chunk to the pool once it has been written.
+     */
+    private static final class ChunkRelease implements ReleaseCallback
+    {
+        private final byte[] _chunk;
+
+        ChunkRelease(byte[] chunk)
+        {
+            _chunk = chunk;
+        }
+
+        @Override
+        public void released(ReadableBuffer buffer)
+        {
+            ChunkPool.get().release(_chunk);
+        }
+    }
+
+    // the data received for the delivery, held in chunks from the ChunkPool
+    private CompositeReadableBuffer _received;
+    private byte[][] _receivedChunks;
+    private int _receivedChunkCount;
+    private int _tailChunkUsed;
+    private boolean _receivedShared;
 
     DeliveryImpl(final byte[] tag, final LinkImpl link, DeliveryImpl previous)
+    {
+        this(tag, 0, tag == null ? 0 : tag.length, link, previous);
+    }
+
+    DeliveryImpl(final byte[] tag, final int tagOffset, final int tagLength, final LinkImpl link,
+                 DeliveryImpl previous)
     {
         _tag = tag;
+        _tagOffset = tagOffset;
+        _tagLength = tagLength;
         _link = link;
         _link.incrementUnsettled();
         _linkPrevious = previous;
@@ -84,10 +138,35 @@ public class DeliveryImpl implements Delivery
 
     @Override
     public byte[] getTag()
+    {
+        // a tag that is only part of its array is copied out of it the first time it is asked for
+        if(_tag != null && (_tagOffset != 0 || _tagLength != _tag.length))
+        {
+            _tag = Arrays.copyOfRange(_tag, _tagOffset, _tagOffset + _tagLength);
+            _tagOffset = 0;
+        }
+        return _tag;
+    }
+
+    /**
+     * Returns the array holding the tag, which is the range of it given by {@link #getTagOffset()}
+     * and {@link #getTagLength()}.
+     */
+    byte[] getTagArray()
     {
         return _tag;
     }
 
+    int getTagOffset()
+    {
+        return _tagOffset;
+    }
+
+    int getTagLength()
+    {
+        return _tagLength;
+    }
+
     @Override
     public LinkImpl getLink()
     {
@@ -143,14 +222,23 @@ public class DeliveryImpl implements Delivery
 
         _settled = true;
         _link.decrementUnsettled();
+        if (_receivedChunkCount > 0)
+        {
+            releaseReceivedData();
+        }
         if(!_remoteSettled)
         {
             addToTransportWorkList();
         }
-        else
+        else if(_transportDelivery != null)
         {
             _transportDelivery.settled();
         }
+        else
+        {
+            // received settled and never tracked by the session
+            _link.getSession().modified(false);
+        }
 
         if(_link.current() == this)
         {
@@ -226,14 +314,12 @@ public class DeliveryImpl implements Delivery
     int recv(final byte[] bytes, int offset, int size)
     {
         final int consumed;
-        if (_data != null)
+        if (_received != null)
         {
-            //TODO - should only be if no bytes left
-            consumed = Math.min(size, _dataSize);
+            consumed = Math.min(size, _received.remaining());
 
-            System.arraycopy(_data, _offset, bytes, offset, consumed);
-            _offset += consumed;
-            _dataSize -= consumed;
+            _received.get(bytes, offset, consumed);
+            receivedConsumed();
         }
         else
         {
@@ -245,13 +331,12 @@ public class DeliveryImpl implements Delivery
 
     int recv(final WritableBuffer buffer) {
         final int consumed;
-        if (_data != null)
+        if (_received != null)
         {
-            consumed = Math.min(buffer.remaining(), _dataSize);
+            consumed = Math.min(buffer.remaining(), _received.remaining());
 
-            buffer.put(_data, _offset, consumed);
-            _offset += consumed;
-            _dataSize -= consumed;
+            _received.get(buffer, consumed);
+            receivedConsumed();
         }
         else
         {
@@ -261,6 +346,91 @@ public class DeliveryImpl implements Delivery
         return (_complete && consumed == 0) ? Transport.END_OF_STREAM : consumed;
     }
 
+    ReadableBuffer recv()
+    {
+        if (_received == null)
+        {
+            return new CompositeReadableBuffer();
+        }
+
+        CompositeReadableBuffer received = _received.slice();
+        _received.position(_received.limit());
+        _receivedShared = true;
+        receivedConsumed();
+        return received;
+    }
+
+    /**
+     * Appends data received for the delivery, copying it into chunks from the {@link ChunkPool}.
+     */
+    void addReceivedData(byte[] bytes, int offset, int length)
+    {
+        if (_received == null)
+        {
+            _received = new CompositeReadableBuffer();
+        }
+
+        while (length > 0)
+        {
+            byte[] tail = _receivedChunkCount == 0 ? null : _receivedChunks[_receivedChunkCount - 1];
+            if (tail == null || _tailChunkUsed == tail.length)
+            {
+                tail = ChunkPool.get().acquire(length);
+                addReceivedChunk(tail);
+            }
+
+            int size = Math.min(tail.length - _tailChunkUsed, length);
+            System.arraycopy(bytes, offset, tail, _tailChunkUsed, size);
+            _received.append(tail, _tailChunkUsed, size);
+            _tailChunkUsed += size;
+            offset += size;
+            length -= size;
+        }
+        _dataSize = _received.remaining();
+    }
+
+    private void addReceivedChunk(byte[] chunk)
+    {
+        if (_receivedChunks == null)
+        {
+            _receivedChunks = new byte[2][];
+        }
+        else if (_receivedChunkCount == _receivedChunks.length)
+        {
+            _receivedChunks = Arrays.copyOf(_receivedChunks, _receivedChunkCount * 2);
+        }
+        _receivedChunks[_receivedChunkCount++] = chunk;
+        _tailChunkUsed = 0;
+    }
+
+    private void receivedConsumed()
+    {
+        _dataSize = _received.remaining();
+        if (_dataSize == 0 && !_receivedShared)
+        {
+            releaseReceivedData();
+        }
+    }
+
+    /**
+     * Returns the chunks holding the received data to the pool. Once a view of them has been handed
+     * out by {@link #recv()} this only happens when the delivery is settled.
+     */
+    private void releaseReceivedData()
+    {
+        ChunkPool pool = ChunkPool.get();
+        for (int i = 0; i < _receivedChunkCount; i++)
+        {
+            pool.release(_receivedChunks[i]);
+            _receivedChunks[i] = null;
+        }
+        _receivedChunkCount = 0;
+        _tailChunkUsed = 0;
+        _received = null;
+        _receivedShared = false;
+        _dataSize = 0;
+    }
+
     void updateWork()
     {
         getLink().getConnectionImpl().workUpdate(this);
@@ -318,72 +488,170 @@ public class DeliveryImpl implements Delivery
 
     int send(byte[] bytes, int offset, int length)
     {
-        if(_data == null)
+        int remaining = length;
+        while(remaining > 0)
         {
-            _data = new byte[length];
+            int size = Math.min(sendChunkSpace(remaining), remaining);
+            System.arraycopy(bytes, offset, _sendChunk, _sendChunkUsed, size);
+            sendChunkFilled(size);
+            offset += size;
+            remaining -= size;
         }
-        else if(_data.length - _dataSize < length)
-        {
-            byte[] oldData = _data;
-            _data = new byte[oldData.length + _dataSize];
-            System.arraycopy(oldData, _offset, _data, 0, _dataSize);
-            _offset = 0;
-        }
-        System.arraycopy(bytes, offset, _data, _dataSize + _offset, length);
-        _dataSize += length;
         addToTransportWorkList();
-        return length;  //TODO - Implement.
+        return length;
     }
 
     int send(final ReadableBuffer buffer)
     {
         int length = buffer.remaining();
+        int remaining = length;
+        while(remaining > 0)
+        {
+            int size = Math.min(sendChunkSpace(remaining), remaining);
+            buffer.get(_sendChunk, _sendChunkUsed, size);
+            sendChunkFilled(size);
+            remaining -= size;
+        }
+        addToTransportWorkList();
+        return length;
+    }
 
-        if(_data == null)
+    /**
+     * Ensures there is a send chunk with space left in it, acquiring a new one if need be, and
+     * returns how much space it has. Chunks grow with the content already pending, so that a
+     * delivery sent in many small pieces does not need as many chunks.
+     */
+    private int sendChunkSpace(int length)
+    {
+        if(_sendChunk == null || _sendChunkUsed == _sendChunk.length)
         {
-            _data = new byte[length];
+            _sendChunk = ChunkPool.get().acquire(Math.max(length, _dataSize));
+            _sendChunkUsed = 0;
         }
-        else if(_data.length - _dataSize < length)
+        return _sendChunk.length - _sendChunkUsed;
+    }
+
+    /**
+     * Accounts for content copied into the send chunk, extending the last send buffer when that
+     * is over the same chunk rather than adding another, so each chunk has one send buffer.
+     */
+    private void sendChunkFilled(int size)
+    {
+        ReleaseCallback last = _sendBufferCount == 0 ? null : _releaseCallbacks[_sendBufferCount - 1];
+        if(last instanceof ChunkRelease && ((ChunkRelease) last)._chunk == _sendChunk)
         {
-            byte[] oldData = _data;
-            _data = new byte[oldData.length + _dataSize];
-            System.arraycopy(oldData, _offset, _data, 0, _dataSize);
-            _offset = 0;
+            ByteBuffer buffer = _sendBuffers[_sendBufferCount - 1];
+            buffer.limit(_sendChunkUsed + size);
+            _dataSize += size;
         }
-        buffer.get(_data, _offset, length);
-        _dataSize+=length;
-        addToTransportWorkList();
-        return length;
+        else
+        {
+            addSendBuffer(ByteBuffer.wrap(_sendChunk, _sendChunkUsed, size), null, new ChunkRelease(_sendChunk));
+        }
+        _sendChunkUsed += size;
     }
 
-    byte[] getData()
+    int sendNoCopy(final ReadableBuffer buffer, final ReleaseCallback callback)
     {
-        return _data;
+        ByteBuffer content = buffer.byteBuffer().duplicate();
+        buffer.position(buffer.limit());
+
+        if(!content.hasRemaining())
+        {
+            if(callback != null)
+            {
+                callback.released(buffer);
+            }
+            return 0;
+        }
+
+        // content copied later goes after this, so must not share a chunk with content before it
+        _sendChunk = null;
+        int length = addSendBuffer(content, buffer, callback);
+        addToTransportWorkList();
+        return length;
     }
 
-    int getDataOffset()
+    private int addSendBuffer(ByteBuffer content, ReadableBuffer source, ReleaseCallback callback)
     {
-        return _offset;
+        if(_sendBuffers == null)
+        {
+            _sendBuffers = new ByteBuffer[2];
+            _sendBufferSources = new ReadableBuffer[2];
+            _releaseCallbacks = new ReleaseCallback[2];
+        }
+        else if(_sendBufferCount == _sendBuffers.length)
+        {
+            int length = _sendBufferCount * 2;
+            _sendBuffers = Arrays.copyOf(_sendBuffers, length);
+            _sendBufferSources = Arrays.copyOf(_sendBufferSources, length);
+            _releaseCallbacks = Arrays.copyOf(_releaseCallbacks, length);
+        }
+
+        _sendBuffers[_sendBufferCount] = content;
+        _sendBufferSources[_sendBufferCount] = source;
+        _releaseCallbacks[_sendBufferCount] = callback;
+        _sendBufferCount++;
+
+        int length = content.remaining();
+        _dataSize += length;
+        return length;
     }
 
-    int getDataLength()
+    boolean hasSendBuffers()
     {
-        return _dataSize;  //TODO - Implement.
+        return _sendBufferCount > 0;
     }
 
-    void setData(byte[] data)
+    /**
+     * @return the content still to be written, in order. Any entries beyond those are null.
+     */
+    ByteBuffer[] getSendBuffers()
     {
-        _data = data;
+        return _sendBuffers;
     }
 
-    void setDataLength(int length)
+    /**
+     * Drops the send buffers whose content has been framed, and updates the remaining data length
+     * accordingly. Their release callbacks are run once the frame writer has output them.
+     */
+    void releaseWrittenSendBuffers(FrameWriter frameWriter)
     {
-        _dataSize = length;
+        while(_sendBufferCount > 0 && !_sendBuffers[0].hasRemaining())
+        {
+            ReadableBuffer source = _sendBufferSources[0];
+            ReleaseCallback callback = _releaseCallbacks[0];
+
+            _sendBufferCount--;
+            System.arraycopy(_sendBuffers, 1, _sendBuffers, 0, _sendBufferCount);
+            System.arraycopy(_sendBufferSources, 1, _sendBufferSources, 0, _sendBufferCount);
+            System.arraycopy(_releaseCallbacks, 1, _releaseCallbacks, 0, _sendBufferCount);
+            _sendBuffers[_sendBufferCount] = null;
+            _sendBufferSources[_sendBufferCount] = null;
+            _releaseCallbacks[_sendBufferCount] = null;
+
+            if(callback instanceof ChunkRelease && ((ChunkRelease) callback)._chunk == _sendChunk)
+            {
+                // the chunk is released once written, so nothing more may be copied into it
+                _sendChunk = null;
+            }
+            if(callback != null)
+            {
+                frameWriter.releaseWhenWritten(source, callback);
+            }
+        }
+
+        int remaining = 0;
+        for(int i = 0; i < _sendBufferCount; i++)
+        {
+            remaining += _sendBuffers[i].remaining();
+        }
+        _dataSize = remaining;
     }
 
-    public void setDataOffset(int arrayOffset)
+    int getDataLength()
     {
-        _offset = arrayOffset;
+        return _dataSize;
     }
 
     @Override
@@ -496,7 +764,7 @@ public class DeliveryImpl implements Delivery
     public String toString()
     {
         StringBuilder builder = new StringBuilder();
-        builder.append("DeliveryImpl [_tag=").append(Arrays.toString(_tag))
+        builder.append("DeliveryImpl [_tag=").append(Arrays.toString(getTag()))
             .append(", _link=").append(_link)
             .append(", _deliveryState=").append(_deliveryState)
             .append(", _settled=").append(_settled)
@@ -508,8 +776,7 @@ public class DeliveryImpl implements Delivery
             .append(", _dataSize=").append(_dataSize)
             .append(", _complete=").append(_complete)
             .append(", _updated=").append(_updated)
-            .append(", _done=").append(_done)
-            .append(", _offset=").append(_offset).append("]");
+            .append(", _done=").append(_done).append("]");
         return builder.toString();
     }
 
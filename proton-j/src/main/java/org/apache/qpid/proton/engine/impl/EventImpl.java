@@ -50,6 +50,8 @@ class EventImpl implements Event
     EventType type;
     Object context;
     EventImpl next;
+    // whether the event is held in its collector's table of events that others may coalesce with
+    boolean pending;
     RecordImpl attachments = new RecordImpl();
 
     EventImpl()
@@ -26,6 +26,9 @@ import org.apache.qpid.proton.framing.TransportFrame;
 public interface FrameHandler
 {
     /**
+     * The payload of the frame, if any, may refer to a buffer that is reused for later input, so
+     * it must be copied if it is to be retained beyond the call.
+     *
      * @throws IllegalStateException if I am not currently accepting input
      * @see #isHandlingFrames()
      * @return false on end of stream
@@ -43,6 +43,9 @@ class FrameParser implements TransportInput
 
     private static final ByteBuffer _emptyInputBuffer = newWriteableBuffer(0);
 
+    /** the largest frame buffer kept for reuse once the frame it holds has been parsed */
+    private static final int MAX_SPARE_FRAME_BUFFER = 64 * 1024;
+
     private enum State
     {
         HEADER0,
@@ -81,6 +84,9 @@ class FrameParser implements TransportInput
     /** holds the current frame that is being parsed */
     private ByteBuffer _frameBuffer;
 
+    /** a previous frame buffer, kept for reuse if it is not too large */
+    private ByteBuffer _spareFrameBuffer;
+
     private TransportFrame _heldFrame;
     private TransportException _parsingError;
 
@@ -97,6 +103,15 @@ class FrameParser implements TransportInput
         _inputBufferSize = _localMaxFrameSize > 0 ? _localMaxFrameSize : 4*1024;
     }
 
+    /**
+     * Creates a parser which decodes frames using the decoder of the thread it is used on, see
+     * {@link TransportCodec}.
+     */
+    FrameParser(FrameHandler frameHandler, int localMaxFrameSize)
+    {
+        this(frameHandler, null, localMaxFrameSize);
+    }
+
     private void input(ByteBuffer in) throws TransportException
     {
         flushHeldFrame();
@@ -302,7 +317,7 @@ class FrameParser implements TransportInput
 
                     if(in.remaining() < size-4)
                     {
-                        _frameBuffer = ByteBuffer.allocate(size-4);
+                        _frameBuffer = frameBuffer(size-4);
                         _frameBuffer.put(in);
                         state = State.BUFFERING;
                         break;
@@ -384,15 +399,20 @@ class FrameParser implements TransportInput
 
                         if (frameBodySize > 0)
                         {
-                            _decoder.setByteBuffer(in);
-                            val = _decoder.readObject();
-                            _decoder.setByteBuffer(null);
+                            ByteBufferDecoder decoder = _decoder == null ? TransportCodec.decoder() : _decoder;
+                            decoder.setByteBuffer(in);
+                            try
+                            {
+                                val = decoder.readObject();
+                            }
+                            finally
+                            {
+                                decoder.setByteBuffer(null);
+                            }
 
                             if(in.hasRemaining())
                             {
-                                byte[] payloadBytes = new byte[in.remaining()];
-                                in.get(payloadBytes);
-                                payload = new Binary(payloadBytes);
+                                payload = readPayload(in);
                             }
                             else
                             {
@@ -419,8 +439,11 @@ class FrameParser implements TransportInput
                             }
                             else
                             {
+                                // the payload refers to a buffer that is about to be reused, and
+                                // the body may be decoded into again by the next frame
                                 transportAccepting = false;
-                                _heldFrame = frame;
+                                _heldFrame = new TransportFrame(channel, TransportImpl.retainable(frameBody),
+                                                                payload == null ? null : payload.copy());
                             }
                         }
                         else
@@ -433,6 +456,10 @@ class FrameParser implements TransportInput
                         reset();
                         in = oldIn;
                         oldIn = null;
+                        if(_frameBuffer != null && _frameBuffer.capacity() <= MAX_SPARE_FRAME_BUFFER)
+                        {
+                            _spareFrameBuffer = _frameBuffer;
+                        }
                         _frameBuffer = null;
                         state = State.SIZE_0;
                     }
@@ -479,6 +506,38 @@ class FrameParser implements TransportInput
         }
     }
 
+    /**
+     * The payload is left in place, as it is only valid until the frame has been handled: both
+     * the input buffer and the frame buffer are reused for subsequent input.
+     */
+    private Binary readPayload(ByteBuffer in)
+    {
+        int length = in.remaining();
+        if(in.hasArray())
+        {
+            Binary payload = new Binary(in.array(), in.arrayOffset() + in.position(), length);
+            in.position(in.limit());
+            return payload;
+        }
+
+        byte[] payloadBytes = new byte[length];
+        in.get(payloadBytes);
+        return new Binary(payloadBytes);
+    }
+
+    private ByteBuffer frameBuffer(int size)
+    {
+        ByteBuffer frameBuffer = _spareFrameBuffer;
+        if(frameBuffer != null && frameBuffer.capacity() >= size)
+        {
+            _spareFrameBuffer = null;
+            frameBuffer.clear();
+            frameBuffer.limit(size);
+            return frameBuffer;
+        }
+        return ByteBuffer.allocate(size);
+    }
+
     @Override
     public int capacity()
     {
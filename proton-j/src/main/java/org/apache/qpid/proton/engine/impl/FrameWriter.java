@@ -24,15 +24,26 @@ import org.apache.qpid.proton.amqp.Binary;
 import org.apache.qpid.proton.amqp.transport.EmptyFrame;
 import org.apache.qpid.proton.amqp.transport.FrameBody;
 import org.apache.qpid.proton.codec.EncoderImpl;
+import org.apache.qpid.proton.codec.ReadableBuffer;
 import org.apache.qpid.proton.codec.WritableBuffer;
+import org.apache.qpid.proton.engine.Sender.ReleaseCallback;
 import org.apache.qpid.proton.framing.TransportFrame;
 
-import java.nio.BufferOverflowException;
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.Arrays;
 
 /**
  * FrameWriter
  *
+ * Frames are encoded into a buffer and queued as output, together with any payload that is
+ * referenced rather than copied. The output is taken either by copying it with
+ * {@link #readBytes(ByteBuffer)} or by a gathering write with {@link #writeTo(GatheringByteChannel)}.
+ *
+ * The buffer frames are encoded into is taken from the {@link ChunkPool} when there is something
+ * to write, sized from the encoded size of each frame, and handed back once all of the output has
+ * been taken, so a writer that is idle holds no buffer however much it wrote before.
  */
 
 class FrameWriter
@@ -41,7 +52,14 @@ class FrameWriter
     static final byte AMQP_FRAME_TYPE = 0;
     static final byte SASL_FRAME_TYPE = (byte) 1;
 
-    private EncoderImpl _encoder;
+    /** payloads up to this size are copied in with their frame rather than referenced */
+    static final int MAX_COPIED_PAYLOAD = 512;
+
+    static final int DEFAULT_OUTPUT_THRESHOLD = 64 * 1024;
+
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    private static final int INITIAL_OUTPUT_BUFFERS = 8;
+
     private ByteBuffer _bbuf;
     private WritableBuffer _buffer;
     private int _maxFrameSize;
@@ -53,14 +71,38 @@ class FrameWriter
     private int _payloadStart;
     private int _performativeSize;
     private long _framesOutput = 0;
+    private final ByteBuffer[] _payload = new ByteBuffer[1];
+
+    // the output not yet read or written out, in order, and its size
+    private ByteBuffer[] _output = new ByteBuffer[INITIAL_OUTPUT_BUFFERS];
+    private int _outputStart;
+    private int _outputEnd;
+    private int _pending;
+
+    // the bytes of _bbuf before _queued are in the output, the last of them in _framing if that is
+    // still the last output buffer
+    private int _queued;
+    private ByteBuffer _framing;
 
-    FrameWriter(EncoderImpl encoder, int maxFrameSize, byte frameType,
+    private long _queuedTotal;
+    private long _writtenTotal;
+
+    // buffers replaced by a larger one while output still referred to them
+    private ByteBuffer[] _retired = new ByteBuffer[INITIAL_OUTPUT_BUFFERS];
+    private int _retiredCount;
+
+    private int _outputThreshold = DEFAULT_OUTPUT_THRESHOLD;
+
+    // release callbacks waiting for the output queued before them to be written
+    private ReadableBuffer[] _releaseSources = new ReadableBuffer[INITIAL_OUTPUT_BUFFERS];
+    private ReleaseCallback[] _releaseCallbacks = new ReleaseCallback[INITIAL_OUTPUT_BUFFERS];
+    private long[] _releaseAfter = new long[INITIAL_OUTPUT_BUFFERS];
+    private int _releaseStart;
+    private int _releaseEnd;
+
+    FrameWriter(int maxFrameSize, byte frameType,
                 Ref<ProtocolTracer> protocolTracer, TransportImpl transport)
     {
-        _encoder = encoder;
-        _bbuf = ByteBuffer.allocate(1024);
-        _buffer = new WritableBuffer.ByteBufferWrapper(_bbuf);
-        _encoder.setByteBuffer(_buffer);
         _maxFrameSize = maxFrameSize;
         _frameType = frameType;
         _protocolTracer = protocolTracer;
@@ -72,43 +114,149 @@ class FrameWriter
         _maxFrameSize = maxFrameSize;
     }
 
-    private void grow()
+    /**
+     * Sets the number of bytes of pending output above which {@link #isFull()} is true.
+     */
+    void setOutputThreshold(int outputThreshold)
+    {
+        _outputThreshold = outputThreshold;
+    }
+
+    int getOutputThreshold()
+    {
+        return _outputThreshold;
+    }
+
+    /**
+     * Makes sure there are at least the given number of bytes free after the position of the
+     * buffer, taking a buffer from the pool if there is none.
+     */
+    private void ensureSpace(int size)
+    {
+        if (_bbuf == null)
+        {
+            setBuffer(acquireBuffer(Math.max(size, INITIAL_BUFFER_SIZE)));
+        }
+        else if (_bbuf.remaining() < size)
+        {
+            grow(size);
+        }
+    }
+
+    /**
+     * Moves the bytes not yet queued as output to a larger buffer with the given number of bytes
+     * free after them. The queued bytes are left behind, as the output refers to them, and the old
+     * buffer goes back to the pool once that output has been taken.
+     */
+    private void grow(int size)
     {
         ByteBuffer old = _bbuf;
-        _bbuf = ByteBuffer.allocate(_bbuf.capacity() * 2);
-        _buffer = new WritableBuffer.ByteBufferWrapper(_bbuf);
-        old.flip();
+        int required = old.position() - _queued + size;
+        int capacity = _queued == 0 ? Math.max(old.capacity() * 2, required) : Math.max(old.capacity(), required);
+        setBuffer(acquireBuffer(capacity));
+        old.limit(old.position());
+        old.position(_queued);
         _bbuf.put(old);
-        _encoder.setByteBuffer(_buffer);
+
+        if (_queued == 0)
+        {
+            releaseBuffer(old);
+        }
+        else
+        {
+            retire(old);
+        }
+
+        _frameStart -= _queued;
+        _payloadStart -= _queued;
+        _queued = 0;
+        _framing = null;
+    }
+
+    private void setBuffer(ByteBuffer buffer)
+    {
+        _bbuf = buffer;
+        _buffer = new WritableBuffer.ByteBufferWrapper(buffer);
+    }
+
+    private static ByteBuffer acquireBuffer(int size)
+    {
+        if (size > ChunkPool.MAX_CHUNK_SIZE)
+        {
+            return ByteBuffer.allocate(size);
+        }
+        return ByteBuffer.wrap(ChunkPool.get().acquire(size));
+    }
+
+    private static void releaseBuffer(ByteBuffer buffer)
+    {
+        // buffers larger than the pool handles were allocated for the one frame, and are dropped
+        if (buffer.capacity() <= ChunkPool.MAX_CHUNK_SIZE)
+        {
+            ChunkPool.get().release(buffer.array());
+        }
+    }
+
+    private void retire(ByteBuffer buffer)
+    {
+        if (_retiredCount == _retired.length)
+        {
+            _retired = Arrays.copyOf(_retired, _retired.length * 2);
+        }
+        _retired[_retiredCount++] = buffer;
+    }
+
+    /**
+     * Hands the buffers back to the pool, once none of the output refers to them.
+     */
+    private void releaseBuffers()
+    {
+        if (_bbuf != null)
+        {
+            releaseBuffer(_bbuf);
+            _bbuf = null;
+            _buffer = null;
+        }
+        for (int i = 0; i < _retiredCount; i++)
+        {
+            releaseBuffer(_retired[i]);
+            _retired[i] = null;
+        }
+        _retiredCount = 0;
     }
 
     void writeHeader(byte[] header)
     {
+        ensureSpace(header.length);
         _buffer.put(header, 0, header.length);
+        queueFramed();
     }
 
     private void startFrame()
     {
+        ensureSpace(8);
         _frameStart = _buffer.position();
     }
 
     private void writePerformative(Object frameBody)
     {
-        while (_buffer.remaining() < 8) {
-            grow();
-        }
+        EncoderImpl encoder = TransportCodec.encoder();
+        int size = frameBody == null ? 0 : encoder.getEncodedSize(frameBody);
 
-        while (true)
+        _buffer.position(_frameStart);
+        ensureSpace(8 + size);
+        _buffer.position(_frameStart + 8);
+
+        if (frameBody != null)
         {
+            encoder.setByteBuffer(_buffer);
             try
             {
-                _buffer.position(_frameStart + 8);
-                if (frameBody != null) _encoder.writeObject(frameBody);
-                break;
+                encoder.writeObject(frameBody);
             }
-            catch (BufferOverflowException e)
+            finally
             {
-                grow();
+                encoder.setByteBuffer((WritableBuffer) null);
             }
         }
 
@@ -116,9 +264,9 @@ class FrameWriter
         _performativeSize = _payloadStart - _frameStart;
     }
 
-    private void endFrame(int channel)
+    private void endFrame(int channel, int referencedPayloadSize)
     {
-        int frameSize = _buffer.position() - _frameStart;
+        int frameSize = _buffer.position() - _frameStart + referencedPayloadSize;
         int limit = _buffer.position();
         _buffer.position(_frameStart);
         _buffer.putInt(frameSize);
@@ -128,14 +276,57 @@ class FrameWriter
         _buffer.position(limit);
     }
 
+    /**
+     * Writes a frame, copying as much of the payload as fits the frame and advancing its position
+     * past that.
+     */
     void writeFrame(int channel, Object frameBody, ByteBuffer payload,
                     Runnable onPayloadTooLarge)
+    {
+        _payload[0] = payload;
+        try
+        {
+            writeFrame(channel, frameBody, _payload, onPayloadTooLarge, false);
+        }
+        finally
+        {
+            _payload[0] = null;
+        }
+    }
+
+    /**
+     * Writes a frame whose payload is taken from the given buffers in order, as much of it as fits
+     * the frame. The position of each buffer is advanced past what was written, null entries are
+     * skipped.
+     *
+     * Unless it is small the payload is referenced rather than copied, so its content must not
+     * change until it has been output, see {@link #releaseWhenWritten(ReadableBuffer, ReleaseCallback)}.
+     */
+    void writeFrameFromBuffers(int channel, Object frameBody, ByteBuffer[] payload,
+                               Runnable onPayloadTooLarge)
+    {
+        writeFrame(channel, frameBody, payload, onPayloadTooLarge, true);
+    }
+
+    private void writeFrame(int channel, Object frameBody, ByteBuffer[] payload,
+                            Runnable onPayloadTooLarge, boolean referencePayload)
     {
         startFrame();
 
         writePerformative(frameBody);
 
-        if(_maxFrameSize > 0 && payload != null && (payload.remaining() + _performativeSize) > _maxFrameSize)
+        boolean hasPayload = false;
+        int payloadRemaining = 0;
+        for (ByteBuffer buffer : payload)
+        {
+            if (buffer != null)
+            {
+                hasPayload = true;
+                payloadRemaining += buffer.remaining();
+            }
+        }
+
+        if(_maxFrameSize > 0 && hasPayload && (payloadRemaining + _performativeSize) > _maxFrameSize)
         {
             if(onPayloadTooLarge != null)
             {
@@ -150,7 +341,7 @@ class FrameWriter
         } else {
             capacity = Integer.MAX_VALUE;
         }
-        int payloadSize = Math.min(payload == null ? 0 : payload.remaining(), capacity);
+        int payloadSize = Math.min(payloadRemaining, capacity);
 
         ProtocolTracer tracer = _protocolTracer == null ? null : _protocolTracer.get();
         if( tracer != null || _transport.isTraceFramesEnabled())
@@ -159,14 +350,7 @@ class FrameWriter
             // code, further refactor will fix this
             if (_frameType == AMQP_FRAME_TYPE)
             {
-                ByteBuffer originalPayload = null;
-                if( payload!=null )
-                {
-                    originalPayload = payload.duplicate();
-                    originalPayload.limit(payload.position() + payloadSize);
-                }
-
-                Binary payloadBin = Binary.create(originalPayload);
+                Binary payloadBin = hasPayload ? tracedPayload(payload, payloadSize) : null;
                 FrameBody body = null;
                 if (frameBody == null)
                 {
@@ -183,54 +367,271 @@ class FrameWriter
 
                 if(tracer != null)
                 {
-                    tracer.sentFrame(frame);
+                    tracer.sentFrame(new TransportFrame(channel, TransportImpl.retainable(body), payloadBin));
                 }
             }
         }
 
-        if(payloadSize > 0)
+        if(referencePayload && payloadSize > MAX_COPIED_PAYLOAD)
         {
-            while (_buffer.remaining() < payloadSize) {
-                grow();
+            endFrame(channel, payloadSize);
+            queueFramed();
+
+            int remaining = payloadSize;
+            for (int i = 0; remaining > 0; i++)
+            {
+                ByteBuffer buffer = payload[i];
+                if (buffer == null || !buffer.hasRemaining())
+                {
+                    continue;
+                }
+
+                int size = Math.min(buffer.remaining(), remaining);
+                queuePayload(buffer, size);
+                remaining -= size;
             }
 
-            int oldLimit = payload.limit();
-            payload.limit(payload.position() + payloadSize);
-            _buffer.put(payload);
-            payload.limit(oldLimit);
+            _framesOutput += 1;
+            return;
         }
 
-        endFrame(channel);
+        if(payloadSize > 0)
+        {
+            ensureSpace(payloadSize);
+
+            int remaining = payloadSize;
+            for (int i = 0; remaining > 0; i++)
+            {
+                ByteBuffer buffer = payload[i];
+                if (buffer == null || !buffer.hasRemaining())
+                {
+                    continue;
+                }
+
+                int size = Math.min(buffer.remaining(), remaining);
+                int oldLimit = buffer.limit();
+                buffer.limit(buffer.position() + size);
+                _buffer.put(buffer);
+                buffer.limit(oldLimit);
+                remaining -= size;
+            }
+        }
+
+        endFrame(channel, 0);
+        queueFramed();
 
         _framesOutput += 1;
     }
 
+    /**
+     * Queues the bytes written to the buffer since it was last called as output.
+     */
+    private void queueFramed()
+    {
+        int end = _bbuf.position();
+        if (end == _queued)
+        {
+            return;
+        }
+
+        if (_framing != null)
+        {
+            _framing.limit(end);
+        }
+        else
+        {
+            _framing = _bbuf.duplicate();
+            _framing.position(_queued);
+            _framing.limit(end);
+            addOutput(_framing);
+        }
+
+        _pending += end - _queued;
+        _queuedTotal += end - _queued;
+        _queued = end;
+    }
+
+    private void queuePayload(ByteBuffer buffer, int size)
+    {
+        ByteBuffer payload = buffer.duplicate();
+        payload.limit(payload.position() + size);
+        buffer.position(buffer.position() + size);
+        addOutput(payload);
+        _framing = null;
+
+        _pending += size;
+        _queuedTotal += size;
+    }
+
+    private void addOutput(ByteBuffer buffer)
+    {
+        if (_outputEnd == _output.length)
+        {
+            if (_outputStart > 0)
+            {
+                System.arraycopy(_output, _outputStart, _output, 0, _outputEnd - _outputStart);
+                Arrays.fill(_output, _outputEnd - _outputStart, _outputEnd, null);
+                _outputEnd -= _outputStart;
+                _outputStart = 0;
+            }
+            else
+            {
+                _output = Arrays.copyOf(_output, _output.length * 2);
+            }
+        }
+        _output[_outputEnd++] = buffer;
+    }
+
+    private static Binary tracedPayload(ByteBuffer[] payload, int payloadSize)
+    {
+        ByteBuffer first = null;
+        for (ByteBuffer buffer : payload)
+        {
+            if (buffer != null && (first == null || !first.hasRemaining()))
+            {
+                first = buffer;
+            }
+        }
+
+        if (first.remaining() >= payloadSize)
+        {
+            ByteBuffer originalPayload = first.duplicate();
+            originalPayload.limit(first.position() + payloadSize);
+            return Binary.create(originalPayload);
+        }
+
+        byte[] copy = new byte[payloadSize];
+        int copied = 0;
+        for (int i = 0; copied < payloadSize; i++)
+        {
+            ByteBuffer buffer = payload[i];
+            if (buffer != null)
+            {
+                int size = Math.min(buffer.remaining(), payloadSize - copied);
+                buffer.duplicate().get(copy, copied, size);
+                copied += size;
+            }
+        }
+        return new Binary(copy);
+    }
+
     void writeFrame(Object frameBody)
     {
         writeFrame(0, frameBody, null, null);
     }
 
     boolean isFull() {
-        // XXX: this should probably be tunable
-        return _bbuf.position() > 64*1024;
+        return _pending > _outputThreshold;
     }
 
-    int readBytes(ByteBuffer dst)
+    /**
+     * @return the number of bytes of output not yet read or written out.
+     */
+    int pending()
     {
-        ByteBuffer src = _bbuf.duplicate();
-        src.flip();
+        return _pending;
+    }
 
-        int size = Math.min(src.remaining(), dst.remaining());
-        int limit = src.limit();
-        src.limit(size);
-        dst.put(src);
-        src.limit(limit);
-        _bbuf.rewind();
-        _bbuf.put(src);
+    int readBytes(ByteBuffer dst)
+    {
+        int size = Math.min(_pending, dst.remaining());
+        int remaining = size;
+        for (int i = _outputStart; remaining > 0; i++)
+        {
+            ByteBuffer buffer = _output[i];
+            int length = Math.min(buffer.remaining(), remaining);
+            int limit = buffer.limit();
+            buffer.limit(buffer.position() + length);
+            dst.put(buffer);
+            buffer.limit(limit);
+            remaining -= length;
+        }
 
+        written(size);
         return size;
     }
 
+    /**
+     * Writes as much of the output as the channel accepts with a single gathering write.
+     *
+     * @return the number of bytes written
+     */
+    long writeTo(GatheringByteChannel channel) throws IOException
+    {
+        if (_pending == 0)
+        {
+            return 0;
+        }
+
+        long written = channel.write(_output, _outputStart, _outputEnd - _outputStart);
+        if (written > 0)
+        {
+            written((int) written);
+        }
+        return written;
+    }
+
+    private void written(int bytes)
+    {
+        _pending -= bytes;
+        _writtenTotal += bytes;
+
+        while (_outputStart < _outputEnd && !_output[_outputStart].hasRemaining())
+        {
+            _output[_outputStart++] = null;
+        }
+        if (_outputStart == _outputEnd)
+        {
+            // nothing refers to the buffers any more, so they can go back to the pool
+            _outputStart = 0;
+            _outputEnd = 0;
+            _framing = null;
+            _queued = 0;
+            releaseBuffers();
+        }
+
+        while (_releaseStart < _releaseEnd && _releaseAfter[_releaseStart] <= _writtenTotal)
+        {
+            ReadableBuffer source = _releaseSources[_releaseStart];
+            ReleaseCallback callback = _releaseCallbacks[_releaseStart];
+            _releaseSources[_releaseStart] = null;
+            _releaseCallbacks[_releaseStart] = null;
+            _releaseStart++;
+
+            callback.released(source);
+        }
+        if (_releaseStart == _releaseEnd)
+        {
+            _releaseStart = 0;
+            _releaseEnd = 0;
+        }
+    }
+
+    /**
+     * Passes the source to the callback once all the output queued so far has been read or
+     * written out, which is immediately if there is none.
+     */
+    void releaseWhenWritten(ReadableBuffer source, ReleaseCallback callback)
+    {
+        if (_pending == 0)
+        {
+            callback.released(source);
+            return;
+        }
+
+        if (_releaseEnd == _releaseCallbacks.length)
+        {
+            int length = _releaseCallbacks.length * 2;
+            _releaseSources = Arrays.copyOf(_releaseSources, length);
+            _releaseCallbacks = Arrays.copyOf(_releaseCallbacks, length);
+            _releaseAfter = Arrays.copyOf(_releaseAfter, length);
+        }
+        _releaseSources[_releaseEnd] = source;
+        _releaseCallbacks[_releaseEnd] = callback;
+        _releaseAfter[_releaseEnd] = _queuedTotal;
+        _releaseEnd++;
+    }
+
     long getFramesOutput()
     {
         return _framesOutput;
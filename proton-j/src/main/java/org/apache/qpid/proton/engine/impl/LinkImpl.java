@@ -95,14 +95,10 @@ public abstract class LinkImpl extends EndpointImpl implements Link
     @Override
     public DeliveryImpl delivery(byte[] tag, int offset, int length)
     {
-        if (offset != 0 || length != tag.length)
-        {
-            throw new IllegalArgumentException("At present delivery tag must be the whole byte array");
-        }
         incrementQueued();
         try
         {
-            DeliveryImpl delivery = new DeliveryImpl(tag, this, _tail);
+            DeliveryImpl delivery = new DeliveryImpl(tag, offset, length, this, _tail);
             if (_tail == null)
             {
                 _head = delivery;
@@ -63,6 +63,15 @@ class SaslFrameParser
     private final ByteBufferDecoder _decoder;
 
 
+    /**
+     * Creates a parser which decodes frames using the decoder of the thread it is used on, see
+     * {@link TransportCodec}.
+     */
+    SaslFrameParser(SaslFrameHandler sasl)
+    {
+        this(sasl, null);
+    }
+
     SaslFrameParser(SaslFrameHandler sasl, ByteBufferDecoder decoder)
     {
         _sasl = sasl;
@@ -344,8 +353,17 @@ class SaslFrameParser
 
                     try
                     {
-                        _decoder.setByteBuffer(input);
-                        Object val = _decoder.readObject();
+                        ByteBufferDecoder decoder = _decoder == null ? TransportCodec.decoder() : _decoder;
+                        decoder.setByteBuffer(input);
+                        Object val;
+                        try
+                        {
+                            val = decoder.readObject();
+                        }
+                        finally
+                        {
+                            decoder.setByteBuffer(null);
+                        }
 
                         Binary payload;
 
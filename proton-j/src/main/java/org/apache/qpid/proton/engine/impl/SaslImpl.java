@@ -25,7 +25,9 @@ import static org.apache.qpid.proton.engine.impl.ByteBufferUtils.newWriteableBuf
 import static org.apache.qpid.proton.engine.impl.ByteBufferUtils.pourAll;
 import static org.apache.qpid.proton.engine.impl.ByteBufferUtils.pourBufferToArray;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -38,9 +40,6 @@ import org.apache.qpid.proton.amqp.security.SaslFrameBody;
 import org.apache.qpid.proton.amqp.security.SaslInit;
 import org.apache.qpid.proton.amqp.security.SaslMechanisms;
 import org.apache.qpid.proton.amqp.security.SaslResponse;
-import org.apache.qpid.proton.codec.AMQPDefinedTypes;
-import org.apache.qpid.proton.codec.DecoderImpl;
-import org.apache.qpid.proton.codec.EncoderImpl;
 import org.apache.qpid.proton.engine.Sasl;
 import org.apache.qpid.proton.engine.Transport;
 import org.apache.qpid.proton.engine.TransportException;
@@ -51,9 +50,6 @@ public class SaslImpl implements Sasl, SaslFrameBody.SaslFrameBodyHandler<Void>,
 
     public static final byte SASL_FRAME_TYPE = (byte) 1;
 
-    private final DecoderImpl _decoder = new DecoderImpl();
-    private final EncoderImpl _encoder = new EncoderImpl(_decoder);
-
     private final TransportImpl _transport;
 
     private boolean _tail_closed = false;
@@ -96,9 +92,8 @@ public class SaslImpl implements Sasl, SaslFrameBody.SaslFrameBodyHandler<Void>,
         _inputBuffer = newWriteableBuffer(maxFrameSize);
         _outputBuffer = newWriteableBuffer(maxFrameSize);
 
-        AMQPDefinedTypes.registerAllTypes(_decoder,_encoder);
-        _frameParser = new SaslFrameParser(this, _decoder);
-        _frameWriter = new FrameWriter(_encoder, maxFrameSize, FrameWriter.SASL_FRAME_TYPE, null, _transport);
+        _frameParser = new SaslFrameParser(this);
+        _frameWriter = new FrameWriter(maxFrameSize, FrameWriter.SASL_FRAME_TYPE, null, _transport);
     }
 
     void fail() {
@@ -511,7 +506,7 @@ public class SaslImpl implements Sasl, SaslFrameBody.SaslFrameBodyHandler<Void>,
         return builder.toString();
     }
 
-    private class SaslTransportWrapper implements TransportWrapper
+    private class SaslTransportWrapper implements TransportWrapper, GatheringTransportOutput
     {
         private final TransportInput _underlyingInput;
         private final TransportOutput _underlyingOutput;
@@ -708,6 +703,26 @@ public class SaslImpl implements Sasl, SaslFrameBody.SaslFrameBodyHandler<Void>,
             }
         }
 
+        @Override
+        public int writeTo(GatheringByteChannel channel) throws IOException
+        {
+            if (isOutputInSaslMode() || _outputBuffer.position() != 0 || !(_underlyingOutput instanceof GatheringTransportOutput))
+            {
+                if (pending() <= 0)
+                {
+                    return 0;
+                }
+                ByteBuffer head = head();
+                int written = channel.write(head);
+                pop(written);
+                return written;
+            }
+            else
+            {
+                return ((GatheringTransportOutput) _underlyingOutput).writeTo(channel);
+            }
+        }
+
         @Override
         public void close_head()
         {
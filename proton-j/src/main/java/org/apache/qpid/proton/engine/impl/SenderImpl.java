@@ -26,8 +26,14 @@ import org.apache.qpid.proton.engine.Sender;
 
 public class SenderImpl  extends LinkImpl implements Sender
 {
+    private static final int TAG_BLOCK_SIZE = 256;
+
     private int _offered;
     private TransportSender _transportLink;
+    // the next tag of the sequence used by delivery(), and the block its encoding is written to
+    private long _nextTag;
+    private byte[] _tagBlock;
+    private int _tagBlockUsed;
 
     SenderImpl(SessionImpl session, String name)
     {
@@ -40,6 +46,33 @@ public class SenderImpl  extends LinkImpl implements Sender
         _offered = credits;
     }
 
+    @Override
+    public DeliveryImpl delivery()
+    {
+        long tag = _nextTag++;
+        int length = 1;
+        for(long rest = tag >>> 8; rest != 0; rest >>>= 8)
+        {
+            length++;
+        }
+
+        // a full block is left to the deliveries tagged from it, and a new one started
+        if(_tagBlock == null || _tagBlockUsed + length > _tagBlock.length)
+        {
+            _tagBlock = new byte[TAG_BLOCK_SIZE];
+            _tagBlockUsed = 0;
+        }
+        int offset = _tagBlockUsed;
+        for(int i = offset + length - 1; i >= offset; i--)
+        {
+            _tagBlock[i] = (byte) tag;
+            tag >>>= 8;
+        }
+        _tagBlockUsed += length;
+
+        return delivery(_tagBlock, offset, length);
+    }
+
     @Override
     public int send(final byte[] bytes, int offset, int length)
     {
@@ -78,6 +111,25 @@ public class SenderImpl  extends LinkImpl implements Sender
         return sent;
     }
 
+    @Override
+    public int sendNoCopy(final ReadableBuffer buffer, final ReleaseCallback callback)
+    {
+        if (getLocalState() == EndpointState.CLOSED)
+        {
+            throw new IllegalStateException("send not allowed after the sender is closed.");
+        }
+        DeliveryImpl current = current();
+        if (current == null || current.getLink() != this)
+        {
+            throw new IllegalArgumentException();
+        }
+        int sent = current.sendNoCopy(buffer, callback);
+        if (sent > 0) {
+            getSession().incrementOutgoingBytes(sent);
+        }
+        return sent;
+    }
+
     @Override
     public void abort()
     {
@@ -0,0 +1,114 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.proton.engine.impl;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A table of the sessions or links of a transport keyed by their channel or handle.
+ *
+ * Channels and handles are small numbers bounded by channel-max and handle-max, so the entries
+ * are held in an array indexed by them, grown as higher slots are used. The used slots are
+ * tracked in a bit set, from which the lowest free slot is allocated.
+ */
+final class SlotTable<T>
+{
+    private static final int INITIAL_CAPACITY = 8;
+
+    private Object[] _entries = new Object[INITIAL_CAPACITY];
+    private final BitSet _used = new BitSet();
+    private int _size;
+
+    @SuppressWarnings("unchecked")
+    T get(int slot)
+    {
+        return slot >= 0 && slot < _entries.length ? (T) _entries[slot] : null;
+    }
+
+    void put(int slot, T entry)
+    {
+        if(slot >= _entries.length)
+        {
+            int capacity = _entries.length;
+            while(capacity <= slot)
+            {
+                capacity *= 2;
+            }
+            _entries = Arrays.copyOf(_entries, capacity);
+        }
+        if(!_used.get(slot))
+        {
+            _used.set(slot);
+            _size++;
+        }
+        _entries[slot] = entry;
+    }
+
+    @SuppressWarnings("unchecked")
+    T remove(int slot)
+    {
+        if(slot < 0 || slot >= _entries.length || !_used.get(slot))
+        {
+            return null;
+        }
+        T entry = (T) _entries[slot];
+        _entries[slot] = null;
+        _used.clear(slot);
+        _size--;
+        return entry;
+    }
+
+    /**
+     * Puts the entry in the lowest free slot no greater than max, returning that slot, or -1 if
+     * there is none.
+     */
+    int allocate(T entry, int max)
+    {
+        int slot = _used.nextClearBit(0);
+        if(slot > max)
+        {
+            return -1;
+        }
+        put(slot, entry);
+        return slot;
+    }
+
+    int size()
+    {
+        return _size;
+    }
+
+    /**
+     * Returns the highest slot that may be in use, for iterating over the table with {@link #get(int)}.
+     */
+    int highestSlot()
+    {
+        return _used.length() - 1;
+    }
+
+    void clear()
+    {
+        Arrays.fill(_entries, null);
+        _used.clear();
+        _size = 0;
+    }
+}
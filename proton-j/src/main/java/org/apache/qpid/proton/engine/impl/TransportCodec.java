@@ -0,0 +1,67 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.proton.engine.impl;
+
+import org.apache.qpid.proton.codec.AMQPDefinedTypes;
+import org.apache.qpid.proton.codec.DecoderImpl;
+import org.apache.qpid.proton.codec.EncoderImpl;
+
+/**
+ * The encoder and decoder used to write and parse frames. Registering all the AMQP types with
+ * a new encoder and decoder builds a good many objects, so rather than each transport (and its
+ * SASL layer) building its own pair, every transport used on a thread shares the pair belonging
+ * to that thread.
+ *
+ * A transport may move between threads, so the pair must be looked up for each frame rather
+ * than held on to, and its buffer must be set before and cleared after each use.
+ */
+final class TransportCodec
+{
+    private static final ThreadLocal<TransportCodec> CODECS = new ThreadLocal<TransportCodec>()
+    {
+        @Override
+        protected TransportCodec initialValue()
+        {
+            return new TransportCodec();
+        }
+    };
+
+    private final DecoderImpl _decoder = new DecoderImpl();
+    private final EncoderImpl _encoder = new EncoderImpl(_decoder);
+
+    private TransportCodec()
+    {
+        AMQPDefinedTypes.registerAllTypes(_decoder, _encoder);
+        // every frame is handled before the next is decoded, and anything holding on to a frame
+        // copies its body, so the transfer, flow and disposition bodies can be decoded into again
+        _decoder.setRecyclePerformatives(true);
+    }
+
+    static DecoderImpl decoder()
+    {
+        return CODECS.get()._decoder;
+    }
+
+    static EncoderImpl encoder()
+    {
+        return CODECS.get()._encoder;
+    }
+}
@@ -20,11 +20,13 @@ package org.apache.qpid.proton.engine.impl;
 import static org.apache.qpid.proton.engine.impl.ByteBufferUtils.pourArrayToBuffer;
 import static org.apache.qpid.proton.engine.impl.ByteBufferUtils.pourBufferToArray;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.qpid.proton.amqp.Binary;
 import org.apache.qpid.proton.amqp.Symbol;
@@ -44,9 +46,6 @@ import org.apache.qpid.proton.amqp.transport.FrameBody;
 import org.apache.qpid.proton.amqp.transport.Open;
 import org.apache.qpid.proton.amqp.transport.Role;
 import org.apache.qpid.proton.amqp.transport.Transfer;
-import org.apache.qpid.proton.codec.AMQPDefinedTypes;
-import org.apache.qpid.proton.codec.DecoderImpl;
-import org.apache.qpid.proton.codec.EncoderImpl;
 import org.apache.qpid.proton.engine.Connection;
 import org.apache.qpid.proton.engine.EndpointState;
 import org.apache.qpid.proton.engine.Event;
@@ -92,15 +91,12 @@ public class TransportImpl extends EndpointImpl
     private boolean _isCloseSent;
 
     private boolean _headerWritten;
-    private Map<Integer, TransportSession> _remoteSessions = new HashMap<Integer, TransportSession>();
-    private Map<Integer, TransportSession> _localSessions = new HashMap<Integer, TransportSession>();
+    private final SlotTable<TransportSession> _remoteSessions = new SlotTable<TransportSession>();
+    private final SlotTable<TransportSession> _localSessions = new SlotTable<TransportSession>();
 
     private TransportInput _inputProcessor;
     private TransportOutput _outputProcessor;
 
-    private DecoderImpl _decoder = new DecoderImpl();
-    private EncoderImpl _encoder = new EncoderImpl(_decoder);
-
     private int _maxFrameSize = DEFAULT_MAX_FRAME_SIZE;
     private int _remoteMaxFrameSize = 512;
     private int _channelMax       = CHANNEL_MAX_LIMIT;
@@ -137,6 +133,17 @@ public class TransportImpl extends EndpointImpl
     private long _lastBytesOutput = 0;
     private long _remoteIdleDeadline = 0;
 
+    private int _dispositionLinger = 0;
+    // when the pending dispositions are to be sent, by currentTime()
+    private long _dispositionDeadline = 0;
+    private final List<TransportSession> _pendingDispositionSessions = new ArrayList<TransportSession>();
+    // the senders whose parked deliveries may now be sent, served in turn
+    private final ArrayDeque<TransportSender> _scheduledLinks = new ArrayDeque<TransportSender>();
+    // the flow and transfer written each time, as the frame writer encodes them as they are written
+    private final Flow _flow = new Flow();
+    private final Transfer _transfer = new Transfer();
+    private final PartialTransfer _partialTransfer = new PartialTransfer(_transfer);
+
     private Selectable _selectable;
     private Reactor _reactor;
 
@@ -157,10 +164,8 @@ public class TransportImpl extends EndpointImpl
      */
     TransportImpl(int maxFrameSize)
     {
-        AMQPDefinedTypes.registerAllTypes(_decoder, _encoder);
-
         _maxFrameSize = maxFrameSize;
-        _frameWriter = new FrameWriter(_encoder, _remoteMaxFrameSize,
+        _frameWriter = new FrameWriter(_remoteMaxFrameSize,
                                        FrameWriter.AMQP_FRAME_TYPE,
                                        _protocolTracer,
                                        this);
@@ -171,7 +176,7 @@ public class TransportImpl extends EndpointImpl
         if(!_init)
         {
             _init = true;
-            _frameParser = new FrameParser(_frameHandler , _decoder, _maxFrameSize);
+            _frameParser = new FrameParser(_frameHandler, _maxFrameSize);
             _inputProcessor = _frameParser;
             _outputProcessor = new TransportOutputAdaptor(this, _maxFrameSize);
         }
@@ -263,12 +268,8 @@ public class TransportImpl extends EndpointImpl
     @Override
     public void unbind()
     {
-        for (TransportSession ts: _localSessions.values()) {
-            ts.unbind();
-        }
-        for (TransportSession ts: _remoteSessions.values()) {
-            ts.unbind();
-        }
+        unbindSessions(_localSessions);
+        unbindSessions(_remoteSessions);
 
         put(Event.Type.CONNECTION_UNBOUND, _connectionEndpoint);
 
@@ -277,6 +278,18 @@ public class TransportImpl extends EndpointImpl
         _connectionEndpoint.decref();
     }
 
+    private static void unbindSessions(SlotTable<TransportSession> sessions)
+    {
+        for (int channel = sessions.highestSlot(); channel >= 0; channel--)
+        {
+            TransportSession ts = sessions.get(channel);
+            if (ts != null)
+            {
+                ts.unbind();
+            }
+        }
+    }
+
     @Override
     public int input(byte[] bytes, int offset, int length)
     {
@@ -319,6 +332,14 @@ public class TransportImpl extends EndpointImpl
 
     @Override
     public boolean writeInto(ByteBuffer outputBuffer)
+    {
+        boolean done = generateOutput();
+        _frameWriter.readBytes(outputBuffer);
+        return done;
+    }
+
+    @Override
+    public boolean generateOutput()
     {
         processHeader();
         processOpen();
@@ -335,11 +356,21 @@ public class TransportImpl extends EndpointImpl
         processEnd();
         processClose();
 
-        _frameWriter.readBytes(outputBuffer);
-
         return _isCloseSent || _head_closed;
     }
 
+    @Override
+    public int pendingOutput()
+    {
+        return _frameWriter.pending();
+    }
+
+    @Override
+    public long writeOutputTo(GatheringByteChannel channel) throws IOException
+    {
+        return _frameWriter.writeTo(channel);
+    }
+
     @Override
     public Sasl sasl()
     {
@@ -391,7 +422,7 @@ public class TransportImpl extends EndpointImpl
     {
         if(_connectionEndpoint != null && _isOpenSent)
         {
-            EndpointImpl endpoint = _connectionEndpoint.getTransportHead();
+            EndpointImpl endpoint = _connectionEndpoint.getModifiedLinkHead();
             while(endpoint != null)
             {
 
@@ -416,6 +447,8 @@ public class TransportImpl extends EndpointImpl
                             continue;
                         }
 
+                        writePendingDisposition(transportSession);
+
                         UnsignedInteger localHandle = transportLink.getLocalHandle();
                         transportLink.clearLocalHandle();
                         transportSession.freeLocalHandle(localHandle);
@@ -445,7 +478,7 @@ public class TransportImpl extends EndpointImpl
 
     private void writeFlow(TransportSession ssn, TransportLink link)
     {
-        Flow flow = new Flow();
+        Flow flow = _flow;
         flow.setNextIncomingId(ssn.getNextIncomingId());
         flow.setNextOutgoingId(ssn.getNextOutgoingId());
         ssn.updateIncomingWindow();
@@ -456,6 +489,11 @@ public class TransportImpl extends EndpointImpl
             flow.setDeliveryCount(link.getDeliveryCount());
             flow.setLinkCredit(link.getLinkCredit());
             flow.setDrain(link.getLink().getDrain());
+        } else {
+            flow.setHandle(null);
+            flow.setDeliveryCount(null);
+            flow.setLinkCredit(null);
+            flow.setDrain(false);
         }
         writeFrame(ssn.getLocalChannel(), flow, null, null);
     }
@@ -464,7 +502,7 @@ public class TransportImpl extends EndpointImpl
     {
         if(_connectionEndpoint != null && _isOpenSent && !_isCloseSent)
         {
-            EndpointImpl endpoint = _connectionEndpoint.getTransportHead();
+            EndpointImpl endpoint = _connectionEndpoint.getModifiedLinkHead();
             while(endpoint != null)
             {
 
@@ -494,12 +532,18 @@ public class TransportImpl extends EndpointImpl
     {
         if(_connectionEndpoint != null && _isOpenSent && !_isCloseSent)
         {
+            processScheduledLinks();
+
             DeliveryImpl delivery = _connectionEndpoint.getTransportWorkHead();
             while(delivery != null)
             {
                 LinkImpl link = delivery.getLink();
                 if (link instanceof SenderImpl) {
-                    if (processTransportWorkSender(delivery, (SenderImpl) link)) {
+                    if (mustPark(delivery, (SenderImpl) link)) {
+                        DeliveryImpl next = delivery.clearTransportWork();
+                        ((SenderImpl) link).getTransportLink().park(delivery);
+                        delivery = next;
+                    } else if (processTransportWorkSender(delivery, (SenderImpl) link)) {
                         delivery = delivery.clearTransportWork();
                     } else {
                         delivery = delivery.getTransportWorkNext();
@@ -512,7 +556,182 @@ public class TransportImpl extends EndpointImpl
                     }
                 }
             }
+
+            if(_dispositionLinger == 0 || isDispositionDeadlinePassed())
+            {
+                writePendingDispositions();
+            }
+        }
+    }
+
+    private boolean isDispositionDeadlinePassed()
+    {
+        return !_pendingDispositionSessions.isEmpty() && _dispositionDeadline - currentTime() <= 0;
+    }
+
+    /**
+     * Returns the time in milliseconds the disposition linger is measured by. This is taken from
+     * the monotonic clock rather than from {@link #tick(long)}, so that the linger holds without
+     * the application ticking the transport.
+     */
+    long currentTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * Returns whether a delivery to be sent must wait on its link, as the link has no credit, the
+     * session has no remote incoming window, another delivery on the link is in progress or
+     * earlier deliveries are already waiting. Waiting deliveries are parked on the link rather
+     * than left on the transport work list, so that a link with a deep backlog and no credit
+     * does not cost a walk over that backlog on every pass.
+     */
+    private boolean mustPark(DeliveryImpl delivery, SenderImpl snd)
+    {
+        TransportSender tpLink = snd.getTransportLink();
+        TransportSession tpSession = snd.getSession().getTransportSession();
+
+        if(delivery.isDone() || delivery == tpLink.getInProgressDelivery()
+           || !tpSession.isLocalChannelSet() || tpLink.getLocalHandle() == null)
+        {
+            return false;
+        }
+        if(tpLink.hasParked())
+        {
+            return true;
+        }
+        if(delivery.getDataLength() == 0 && delivery == snd.current())
+        {
+            return false;
+        }
+        if(tpLink.getInProgressDelivery() != null || !tpLink.hasCredit())
+        {
+            return true;
+        }
+        if(!tpSession.hasOutgoingCredit())
+        {
+            tpSession.addWindowBlockedLink(tpLink);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Schedules the parked deliveries of a sender to be sent, once it may have been given credit
+     * or window, or its delivery in progress has been sent.
+     */
+    void scheduleParkedDeliveries(TransportSender tpLink)
+    {
+        if(tpLink.hasParked() && !tpLink.isScheduled())
+        {
+            tpLink.setScheduled(true);
+            _scheduledLinks.add(tpLink);
+        }
+    }
+
+    /**
+     * Sends the parked deliveries of the scheduled senders, one delivery from each sender in
+     * turn, until each is blocked again or has nothing left parked, or the output is full.
+     */
+    private void processScheduledLinks()
+    {
+        while(!_scheduledLinks.isEmpty() && !_frameWriter.isFull())
+        {
+            TransportSender tpLink = _scheduledLinks.poll();
+            tpLink.setScheduled(false);
+            DeliveryImpl delivery = tpLink.getParkedHead();
+            if(delivery == null)
+            {
+                continue;
+            }
+
+            SenderImpl snd = tpLink.getLink();
+            if(processTransportWorkSender(delivery, snd))
+            {
+                tpLink.unparkHead();
+                scheduleParkedDeliveries(tpLink);
+            }
+            else if(delivery == tpLink.getInProgressDelivery())
+            {
+                // the rest is sent from the transport work list, the link being scheduled
+                // again once it is done
+                tpLink.unparkHead();
+                delivery.addToTransportWorkList();
+            }
+            else if(_frameWriter.isFull())
+            {
+                tpLink.setScheduled(true);
+                _scheduledLinks.addFirst(tpLink);
+            }
+            else if(tpLink.hasCredit())
+            {
+                TransportSession tpSession = snd.getSession().getTransportSession();
+                if(!tpSession.hasOutgoingCredit())
+                {
+                    tpSession.addWindowBlockedLink(tpLink);
+                }
+            }
+            // otherwise the link waits for credit, and is scheduled again when a flow gives it
+        }
+    }
+
+    /**
+     * Writes the disposition of a delivery. It is held as the pending disposition of the session,
+     * extending the range of the disposition already pending where that is for the previous
+     * delivery and has the same role, settled flag and state.
+     */
+    private void writeDisposition(TransportSession tpSession, UnsignedInteger deliveryId, Role role,
+                                  boolean settled, DeliveryState state)
+    {
+        Disposition pending = tpSession.getPendingDisposition();
+        if(pending != null)
+        {
+            if(pending.getRole() == role && pending.getSettled() == settled && pending.getState() == state
+               && pending.getLast().longValue() + 1 == deliveryId.longValue())
+            {
+                pending.setLast(deliveryId);
+                return;
+            }
+            writePendingDisposition(tpSession);
+        }
+        else
+        {
+            if(_pendingDispositionSessions.isEmpty() && _dispositionLinger > 0)
+            {
+                _dispositionDeadline = currentTime() + _dispositionLinger;
+            }
+            _pendingDispositionSessions.add(tpSession);
         }
+
+        Disposition disposition = tpSession.getReusableDisposition();
+        disposition.setFirst(deliveryId);
+        disposition.setLast(deliveryId);
+        disposition.setRole(role);
+        disposition.setSettled(settled);
+        disposition.setState(state);
+        tpSession.setPendingDisposition(disposition);
+    }
+
+    private void writePendingDisposition(TransportSession tpSession)
+    {
+        Disposition pending = tpSession.getPendingDisposition();
+        if(pending != null)
+        {
+            tpSession.setPendingDisposition(null);
+            if(!_isCloseSent)
+            {
+                writeFrame(tpSession.getLocalChannel(), pending, null, null);
+            }
+        }
+    }
+
+    private void writePendingDispositions()
+    {
+        for(int i = 0; i < _pendingDispositionSessions.size(); i++)
+        {
+            writePendingDisposition(_pendingDispositionSessions.get(i));
+        }
+        _pendingDispositionSessions.clear();
     }
 
     private boolean processTransportWorkSender(DeliveryImpl delivery,
@@ -541,18 +760,18 @@ public class TransportImpl extends EndpointImpl
             }
 
             UnsignedInteger deliveryId = tpSession.getOutgoingDeliveryId();
-            TransportDelivery tpDelivery = new TransportDelivery(deliveryId, delivery, tpLink);
-            delivery.setTransportDelivery(tpDelivery);
+            // a delivery settled before it is sent is not tracked by the session, as no
+            // disposition can follow it
+            if(delivery.getTransportDelivery() == null && !delivery.isSettled())
+            {
+                delivery.setTransportDelivery(new TransportDelivery(deliveryId, delivery, tpLink));
+            }
 
-            final Transfer transfer = new Transfer();
+            final Transfer transfer = _transfer;
             transfer.setDeliveryId(deliveryId);
-            transfer.setDeliveryTag(new Binary(delivery.getTag()));
+            transfer.setDeliveryTag(delivery.getTagArray(), delivery.getTagOffset(), delivery.getTagLength());
             transfer.setHandle(tpLink.getLocalHandle());
-
-            if(delivery.getLocalState() != null)
-            {
-                transfer.setState(delivery.getLocalState());
-            }
+            transfer.setState(delivery.getLocalState());
 
             if(delivery.isSettled())
             {
@@ -560,13 +779,11 @@ public class TransportImpl extends EndpointImpl
             }
             else
             {
+                transfer.setSettled(null);
                 tpSession.addUnsettledOutgoing(deliveryId, delivery);
             }
 
-            if(snd.current() == delivery)
-            {
-                transfer.setMore(true);
-            }
+            transfer.setMore(snd.current() == delivery);
 
             int messageFormat = delivery.getMessageFormat();
             if(messageFormat == DeliveryImpl.DEFAULT_MESSAGE_FORMAT) {
@@ -575,24 +792,30 @@ public class TransportImpl extends EndpointImpl
                 transfer.setMessageFormat(UnsignedInteger.valueOf(messageFormat));
             }
 
-            ByteBuffer payload = delivery.getData() ==  null ? null :
-                ByteBuffer.wrap(delivery.getData(), delivery.getDataOffset(),
-                                delivery.getDataLength());
-
-            writeFrame(tpSession.getLocalChannel(), transfer, payload,
-                       new PartialTransfer(transfer));
+            int pending = delivery.getDataLength();
+            if(delivery.hasSendBuffers())
+            {
+                writeFrameFromBuffers(tpSession.getLocalChannel(), transfer, delivery.getSendBuffers(),
+                                      _partialTransfer);
+                delivery.releaseWrittenSendBuffers(_frameWriter);
+            }
+            else
+            {
+                writeFrame(tpSession.getLocalChannel(), transfer, null, _partialTransfer);
+            }
             tpSession.incrementOutgoingId();
             tpSession.decrementRemoteIncomingWindow();
+            session.incrementOutgoingBytes(delivery.getDataLength() - pending);
 
-            if(payload == null || !payload.hasRemaining())
+            if(delivery.getDataLength() == 0)
             {
-                session.incrementOutgoingBytes(-delivery.pending());
-                delivery.setData(null);
-                delivery.setDataLength(0);
-
                 if (!transfer.getMore()) {
                     // Clear the in-progress delivery marker
-                    tpLink.setInProgressDelivery(null);
+                    if(tpLink.getInProgressDelivery() != null)
+                    {
+                        tpLink.setInProgressDelivery(null);
+                        scheduleParkedDeliveries(tpLink);
+                    }
 
                     delivery.setDone();
                     tpLink.setDeliveryCount(tpLink.getDeliveryCount().add(UnsignedInteger.ONE));
@@ -604,11 +827,6 @@ public class TransportImpl extends EndpointImpl
             }
             else
             {
-                int delta = delivery.getDataLength() - payload.remaining();
-                delivery.setDataOffset(delivery.getDataOffset() + delta);
-                delivery.setDataLength(payload.remaining());
-                session.incrementOutgoingBytes(-delta);
-
                 // Remember the delivery we are still processing
                 // the body transfer frames for
                 tpLink.setInProgressDelivery(delivery);
@@ -619,22 +837,17 @@ public class TransportImpl extends EndpointImpl
             }
         }
 
-        if(wasDone && delivery.getLocalState() != null)
+        if(wasDone && delivery.getLocalState() != null && delivery.getTransportDelivery() != null)
         {
             TransportDelivery tpDelivery = delivery.getTransportDelivery();
-            Disposition disposition = new Disposition();
-            disposition.setFirst(tpDelivery.getDeliveryId());
-            disposition.setLast(tpDelivery.getDeliveryId());
-            disposition.setRole(Role.SENDER);
-            disposition.setSettled(delivery.isSettled());
-            if(delivery.isSettled())
+            boolean settled = delivery.isSettled();
+            if(settled)
             {
                 tpDelivery.settled();
             }
-            disposition.setState(delivery.getLocalState());
 
-            writeFrame(tpSession.getLocalChannel(), disposition, null,
-                       null);
+            writeDisposition(tpSession, tpDelivery.getDeliveryId(), Role.SENDER, settled,
+                             delivery.getLocalState());
         }
 
         return !delivery.isBuffered();
@@ -652,18 +865,11 @@ public class TransportImpl extends EndpointImpl
             boolean settled = delivery.isSettled();
             DeliveryState localState = delivery.getLocalState();
 
-            Disposition disposition = new Disposition();
-            disposition.setFirst(tpDelivery.getDeliveryId());
-            disposition.setLast(tpDelivery.getDeliveryId());
-            disposition.setRole(Role.RECEIVER);
-            disposition.setSettled(settled);
-            disposition.setState(localState);
-
             if(localState == null && settled) {
-                disposition.setState(delivery.getDefaultDeliveryState());
+                localState = delivery.getDefaultDeliveryState();
             }
 
-            writeFrame(tpSession.getLocalChannel(), disposition, null, null);
+            writeDisposition(tpSession, tpDelivery.getDeliveryId(), Role.RECEIVER, settled, localState);
             if (settled)
             {
                 tpDelivery.settled();
@@ -678,7 +884,7 @@ public class TransportImpl extends EndpointImpl
     {
         if(_connectionEndpoint != null && _isOpenSent && !_isCloseSent)
         {
-            EndpointImpl endpoint = _connectionEndpoint.getTransportHead();
+            EndpointImpl endpoint = _connectionEndpoint.getModifiedLinkHead();
             while(endpoint != null)
             {
                 if(endpoint instanceof ReceiverImpl)
@@ -700,7 +906,7 @@ public class TransportImpl extends EndpointImpl
                 }
                 endpoint = endpoint.transportNext();
             }
-            endpoint = _connectionEndpoint.getTransportHead();
+            endpoint = _connectionEndpoint.getModifiedSessionHead();
             while(endpoint != null)
             {
                 if(endpoint instanceof SessionImpl)
@@ -726,7 +932,7 @@ public class TransportImpl extends EndpointImpl
     {
         if(_connectionEndpoint != null && _isOpenSent && !_isCloseSent)
         {
-            EndpointImpl endpoint = _connectionEndpoint.getTransportHead();
+            EndpointImpl endpoint = _connectionEndpoint.getModifiedLinkHead();
 
             while(endpoint != null)
             {
@@ -861,7 +1067,7 @@ public class TransportImpl extends EndpointImpl
     {
         if(_connectionEndpoint != null && _isOpenSent && !_isCloseSent)
         {
-            EndpointImpl endpoint = _connectionEndpoint.getTransportHead();
+            EndpointImpl endpoint = _connectionEndpoint.getModifiedSessionHead();
             while(endpoint != null)
             {
                 if(endpoint instanceof SessionImpl)
@@ -932,17 +1138,12 @@ public class TransportImpl extends EndpointImpl
 
     private int allocateLocalChannel(TransportSession transportSession)
     {
-        for (int i = 0; i < _connectionEndpoint.getMaxChannels(); i++)
+        int channel = _localSessions.allocate(transportSession, _connectionEndpoint.getMaxChannels() - 1);
+        if (channel != -1)
         {
-            if (!_localSessions.containsKey(i))
-            {
-                _localSessions.put(i, transportSession);
-                transportSession.setLocalChannel(i);
-                return i;
-            }
+            transportSession.setLocalChannel(channel);
         }
-
-        return -1;
+        return channel;
     }
 
     private int freeLocalChannel(TransportSession transportSession)
@@ -957,7 +1158,7 @@ public class TransportImpl extends EndpointImpl
     {
         if(_connectionEndpoint != null && _isOpenSent)
         {
-            EndpointImpl endpoint = _connectionEndpoint.getTransportHead();
+            EndpointImpl endpoint = _connectionEndpoint.getModifiedSessionHead();
             while(endpoint != null)
             {
                 SessionImpl session;
@@ -973,6 +1174,8 @@ public class TransportImpl extends EndpointImpl
                             continue;
                         }
 
+                        writePendingDisposition(transportSession);
+
                         int channel = freeLocalChannel(transportSession);
                         End end = new End();
                         ErrorCondition localError = endpoint.getCondition();
@@ -1000,7 +1203,7 @@ public class TransportImpl extends EndpointImpl
 
         if(!_closeReceived && (session == null || !session.getTransportSession().endReceived()))
         {
-            EndpointImpl endpoint = _connectionEndpoint.getTransportHead();
+            EndpointImpl endpoint = _connectionEndpoint.getModifiedLinkHead();
             while(endpoint != null)
             {
                 if(endpoint instanceof SenderImpl)
@@ -1042,6 +1245,7 @@ public class TransportImpl extends EndpointImpl
                     close.setError(localError);
                 }
 
+                writePendingDispositions();
                 _isCloseSent = true;
 
                 writeFrame(0, close, null, null);
@@ -1059,6 +1263,12 @@ public class TransportImpl extends EndpointImpl
         _frameWriter.writeFrame(channel, frameBody, payload, onPayloadTooLarge);
     }
 
+    protected void writeFrameFromBuffers(int channel, FrameBody frameBody,
+                                         ByteBuffer[] payload, Runnable onPayloadTooLarge)
+    {
+        _frameWriter.writeFrameFromBuffers(channel, frameBody, payload, onPayloadTooLarge);
+    }
+
     //==================================================================================================================
 
     @Override
@@ -1367,7 +1577,11 @@ public class TransportImpl extends EndpointImpl
         ProtocolTracer tracer = _protocolTracer.get();
         if( tracer != null )
         {
-            tracer.receivedFrame(frame);
+            // the tracer may hold on to the frame, but the payload is only valid during this call
+            // and the body may be decoded into again by the next frame
+            Binary payload = frame.getPayload();
+            tracer.receivedFrame(new TransportFrame(frame.getChannel(), retainable(frame.getBody()),
+                                                    payload == null ? null : payload.copy()));
         }
 
         frame.getBody().invoke(this,frame.getPayload(), frame.getChannel());
@@ -1515,6 +1729,33 @@ public class TransportImpl extends EndpointImpl
     {
         init();
         _outputProcessor.pop(bytes);
+        outputWritten(bytes);
+    }
+
+    @Override
+    public int writeTo(GatheringByteChannel channel) throws IOException
+    {
+        init();
+        int written;
+        if (_outputProcessor instanceof GatheringTransportOutput)
+        {
+            written = ((GatheringTransportOutput) _outputProcessor).writeTo(channel);
+        }
+        else
+        {
+            if (_outputProcessor.pending() <= 0)
+            {
+                return 0;
+            }
+            written = channel.write(_outputProcessor.head());
+            _outputProcessor.pop(written);
+        }
+        outputWritten(written);
+        return written;
+    }
+
+    private void outputWritten(int bytes)
+    {
         _bytesOutput += bytes;
 
         int p = pending();
@@ -1594,6 +1835,17 @@ public class TransportImpl extends EndpointImpl
             timeout = Math.min(timeout == 0 ? _remoteIdleDeadline : timeout, _remoteIdleDeadline);
         }
 
+        if (!_pendingDispositionSessions.isEmpty()) {
+            long remaining = _dispositionDeadline - currentTime();
+            if (remaining <= 0) {
+                writePendingDispositions();
+            } else {
+                // the deadline is given in the same terms as now
+                long deadline = now + remaining;
+                timeout = Math.min(timeout == 0 ? deadline : timeout, deadline);
+            }
+        }
+
         return timeout;
     }
 
@@ -1628,6 +1880,27 @@ public class TransportImpl extends EndpointImpl
         return "TransportImpl [_connectionEndpoint=" + _connectionEndpoint + ", " + super.toString() + "]";
     }
 
+    /**
+     * Returns the given frame body, or a copy of it if it is one of the performatives that are
+     * reused for each frame written or decoded, for handing to code that may hold on to it.
+     */
+    static FrameBody retainable(FrameBody body)
+    {
+        if(body instanceof Transfer)
+        {
+            return ((Transfer) body).copy();
+        }
+        else if(body instanceof Flow)
+        {
+            return ((Flow) body).copy();
+        }
+        else if(body instanceof Disposition)
+        {
+            return ((Disposition) body).copy();
+        }
+        return body;
+    }
+
     private static class PartialTransfer implements Runnable
     {
         private final Transfer _transfer;
@@ -1712,6 +1985,38 @@ public class TransportImpl extends EndpointImpl
         return _emitFlowEventOnSend;
     }
 
+    @Override
+    public void setDispositionLinger(int linger)
+    {
+        if(linger < 0)
+        {
+            throw new IllegalArgumentException("Disposition linger must not be negative: " + linger);
+        }
+        _dispositionLinger = linger;
+    }
+
+    @Override
+    public int getDispositionLinger()
+    {
+        return _dispositionLinger;
+    }
+
+    @Override
+    public void setOutputThreshold(int outputThreshold)
+    {
+        if(outputThreshold <= 0)
+        {
+            throw new IllegalArgumentException("Output threshold must be positive: " + outputThreshold);
+        }
+        _frameWriter.setOutputThreshold(outputThreshold);
+    }
+
+    @Override
+    public int getOutputThreshold()
+    {
+        return _frameWriter.getOutputThreshold();
+    }
+
     // From TransportInternal
     @Override
     public void addTransportLayer(TransportLayer layer)
@@ -20,11 +20,18 @@ package org.apache.qpid.proton.engine.impl;
 
 import static org.apache.qpid.proton.engine.impl.ByteBufferUtils.*;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
 
 import org.apache.qpid.proton.engine.Transport;
 
-class TransportOutputAdaptor implements TransportOutput
+/**
+ * Adapts a {@link TransportOutputWriter} to {@link TransportOutput}. The writer's output is only
+ * copied into the output buffer when {@link #head()} is asked for, so that it can instead be
+ * written straight from the writer by {@link #writeTo(GatheringByteChannel)}.
+ */
+class TransportOutputAdaptor implements GatheringTransportOutput
 {
     private static final ByteBuffer _emptyHead = newReadableBuffer(0).asReadOnlyBuffer();
 
@@ -49,39 +56,40 @@ class TransportOutputAdaptor implements TransportOutput
             return Transport.END_OF_STREAM;
         }
 
-        if(_outputBuffer == null)
-        {
-            init_buffers();
-        }
+        _output_done = _transportOutputWriter.generateOutput();
 
-        _output_done = _transportOutputWriter.writeInto(_outputBuffer);
-        _head.limit(_outputBuffer.position());
-
-        if (_outputBuffer.position() == 0 && _outputBuffer.capacity() > TransportImpl.BUFFER_RELEASE_THRESHOLD)
-        {
-            release_buffers();
-        }
-
-        if (_output_done && (_outputBuffer == null || _outputBuffer.position() == 0))
+        int buffered = _outputBuffer == null ? 0 : _outputBuffer.position();
+        int pending = buffered + _transportOutputWriter.pendingOutput();
+        if (_output_done && pending == 0)
         {
             return Transport.END_OF_STREAM;
         }
         else
         {
-            return _outputBuffer == null ? 0 : _outputBuffer.position();
+            // no more than head() can hold
+            return Math.min(pending, _outputBuffer == null ? _maxFrameSize : _outputBuffer.capacity());
         }
     }
 
     @Override
     public ByteBuffer head()
     {
-        pending();
+        if (!_head_closed)
+        {
+            fill_buffers();
+        }
         return _head != null ? _head : _emptyHead;
     }
 
     @Override
     public void pop(int bytes)
     {
+        if (!_head_closed && (_outputBuffer == null || _outputBuffer.position() < bytes))
+        {
+            // the bytes were reported by pending() but not yet copied by head()
+            fill_buffers();
+        }
+
         if (_outputBuffer != null) {
             _outputBuffer.flip();
             _outputBuffer.position(bytes);
@@ -94,6 +102,25 @@ class TransportOutputAdaptor implements TransportOutput
         }
     }
 
+    @Override
+    public int writeTo(GatheringByteChannel channel) throws IOException
+    {
+        if (_head_closed) {
+            return 0;
+        }
+
+        if (_outputBuffer != null && _outputBuffer.position() > 0)
+        {
+            // output already copied by head() goes first
+            int written = channel.write(_head);
+            pop(written);
+            return written;
+        }
+
+        _output_done = _transportOutputWriter.generateOutput();
+        return (int) _transportOutputWriter.writeOutputTo(channel);
+    }
+
     @Override
     public void close_head()
     {
@@ -102,6 +129,21 @@ class TransportOutputAdaptor implements TransportOutput
         release_buffers();
     }
 
+    private void fill_buffers() {
+        if(_outputBuffer == null)
+        {
+            init_buffers();
+        }
+
+        _output_done = _transportOutputWriter.writeInto(_outputBuffer);
+        _head.limit(_outputBuffer.position());
+
+        if (_outputBuffer.position() == 0 && _outputBuffer.capacity() > TransportImpl.BUFFER_RELEASE_THRESHOLD)
+        {
+            release_buffers();
+        }
+    }
+
     private void init_buffers() {
         _outputBuffer = newWriteableBuffer(_maxFrameSize);
         _head = _outputBuffer.asReadOnlyBuffer();
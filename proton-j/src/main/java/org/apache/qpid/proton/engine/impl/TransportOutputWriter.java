@@ -18,7 +18,9 @@
  */
 package org.apache.qpid.proton.engine.impl;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
 
 import org.apache.qpid.proton.engine.TransportException;
 
@@ -30,6 +32,24 @@ interface TransportOutputWriter
      */
     boolean writeInto(ByteBuffer outputBuffer);
 
+    /**
+     * Generates my pending output without copying it anywhere.
+     * Returns true on end of stream.
+     */
+    boolean generateOutput();
+
+    /**
+     * Returns the number of bytes of generated output that have not
+     * yet been written into an output buffer or to a channel.
+     */
+    int pendingOutput();
+
+    /**
+     * Writes as much generated output to the channel as it accepts,
+     * with a single gathering write. Returns the number of bytes written.
+     */
+    long writeOutputTo(GatheringByteChannel channel) throws IOException;
+
     void closed(TransportException error);
 
 }
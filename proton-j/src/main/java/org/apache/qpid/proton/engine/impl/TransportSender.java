@@ -28,6 +28,12 @@ class TransportSender extends TransportLink<SenderImpl>
 {
     private boolean _drain;
     private DeliveryImpl _inProgressDelivery;
+    // deliveries waiting for credit, for the session window or for the delivery in progress,
+    // in the order they are to be sent
+    private DeliveryImpl _parkedHead;
+    private DeliveryImpl _parkedTail;
+    private boolean _scheduled;
+    private boolean _windowBlocked;
     private static final UnsignedInteger ORIGINAL_DELIVERY_COUNT = UnsignedInteger.ZERO;
 
     TransportSender(SenderImpl link)
@@ -67,4 +73,62 @@ class TransportSender extends TransportLink<SenderImpl>
     {
         return _inProgressDelivery;
     }
+
+    void park(DeliveryImpl delivery)
+    {
+        delivery._parked = true;
+        delivery.setTransportWorkNext(null);
+        if(_parkedTail == null)
+        {
+            _parkedHead = delivery;
+        }
+        else
+        {
+            _parkedTail.setTransportWorkNext(delivery);
+        }
+        _parkedTail = delivery;
+    }
+
+    boolean hasParked()
+    {
+        return _parkedHead != null;
+    }
+
+    DeliveryImpl getParkedHead()
+    {
+        return _parkedHead;
+    }
+
+    DeliveryImpl unparkHead()
+    {
+        DeliveryImpl delivery = _parkedHead;
+        _parkedHead = delivery.getTransportWorkNext();
+        if(_parkedHead == null)
+        {
+            _parkedTail = null;
+        }
+        delivery.setTransportWorkNext(null);
+        delivery._parked = false;
+        return delivery;
+    }
+
+    boolean isScheduled()
+    {
+        return _scheduled;
+    }
+
+    void setScheduled(boolean scheduled)
+    {
+        _scheduled = scheduled;
+    }
+
+    boolean isWindowBlocked()
+    {
+        return _windowBlocked;
+    }
+
+    void setWindowBlocked(boolean windowBlocked)
+    {
+        _windowBlocked = windowBlocked;
+    }
 }
@@ -21,7 +21,9 @@
 
 package org.apache.qpid.proton.engine.impl;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.qpid.proton.amqp.Binary;
@@ -51,9 +53,11 @@ class TransportSession
     private UnsignedInteger _nextOutgoingId = UnsignedInteger.ONE;
     private UnsignedInteger _nextIncomingId = null;
 
-    private final Map<UnsignedInteger, TransportLink<?>> _remoteHandlesMap = new HashMap<UnsignedInteger, TransportLink<?>>();
-    private final Map<UnsignedInteger, TransportLink<?>> _localHandlesMap = new HashMap<UnsignedInteger, TransportLink<?>>();
+    private final SlotTable<TransportLink<?>> _remoteHandlesMap = new SlotTable<TransportLink<?>>();
+    private final SlotTable<TransportLink<?>> _localHandlesMap = new SlotTable<TransportLink<?>>();
     private final Map<String, TransportLink> _halfOpenLinks = new HashMap<String, TransportLink>();
+    // the senders with deliveries parked until the remote incoming window opens
+    private final List<TransportSender> _windowBlockedLinks = new ArrayList<TransportSender>();
 
 
     private UnsignedInteger _incomingDeliveryId = null;
@@ -61,11 +65,12 @@ class TransportSession
     private UnsignedInteger _remoteOutgoingWindow;
     private UnsignedInteger _remoteNextIncomingId = _nextOutgoingId;
     private UnsignedInteger _remoteNextOutgoingId;
-    private final Map<UnsignedInteger, DeliveryImpl>
-            _unsettledIncomingDeliveriesById = new HashMap<UnsignedInteger, DeliveryImpl>();
-    private final Map<UnsignedInteger, DeliveryImpl>
-            _unsettledOutgoingDeliveriesById = new HashMap<UnsignedInteger, DeliveryImpl>();
+    private final UnsettledDeliveries _unsettledIncomingDeliveriesById = new UnsettledDeliveries();
+    private final UnsettledDeliveries _unsettledOutgoingDeliveriesById = new UnsettledDeliveries();
     private int _unsettledIncomingSize;
+    // the last disposition, not yet written as it may still be extended to further deliveries
+    private Disposition _pendingDisposition;
+    private Disposition _reusableDisposition;
     private boolean _endReceived;
     private boolean _beginSent;
 
@@ -144,9 +149,13 @@ class TransportSession
 
     private void unsetLocalHandles()
     {
-        for (TransportLink<?> tl : _localHandlesMap.values())
+        for (int handle = _localHandlesMap.highestSlot(); handle >= 0; handle--)
         {
-            tl.clearLocalHandle();
+            TransportLink<?> tl = _localHandlesMap.get(handle);
+            if (tl != null)
+            {
+                tl.clearLocalHandle();
+            }
         }
         _localHandlesMap.clear();
     }
@@ -162,9 +171,13 @@ class TransportSession
 
     private void unsetRemoteHandles()
     {
-        for (TransportLink<?> tl : _remoteHandlesMap.values())
+        for (int handle = _remoteHandlesMap.highestSlot(); handle >= 0; handle--)
         {
-            tl.clearRemoteHandle();
+            TransportLink<?> tl = _remoteHandlesMap.get(handle);
+            if (tl != null)
+            {
+                tl.clearRemoteHandle();
+            }
         }
         _remoteHandlesMap.clear();
     }
@@ -211,42 +224,39 @@ class TransportSession
 
     public TransportLink getLinkFromRemoteHandle(UnsignedInteger handle)
     {
-        return _remoteHandlesMap.get(handle);
+        return _remoteHandlesMap.get(handle.intValue());
     }
 
     public UnsignedInteger allocateLocalHandle(TransportLink transportLink)
     {
-        for(int i = 0; i <= HANDLE_MAX; i++)
+        int i = _localHandlesMap.allocate(transportLink, HANDLE_MAX);
+        if(i == -1)
         {
-            UnsignedInteger handle = UnsignedInteger.valueOf(i);
-            if(!_localHandlesMap.containsKey(handle))
-            {
-                _localHandlesMap.put(handle, transportLink);
-                transportLink.setLocalHandle(handle);
-                return handle;
-            }
+            throw new IllegalStateException("no local handle available for allocation");
         }
-        throw new IllegalStateException("no local handle available for allocation");
+        UnsignedInteger handle = UnsignedInteger.valueOf(i);
+        transportLink.setLocalHandle(handle);
+        return handle;
     }
 
     public void addLinkRemoteHandle(TransportLink link, UnsignedInteger remoteHandle)
     {
-        _remoteHandlesMap.put(remoteHandle, link);
+        _remoteHandlesMap.put(remoteHandle.intValue(), link);
     }
 
     public void addLinkLocalHandle(TransportLink link, UnsignedInteger localhandle)
     {
-        _localHandlesMap.put(localhandle, link);
+        _localHandlesMap.put(localhandle.intValue(), link);
     }
 
     public void freeLocalHandle(UnsignedInteger handle)
     {
-        _localHandlesMap.remove(handle);
+        _localHandlesMap.remove(handle.intValue());
     }
 
     public void freeRemoteHandle(UnsignedInteger handle)
     {
-        _remoteHandlesMap.remove(handle);
+        _remoteHandlesMap.remove(handle.intValue());
     }
 
     public TransportLink resolveHalfOpenLink(String name)
@@ -268,7 +278,7 @@ class TransportSession
             TransportReceiver transportReceiver = (TransportReceiver) getLinkFromRemoteHandle(transfer.getHandle());
             ReceiverImpl receiver = transportReceiver.getReceiver();
             Binary deliveryTag = transfer.getDeliveryTag();
-            delivery = _unsettledIncomingDeliveriesById.get(_incomingDeliveryId);
+            delivery = _unsettledIncomingDeliveriesById.get(_incomingDeliveryId.intValue());
             delivery.getTransportDelivery().incrementSessionSize();
 
         }
@@ -286,9 +296,14 @@ class TransportSession
             if(messageFormat != null) {
                 delivery.setMessageFormat(messageFormat.intValue());
             }
-            TransportDelivery transportDelivery = new TransportDelivery(_incomingDeliveryId, delivery, transportReceiver);
-            delivery.setTransportDelivery(transportDelivery);
-            _unsettledIncomingDeliveriesById.put(_incomingDeliveryId, delivery);
+            // a delivery the sender settled that arrives in a single transfer needs no disposition
+            // and has no further transfers, so is not tracked by the session at all
+            if(!(Boolean.TRUE.equals(transfer.getSettled()) && !transfer.getMore() && !transfer.getAborted()))
+            {
+                TransportDelivery transportDelivery = new TransportDelivery(_incomingDeliveryId, delivery, transportReceiver);
+                delivery.setTransportDelivery(transportDelivery);
+                _unsettledIncomingDeliveriesById.put(_incomingDeliveryId.intValue(), delivery);
+            }
             getSession().incrementIncomingDeliveries(1);
         }
         if( transfer.getState()!=null )
@@ -296,24 +311,10 @@ class TransportSession
             delivery.setRemoteDeliveryState(transfer.getState());
         }
         _unsettledIncomingSize++;
-        // TODO - should this be a copy?
+        // the payload is only valid for the duration of the call, so is copied into the delivery
         if(payload != null)
         {
-            if(delivery.getDataLength() == 0)
-            {
-                delivery.setData(payload.getArray());
-                delivery.setDataLength(payload.getLength());
-                delivery.setDataOffset(payload.getArrayOffset());
-            }
-            else
-            {
-                byte[] data = new byte[delivery.getDataLength() + payload.getLength()];
-                System.arraycopy(delivery.getData(), delivery.getDataOffset(), data, 0, delivery.getDataLength());
-                System.arraycopy(payload.getArray(), payload.getArrayOffset(), data, delivery.getDataLength(), payload.getLength());
-                delivery.setData(data);
-                delivery.setDataOffset(0);
-                delivery.setDataLength(data.length);
-            }
+            delivery.addReceivedData(payload.getArray(), payload.getArrayOffset(), payload.getLength());
             getSession().incrementIncomingBytes(payload.getLength());
         }
         delivery.updateWork();
@@ -329,6 +330,11 @@ class TransportSession
         {
             delivery.setRemoteSettled(true);
         }
+        // likewise one settled over several transfers is no longer tracked once all of it has arrived
+        if(delivery.remotelySettled() && !delivery.isPartial() && delivery.getTransportDelivery() != null)
+        {
+            _unsettledIncomingDeliveriesById.remove(_incomingDeliveryId.intValue());
+        }
 
         _incomingWindowSize = _incomingWindowSize.subtract(UnsignedInteger.ONE);
 
@@ -387,7 +393,30 @@ class TransportSession
             TransportLink transportLink = getLinkFromRemoteHandle(flow.getHandle());
             transportLink.handleFlow(flow);
 
+            if(transportLink instanceof TransportSender)
+            {
+                _transport.scheduleParkedDeliveries((TransportSender) transportLink);
+            }
+        }
+
+        if(hasOutgoingCredit() && !_windowBlockedLinks.isEmpty())
+        {
+            for(int i = 0; i < _windowBlockedLinks.size(); i++)
+            {
+                TransportSender transportLink = _windowBlockedLinks.get(i);
+                transportLink.setWindowBlocked(false);
+                _transport.scheduleParkedDeliveries(transportLink);
+            }
+            _windowBlockedLinks.clear();
+        }
+    }
 
+    void addWindowBlockedLink(TransportSender transportLink)
+    {
+        if(!transportLink.isWindowBlocked())
+        {
+            transportLink.setWindowBlocked(true);
+            _windowBlockedLinks.add(transportLink);
         }
     }
 
@@ -403,13 +432,14 @@ class TransportSession
 
     void handleDisposition(Disposition disposition)
     {
-        UnsignedInteger id = disposition.getFirst();
-        UnsignedInteger last = disposition.getLast() == null ? id : disposition.getLast();
-        final Map<UnsignedInteger, DeliveryImpl> unsettledDeliveries =
+        int id = disposition.getFirst().intValue();
+        final int last = disposition.getLast() == null ? id : disposition.getLast().intValue();
+        final UnsettledDeliveries unsettledDeliveries =
                 disposition.getRole() == Role.RECEIVER ? _unsettledOutgoingDeliveriesById
                         : _unsettledIncomingDeliveriesById;
 
-        while(id.compareTo(last)<=0)
+        // the range may wrap from 2^32-1 to 0, so it is walked until its last id
+        while(!unsettledDeliveries.isEmpty())
         {
             DeliveryImpl delivery = unsettledDeliveries.get(id);
             if(delivery != null)
@@ -427,14 +457,18 @@ class TransportSession
 
                 getSession().getConnection().put(Event.Type.DELIVERY, delivery);
             }
-            id = id.add(UnsignedInteger.ONE);
+            if(id == last)
+            {
+                break;
+            }
+            id++;
         }
         //TODO - Implement.
     }
 
     void addUnsettledOutgoing(UnsignedInteger deliveryId, DeliveryImpl delivery)
     {
-        _unsettledOutgoingDeliveriesById.put(deliveryId, delivery);
+        _unsettledOutgoingDeliveriesById.put(deliveryId.intValue(), delivery);
     }
 
     public boolean hasOutgoingCredit()
@@ -453,12 +487,12 @@ class TransportSession
     {
         if(transportDelivery.getTransportLink().getLink() instanceof ReceiverImpl)
         {
-            _unsettledIncomingDeliveriesById.remove(transportDelivery.getDeliveryId());
+            _unsettledIncomingDeliveriesById.remove(transportDelivery.getDeliveryId().intValue());
             getSession().modified(false);
         }
         else
         {
-            _unsettledOutgoingDeliveriesById.remove(transportDelivery.getDeliveryId());
+            _unsettledOutgoingDeliveriesById.remove(transportDelivery.getDeliveryId().intValue());
             getSession().modified(false);
         }
     }
@@ -483,6 +517,29 @@ class TransportSession
         return _endReceived;
     }
 
+    Disposition getPendingDisposition()
+    {
+        return _pendingDisposition;
+    }
+
+    void setPendingDisposition(Disposition pendingDisposition)
+    {
+        _pendingDisposition = pendingDisposition;
+    }
+
+    /**
+     * Returns the disposition to make pending. A pending disposition is encoded as soon as it is
+     * written, so the session reuses the one instance for each.
+     */
+    Disposition getReusableDisposition()
+    {
+        if(_reusableDisposition == null)
+        {
+            _reusableDisposition = new Disposition();
+        }
+        return _reusableDisposition;
+    }
+
     public void receivedEnd()
     {
         _endReceived = true;
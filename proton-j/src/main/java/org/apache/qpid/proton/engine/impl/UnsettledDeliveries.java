@@ -0,0 +1,238 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.proton.engine.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The unsettled deliveries of one direction of a session, by delivery id.
+ *
+ * As delivery ids are assigned in sequence, the deliveries are held in a ring indexed by their
+ * distance from the lowest id held, with ids compared using serial number arithmetic so that the
+ * ring carries on across the wrap of the id from 2^32-1 to 0. A delivery left unsettled long after
+ * those around it would otherwise stretch the ring over the ids since, so once the ring is mostly
+ * empty such deliveries are moved out of it into a map.
+ */
+final class UnsettledDeliveries
+{
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAX_RETAINED_CAPACITY = 1024;
+
+    // _span slots from _head hold the deliveries with ids from _base to _base + _span - 1, each
+    // slot being null if the delivery with that id is not held
+    private DeliveryImpl[] _ring = new DeliveryImpl[INITIAL_CAPACITY];
+    private int _head;
+    private int _base;
+    private int _span;
+    private int _ringSize;
+
+    // deliveries moved out of the ring, or with ids before the start of it
+    private Map<Integer, DeliveryImpl> _overflow;
+
+    int size()
+    {
+        return _ringSize + (_overflow == null ? 0 : _overflow.size());
+    }
+
+    boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+    DeliveryImpl get(int id)
+    {
+        int offset = id - _base;
+        if(offset >= 0 && offset < _span)
+        {
+            DeliveryImpl delivery = _ring[slot(offset)];
+            if(delivery != null || _overflow == null)
+            {
+                return delivery;
+            }
+        }
+        return _overflow == null ? null : _overflow.get(id);
+    }
+
+    void put(int id, DeliveryImpl delivery)
+    {
+        if(_ringSize == 0)
+        {
+            _base = id;
+            _head = 0;
+            _span = 0;
+        }
+
+        int offset = id - _base;
+        if(offset < 0)
+        {
+            overflow().put(id, delivery);
+            return;
+        }
+
+        if(offset >= _ring.length)
+        {
+            makeRoom(offset + 1);
+            if(_ringSize == 0)
+            {
+                clearRing();
+                _base = id;
+            }
+            offset = id - _base;
+        }
+
+        int slot = slot(offset);
+        if(_ring[slot] == null)
+        {
+            _ringSize++;
+        }
+        _ring[slot] = delivery;
+        if(offset >= _span)
+        {
+            _span = offset + 1;
+        }
+    }
+
+    DeliveryImpl remove(int id)
+    {
+        int offset = id - _base;
+        if(offset < 0 || offset >= _span)
+        {
+            return _overflow == null ? null : _overflow.remove(id);
+        }
+
+        int slot = slot(offset);
+        DeliveryImpl delivery = _ring[slot];
+        if(delivery == null)
+        {
+            return _overflow == null ? null : _overflow.remove(id);
+        }
+        else
+        {
+            _ring[slot] = null;
+            _ringSize--;
+            if(_ringSize == 0)
+            {
+                clearRing();
+            }
+            else if(offset == 0)
+            {
+                // move the start of the ring up to the next delivery held
+                do
+                {
+                    _head = (_head + 1) & (_ring.length - 1);
+                    _base++;
+                    _span--;
+                }
+                while(_ring[_head] == null);
+            }
+            else if(offset == _span - 1)
+            {
+                do
+                {
+                    _span--;
+                }
+                while(_ring[slot(_span - 1)] == null);
+            }
+        }
+        return delivery;
+    }
+
+    private void clearRing()
+    {
+        _head = 0;
+        _base = 0;
+        _span = 0;
+        if(_ring.length > MAX_RETAINED_CAPACITY)
+        {
+            // do not hold on to the ring needed by a burst of deliveries
+            _ring = new DeliveryImpl[INITIAL_CAPACITY];
+        }
+    }
+
+    /**
+     * Makes the ring able to hold the given span of ids from its start, either by moving the
+     * deliveries at the start of a mostly empty ring to the overflow map, or by growing it.
+     */
+    private void makeRoom(int span)
+    {
+        if(_ringSize * 2 < _ring.length)
+        {
+            while(_ringSize > 0 && span > _ring.length)
+            {
+                DeliveryImpl delivery = _ring[_head];
+                if(delivery != null)
+                {
+                    _ring[_head] = null;
+                    _ringSize--;
+                    overflow().put(_base, delivery);
+                }
+                _head = (_head + 1) & (_ring.length - 1);
+                _base++;
+                _span--;
+                span--;
+            }
+            if(_ringSize == 0 || span <= _ring.length)
+            {
+                return;
+            }
+        }
+
+        int capacity = _ring.length * 2;
+        while(capacity < span)
+        {
+            capacity *= 2;
+        }
+
+        DeliveryImpl[] ring = new DeliveryImpl[capacity];
+        int first = Math.min(_span, _ring.length - _head);
+        System.arraycopy(_ring, _head, ring, 0, first);
+        System.arraycopy(_ring, 0, ring, first, _span - first);
+        _ring = ring;
+        _head = 0;
+    }
+
+    private Map<Integer, DeliveryImpl> overflow()
+    {
+        if(_overflow == null)
+        {
+            _overflow = new HashMap<Integer, DeliveryImpl>();
+        }
+        return _overflow;
+    }
+
+    private int slot(int offset)
+    {
+        return (_head + offset) & (_ring.length - 1);
+    }
+
+    int getCapacity()
+    {
+        return _ring.length;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "UnsettledDeliveries[base=" + _base + ", span=" + _span + ", size=" + size()
+               + ", capacity=" + _ring.length + "]";
+    }
+}
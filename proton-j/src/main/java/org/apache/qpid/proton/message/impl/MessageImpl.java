@@ -23,10 +23,14 @@ package org.apache.qpid.proton.message.impl;
 
 import java.nio.ByteBuffer;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
 import org.apache.qpid.proton.amqp.Binary;
 import org.apache.qpid.proton.amqp.Symbol;
 import org.apache.qpid.proton.amqp.UnsignedByte;
 import org.apache.qpid.proton.amqp.UnsignedInteger;
+import org.apache.qpid.proton.amqp.UnsignedLong;
 import org.apache.qpid.proton.amqp.messaging.*;
 import org.apache.qpid.proton.codec.*;
 import org.apache.qpid.proton.message.*;
@@ -40,12 +44,48 @@ public class MessageImpl implements ProtonJMessage
     private ApplicationProperties _applicationProperties;
     private Section _body;
     private Footer _footer;
-    
+
+    private static final int HEADER = 0;
+    private static final int DELIVERY_ANNOTATIONS = 1;
+    private static final int MESSAGE_ANNOTATIONS = 2;
+    private static final int PROPERTIES = 3;
+    private static final int APPLICATION_PROPERTIES = 4;
+    private static final int BODY = 5;
+    private static final int FOOTER = 6;
+    private static final int SECTION_COUNT = 7;
+
+    private static final Map<Object, Integer> SECTION_DESCRIPTORS = new HashMap<Object, Integer>();
+    static
+    {
+        addSectionDescriptor(0x70L, "amqp:header:list", HEADER);
+        addSectionDescriptor(0x71L, "amqp:delivery-annotations:map", DELIVERY_ANNOTATIONS);
+        addSectionDescriptor(0x72L, "amqp:message-annotations:map", MESSAGE_ANNOTATIONS);
+        addSectionDescriptor(0x73L, "amqp:properties:list", PROPERTIES);
+        addSectionDescriptor(0x74L, "amqp:application-properties:map", APPLICATION_PROPERTIES);
+        addSectionDescriptor(0x75L, "amqp:data:binary", BODY);
+        addSectionDescriptor(0x76L, "amqp:amqp-sequence:list", BODY);
+        addSectionDescriptor(0x77L, "amqp:amqp-value:*", BODY);
+        addSectionDescriptor(0x78L, "amqp:footer:map", FOOTER);
+    }
+
+    private static void addSectionDescriptor(long code, String symbol, int section)
+    {
+        SECTION_DESCRIPTORS.put(UnsignedLong.valueOf(code), section);
+        SECTION_DESCRIPTORS.put(Symbol.valueOf(symbol), section);
+    }
+
+    private boolean _lazyDecode;
+    private ByteBuffer _encoded;
+    private int _encodedSections;
+    private int[] _sectionBounds;
+
+
     private static class EncoderDecoderPair {
       DecoderImpl decoder = new DecoderImpl();
       EncoderImpl encoder = new EncoderImpl(decoder);
       {
           AMQPDefinedTypes.registerAllTypes(decoder, encoder);
+          decoder.setStringCaching(true);
       }
     }
 
@@ -81,41 +121,41 @@ public class MessageImpl implements ProtonJMessage
     @Override
     public boolean isDurable()
     {
-        return (_header == null || _header.getDurable() == null) ? false : _header.getDurable();
+        return (header() == null || header().getDurable() == null) ? false : header().getDurable();
     }
 
 
     @Override
     public long getDeliveryCount()
     {
-        return (_header == null || _header.getDeliveryCount() == null) ? 0l : _header.getDeliveryCount().longValue();
+        return (header() == null || header().getDeliveryCount() == null) ? 0l : header().getDeliveryCount().longValue();
     }
 
 
     @Override
     public short getPriority()
     {
-        return (_header == null || _header.getPriority() == null)
+        return (header() == null || header().getPriority() == null)
                        ? DEFAULT_PRIORITY
-                       : _header.getPriority().shortValue();
+                       : header().getPriority().shortValue();
     }
 
     @Override
     public boolean isFirstAcquirer()
     {
-        return (_header == null || _header.getFirstAcquirer() == null) ? false : _header.getFirstAcquirer();
+        return (header() == null || header().getFirstAcquirer() == null) ? false : header().getFirstAcquirer();
     }
 
     @Override
     public long getTtl()
     {
-        return (_header == null || _header.getTtl() == null) ? 0l : _header.getTtl().longValue();
+        return (header() == null || header().getTtl() == null) ? 0l : header().getTtl().longValue();
     }
 
     @Override
     public void setDurable(boolean durable)
     {
-        if (_header == null)
+        if (header() == null)
         {
             if (durable)
             {
@@ -126,14 +166,14 @@ public class MessageImpl implements ProtonJMessage
                 return;
             }
         }
-        _header.setDurable(durable);
+        header().setDurable(durable);
     }
 
     @Override
     public void setTtl(long ttl)
     {
 
-        if (_header == null)
+        if (header() == null)
         {
             if (ttl != 0l)
             {
@@ -144,13 +184,13 @@ public class MessageImpl implements ProtonJMessage
                 return;
             }
         }
-        _header.setTtl(UnsignedInteger.valueOf(ttl));
+        header().setTtl(UnsignedInteger.valueOf(ttl));
     }
 
     @Override
     public void setDeliveryCount(long deliveryCount)
     {
-        if (_header == null)
+        if (header() == null)
         {
             if (deliveryCount == 0l)
             {
@@ -158,7 +198,7 @@ public class MessageImpl implements ProtonJMessage
             }
             _header = new Header();
         }
-        _header.setDeliveryCount(UnsignedInteger.valueOf(deliveryCount));
+        header().setDeliveryCount(UnsignedInteger.valueOf(deliveryCount));
     }
 
 
@@ -166,7 +206,7 @@ public class MessageImpl implements ProtonJMessage
     public void setFirstAcquirer(boolean firstAcquirer)
     {
 
-        if (_header == null)
+        if (header() == null)
         {
             if (!firstAcquirer)
             {
@@ -174,14 +214,14 @@ public class MessageImpl implements ProtonJMessage
             }
             _header = new Header();
         }
-        _header.setFirstAcquirer(firstAcquirer);
+        header().setFirstAcquirer(firstAcquirer);
     }
 
     @Override
     public void setPriority(short priority)
     {
 
-        if (_header == null)
+        if (header() == null)
         {
             if (priority == DEFAULT_PRIORITY)
             {
@@ -189,49 +229,49 @@ public class MessageImpl implements ProtonJMessage
             }
             _header = new Header();
         }
-        _header.setPriority(UnsignedByte.valueOf((byte) priority));
+        header().setPriority(UnsignedByte.valueOf((byte) priority));
     }
 
     @Override
     public Object getMessageId()
     {
-        return _properties == null ? null : _properties.getMessageId();
+        return properties() == null ? null : properties().getMessageId();
     }
 
     @Override
     public long getGroupSequence()
     {
-        return (_properties == null || _properties.getGroupSequence() == null) ? 0l : _properties.getGroupSequence().intValue();
+        return (properties() == null || properties().getGroupSequence() == null) ? 0l : properties().getGroupSequence().intValue();
     }
 
     @Override
     public String getReplyToGroupId()
     {
-        return _properties == null ? null : _properties.getReplyToGroupId();
+        return properties() == null ? null : properties().getReplyToGroupId();
     }
 
     @Override
     public long getCreationTime()
     {
-        return (_properties == null || _properties.getCreationTime() == null) ? 0l : _properties.getCreationTime().getTime();
+        return (properties() == null || properties().getCreationTime() == null) ? 0l : properties().getCreationTime().getTime();
     }
 
     @Override
     public String getAddress()
     {
-        return _properties == null ? null : _properties.getTo();
+        return properties() == null ? null : properties().getTo();
     }
 
     @Override
     public byte[] getUserId()
     {
-        if(_properties == null || _properties.getUserId() == null)
+        if(properties() == null || properties().getUserId() == null)
         {
             return null;
         }
         else
         {
-            final Binary userId = _properties.getUserId();
+            final Binary userId = properties().getUserId();
             byte[] id = new byte[userId.getLength()];
             System.arraycopy(userId.getArray(),userId.getArrayOffset(),id,0,userId.getLength());
             return id;
@@ -242,49 +282,49 @@ public class MessageImpl implements ProtonJMessage
     @Override
     public String getReplyTo()
     {
-        return _properties == null ? null : _properties.getReplyTo();
+        return properties() == null ? null : properties().getReplyTo();
     }
 
     @Override
     public String getGroupId()
     {
-        return _properties == null ? null : _properties.getGroupId();
+        return properties() == null ? null : properties().getGroupId();
     }
 
     @Override
     public String getContentType()
     {
-        return (_properties == null || _properties.getContentType() == null) ? null : _properties.getContentType().toString();
+        return (properties() == null || properties().getContentType() == null) ? null : properties().getContentType().toString();
     }
 
     @Override
     public long getExpiryTime()
     {
-        return (_properties == null || _properties.getAbsoluteExpiryTime() == null) ? 0l : _properties.getAbsoluteExpiryTime().getTime();
+        return (properties() == null || properties().getAbsoluteExpiryTime() == null) ? 0l : properties().getAbsoluteExpiryTime().getTime();
     }
 
     @Override
     public Object getCorrelationId()
     {
-        return (_properties == null) ? null : _properties.getCorrelationId();
+        return (properties() == null) ? null : properties().getCorrelationId();
     }
 
     @Override
     public String getContentEncoding()
     {
-        return (_properties == null || _properties.getContentEncoding() == null) ? null : _properties.getContentEncoding().toString();
+        return (properties() == null || properties().getContentEncoding() == null) ? null : properties().getContentEncoding().toString();
     }
 
     @Override
     public String getSubject()
     {
-        return _properties == null ? null : _properties.getSubject();
+        return properties() == null ? null : properties().getSubject();
     }
 
     @Override
     public void setGroupSequence(long groupSequence)
     {
-        if(_properties == null)
+        if(properties() == null)
         {
             if(groupSequence == 0l)
             {
@@ -295,7 +335,7 @@ public class MessageImpl implements ProtonJMessage
                 _properties = new Properties();
             }
         }
-        _properties.setGroupSequence(UnsignedInteger.valueOf((int) groupSequence));
+        properties().setGroupSequence(UnsignedInteger.valueOf((int) groupSequence));
     }
 
     @Override
@@ -303,28 +343,28 @@ public class MessageImpl implements ProtonJMessage
     {
         if(userId == null)
         {
-            if(_properties != null)
+            if(properties() != null)
             {
-                _properties.setUserId(null);
+                properties().setUserId(null);
             }
 
         }
         else
         {
-            if(_properties == null)
+            if(properties() == null)
             {
                 _properties = new Properties();
             }
             byte[] id = new byte[userId.length];
             System.arraycopy(userId, 0, id,0, userId.length);
-            _properties.setUserId(new Binary(id));
+            properties().setUserId(new Binary(id));
         }
     }
 
     @Override
     public void setCreationTime(long creationTime)
     {
-        if(_properties == null)
+        if(properties() == null)
         {
             if(creationTime == 0l)
             {
@@ -333,13 +373,13 @@ public class MessageImpl implements ProtonJMessage
             _properties = new Properties();
 
         }
-        _properties.setCreationTime(new Date(creationTime));
+        properties().setCreationTime(new Date(creationTime));
     }
 
     @Override
     public void setSubject(String subject)
     {
-        if(_properties == null)
+        if(properties() == null)
         {
             if(subject == null)
             {
@@ -347,13 +387,13 @@ public class MessageImpl implements ProtonJMessage
             }
             _properties = new Properties();
         }
-        _properties.setSubject(subject);
+        properties().setSubject(subject);
     }
 
     @Override
     public void setGroupId(String groupId)
     {
-        if(_properties == null)
+        if(properties() == null)
         {
             if(groupId == null)
             {
@@ -361,13 +401,13 @@ public class MessageImpl implements ProtonJMessage
             }
             _properties = new Properties();
         }
-        _properties.setGroupId(groupId);
+        properties().setGroupId(groupId);
     }
 
     @Override
     public void setAddress(String to)
     {
-        if(_properties == null)
+        if(properties() == null)
         {
             if(to == null)
             {
@@ -375,13 +415,13 @@ public class MessageImpl implements ProtonJMessage
             }
             _properties = new Properties();
         }
-        _properties.setTo(to);
+        properties().setTo(to);
     }
 
     @Override
     public void setExpiryTime(long absoluteExpiryTime)
     {
-        if(_properties == null)
+        if(properties() == null)
         {
             if(absoluteExpiryTime == 0l)
             {
@@ -390,13 +430,13 @@ public class MessageImpl implements ProtonJMessage
             _properties = new Properties();
 
         }
-        _properties.setAbsoluteExpiryTime(new Date(absoluteExpiryTime));
+        properties().setAbsoluteExpiryTime(new Date(absoluteExpiryTime));
     }
 
     @Override
     public void setReplyToGroupId(String replyToGroupId)
     {
-        if(_properties == null)
+        if(properties() == null)
         {
             if(replyToGroupId == null)
             {
@@ -404,13 +444,13 @@ public class MessageImpl implements ProtonJMessage
             }
             _properties = new Properties();
         }
-        _properties.setReplyToGroupId(replyToGroupId);
+        properties().setReplyToGroupId(replyToGroupId);
     }
 
     @Override
     public void setContentEncoding(String contentEncoding)
     {
-        if(_properties == null)
+        if(properties() == null)
         {
             if(contentEncoding == null)
             {
@@ -418,13 +458,13 @@ public class MessageImpl implements ProtonJMessage
             }
             _properties = new Properties();
         }
-        _properties.setContentEncoding(Symbol.valueOf(contentEncoding));
+        properties().setContentEncoding(Symbol.valueOf(contentEncoding));
     }
 
     @Override
     public void setContentType(String contentType)
     {
-        if(_properties == null)
+        if(properties() == null)
         {
             if(contentType == null)
             {
@@ -432,14 +472,14 @@ public class MessageImpl implements ProtonJMessage
             }
             _properties = new Properties();
         }
-        _properties.setContentType(Symbol.valueOf(contentType));
+        properties().setContentType(Symbol.valueOf(contentType));
     }
 
     @Override
     public void setReplyTo(String replyTo)
     {
 
-        if(_properties == null)
+        if(properties() == null)
         {
             if(replyTo == null)
             {
@@ -447,14 +487,14 @@ public class MessageImpl implements ProtonJMessage
             }
             _properties = new Properties();
         }
-        _properties.setReplyTo(replyTo);
+        properties().setReplyTo(replyTo);
     }
 
     @Override
     public void setCorrelationId(Object correlationId)
     {
 
-        if(_properties == null)
+        if(properties() == null)
         {
             if(correlationId == null)
             {
@@ -462,14 +502,14 @@ public class MessageImpl implements ProtonJMessage
             }
             _properties = new Properties();
         }
-        _properties.setCorrelationId(correlationId);
+        properties().setCorrelationId(correlationId);
     }
 
     @Override
     public void setMessageId(Object messageId)
     {
 
-        if(_properties == null)
+        if(properties() == null)
         {
             if(messageId == null)
             {
@@ -477,108 +517,231 @@ public class MessageImpl implements ProtonJMessage
             }
             _properties = new Properties();
         }
-        _properties.setMessageId(messageId);
+        properties().setMessageId(messageId);
     }
 
 
     @Override
     public Header getHeader()
     {
-        return _header;
+        return header();
     }
 
     @Override
     public DeliveryAnnotations getDeliveryAnnotations()
     {
-        return _deliveryAnnotations;
+        return deliveryAnnotations();
     }
 
     @Override
     public MessageAnnotations getMessageAnnotations()
     {
-        return _messageAnnotations;
+        return messageAnnotations();
     }
 
     @Override
     public Properties getProperties()
     {
-        return _properties;
+        return properties();
     }
 
     @Override
     public ApplicationProperties getApplicationProperties()
     {
-        return _applicationProperties;
+        return applicationProperties();
     }
 
     @Override
     public Section getBody()
     {
-        return _body;
+        return body();
     }
 
     @Override
     public Footer getFooter()
     {
-        return _footer;
+        return footer();
     }
 
     @Override
     public void setHeader(Header header)
     {
+        discardEncoded(HEADER);
         _header = header;
     }
 
     @Override
     public void setDeliveryAnnotations(DeliveryAnnotations deliveryAnnotations)
     {
+        discardEncoded(DELIVERY_ANNOTATIONS);
         _deliveryAnnotations = deliveryAnnotations;
     }
 
     @Override
     public void setMessageAnnotations(MessageAnnotations messageAnnotations)
     {
+        discardEncoded(MESSAGE_ANNOTATIONS);
         _messageAnnotations = messageAnnotations;
     }
 
     @Override
     public void setProperties(Properties properties)
     {
+        discardEncoded(PROPERTIES);
         _properties = properties;
     }
 
     @Override
     public void setApplicationProperties(ApplicationProperties applicationProperties)
     {
+        discardEncoded(APPLICATION_PROPERTIES);
         _applicationProperties = applicationProperties;
     }
 
     @Override
     public void setBody(Section body)
     {
+        discardEncoded(BODY);
         _body = body;
     }
 
     @Override
     public void setFooter(Footer footer)
     {
+        discardEncoded(FOOTER);
         _footer = footer;
     }
 
-    @Override
-    public int decode(byte[] data, int offset, int length)
+    /**
+     * Sets whether {@link #decode(ByteBuffer)} defers decoding each section of the message until
+     * it is first accessed. Sections which are never accessed are not decoded at all, and are
+     * written out again verbatim when the message is encoded.
+     *
+     * While any section remains undecoded the message refers to the buffer it was decoded from,
+     * so its content must not be modified until the message is no longer used. Binary values in
+     * sections decoded on demand, such as the content of a {@link Data} body, are also views of
+     * that buffer, see {@link DecoderImpl#setBinaryViews(boolean)}.
+     *
+     * @param lazyDecode true to decode sections on demand, false to decode them all up front
+     */
+    public void setLazyDecode(boolean lazyDecode)
     {
-        final ByteBuffer buffer = ByteBuffer.wrap(data, offset, length);
-        decode(buffer);
+        _lazyDecode = lazyDecode;
+    }
 
-        return length-buffer.remaining();
+    public boolean isLazyDecode()
+    {
+        return _lazyDecode;
     }
 
-    public void decode(ByteBuffer buffer)
+    private Header header()
+    {
+        if(isEncoded(HEADER))
+        {
+            _header = (Header) decodeSection(HEADER);
+        }
+        return _header;
+    }
+
+    private DeliveryAnnotations deliveryAnnotations()
+    {
+        if(isEncoded(DELIVERY_ANNOTATIONS))
+        {
+            _deliveryAnnotations = (DeliveryAnnotations) decodeSection(DELIVERY_ANNOTATIONS);
+        }
+        return _deliveryAnnotations;
+    }
+
+    private MessageAnnotations messageAnnotations()
+    {
+        if(isEncoded(MESSAGE_ANNOTATIONS))
+        {
+            _messageAnnotations = (MessageAnnotations) decodeSection(MESSAGE_ANNOTATIONS);
+        }
+        return _messageAnnotations;
+    }
+
+    private Properties properties()
+    {
+        if(isEncoded(PROPERTIES))
+        {
+            _properties = (Properties) decodeSection(PROPERTIES);
+        }
+        return _properties;
+    }
+
+    private ApplicationProperties applicationProperties()
+    {
+        if(isEncoded(APPLICATION_PROPERTIES))
+        {
+            _applicationProperties = (ApplicationProperties) decodeSection(APPLICATION_PROPERTIES);
+        }
+        return _applicationProperties;
+    }
+
+    private Section body()
+    {
+        if(isEncoded(BODY))
+        {
+            _body = decodeSection(BODY);
+        }
+        return _body;
+    }
+
+    private Footer footer()
+    {
+        if(isEncoded(FOOTER))
+        {
+            _footer = (Footer) decodeSection(FOOTER);
+        }
+        return _footer;
+    }
+
+    private boolean isEncoded(int section)
+    {
+        return (_encodedSections & (1 << section)) != 0;
+    }
+
+    private void discardEncoded(int section)
+    {
+        _encodedSections &= ~(1 << section);
+        if(_encodedSections == 0)
+        {
+            _encoded = null;
+        }
+    }
+
+    private ByteBuffer encodedSection(int section)
+    {
+        ByteBuffer encoded = _encoded.duplicate();
+        encoded.limit(_sectionBounds[2 * section + 1]);
+        encoded.position(_sectionBounds[2 * section]);
+        return encoded;
+    }
+
+    private Section decodeSection(int section)
     {
         DecoderImpl decoder = tlsCodec.get().decoder;
-        decoder.setByteBuffer(buffer);
+        decoder.setByteBuffer(encodedSection(section));
+        decoder.setBinaryViews(true);
+        Section decoded;
+        try
+        {
+            decoded = (Section) decoder.readObject();
+        }
+        finally
+        {
+            decoder.setBinaryViews(false);
+            decoder.setByteBuffer(null);
+        }
+        // a section that fails to decode is left encoded, so it fails again on each access and is
+        // still re-encoded from its original bytes
+        discardEncoded(section);
+        return decoded;
+    }
 
+    private void clearSections()
+    {
         _header = null;
         _deliveryAnnotations = null;
         _messageAnnotations = null;
@@ -586,6 +749,123 @@ public class MessageImpl implements ProtonJMessage
         _applicationProperties = null;
         _body = null;
         _footer = null;
+        _encoded = null;
+        _encodedSections = 0;
+    }
+
+    /**
+     * Records where each section starts and ends without decoding any of them, leaving the
+     * buffer positioned after the last section. Returns false, with the buffer position left
+     * unspecified, if the sections are not in the order which {@link #decode(ByteBuffer)}
+     * expects, in which case they should be decoded eagerly instead.
+     */
+    private boolean scanSections(DecoderImpl decoder, ByteBuffer buffer)
+    {
+        int[] bounds = _sectionBounds;
+        if(bounds == null)
+        {
+            bounds = _sectionBounds = new int[2 * SECTION_COUNT];
+        }
+
+        int encodedSections = 0;
+        int next = HEADER;
+        while(buffer.hasRemaining())
+        {
+            int start = buffer.position();
+            if(buffer.get() != EncodingCodes.DESCRIBED_TYPE_INDICATOR)
+            {
+                return false;
+            }
+
+            Integer section = SECTION_DESCRIPTORS.get(decoder.readObject());
+            if(section == null || section < next)
+            {
+                return false;
+            }
+
+            decoder.skipValue();
+            bounds[2 * section] = start;
+            bounds[2 * section + 1] = buffer.position();
+            encodedSections |= 1 << section;
+            next = section + 1;
+        }
+
+        _encodedSections = encodedSections;
+        return true;
+    }
+
+    @Override
+    public int decode(byte[] data, int offset, int length)
+    {
+        final ByteBuffer buffer = ByteBuffer.wrap(data, offset, length);
+        decode(buffer);
+
+        return length-buffer.remaining();
+    }
+
+    /**
+     * Decodes the message sections from the given buffer, such as one returned by
+     * {@link org.apache.qpid.proton.engine.Receiver#recv()}, advancing its position past them.
+     * The message does not refer to the buffer once this returns, so the buffer may be reused.
+     */
+    public void decode(ReadableBuffer buffer)
+    {
+        ByteBuffer bytes = buffer.byteBuffer();
+        if(!bytes.isReadOnly())
+        {
+            // the decoded values may be views of a writable buffer
+            bytes = bytes.asReadOnlyBuffer();
+        }
+        int start = bytes.position();
+        decode(bytes);
+        int end = bytes.position();
+        buffer.position(buffer.position() + end - start);
+
+        if(_encoded != null)
+        {
+            // keep a copy of the sections left encoded, rebasing their bounds onto it
+            ByteBuffer encoded = ByteBuffer.allocate(end - start);
+            ByteBuffer source = _encoded.duplicate();
+            source.limit(end);
+            source.position(start);
+            encoded.put(source);
+            encoded.flip();
+            _encoded = encoded;
+            for(int i = 0; i < _sectionBounds.length; i++)
+            {
+                _sectionBounds[i] -= start;
+            }
+        }
+    }
+
+    /**
+     * Decodes the message sections from the given buffer, advancing its position past them.
+     *
+     * @see #setLazyDecode(boolean)
+     */
+    public void decode(ByteBuffer buffer)
+    {
+        DecoderImpl decoder = tlsCodec.get().decoder;
+        decoder.setByteBuffer(buffer);
+
+        clearSections();
+
+        if(_lazyDecode)
+        {
+            int start = buffer.position();
+            if(scanSections(decoder, buffer))
+            {
+                if(_encodedSections != 0)
+                {
+                    _encoded = buffer.duplicate();
+                }
+                decoder.setByteBuffer(null);
+                return;
+            }
+            _encodedSections = 0;
+            buffer.position(start);
+        }
+
         Section section = null;
 
         if(buffer.hasRemaining())
@@ -710,42 +990,34 @@ public class MessageImpl implements ProtonJMessage
         EncoderImpl encoder = tlsCodec.get().encoder;
         encoder.setByteBuffer(buffer);
 
-        if(getHeader() != null)
-        {
-            encoder.writeObject(getHeader());
-        }
-        if(getDeliveryAnnotations() != null)
-        {
-            encoder.writeObject(getDeliveryAnnotations());
-        }
-        if(getMessageAnnotations() != null)
-        {
-            encoder.writeObject(getMessageAnnotations());
-        }
-        if(getProperties() != null)
-        {
-            encoder.writeObject(getProperties());
-        }
-        if(getApplicationProperties() != null)
-        {
-            encoder.writeObject(getApplicationProperties());
-        }
-        if(getBody() != null)
+        writeSection(encoder, buffer, HEADER, _header);
+        writeSection(encoder, buffer, DELIVERY_ANNOTATIONS, _deliveryAnnotations);
+        writeSection(encoder, buffer, MESSAGE_ANNOTATIONS, _messageAnnotations);
+        writeSection(encoder, buffer, PROPERTIES, _properties);
+        writeSection(encoder, buffer, APPLICATION_PROPERTIES, _applicationProperties);
+        writeSection(encoder, buffer, BODY, _body);
+        writeSection(encoder, buffer, FOOTER, _footer);
+        encoder.setByteBuffer((WritableBuffer)null);
+
+        return length - buffer.remaining();
+    }
+
+    private void writeSection(EncoderImpl encoder, WritableBuffer buffer, int section, Section value)
+    {
+        if(isEncoded(section))
         {
-            encoder.writeObject(getBody());
+            buffer.put(encodedSection(section));
         }
-        if(getFooter() != null)
+        else if(value != null)
         {
-            encoder.writeObject(getFooter());
+            encoder.writeObject(value);
         }
-        encoder.setByteBuffer((WritableBuffer)null);
-
-        return length - buffer.remaining();
     }
 
     @Override
     public void clear()
     {
+        discardEncoded(BODY);
         _body = null;
     }
 
@@ -759,21 +1031,21 @@ public class MessageImpl implements ProtonJMessage
     {
         StringBuilder sb = new StringBuilder();
         sb.append("Message{");
-        if (_header != null) {
+        if (header() != null) {
             sb.append("header=");
-            sb.append(_header);
+            sb.append(header());
         }
-        if (_properties != null) {
+        if (properties() != null) {
             sb.append("properties=");
-            sb.append(_properties);
+            sb.append(properties());
         }
-        if (_messageAnnotations != null) {
+        if (messageAnnotations() != null) {
             sb.append("message_annotations=");
-            sb.append(_messageAnnotations);
+            sb.append(messageAnnotations());
         }
-        if (_body != null) {
+        if (body() != null) {
             sb.append("body=");
-            sb.append(_body);
+            sb.append(body());
         }
         sb.append("}");
         return sb.toString();
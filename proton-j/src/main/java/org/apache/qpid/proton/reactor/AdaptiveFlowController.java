@@ -0,0 +1,202 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.apache.qpid.proton.reactor;
+
+import org.apache.qpid.proton.engine.BaseHandler;
+import org.apache.qpid.proton.engine.Delivery;
+import org.apache.qpid.proton.engine.Event;
+import org.apache.qpid.proton.engine.Link;
+import org.apache.qpid.proton.engine.Receiver;
+
+/**
+ * A handler that applies flow control to a connection, sizing the credit window of each
+ * receiving link from what it observes of the link rather than using a fixed window.
+ *
+ * The window of a link is the number of deliveries the link may hold, whether still to arrive
+ * or received but not yet consumed. Credit is only issued once the credit left falls to half of
+ * the window, and then in one batch that restores the whole window, so that a link costs one
+ * flow frame per batch of deliveries rather than one per delivery. At each batch the window is
+ * resized to cover the deliveries consumed over two round trips, measured from the rate they
+ * were consumed at since the last batch and from the time taken for deliveries to arrive after
+ * credit is issued to a link with none outstanding. The window doubles whenever all of its
+ * deliveries have been consumed by the time of the next batch, as the consumer is then waiting
+ * on the sender. The window is kept between a minimum and a maximum, and to no more deliveries
+ * than fit the memory budget of a link given the average size of those received on it. Only
+ * deliveries still held by the link when the controller handles their events are measured, so
+ * with an application that consumes each delivery as it arrives the budget goes unused until
+ * deliveries start to be held.
+ */
+public class AdaptiveFlowController extends BaseHandler {
+
+    /**
+     * What is known of a receiving link, kept in its attachments.
+     */
+    private static final class LinkState {
+        int window;
+        // whether the link has been issued credit yet
+        boolean flowed;
+        // the credit of the link when it was last looked at
+        int credit;
+        // the deliveries consumed since the start of the current rate sample
+        long sampleStart;
+        int consumed;
+        // deliveries consumed per millisecond, round trip time in milliseconds and delivery
+        // size in bytes, each smoothed, or negative until first measured
+        double rate = -1;
+        double rtt = -1;
+        double deliverySize = -1;
+        // when credit was issued to the link with none outstanding, and how much, until a
+        // delivery arrives
+        long creditIssuedAt = -1;
+        int issuedCredit;
+    }
+
+    private final int minWindow;
+    private final int maxWindow;
+    private final long linkMemoryBudget;
+
+    /**
+     * @param minWindow the least credit window of a link, which is also its initial window.
+     * @param maxWindow the greatest credit window of a link.
+     * @param linkMemoryBudget the number of bytes of deliveries a link should hold at most.
+     */
+    public AdaptiveFlowController(int minWindow, int maxWindow, long linkMemoryBudget) {
+        // a window of 1 doesn't work for the same reason as with FlowController
+        if (minWindow <= 1 || maxWindow < minWindow || linkMemoryBudget <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.minWindow = minWindow;
+        this.maxWindow = maxWindow;
+        this.linkMemoryBudget = linkMemoryBudget;
+    }
+
+    public AdaptiveFlowController() {
+        this(16, 8192, 32 * 1024 * 1024);
+    }
+
+    @Override
+    public void onUnhandled(Event event) {
+        Link link = event.getLink();
+
+        switch(event.getType()) {
+        case LINK_LOCAL_OPEN:
+        case LINK_REMOTE_OPEN:
+        case LINK_FLOW:
+        case DELIVERY:
+            if (link instanceof Receiver) {
+                update((Receiver) link, event);
+            }
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * Returns the credit window the controller currently holds for the given link, or 0 if it
+     * has not yet seen the link.
+     */
+    public int getWindow(Receiver link) {
+        LinkState state = link.attachments().get(this, LinkState.class);
+        return state == null ? 0 : state.window;
+    }
+
+    long now(Event event) {
+        Reactor reactor = event.getReactor();
+        return reactor == null ? System.currentTimeMillis() : reactor.now();
+    }
+
+    private void update(Receiver link, Event event) {
+        long now = now(event);
+        LinkState state = link.attachments().get(this, LinkState.class);
+        if (state == null) {
+            state = new LinkState();
+            state.window = minWindow;
+            state.credit = link.getCredit();
+            state.sampleStart = now;
+            link.attachments().set(this, LinkState.class, state);
+        }
+
+        // the credit of a receiver only falls as its deliveries are consumed
+        int credit = link.getCredit();
+        if (credit < state.credit) {
+            state.consumed += state.credit - credit;
+        }
+
+        // the remote credit only falls as deliveries arrive, so unlike the events of deliveries
+        // that arrived before the credit was issued, this times one sent against it
+        if (state.creditIssuedAt >= 0 && link.getRemoteCredit() < state.issuedCredit) {
+            state.rtt = smooth(state.rtt, now - state.creditIssuedAt);
+            state.creditIssuedAt = -1;
+        }
+
+        if (event.getType() == Event.Type.DELIVERY) {
+            Delivery delivery = event.getDelivery();
+            if (delivery != null && !delivery.isPartial() && delivery.pending() > 0) {
+                state.deliverySize = smooth(state.deliverySize, delivery.pending());
+            }
+        }
+
+        if (!link.draining() && credit <= state.window / 2) {
+            resize(state, state.flowed && credit == 0, now);
+            int delta = state.window - credit;
+            if (delta > 0) {
+                boolean timed = credit == link.getQueued();
+                link.flow(delta);
+                if (timed) {
+                    state.creditIssuedAt = now;
+                    state.issuedCredit = link.getRemoteCredit();
+                }
+                credit += delta;
+                state.flowed = true;
+            }
+        }
+        state.credit = credit;
+    }
+
+    private void resize(LinkState state, boolean starved, long now) {
+        long elapsed = now - state.sampleStart;
+        if (elapsed > 0) {
+            state.rate = smooth(state.rate, (double) state.consumed / elapsed);
+            state.sampleStart = now;
+            state.consumed = 0;
+        }
+
+        long window = state.window;
+        if (state.rate >= 0 && state.rtt >= 0) {
+            window = (long) Math.ceil(state.rate * Math.max(state.rtt, 1) * 2);
+        }
+        if (starved) {
+            window = Math.max(window, 2L * state.window);
+        }
+
+        long limit = maxWindow;
+        if (state.deliverySize > 0) {
+            limit = Math.min(limit, (long) (linkMemoryBudget / state.deliverySize));
+        }
+        state.window = (int) Math.max(minWindow, Math.min(window, limit));
+    }
+
+    private static double smooth(double average, double sample) {
+        return average < 0 ? sample : average + (sample - average) / 4;
+    }
+}
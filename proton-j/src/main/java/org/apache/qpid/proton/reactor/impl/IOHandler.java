@@ -250,12 +250,7 @@ public class IOHandler extends BaseHandler {
             if (pending > 0) {
                 SocketChannel channel = (SocketChannel)selectable.getChannel();
                 try {
-                    int n = channel.write(transport.head());
-                    if (n < 0) {
-                        transport.close_head();
-                    } else {
-                        transport.pop(n);
-                    }
+                    transport.writeTo(channel);
                 } catch(IOException ioException) {
                     ErrorCondition condition = new ErrorCondition();
                     condition.setCondition(Symbol.getSymbol("proton:io"));
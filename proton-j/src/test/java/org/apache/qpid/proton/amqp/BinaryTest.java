@@ -90,6 +90,21 @@ public class BinaryTest
         assertFalse("Objects should not be equal", bin2.equals(bin1));
     }
 
+    @Test
+    public void testCopyHoldsOwnBytes()
+    {
+        byte[] bytes = new byte[] {0, 1, 2, 3, 4, 5};
+        Binary view = new Binary(bytes, 2, 3);
+
+        Binary copy = view.copy();
+        Arrays.fill(bytes, (byte) 9);
+
+        assertEquals(3, copy.getLength());
+        assertEquals(0, copy.getArrayOffset());
+        assertEquals(3, copy.getArray().length);
+        assertArrayEquals(new byte[] {2, 3, 4}, copy.getArray());
+    }
+
     private Binary createSteppedValueBinary(int length) {
         byte[] bytes = new byte[length];
         for (int i = 0; i < length; i++) {
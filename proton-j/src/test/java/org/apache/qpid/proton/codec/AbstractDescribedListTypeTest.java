@@ -0,0 +1,231 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.proton.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.UnsignedByte;
+import org.apache.qpid.proton.amqp.UnsignedInteger;
+import org.apache.qpid.proton.amqp.messaging.Accepted;
+import org.apache.qpid.proton.amqp.messaging.Header;
+import org.apache.qpid.proton.amqp.messaging.Properties;
+import org.apache.qpid.proton.amqp.messaging.Source;
+import org.apache.qpid.proton.amqp.messaging.Target;
+import org.apache.qpid.proton.amqp.transport.Attach;
+import org.apache.qpid.proton.amqp.transport.Close;
+import org.apache.qpid.proton.amqp.transport.Detach;
+import org.apache.qpid.proton.amqp.transport.Disposition;
+import org.apache.qpid.proton.amqp.transport.ErrorCondition;
+import org.apache.qpid.proton.amqp.transport.Flow;
+import org.apache.qpid.proton.amqp.transport.Open;
+import org.apache.qpid.proton.amqp.transport.Role;
+import org.apache.qpid.proton.amqp.transport.Transfer;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test that the single pass encoding of {@link AbstractDescribedListType} values produces
+ * exactly the bytes of the encoding which wraps the value in a list.
+ */
+public class AbstractDescribedListTypeTest
+{
+    private final DecoderImpl decoder = new DecoderImpl();
+    private final EncoderImpl encoder = new EncoderImpl(decoder);
+    private final ByteBuffer buffer = ByteBuffer.allocate(8192);
+
+    @Before
+    public void setUp()
+    {
+        AMQPDefinedTypes.registerAllTypes(decoder, encoder);
+        encoder.setByteBuffer(buffer);
+    }
+
+    @Test
+    public void testTransfer()
+    {
+        Transfer transfer = new Transfer();
+        transfer.setHandle(UnsignedInteger.ONE);
+        transfer.setDeliveryId(UnsignedInteger.valueOf(123456));
+        transfer.setDeliveryTag(new Binary(new byte[] {0, 1, 2, 3}));
+        transfer.setMessageFormat(UnsignedInteger.ZERO);
+        transfer.setSettled(Boolean.TRUE);
+        transfer.setState(Accepted.getInstance());
+
+        assertEncodingsEqual(transfer);
+    }
+
+    @Test
+    public void testFlow()
+    {
+        Flow flow = new Flow();
+        flow.setNextIncomingId(UnsignedInteger.ZERO);
+        flow.setIncomingWindow(UnsignedInteger.MAX_VALUE);
+        flow.setNextOutgoingId(UnsignedInteger.ONE);
+        flow.setOutgoingWindow(UnsignedInteger.valueOf(2048));
+        flow.setHandle(UnsignedInteger.ZERO);
+        flow.setLinkCredit(UnsignedInteger.valueOf(100));
+        flow.setEcho(true);
+
+        assertEncodingsEqual(flow);
+    }
+
+    @Test
+    public void testDisposition()
+    {
+        Disposition disposition = new Disposition();
+        disposition.setRole(Role.RECEIVER);
+        disposition.setFirst(UnsignedInteger.valueOf(7));
+        disposition.setSettled(true);
+        disposition.setState(Accepted.getInstance());
+
+        assertEncodingsEqual(disposition);
+    }
+
+    @Test
+    public void testAttachWithNestedTermini()
+    {
+        Source source = new Source();
+        source.setAddress("queue");
+        source.setOutcomes(Symbol.valueOf("amqp:accepted:list"), Symbol.valueOf("amqp:rejected:list"));
+        Target target = new Target();
+        target.setAddress("queue");
+
+        Attach attach = new Attach();
+        attach.setName("sender");
+        attach.setHandle(UnsignedInteger.ZERO);
+        attach.setRole(Role.SENDER);
+        attach.setSource(source);
+        attach.setTarget(target);
+        attach.setInitialDeliveryCount(UnsignedInteger.ZERO);
+
+        assertEncodingsEqual(attach);
+    }
+
+    @Test
+    public void testEmptyFields()
+    {
+        assertEncodingsEqual(new Close());
+        assertEncodingsEqual(new Header());
+        assertEncodingsEqual(new Properties());
+    }
+
+    @Test
+    public void testFieldsTooLargeForShortList()
+    {
+        char[] chars = new char[300];
+        Arrays.fill(chars, 'x');
+        String description = new String(chars);
+
+        Detach detach = new Detach();
+        detach.setHandle(UnsignedInteger.ONE);
+        detach.setClosed(true);
+        detach.setError(new ErrorCondition(Symbol.valueOf("amqp:internal-error"), description));
+
+        assertEncodingsEqual(detach);
+
+        Map<Symbol, Object> properties = new HashMap<Symbol, Object>();
+        properties.put(Symbol.valueOf("description"), description);
+        Open open = new Open();
+        open.setContainerId("container");
+        open.setProperties(properties);
+
+        assertEncodingsEqual(open);
+    }
+
+    @Test
+    public void testFieldsAtShortListLimit()
+    {
+        for(int length = 230; length < 260; length++)
+        {
+            char[] chars = new char[length];
+            Arrays.fill(chars, 'x');
+
+            Header header = new Header();
+            header.setPriority(UnsignedByte.valueOf((byte) 4));
+            Properties properties = new Properties();
+            properties.setSubject(new String(chars));
+
+            assertEncodingsEqual(header);
+            assertEncodingsEqual(properties);
+        }
+    }
+
+    @Test
+    public void testSizingWithDroppingBuffer()
+    {
+        Open open = new Open();
+        open.setContainerId("container");
+        open.setProperties(Collections.singletonMap(Symbol.valueOf("key"), new String(new char[400])));
+
+        DroppingWritableBuffer sizer = new DroppingWritableBuffer();
+        encoder.setByteBuffer(sizer);
+        encoder.writeObject(open);
+
+        assertEquals(encodeWrapped(open).length, sizer.position());
+    }
+
+    private void assertEncodingsEqual(Object value)
+    {
+        byte[] expected = encodeWrapped(value);
+
+        buffer.clear();
+        encoder.writeObject(value);
+        buffer.flip();
+        byte[] actual = new byte[buffer.remaining()];
+        buffer.get(actual);
+
+        assertArrayEquals("Unexpected encoding of " + value, expected, actual);
+        assertEquals("Unexpected encoded size of " + value, actual.length, encoder.getEncodedSize(value));
+
+        decoder.setByteBuffer(ByteBuffer.wrap(actual));
+        assertEquals(value.toString(), decoder.readObject().toString());
+    }
+
+    private byte[] encodeWrapped(Object value)
+    {
+        ByteBuffer wrapped = ByteBuffer.allocate(8192);
+        encoder.setByteBuffer(wrapped);
+        try
+        {
+            TypeEncoding encoding = encoder.getType(value).getEncoding(value);
+            encoding.writeConstructor();
+            encoding.writeValue(value);
+        }
+        finally
+        {
+            encoder.setByteBuffer(buffer);
+        }
+
+        wrapped.flip();
+        byte[] bytes = new byte[wrapped.remaining()];
+        wrapped.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.proton.codec;
+
+import static org.apache.qpid.proton.engine.impl.TransportTestHelper.createBytes;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.nio.ByteBuffer;
+
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.messaging.Data;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the decoding of {@link BinaryType} values with and without binary views.
+ */
+public class BinaryTypeTest
+{
+    private final DecoderImpl _decoder = new DecoderImpl();
+    private final EncoderImpl _encoder = new EncoderImpl(_decoder);
+
+    @Before
+    public void setUp()
+    {
+        AMQPDefinedTypes.registerAllTypes(_decoder, _encoder);
+    }
+
+    @Test
+    public void testDecodeCopiesByDefault()
+    {
+        assertFalse(_decoder.isBinaryViews());
+
+        ByteBuffer buffer = encode(new Binary(createBytes(10)));
+        Binary decoded = (Binary) decode(buffer);
+
+        assertNotSame(buffer.array(), decoded.getArray());
+        assertEquals(new Binary(createBytes(10)), decoded);
+    }
+
+    @Test
+    public void testDecodeShortBinaryAsView()
+    {
+        doDecodeAsViewTestImpl(10);
+    }
+
+    @Test
+    public void testDecodeLongBinaryAsView()
+    {
+        doDecodeAsViewTestImpl(1024);
+    }
+
+    private void doDecodeAsViewTestImpl(int length)
+    {
+        _decoder.setBinaryViews(true);
+
+        ByteBuffer buffer = encode(new Binary(createBytes(length)));
+        Binary decoded = (Binary) decode(buffer);
+
+        assertSame(buffer.array(), decoded.getArray());
+        assertEquals(new Binary(createBytes(length)), decoded);
+        assertFalse(buffer.hasRemaining());
+
+        Binary retained = decoded.copy();
+        buffer.array()[buffer.limit() - 1]++;
+        assertFalse(retained.equals(decoded));
+        assertEquals(new Binary(createBytes(length)), retained);
+    }
+
+    @Test
+    public void testDecodeDataSectionAsView()
+    {
+        _decoder.setBinaryViews(true);
+
+        ByteBuffer buffer = encode(new Data(new Binary(createBytes(300))));
+        Data decoded = (Data) decode(buffer);
+
+        assertSame(buffer.array(), decoded.getValue().getArray());
+        assertEquals(new Binary(createBytes(300)), decoded.getValue());
+    }
+
+    @Test
+    public void testDecodeFromDirectBufferCopies()
+    {
+        _decoder.setBinaryViews(true);
+
+        ByteBuffer encoded = encode(new Binary(createBytes(10)));
+        ByteBuffer buffer = ByteBuffer.allocateDirect(encoded.remaining());
+        buffer.put(encoded);
+        buffer.flip();
+
+        Binary decoded = (Binary) decode(buffer);
+        assertEquals(new Binary(createBytes(10)), decoded);
+        assertEquals(10, decoded.getArray().length);
+    }
+
+    private ByteBuffer encode(Object value)
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(2048);
+        _encoder.setByteBuffer(buffer);
+        _encoder.writeObject(value);
+        _encoder.setByteBuffer((ByteBuffer) null);
+        buffer.flip();
+        return buffer;
+    }
+
+    private Object decode(ByteBuffer buffer)
+    {
+        _decoder.setByteBuffer(buffer);
+        try
+        {
+            return _decoder.readObject();
+        }
+        finally
+        {
+            _decoder.setByteBuffer(null);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.proton.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+
+import org.junit.Test;
+
+public class CompositeReadableBufferTest
+{
+    @Test
+    public void testAppendOfContiguousRegionsMergesThem()
+    {
+        byte[] array = {1, 2, 3, 4, 5, 6};
+        CompositeReadableBuffer buffer = new CompositeReadableBuffer();
+        buffer.append(array, 0, 2).append(array, 2, 4);
+
+        assertEquals(6, buffer.capacity());
+        assertEquals(6, buffer.limit());
+
+        // a single region is viewed rather than copied
+        ByteBuffer bytes = buffer.byteBuffer();
+        array[5] = 9;
+        assertEquals(9, bytes.get(5));
+    }
+
+    @Test
+    public void testReadsSpanRegions()
+    {
+        CompositeReadableBuffer buffer = new CompositeReadableBuffer();
+        ByteBuffer expected = ByteBuffer.allocate(23);
+        expected.put((byte) 7).putShort((short) -2).putInt(0x01020304).putLong(-5L).putDouble(1.5);
+        byte[] bytes = expected.array();
+        for (int i = 0; i < bytes.length; i++)
+        {
+            buffer.append(new byte[] {bytes[i]}, 0, 1);
+        }
+
+        assertEquals(7, buffer.get());
+        assertEquals((short) -2, buffer.getShort());
+        assertEquals(0x01020304, buffer.getInt());
+        assertEquals(-5L, buffer.getLong());
+        assertEquals(1.5, buffer.getDouble(), 0.0);
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void testGetOfArrayAcrossRegions()
+    {
+        CompositeReadableBuffer buffer = createBuffer();
+
+        byte[] data = new byte[8];
+        buffer.get(data, 1, 6);
+        assertArrayEquals(new byte[] {0, 1, 2, 3, 4, 5, 6, 0}, data);
+        assertEquals(6, buffer.position());
+
+        buffer.position(2);
+        assertEquals(3, buffer.get());
+        buffer.position(7);
+        assertEquals(8, buffer.get());
+    }
+
+    @Test(expected = BufferUnderflowException.class)
+    public void testGetBeyondLimit()
+    {
+        CompositeReadableBuffer buffer = createBuffer();
+        buffer.limit(3);
+        buffer.get(new byte[4]);
+    }
+
+    @Test
+    public void testSliceSharesRegions()
+    {
+        byte[] first = {1, 2, 3};
+        byte[] second = {4, 5, 6};
+        CompositeReadableBuffer buffer = new CompositeReadableBuffer();
+        buffer.append(first, 0, 3).append(second, 0, 3);
+        buffer.position(2);
+        buffer.limit(5);
+
+        CompositeReadableBuffer slice = buffer.slice();
+        assertEquals(0, slice.position());
+        assertEquals(3, slice.remaining());
+
+        first[2] = 9;
+        byte[] data = new byte[3];
+        slice.get(data);
+        assertArrayEquals(new byte[] {9, 4, 5}, data);
+        assertEquals("Slice should not move the original", 2, buffer.position());
+    }
+
+    @Test
+    public void testDuplicateHasIndependentPosition()
+    {
+        CompositeReadableBuffer buffer = createBuffer();
+        buffer.position(4);
+
+        CompositeReadableBuffer duplicate = buffer.duplicate();
+        assertEquals(5, duplicate.get());
+        assertEquals(4, buffer.position());
+        assertEquals(5, buffer.get());
+    }
+
+    @Test
+    public void testByteBufferCopiesOnlyWhenSpanningRegions()
+    {
+        byte[] first = {1, 2, 3};
+        CompositeReadableBuffer buffer = new CompositeReadableBuffer();
+        buffer.append(first, 0, 3).append(new byte[] {4, 5}, 0, 2);
+
+        buffer.limit(3);
+        ByteBuffer single = buffer.byteBuffer();
+        assertTrue(single.isReadOnly());
+        assertEquals(3, single.remaining());
+        first[0] = 9;
+        assertEquals("Single region should not be copied", 9, single.get(0));
+
+        buffer.limit(5);
+        buffer.position(1);
+        ByteBuffer spanning = buffer.byteBuffer();
+        byte[] data = new byte[spanning.remaining()];
+        spanning.get(data);
+        assertArrayEquals(new byte[] {2, 3, 4, 5}, data);
+        assertEquals("Position should be unchanged", 1, buffer.position());
+    }
+
+    @Test
+    public void testGetIntoWritableBuffer()
+    {
+        CompositeReadableBuffer buffer = createBuffer();
+        ByteBuffer target = ByteBuffer.allocate(10);
+
+        buffer.get(new WritableBuffer.ByteBufferWrapper(target), 7);
+        assertEquals(7, target.position());
+        assertEquals(7, buffer.position());
+        assertEquals(7, target.get(6));
+    }
+
+    @Test(expected = ReadOnlyBufferException.class)
+    public void testPutIsRejected()
+    {
+        createBuffer().put(createBuffer());
+    }
+
+    private static CompositeReadableBuffer createBuffer()
+    {
+        CompositeReadableBuffer buffer = new CompositeReadableBuffer();
+        buffer.append(new byte[] {1, 2, 3}, 0, 3);
+        buffer.append(new byte[] {0, 4, 5, 0}, 1, 2);
+        buffer.append(new byte[] {6, 7, 8, 9, 10}, 0, 5);
+        return buffer;
+    }
+}
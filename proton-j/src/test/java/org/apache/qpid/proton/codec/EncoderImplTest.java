@@ -0,0 +1,169 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.proton.codec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.DescribedType;
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.UnknownDescribedType;
+import org.apache.qpid.proton.amqp.UnsignedInteger;
+import org.apache.qpid.proton.amqp.messaging.Accepted;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the resolution of the {@link AMQPType} used to write a value.
+ */
+public class EncoderImplTest
+{
+    private final DecoderImpl _decoder = new DecoderImpl();
+    private final EncoderImpl _encoder = new EncoderImpl(_decoder);
+
+    @Before
+    public void setUp()
+    {
+        AMQPDefinedTypes.registerAllTypes(_decoder, _encoder);
+    }
+
+    @Test
+    public void testFastPathTypesMatchRegisteredTypes()
+    {
+        Object[] values = {"string", Symbol.valueOf("symbol"), 1L, 1, Boolean.TRUE,
+                           UnsignedInteger.ONE, new Binary(new byte[1])};
+        for (Object value : values)
+        {
+            AMQPType type = _encoder.getType(value);
+            assertSame(type, _encoder.getTypeFromClass(value.getClass()));
+            assertSame(value.getClass(), type.getTypeClass());
+        }
+        assertSame(_encoder.getTypeFromClass(Void.class), _encoder.getType(null));
+    }
+
+    @Test
+    public void testListAndMapImplementations()
+    {
+        List<Object> list = new LinkedList<Object>(Arrays.<Object>asList("a", 1L));
+        Map<Object, Object> map = new TreeMap<Object, Object>();
+        map.put("key", "value");
+
+        assertSame(List.class, _encoder.getType(list).getTypeClass());
+        assertSame(Map.class, _encoder.getType(map).getTypeClass());
+
+        assertEquals(list, roundTrip(list));
+        assertEquals(map, roundTrip(map));
+    }
+
+    @Test
+    public void testDescribedTypeResolvesByDescriptor()
+    {
+        Symbol descriptor = Symbol.valueOf("test:described");
+        UnknownDescribedType first = new UnknownDescribedType(descriptor, "first");
+        UnknownDescribedType second = new UnknownDescribedType(descriptor, "second");
+        UnknownDescribedType other = new UnknownDescribedType(Symbol.valueOf("test:other"), "other");
+
+        assertSame(_encoder.getType(first), _encoder.getType(second));
+        assertTrue(_encoder.getType(first) != _encoder.getType(other));
+
+        DescribedType decoded = (DescribedType) roundTrip(first);
+        assertEquals(descriptor, decoded.getDescriptor());
+        assertEquals("first", decoded.getDescribed());
+    }
+
+    @Test
+    public void testRegisteredDescribedTypes()
+    {
+        assertSame(Accepted.class, _encoder.getType(Accepted.getInstance()).getTypeClass());
+        assertSame(Accepted.getInstance(), roundTrip(Accepted.getInstance()));
+    }
+
+    @Test
+    public void testRegisterAfterLookup()
+    {
+        assertNull(_encoder.getTypeFromClass(Custom.class));
+
+        AMQPType stringType = _encoder.getType("string");
+        _encoder.register((Class) Custom.class, stringType);
+
+        assertSame(stringType, _encoder.getTypeFromClass(Custom.class));
+    }
+
+    @Test
+    public void testWriteUnknownClass()
+    {
+        _encoder.setByteBuffer(ByteBuffer.allocate(64));
+        try
+        {
+            _encoder.writeObject(new Custom());
+            fail("Expected an IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void testEncodedSizeMatchesWrittenSize()
+    {
+        Map<Symbol, Object> map = new TreeMap<Symbol, Object>();
+        map.put(Symbol.valueOf("key"), "value");
+        Object[] values = {null, "string", Symbol.valueOf("symbol"), 1L, 300, true, UnsignedInteger.valueOf(70000),
+                           new Binary(new byte[300]), map, Arrays.asList(1, "two"), new String[] {"a", "b"},
+                           Accepted.getInstance()};
+
+        for (Object value : values)
+        {
+            ByteBuffer buffer = ByteBuffer.allocate(512);
+            _encoder.setByteBuffer(buffer);
+            _encoder.writeObject(value);
+
+            assertEquals("Unexpected encoded size of " + value, buffer.position(), _encoder.getEncodedSize(value));
+        }
+    }
+
+    private Object roundTrip(Object value)
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        _encoder.setByteBuffer(buffer);
+        _encoder.writeObject(value);
+        buffer.flip();
+
+        _decoder.setByteBuffer(buffer);
+        return _decoder.readObject();
+    }
+
+    private static class Custom
+    {
+    }
+}
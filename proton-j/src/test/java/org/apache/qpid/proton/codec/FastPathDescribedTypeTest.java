@@ -0,0 +1,401 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.proton.codec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.UnknownDescribedType;
+import org.apache.qpid.proton.amqp.UnsignedInteger;
+import org.apache.qpid.proton.amqp.UnsignedLong;
+import org.apache.qpid.proton.amqp.messaging.Accepted;
+import org.apache.qpid.proton.amqp.messaging.Modified;
+import org.apache.qpid.proton.amqp.messaging.Properties;
+import org.apache.qpid.proton.amqp.messaging.Source;
+import org.apache.qpid.proton.amqp.messaging.Target;
+import org.apache.qpid.proton.amqp.messaging.TerminusDurability;
+import org.apache.qpid.proton.amqp.transport.Attach;
+import org.apache.qpid.proton.amqp.transport.Disposition;
+import org.apache.qpid.proton.amqp.transport.ErrorCondition;
+import org.apache.qpid.proton.amqp.transport.Flow;
+import org.apache.qpid.proton.amqp.transport.Open;
+import org.apache.qpid.proton.amqp.transport.ReceiverSettleMode;
+import org.apache.qpid.proton.amqp.transport.Role;
+import org.apache.qpid.proton.amqp.transport.Transfer;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the decoding of described list types which read their fields directly from the
+ * decoder through {@link FastPathDescribedTypeConstructor}.
+ */
+public class FastPathDescribedTypeTest
+{
+    private final DecoderImpl decoder = new DecoderImpl();
+    private final EncoderImpl encoder = new EncoderImpl(decoder);
+    private final ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+    @Before
+    public void setUp()
+    {
+        AMQPDefinedTypes.registerAllTypes(decoder, encoder);
+        encoder.setByteBuffer(buffer);
+        decoder.setByteBuffer(buffer);
+    }
+
+    @Test
+    public void testTransferRoundTrip()
+    {
+        Transfer transfer = new Transfer();
+        transfer.setHandle(UnsignedInteger.valueOf(3));
+        transfer.setDeliveryId(UnsignedInteger.valueOf(70000));
+        transfer.setDeliveryTag(new Binary(new byte[] {1, 2, 3, 4}));
+        transfer.setMessageFormat(UnsignedInteger.ZERO);
+        transfer.setSettled(Boolean.FALSE);
+        transfer.setMore(true);
+        transfer.setRcvSettleMode(ReceiverSettleMode.SECOND);
+        transfer.setState(Accepted.getInstance());
+        transfer.setBatchable(true);
+
+        Transfer decoded = (Transfer) roundTrip(transfer);
+
+        assertEquals(transfer.toString(), decoded.toString());
+    }
+
+    @Test
+    public void testMinimalTransferKeepsDefaults()
+    {
+        Transfer transfer = new Transfer();
+        transfer.setHandle(UnsignedInteger.ONE);
+
+        Transfer decoded = (Transfer) roundTrip(transfer);
+
+        assertEquals(UnsignedInteger.ONE, decoded.getHandle());
+        assertNull(decoded.getDeliveryId());
+        assertNull(decoded.getSettled());
+        assertNull(decoded.getRcvSettleMode());
+        assertEquals(false, decoded.getMore());
+    }
+
+    @Test
+    public void testTransferWithTagFromArrayRange()
+    {
+        byte[] tags = new byte[300];
+        for(int i = 0; i < tags.length; i++)
+        {
+            tags[i] = (byte) i;
+        }
+
+        Transfer transfer = new Transfer();
+        transfer.setHandle(UnsignedInteger.ONE);
+        transfer.setDeliveryTag(tags, 10, 4);
+
+        Transfer decoded = (Transfer) roundTrip(transfer);
+        assertEquals(new Binary(tags, 10, 4), decoded.getDeliveryTag());
+
+        // a tag longer than 255 bytes takes the long encoding
+        transfer.setDeliveryTag(tags, 0, 300);
+
+        decoded = (Transfer) roundTrip(transfer);
+        assertEquals(new Binary(tags), decoded.getDeliveryTag());
+        assertEquals(transfer.toString(), decoded.toString());
+    }
+
+    @Test
+    public void testFlowRoundTrip()
+    {
+        Flow flow = new Flow();
+        flow.setNextIncomingId(UnsignedInteger.valueOf(1));
+        flow.setIncomingWindow(UnsignedInteger.valueOf(2048));
+        flow.setNextOutgoingId(UnsignedInteger.valueOf(3));
+        flow.setOutgoingWindow(UnsignedInteger.MAX_VALUE);
+        flow.setHandle(UnsignedInteger.ZERO);
+        flow.setDeliveryCount(UnsignedInteger.valueOf(10));
+        flow.setLinkCredit(UnsignedInteger.valueOf(1000));
+        flow.setDrain(true);
+        flow.setProperties(Collections.singletonMap(Symbol.valueOf("key"), "value"));
+
+        Flow decoded = (Flow) roundTrip(flow);
+
+        assertEquals(flow.toString(), decoded.toString());
+    }
+
+    @Test
+    public void testDispositionRoundTrip()
+    {
+        Modified modified = new Modified();
+        modified.setDeliveryFailed(true);
+
+        Disposition disposition = new Disposition();
+        disposition.setRole(Role.RECEIVER);
+        disposition.setFirst(UnsignedInteger.valueOf(5));
+        disposition.setLast(UnsignedInteger.valueOf(9));
+        disposition.setSettled(true);
+        disposition.setState(modified);
+
+        Disposition decoded = (Disposition) roundTrip(disposition);
+
+        assertEquals(disposition.toString(), decoded.toString());
+        assertTrue(decoded.getState() instanceof Modified);
+        assertEquals(Boolean.TRUE, ((Modified) decoded.getState()).getDeliveryFailed());
+    }
+
+    @Test
+    public void testErrorConditionRoundTrip()
+    {
+        ErrorCondition error = new ErrorCondition(Symbol.valueOf("amqp:internal-error"), "failed");
+        error.setInfo(Collections.singletonMap(Symbol.valueOf("detail"), "more"));
+
+        assertEquals(error.toString(), roundTrip(error).toString());
+    }
+
+    @Test
+    public void testAttachWithTerminiRoundTrip()
+    {
+        Source source = new Source();
+        source.setAddress("queue");
+        source.setDurable(TerminusDurability.UNSETTLED_STATE);
+        source.setOutcomes(Accepted.DESCRIPTOR_SYMBOL, Symbol.valueOf("amqp:rejected:list"));
+        source.setDefaultOutcome(Accepted.getInstance());
+
+        Target target = new Target();
+        target.setAddress("topic");
+        target.setCapabilities(Symbol.valueOf("topic"));
+
+        Attach attach = new Attach();
+        attach.setName("link");
+        attach.setHandle(UnsignedInteger.ZERO);
+        attach.setRole(Role.RECEIVER);
+        attach.setRcvSettleMode(ReceiverSettleMode.SECOND);
+        attach.setSource(source);
+        attach.setTarget(target);
+        attach.setInitialDeliveryCount(UnsignedInteger.ZERO);
+        attach.setMaxMessageSize(UnsignedLong.valueOf(1024));
+        attach.setOfferedCapabilities(Symbol.valueOf("cap"));
+
+        Attach decoded = (Attach) roundTrip(attach);
+
+        assertEquals(attach.toString(), decoded.toString());
+        assertEquals(Arrays.asList(Symbol.valueOf("topic")),
+                     Arrays.asList(((Target) decoded.getTarget()).getCapabilities()));
+    }
+
+    @Test
+    public void testOpenRoundTrip()
+    {
+        Open open = new Open();
+        open.setContainerId("container");
+        open.setHostname("localhost");
+        open.setMaxFrameSize(UnsignedInteger.valueOf(65536));
+        open.setIdleTimeOut(UnsignedInteger.valueOf(30000));
+        open.setDesiredCapabilities(Symbol.valueOf("a"), Symbol.valueOf("b"));
+
+        assertEquals(open.toString(), roundTrip(open).toString());
+    }
+
+    @Test
+    public void testPropertiesRoundTrip()
+    {
+        Properties properties = new Properties();
+        properties.setMessageId(UnsignedLong.valueOf(42));
+        properties.setUserId(new Binary(new byte[] {7}));
+        properties.setTo("queue");
+        properties.setContentType(Symbol.valueOf("text/plain"));
+        properties.setCreationTime(new Date(1500000000000L));
+        properties.setGroupSequence(UnsignedInteger.valueOf(2));
+
+        assertEquals(properties.toString(), roundTrip(properties).toString());
+    }
+
+    @Test
+    public void testUnknownTrailingFieldsAreConsumed()
+    {
+        List<Object> fields = new ArrayList<Object>();
+        fields.add(UnsignedInteger.ONE);
+        fields.add(UnsignedInteger.valueOf(100));
+        fields.add(UnsignedInteger.ONE);
+        fields.add(UnsignedInteger.valueOf(100));
+        fields.add(null);
+        fields.add(null);
+        fields.add(null);
+        fields.add(null);
+        fields.add(Boolean.FALSE);
+        fields.add(Boolean.FALSE);
+        fields.add(null);
+        Map<String, Object> extension = new HashMap<String, Object>();
+        extension.put("future", "field");
+        fields.add(extension);
+
+        encoder.writeObject(new UnknownDescribedType(UnsignedLong.valueOf(0x13L), fields));
+        encoder.writeObject("next");
+        buffer.flip();
+
+        Flow flow = (Flow) decoder.readObject();
+        assertEquals(UnsignedInteger.valueOf(100), flow.getOutgoingWindow());
+        assertEquals("next", decoder.readObject());
+    }
+
+    @Test
+    public void testMissingMandatoryFieldIsRejected()
+    {
+        List<Object> fields = new ArrayList<Object>();
+        fields.add(UnsignedInteger.ONE);
+        fields.add(UnsignedInteger.valueOf(100));
+
+        encoder.writeObject(new UnknownDescribedType(Symbol.valueOf("amqp:flow:list"), fields));
+        buffer.flip();
+
+        try
+        {
+            decoder.readObject();
+            fail("Expected a DecodeException");
+        }
+        catch (DecodeException e)
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void testIncorrectFieldTypeIsRejected()
+    {
+        List<Object> fields = new ArrayList<Object>();
+        fields.add("not-a-handle");
+
+        encoder.writeObject(new UnknownDescribedType(UnsignedLong.valueOf(0x14L), fields));
+        buffer.flip();
+
+        try
+        {
+            decoder.readObject();
+            fail("Expected a DecodeException");
+        }
+        catch (DecodeException e)
+        {
+            assertTrue(e.getCause() instanceof ClassCastException);
+        }
+    }
+
+    @Test
+    public void testArrayOfDescribedValues()
+    {
+        Target first = new Target();
+        first.setAddress("first");
+        Target second = new Target();
+        second.setAddress("second");
+
+        encoder.writeArray(new Object[] {first, second});
+        buffer.flip();
+
+        Object[] decoded = (Object[]) decoder.readObject();
+        assertEquals(2, decoded.length);
+        assertEquals("first", ((Target) decoded[0]).getAddress());
+        assertEquals("second", ((Target) decoded[1]).getAddress());
+    }
+
+    @Test
+    public void testRecycledPerformativesResetAbsentFields()
+    {
+        decoder.setRecyclePerformatives(true);
+
+        Transfer full = new Transfer();
+        full.setHandle(UnsignedInteger.ONE);
+        full.setDeliveryId(UnsignedInteger.valueOf(5));
+        full.setDeliveryTag(new Binary(new byte[] {1}));
+        full.setSettled(Boolean.TRUE);
+        full.setMore(true);
+        full.setState(Accepted.getInstance());
+
+        Transfer first = (Transfer) roundTrip(full);
+        Transfer retained = first.copy();
+
+        Transfer minimal = new Transfer();
+        minimal.setHandle(UnsignedInteger.valueOf(2));
+
+        Transfer second = (Transfer) roundTrip(minimal);
+
+        assertSame(first, second);
+        assertEquals(minimal.toString(), second.toString());
+        assertEquals(full.toString(), retained.toString());
+
+        Flow flow = new Flow();
+        flow.setIncomingWindow(UnsignedInteger.ONE);
+        flow.setNextOutgoingId(UnsignedInteger.ONE);
+        flow.setOutgoingWindow(UnsignedInteger.ONE);
+        flow.setHandle(UnsignedInteger.ZERO);
+        flow.setLinkCredit(UnsignedInteger.valueOf(10));
+        flow.setDrain(true);
+
+        Flow sessionFlow = new Flow();
+        sessionFlow.setIncomingWindow(UnsignedInteger.ONE);
+        sessionFlow.setNextOutgoingId(UnsignedInteger.ONE);
+        sessionFlow.setOutgoingWindow(UnsignedInteger.ONE);
+
+        assertSame(roundTrip(flow), roundTrip(sessionFlow));
+        assertEquals(sessionFlow.toString(), roundTrip(sessionFlow).toString());
+
+        Disposition settled = new Disposition();
+        settled.setRole(Role.RECEIVER);
+        settled.setFirst(UnsignedInteger.ONE);
+        settled.setLast(UnsignedInteger.valueOf(3));
+        settled.setSettled(true);
+
+        Disposition single = new Disposition();
+        single.setFirst(UnsignedInteger.valueOf(4));
+
+        assertSame(roundTrip(settled), roundTrip(single));
+        assertEquals(single.toString(), roundTrip(single).toString());
+    }
+
+    @Test
+    public void testPerformativesAreNotRecycledByDefault()
+    {
+        Transfer transfer = new Transfer();
+        transfer.setHandle(UnsignedInteger.ONE);
+
+        assertNotSame(roundTrip(transfer), roundTrip(transfer));
+    }
+
+    private Object roundTrip(Object value)
+    {
+        buffer.clear();
+        encoder.writeObject(value);
+        buffer.flip();
+        Object decoded = decoder.readObject();
+        assertEquals("Not all of the encoded value was read", 0, buffer.remaining());
+        return decoded;
+    }
+}
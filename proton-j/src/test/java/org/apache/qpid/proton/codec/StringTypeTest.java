@@ -20,7 +20,11 @@
  */
 package org.apache.qpid.proton.codec;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 
 import java.lang.Character.UnicodeBlock;
 import java.nio.ByteBuffer;
@@ -125,6 +129,177 @@ public class StringTypeTest
         }
     }
 
+    /**
+     * Test that strings either side of the short encoding limit are written with the same
+     * encoding and bytes as the UTF-8 length calculation would choose.
+     */
+    @Test
+    public void encodeStringsAroundShortEncodingLimit()
+    {
+        final DecoderImpl decoder = new DecoderImpl();
+        final EncoderImpl encoder = new EncoderImpl(decoder);
+        AMQPDefinedTypes.registerAllTypes(decoder, encoder);
+        final ByteBuffer bb = ByteBuffer.allocate(2048);
+
+        for (final String unit : new String[] {"a", "\u00e9", "\u65e5", "\ud834\udd1e"})
+        {
+            for (int length = 80; length <= 260; length++)
+            {
+                final StringBuilder sb = new StringBuilder();
+                while (sb.length() < length)
+                {
+                    sb.append(unit);
+                }
+                final String input = sb.toString();
+                final byte[] utf8 = input.getBytes(CHARSET_UTF8);
+
+                bb.clear();
+                encoder.setByteBuffer(bb);
+                encoder.writeString(input);
+                bb.flip();
+
+                final ByteBuffer expected = ByteBuffer.allocate(utf8.length + 5);
+                if (utf8.length <= 255)
+                {
+                    expected.put(EncodingCodes.STR8).put((byte) utf8.length);
+                }
+                else
+                {
+                    expected.put(EncodingCodes.STR32).putInt(utf8.length);
+                }
+                expected.put(utf8).flip();
+                assertEquals("Unexpected encoding of string of length " + input.length(), expected, bb);
+
+                decoder.setByteBuffer(bb);
+                assertEquals("Failed to round trip String correctly: ", input, decoder.readString());
+            }
+        }
+    }
+
+    @Test
+    public void decodeStringsFromDirectBuffer()
+    {
+        final DecoderImpl decoder = new DecoderImpl();
+        final EncoderImpl encoder = new EncoderImpl(decoder);
+        AMQPDefinedTypes.registerAllTypes(decoder, encoder);
+        final ByteBuffer bb = ByteBuffer.allocateDirect(16);
+
+        for (final String input : TEST_DATA)
+        {
+            bb.clear();
+            encoder.setByteBuffer(bb);
+            encoder.writeString(input);
+            bb.flip();
+            decoder.setByteBuffer(bb);
+            assertEquals("Failed to round trip String correctly: ", input, decoder.readString());
+        }
+    }
+
+    /**
+     * Test that strings larger than the decoder keeps scratch space for decode correctly, and that
+     * smaller strings still do once one has been decoded.
+     */
+    @Test
+    public void decodeStringsLargerThanScratch()
+    {
+        final DecoderImpl decoder = new DecoderImpl();
+        final EncoderImpl encoder = new EncoderImpl(decoder);
+        AMQPDefinedTypes.registerAllTypes(decoder, encoder);
+
+        for (final ByteBuffer bb : new ByteBuffer[] {ByteBuffer.allocate(40000), ByteBuffer.allocateDirect(40000)})
+        {
+            for (final int length : new int[] {4096, 4097, 10000, 100})
+            {
+                final StringBuilder sb = new StringBuilder();
+                while (sb.length() < length)
+                {
+                    sb.append(sb.length() % 3 == 0 ? "\u00e9" : "x");
+                }
+                final String input = sb.toString();
+
+                bb.clear();
+                encoder.setByteBuffer(bb);
+                encoder.writeString(input);
+                bb.flip();
+                decoder.setByteBuffer(bb);
+                assertEquals("Failed to round trip String correctly: ", input, decoder.readString());
+            }
+        }
+    }
+
+    @Test
+    public void decodeMalformedUTF8()
+    {
+        final byte[][] malformed = {
+                {(byte) 0x80},                                     // unexpected continuation
+                {(byte) 0xc0, (byte) 0xaf},                        // overlong
+                {(byte) 0xe0, (byte) 0x80, (byte) 0xaf},           // overlong
+                {(byte) 0xed, (byte) 0xa0, (byte) 0x80},           // encoded surrogate
+                {(byte) 0xc3},                                     // truncated
+                {(byte) 0xe6, (byte) 0x97},                        // truncated
+                {(byte) 0xc3, (byte) 0x28},                        // bad continuation
+                {(byte) 0xf4, (byte) 0x90, (byte) 0x80, (byte) 0x80}, // beyond U+10FFFF
+                {(byte) 0xff}};
+
+        final DecoderImpl decoder = new DecoderImpl();
+        AMQPDefinedTypes.registerAllTypes(decoder, new EncoderImpl(decoder));
+
+        for (final byte[] bytes : malformed)
+        {
+            final ByteBuffer bb = ByteBuffer.allocate(bytes.length + 2);
+            bb.put(EncodingCodes.STR8).put((byte) bytes.length).put(bytes).flip();
+            decoder.setByteBuffer(bb);
+            try
+            {
+                decoder.readString();
+                fail("Expected malformed input to be rejected: " + Arrays.toString(bytes));
+            }
+            catch (IllegalArgumentException e)
+            {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void decodeWithStringCaching()
+    {
+        final DecoderImpl decoder = new DecoderImpl();
+        final EncoderImpl encoder = new EncoderImpl(decoder);
+        AMQPDefinedTypes.registerAllTypes(decoder, encoder);
+        decoder.setStringCaching(true);
+
+        final ByteBuffer bb = ByteBuffer.allocate(256);
+        encoder.setByteBuffer(bb);
+        encoder.writeString("queue://orders");
+        encoder.writeString("queue://orders");
+        encoder.writeString("r\u00e9sum\u00e9");
+        encoder.writeString("r\u00e9sum\u00e9");
+        encoder.writeString("queue://orderz");
+        bb.flip();
+        decoder.setByteBuffer(bb);
+
+        final String first = decoder.readString();
+        assertSame("Repeated ascii string should be cached", first, decoder.readString());
+        final String unicode = decoder.readString();
+        final String unicodeAgain = decoder.readString();
+        assertEquals(unicode, unicodeAgain);
+        assertNotSame("Non-ascii strings should not be cached", unicode, unicodeAgain);
+        assertEquals("queue://orderz", decoder.readString());
+    }
+
+    @Test
+    public void decodeUTF8MatchesCharset()
+    {
+        for (final String input : TEST_DATA)
+        {
+            final byte[] utf8 = input.getBytes(CHARSET_UTF8);
+            final char[] chars = new char[utf8.length];
+            final int count = StringType.decodeUTF8(utf8, 0, utf8.length, chars);
+            assertArrayEquals(input.toCharArray(), Arrays.copyOf(chars, count));
+        }
+    }
+
     // build up some test data with a set of suitable Unicode characters
     private static List<String> generateTestData()
     {
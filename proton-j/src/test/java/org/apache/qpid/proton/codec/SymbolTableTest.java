@@ -0,0 +1,137 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.proton.codec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.UUID;
+
+import org.apache.qpid.proton.amqp.Symbol;
+import org.junit.Test;
+
+/**
+ * Test the lookup of decoded symbols in a {@link SymbolTable}.
+ */
+public class SymbolTableTest
+{
+    private static final Charset ASCII_CHARSET = Charset.forName("US-ASCII");
+
+    @Test
+    public void testWellKnownSymbolIsReturned()
+    {
+        Symbol wellKnown = Symbol.valueOf("x-opt-test-well-known");
+        SymbolTable table = new SymbolTable(4);
+
+        assertSame(wellKnown, lookup(table, "x-opt-test-well-known"));
+        assertSame(wellKnown, lookup(table, "x-opt-test-well-known"));
+    }
+
+    @Test
+    public void testUnknownSymbolIsCachedButNotInterned()
+    {
+        String value = "x-opt-" + UUID.randomUUID();
+        SymbolTable table = new SymbolTable(4);
+
+        Symbol first = lookup(table, value);
+        assertEquals(value, first.toString());
+        assertSame("Repeated lookup should hit the table", first, lookup(table, value));
+        assertNull("Decoded symbol should not have been interned", Symbol.lookup(value));
+
+        Symbol interned = Symbol.valueOf(value);
+        assertNotSame(interned, first);
+        assertEquals(interned, first);
+        assertEquals(interned.hashCode(), first.hashCode());
+    }
+
+    @Test
+    public void testLookupAtOffsetInDirectBuffer()
+    {
+        Symbol wellKnown = Symbol.valueOf("x-opt-test-direct");
+        byte[] bytes = "--x-opt-test-direct--".getBytes(ASCII_CHARSET);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+
+        SymbolTable table = new SymbolTable(4);
+        assertSame(wellKnown, table.getSymbol(buffer, 2, bytes.length - 4));
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    public void testUnknownSymbolsDoNotEvictWellKnownSymbols()
+    {
+        // a single set, so every symbol competes for the same two entries
+        SymbolTable table = new SymbolTable(1);
+        Symbol first = Symbol.valueOf("x-opt-test-first");
+        Symbol second = Symbol.valueOf("x-opt-test-second");
+        lookup(table, "x-opt-test-first");
+        lookup(table, "x-opt-test-second");
+
+        for (int i = 0; i < 100; i++)
+        {
+            lookup(table, "x-opt-" + UUID.randomUUID());
+        }
+
+        Symbol[] entries = entries(table);
+        assertSame(second, entries[0]);
+        assertSame(first, entries[1]);
+    }
+
+    @Test
+    public void testUnknownSymbolsReplaceEachOther()
+    {
+        SymbolTable table = new SymbolTable(1);
+        Symbol wellKnown = Symbol.valueOf("x-opt-test-pinned");
+        lookup(table, "x-opt-test-pinned");
+
+        Symbol unknown = null;
+        for (int i = 0; i < 10; i++)
+        {
+            unknown = lookup(table, "x-opt-" + UUID.randomUUID());
+        }
+
+        Symbol[] entries = entries(table);
+        assertSame(unknown, entries[0]);
+        assertSame(wellKnown, entries[1]);
+
+        // a further well known symbol takes the place of the unknown one
+        Symbol other = Symbol.valueOf("x-opt-test-other");
+        lookup(table, "x-opt-test-other");
+        entries = entries(table);
+        assertSame(other, entries[0]);
+        assertSame(wellKnown, entries[1]);
+    }
+
+    private static Symbol lookup(SymbolTable table, String value)
+    {
+        byte[] bytes = value.getBytes(ASCII_CHARSET);
+        return table.getSymbol(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    private static Symbol[] entries(SymbolTable table)
+    {
+        return new Symbol[] {table.peek(0), table.peek(1)};
+    }
+}
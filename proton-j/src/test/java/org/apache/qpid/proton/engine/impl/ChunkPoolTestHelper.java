@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.qpid.proton.engine.impl;
+
+class ChunkPoolTestHelper
+{
+    /**
+     * Takes every chunk of the given size out of the pool of the current thread, so that tests can
+     * count the chunks of that size released to it.
+     */
+    static ChunkPool emptyPool(int size)
+    {
+        ChunkPool pool = ChunkPool.get();
+        while (pool.getPooledCount(size) > 0)
+        {
+            pool.acquire(size);
+        }
+        return pool;
+    }
+}
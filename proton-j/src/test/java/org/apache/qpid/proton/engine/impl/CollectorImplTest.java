@@ -0,0 +1,172 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.proton.engine.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.apache.qpid.proton.engine.Event;
+import org.apache.qpid.proton.engine.EventType;
+import org.junit.Test;
+
+public class CollectorImplTest
+{
+    private final CollectorImpl collector = new CollectorImpl();
+
+    @Test
+    public void testOnlyRepeatOfTailIsDiscardedByDefault()
+    {
+        Object a = new Object();
+        Object b = new Object();
+
+        collector.put(Event.Type.DELIVERY, a);
+        collector.put(Event.Type.DELIVERY, a);
+        collector.put(Event.Type.DELIVERY, b);
+        collector.put(Event.Type.DELIVERY, a);
+
+        assertEquals(3, drain().size());
+    }
+
+    @Test
+    public void testEventsOfUnsubscribedTypesAreDiscarded()
+    {
+        collector.setSubscribedTypes(EnumSet.of(Event.Type.DELIVERY));
+        Object context = new Object();
+
+        assertNull(collector.put(Event.Type.LINK_FLOW, context));
+        collector.put(Event.Type.DELIVERY, context);
+        collector.put(Event.Type.TRANSPORT, context);
+
+        List<Event> events = drain();
+        assertEquals(1, events.size());
+        assertSame(Event.Type.DELIVERY, events.get(0).getType());
+
+        collector.setSubscribedTypes(null);
+        collector.put(Event.Type.LINK_FLOW, context);
+        assertEquals(1, drain().size());
+    }
+
+    @Test
+    public void testEventsOfExtendedTypesAreAlwaysCollected()
+    {
+        collector.setSubscribedTypes(EnumSet.noneOf(Event.Type.class));
+
+        collector.put(ExtendedType.CUSTOM, new Object());
+
+        assertEquals(1, drain().size());
+    }
+
+    @Test
+    public void testEventForContextWithQueuedEventOfSameTypeIsCoalesced()
+    {
+        collector.setCoalescing(true);
+        Object a = new Object();
+        Object b = new Object();
+
+        collector.put(Event.Type.DELIVERY, a);
+        collector.put(Event.Type.DELIVERY, b);
+        assertNull(collector.put(Event.Type.DELIVERY, a));
+        collector.put(Event.Type.LINK_FLOW, a);
+
+        List<Event> events = drain();
+        assertEquals(3, events.size());
+        assertSame(a, events.get(0).getContext());
+        assertSame(b, events.get(1).getContext());
+        assertSame(Event.Type.LINK_FLOW, events.get(2).getType());
+    }
+
+    @Test
+    public void testEventIsNotCoalescedWithOnePeekedAt()
+    {
+        collector.setCoalescing(true);
+        Object a = new Object();
+        Object b = new Object();
+
+        collector.put(Event.Type.DELIVERY, a);
+        collector.put(Event.Type.DELIVERY, b);
+        collector.peek();
+        collector.put(Event.Type.DELIVERY, a);
+
+        assertEquals(3, drain().size());
+    }
+
+    @Test
+    public void testCoalescingAcrossManyContexts()
+    {
+        collector.setCoalescing(true);
+        Object[] contexts = new Object[100];
+        for (int i = 0; i < contexts.length; i++)
+        {
+            contexts[i] = new Object();
+            collector.put(Event.Type.DELIVERY, contexts[i]);
+        }
+        for (int round = 0; round < 3; round++)
+        {
+            for (Object context : contexts)
+            {
+                assertNull(collector.put(Event.Type.DELIVERY, context));
+            }
+        }
+
+        // as each event is handled, a new event for its context is queued behind the rest
+        for (int i = 0; i < contexts.length; i++)
+        {
+            assertSame(contexts[i], collector.peek().getContext());
+            collector.put(Event.Type.DELIVERY, contexts[i]);
+            collector.pop();
+            for (int j = i + 1; j < contexts.length; j++)
+            {
+                assertNull(collector.put(Event.Type.DELIVERY, contexts[j]));
+            }
+        }
+
+        List<Event> events = drain();
+        assertEquals(contexts.length, events.size());
+    }
+
+    private List<Event> drain()
+    {
+        List<Event> events = new ArrayList<Event>();
+        Event event;
+        while ((event = collector.peek()) != null)
+        {
+            events.add(event.copy());
+            collector.pop();
+        }
+        return events;
+    }
+
+    private enum ExtendedType implements EventType
+    {
+        CUSTOM;
+
+        @Override
+        public boolean isValid()
+        {
+            return true;
+        }
+    }
+}
@@ -19,13 +19,19 @@
  */
 package org.apache.qpid.proton.engine.impl;
 
+import static org.apache.qpid.proton.engine.impl.ChunkPoolTestHelper.emptyPool;
+import static org.apache.qpid.proton.engine.impl.TransportTestHelper.createBytes;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
+import org.apache.qpid.proton.codec.ReadableBuffer;
 import org.apache.qpid.proton.engine.Delivery;
 import org.apache.qpid.proton.engine.Record;
 import org.junit.Test;
@@ -86,8 +92,7 @@ public class DeliveryImplTest
         byte[] myData = "myData".getBytes(StandardCharsets.UTF_8);
 
         DeliveryImpl deliveyImpl = new DeliveryImpl(null, Mockito.mock(LinkImpl.class), null);
-        deliveyImpl.setData(myData);
-        deliveyImpl.setDataLength(myData.length);
+        deliveyImpl.addReceivedData(myData, 0, myData.length);
 
         Delivery delivery = deliveyImpl;
 
@@ -113,4 +118,145 @@ public class DeliveryImplTest
         assertEquals("Unexpected data length received", remainderLength, received);
         assertEquals("Expected no data to remain available", 0, delivery.available());
     }
+
+    @Test
+    public void testRecvOfDataReceivedAcrossChunks() throws Exception
+    {
+        DeliveryImpl delivery = new DeliveryImpl(null, Mockito.mock(LinkImpl.class), null);
+        byte[] data = createBytes(ChunkPool.MAX_CHUNK_SIZE + 1000);
+
+        delivery.addReceivedData(data, 0, 100);
+        delivery.addReceivedData(data, 100, data.length - 100);
+        assertEquals("Unexpected data length available", data.length, delivery.available());
+
+        byte[] received = new byte[data.length];
+        assertEquals(10, delivery.recv(received, 0, 10));
+        assertEquals(data.length - 10, delivery.recv(received, 10, received.length - 10));
+        assertArrayEquals("Unexpected data received", data, received);
+        assertEquals("Expected no data to remain available", 0, delivery.available());
+    }
+
+    @Test
+    public void testChunksAreReleasedOnceConsumed() throws Exception
+    {
+        ChunkPool pool = emptyPool(ChunkPool.MIN_CHUNK_SIZE);
+
+        DeliveryImpl delivery = new DeliveryImpl(null, Mockito.mock(LinkImpl.class), null);
+        delivery.addReceivedData(createBytes(10), 0, 10);
+
+        byte[] received = new byte[10];
+        delivery.recv(received, 0, 5);
+        assertEquals("Chunk should still be in use", 0, pool.getPooledCount(ChunkPool.MIN_CHUNK_SIZE));
+        delivery.recv(received, 5, 5);
+        assertEquals("Chunk should have been released", 1, pool.getPooledCount(ChunkPool.MIN_CHUNK_SIZE));
+    }
+
+    @Test
+    public void testRecvViewIsReleasedOnSettle() throws Exception
+    {
+        ChunkPool pool = emptyPool(ChunkPool.MIN_CHUNK_SIZE);
+
+        DeliveryImpl delivery = new DeliveryImpl(null, createLink(), null);
+        byte[] data = createBytes(200);
+        delivery.addReceivedData(data, 0, 50);
+        delivery.addReceivedData(data, 50, 150);
+
+        ReadableBuffer view = delivery.recv();
+        assertEquals("Expected no data to remain available", 0, delivery.available());
+        assertEquals("Chunk should still be in use", 0, pool.getPooledCount(ChunkPool.MIN_CHUNK_SIZE));
+
+        byte[] received = new byte[view.remaining()];
+        view.get(received);
+        assertArrayEquals("Unexpected data received", data, received);
+
+        delivery.settle();
+        assertEquals("Chunk should have been released", 1, pool.getPooledCount(ChunkPool.MIN_CHUNK_SIZE));
+    }
+
+    @Test
+    public void testSendOfManySmallPiecesFillsFewChunks() throws Exception
+    {
+        DeliveryImpl delivery = new DeliveryImpl(null, createLink(), null);
+        byte[] data = createBytes(100000);
+        for (int offset = 0; offset < data.length; offset += 100)
+        {
+            assertEquals(100, delivery.send(data, offset, 100));
+        }
+        assertEquals("Unexpected data length pending", data.length, delivery.pending());
+
+        // chunks grow with the content pending, so only a handful are needed
+        int buffers = countSendBuffers(delivery);
+        assertTrue("Unexpected number of send buffers: " + buffers, buffers <= 10);
+        assertArrayEquals("Unexpected data to send", data, readSendBuffers(delivery));
+    }
+
+    @Test
+    public void testSendOfLargeContentSpansChunks() throws Exception
+    {
+        DeliveryImpl delivery = new DeliveryImpl(null, createLink(), null);
+        byte[] data = createBytes(3 * ChunkPool.MAX_CHUNK_SIZE + 10);
+        delivery.send(data, 0, data.length);
+
+        assertEquals(4, countSendBuffers(delivery));
+        assertArrayEquals("Unexpected data to send", data, readSendBuffers(delivery));
+    }
+
+    @Test
+    public void testWrittenSendChunksAreReleased() throws Exception
+    {
+        ChunkPool pool = emptyPool(ChunkPool.MIN_CHUNK_SIZE);
+
+        // with no output pending the frame writer releases the chunk straight away
+        FrameWriter frameWriter = new FrameWriter(0, FrameWriter.AMQP_FRAME_TYPE, null, null);
+        DeliveryImpl delivery = new DeliveryImpl(null, createLink(), null);
+        delivery.send(createBytes(10), 0, 10);
+
+        ByteBuffer buffer = delivery.getSendBuffers()[0];
+        buffer.position(buffer.position() + 5);
+        delivery.releaseWrittenSendBuffers(frameWriter);
+        assertEquals("Unexpected data length pending", 5, delivery.pending());
+        assertEquals("Chunk should still be in use", 0, pool.getPooledCount(ChunkPool.MIN_CHUNK_SIZE));
+
+        buffer.position(buffer.limit());
+        delivery.releaseWrittenSendBuffers(frameWriter);
+        assertEquals("Expected no data to remain pending", 0, delivery.pending());
+        assertFalse(delivery.hasSendBuffers());
+        assertEquals("Chunk should have been released", 1, pool.getPooledCount(ChunkPool.MIN_CHUNK_SIZE));
+    }
+
+    private static LinkImpl createLink()
+    {
+        LinkImpl link = Mockito.mock(LinkImpl.class);
+        Mockito.when(link.getConnectionImpl()).thenReturn(Mockito.mock(ConnectionImpl.class));
+        return link;
+    }
+
+    private static int countSendBuffers(DeliveryImpl delivery)
+    {
+        int count = 0;
+        for (ByteBuffer buffer : delivery.getSendBuffers())
+        {
+            if (buffer != null)
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static byte[] readSendBuffers(DeliveryImpl delivery)
+    {
+        byte[] data = new byte[delivery.pending()];
+        int offset = 0;
+        for (ByteBuffer buffer : delivery.getSendBuffers())
+        {
+            if (buffer != null)
+            {
+                int length = buffer.remaining();
+                buffer.duplicate().get(data, offset, length);
+                offset += length;
+            }
+        }
+        return data;
+    }
 }
@@ -20,21 +20,30 @@ package org.apache.qpid.proton.engine.impl;
 
 import static org.apache.qpid.proton.engine.Transport.DEFAULT_MAX_FRAME_SIZE;
 import static org.apache.qpid.proton.engine.impl.AmqpHeader.HEADER;
+import static org.apache.qpid.proton.engine.impl.TransportTestHelper.createBytes;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.nio.ByteBuffer;
+import java.util.List;
 
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.UnsignedInteger;
 import org.apache.qpid.proton.amqp.transport.Close;
 import org.apache.qpid.proton.amqp.transport.FrameBody;
 import org.apache.qpid.proton.amqp.transport.Open;
+import org.apache.qpid.proton.amqp.transport.Transfer;
 import org.apache.qpid.proton.codec.AMQPDefinedTypes;
 import org.apache.qpid.proton.codec.DecoderImpl;
 import org.apache.qpid.proton.codec.EncoderImpl;
@@ -44,10 +53,10 @@ import org.apache.qpid.proton.framing.TransportFrame;
 import org.hamcrest.Description;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatcher;
 import org.mockito.InOrder;
 
-// TODO test a frame with a payload (potentially followed by another frame)
 public class FrameParserTest
 {
     private FrameHandler _mockFrameHandler = mock(FrameHandler.class);
@@ -188,6 +197,106 @@ public class FrameParserTest
         inOrder.verify(_mockFrameHandler).handleFrame(frameMatching(channel, closeFrame));
     }
 
+    @Test
+    public void testInputOfFrameWithPayload_leavesPayloadInInputBuffer()
+    {
+        sendHeader();
+
+        byte[] payload = createBytes(100);
+        _frameParser.tail().put(generateTransferFrame(payload));
+        _frameParser.process();
+
+        // the payload is only valid while the frame is handled, so it is not copied
+        Binary received = capturePayload();
+        assertEquals(new Binary(payload), received);
+        assertTrue("Payload should not have been copied", received.getArrayOffset() > 0);
+    }
+
+    @Test
+    public void testInputOfBufferedFrameWithLargePayload()
+    {
+        sendHeader();
+
+        byte[] payload = createBytes(10000);
+        sendInPieces(generateTransferFrame(payload));
+
+        // the frame was larger than the input buffer, so the payload is left in the frame buffer
+        Binary received = capturePayload();
+        assertEquals(new Binary(payload), received);
+        assertTrue("Payload should not have been copied", received.getArrayOffset() > 0);
+    }
+
+    @Test
+    public void testFrameBufferIsReusedForSubsequentBufferedFrames()
+    {
+        sendHeader();
+
+        sendInPieces(generateTransferFrame(createBytes(10000)));
+        sendInPieces(generateTransferFrame(createBytes(9000)));
+
+        ArgumentCaptor<TransportFrame> captor = ArgumentCaptor.forClass(TransportFrame.class);
+        verify(_mockFrameHandler, times(2)).handleFrame(captor.capture());
+        List<TransportFrame> frames = captor.getAllValues();
+        assertSame(frames.get(0).getPayload().getArray(), frames.get(1).getPayload().getArray());
+    }
+
+    @Test
+    public void testHeldFrameKeepsItsPayload()
+    {
+        when(_mockFrameHandler.isHandlingFrames()).thenReturn(false);
+
+        sendHeader();
+
+        byte[] payload = createBytes(10000);
+        sendInPieces(generateTransferFrame(payload));
+        verify(_mockFrameHandler, never()).handleFrame(any(TransportFrame.class));
+
+        // a further frame reuses the frame buffer the held frame was parsed from
+        when(_mockFrameHandler.isHandlingFrames()).thenReturn(true);
+        sendInPieces(generateTransferFrame(new byte[9000]));
+
+        ArgumentCaptor<TransportFrame> captor = ArgumentCaptor.forClass(TransportFrame.class);
+        verify(_mockFrameHandler, times(2)).handleFrame(captor.capture());
+        assertEquals(new Binary(payload), captor.getAllValues().get(0).getPayload());
+    }
+
+    private void sendInPieces(byte[] frame)
+    {
+        int offset = 0;
+        while (offset < frame.length)
+        {
+            ByteBuffer buffer = _frameParser.tail();
+            int length = Math.min(buffer.remaining(), frame.length - offset);
+            buffer.put(frame, offset, length);
+            _frameParser.process();
+            offset += length;
+        }
+    }
+
+    private Binary capturePayload()
+    {
+        ArgumentCaptor<TransportFrame> captor = ArgumentCaptor.forClass(TransportFrame.class);
+        verify(_mockFrameHandler).handleFrame(captor.capture());
+        TransportFrame frame = captor.getValue();
+        assertEquals(Transfer.class, frame.getBody().getClass());
+        assertNotNull(frame.getPayload());
+        return frame.getPayload();
+    }
+
+    private byte[] generateTransferFrame(byte[] payload)
+    {
+        Transfer transfer = new Transfer();
+        transfer.setHandle(UnsignedInteger.ZERO);
+        transfer.setDeliveryId(UnsignedInteger.ZERO);
+        transfer.setDeliveryTag(new Binary(new byte[] {1}));
+
+        byte[] frame = _amqpFramer.generateFrame(0, transfer);
+        ByteBuffer buffer = ByteBuffer.allocate(frame.length + payload.length);
+        buffer.put(frame).put(payload);
+        buffer.putInt(0, buffer.capacity());
+        return buffer.array();
+    }
+
     @Test
     public void testFrameTransportTemporarilyRefusesOpenFrame()
     {
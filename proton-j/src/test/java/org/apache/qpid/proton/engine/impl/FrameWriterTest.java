@@ -0,0 +1,127 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.proton.engine.impl;
+
+import static org.apache.qpid.proton.engine.impl.ChunkPoolTestHelper.emptyPool;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.transport.Open;
+import org.apache.qpid.proton.codec.DecoderImpl;
+import org.junit.Test;
+
+public class FrameWriterTest
+{
+    @SuppressWarnings("deprecation")
+    private final FrameWriter _frameWriter = new FrameWriter(0, FrameWriter.AMQP_FRAME_TYPE, null, new TransportImpl());
+
+    @Test
+    public void testPerformativeLargerThanBufferIsWrittenWhole()
+    {
+        Open open = createOpen(5000);
+        _frameWriter.writeFrame(open);
+
+        ByteBuffer output = readOutput();
+        assertEquals("Unexpected frame size", output.remaining(), output.getInt(0));
+
+        output.position(8);
+        DecoderImpl decoder = TransportCodec.decoder();
+        decoder.setByteBuffer(output);
+        try
+        {
+            Open decoded = (Open) decoder.readObject();
+            assertEquals("Unexpected container id", open.getContainerId(), decoded.getContainerId());
+            assertEquals("Unexpected properties", open.getProperties(), decoded.getProperties());
+        }
+        finally
+        {
+            decoder.setByteBuffer(null);
+        }
+        assertFalse("Expected the whole frame to be decoded", output.hasRemaining());
+    }
+
+    @Test
+    public void testBufferIsReturnedToPoolOnceOutputIsTaken()
+    {
+        ChunkPool pool = emptyPool(4096);
+
+        _frameWriter.writeFrame(createOpen(3000));
+        assertEquals("Buffer should still be in use", 0, pool.getPooledCount(4096));
+
+        readOutput();
+        assertEquals("Buffer should have been released", 1, pool.getPooledCount(4096));
+    }
+
+    @Test
+    public void testBufferReferencedByOutputIsReleasedOnceOutputIsTaken()
+    {
+        ChunkPool pool = emptyPool(1024);
+        emptyPool(4096);
+
+        // the small frame is queued as output from the initial buffer, so the large frame must be
+        // written to another buffer while the first is still in use
+        _frameWriter.writeFrame(new Open());
+        _frameWriter.writeFrame(createOpen(3000));
+        assertEquals("Buffer should still be in use", 0, pool.getPooledCount(1024));
+
+        ByteBuffer output = readOutput();
+        int firstFrameSize = output.getInt(0);
+        assertEquals("Unexpected second frame size", output.remaining() - firstFrameSize, output.getInt(firstFrameSize));
+        assertEquals("Buffer should have been released", 1, pool.getPooledCount(1024));
+        assertEquals("Buffer should have been released", 1, pool.getPooledCount(4096));
+    }
+
+    @Test
+    public void testIsFullUsesOutputThreshold()
+    {
+        _frameWriter.setOutputThreshold(100);
+        _frameWriter.writeFrame(new Open());
+        assertFalse("Expected pending output to be below the threshold", _frameWriter.isFull());
+
+        _frameWriter.writeFrame(createOpen(100));
+        assertTrue("Expected pending output to be above the threshold", _frameWriter.isFull());
+
+        readOutput();
+        assertFalse("Expected no pending output", _frameWriter.isFull());
+    }
+
+    private ByteBuffer readOutput()
+    {
+        ByteBuffer output = ByteBuffer.allocate(_frameWriter.pending());
+        _frameWriter.readBytes(output);
+        assertEquals("Expected all output to be read", 0, _frameWriter.pending());
+        output.flip();
+        return output;
+    }
+
+    private static Open createOpen(int propertySize)
+    {
+        Open open = new Open();
+        open.setContainerId("container");
+        open.setProperties(Collections.singletonMap(Symbol.valueOf("key"), new String(new char[propertySize])));
+        return open;
+    }
+}
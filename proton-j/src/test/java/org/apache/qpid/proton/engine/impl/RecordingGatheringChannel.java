@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.qpid.proton.engine.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+
+/**
+ * A channel that records what is written to it, optionally accepting only so many bytes per write.
+ */
+class RecordingGatheringChannel implements GatheringByteChannel
+{
+    private final ByteArrayOutputStream _written = new ByteArrayOutputStream();
+    private final int _maxWrite;
+    private int _lastWriteBuffers;
+
+    RecordingGatheringChannel()
+    {
+        this(Integer.MAX_VALUE);
+    }
+
+    RecordingGatheringChannel(int maxWrite)
+    {
+        _maxWrite = maxWrite;
+    }
+
+    byte[] getWritten()
+    {
+        return _written.toByteArray();
+    }
+
+    /**
+     * @return the number of buffers passed to the last gathering write
+     */
+    int getLastWriteBuffers()
+    {
+        return _lastWriteBuffers;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length)
+    {
+        _lastWriteBuffers = length;
+        long written = 0;
+        for (int i = offset; i < offset + length && written < _maxWrite; i++)
+        {
+            ByteBuffer src = srcs[i];
+            int size = (int) Math.min(src.remaining(), _maxWrite - written);
+            byte[] bytes = new byte[size];
+            src.get(bytes);
+            _written.write(bytes, 0, size);
+            written += size;
+        }
+        return written;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs)
+    {
+        return write(srcs, 0, srcs.length);
+    }
+
+    @Override
+    public int write(ByteBuffer src)
+    {
+        _lastWriteBuffers = 1;
+        return (int) write(new ByteBuffer[] {src}, 0, 1);
+    }
+
+    @Override
+    public boolean isOpen()
+    {
+        return true;
+    }
+
+    @Override
+    public void close()
+    {
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.proton.engine.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class SlotTableTest
+{
+    private final SlotTable<String> _table = new SlotTable<String>();
+
+    @Test
+    public void testAllocateReusesLowestFreeSlot()
+    {
+        for (int i = 0; i < 20; i++)
+        {
+            assertEquals("Unexpected slot allocated", i, _table.allocate("entry" + i, 100));
+        }
+        assertEquals("Unexpected entry removed", "entry3", _table.remove(3));
+        assertEquals("Unexpected entry removed", "entry11", _table.remove(11));
+
+        assertEquals("Unexpected slot allocated", 3, _table.allocate("a", 100));
+        assertEquals("Unexpected slot allocated", 11, _table.allocate("b", 100));
+        assertEquals("Unexpected slot allocated", 20, _table.allocate("c", 100));
+        assertEquals("Unexpected size", 21, _table.size());
+    }
+
+    @Test
+    public void testAllocateRespectsMax()
+    {
+        assertEquals("Unexpected slot allocated", 0, _table.allocate("a", 1));
+        assertEquals("Unexpected slot allocated", 1, _table.allocate("b", 1));
+        assertEquals("Expected no free slot", -1, _table.allocate("c", 1));
+    }
+
+    @Test
+    public void testGetOutsideTable()
+    {
+        _table.put(1000, "high");
+        assertSame("Unexpected entry", "high", _table.get(1000));
+        assertNull("Unexpected entry", _table.get(999));
+        assertNull("Unexpected entry", _table.get(5000));
+        assertNull("Unexpected entry", _table.get(-1));
+        assertNull("Unexpected entry removed", _table.remove(-1));
+        assertEquals("Unexpected highest slot", 1000, _table.highestSlot());
+
+        _table.clear();
+        assertNull("Unexpected entry after clear", _table.get(1000));
+        assertEquals("Unexpected highest slot", -1, _table.highestSlot());
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.proton.engine.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.qpid.proton.codec.DecoderImpl;
+import org.apache.qpid.proton.engine.Connection;
+import org.apache.qpid.proton.engine.Transport;
+import org.junit.Test;
+
+public class TransportCodecTest
+{
+    @Test
+    public void testCodecIsSharedWithinThread()
+    {
+        assertSame(TransportCodec.decoder(), TransportCodec.decoder());
+        assertSame(TransportCodec.encoder(), TransportCodec.encoder());
+    }
+
+    @Test
+    public void testCodecIsNotSharedBetweenThreads() throws Exception
+    {
+        final AtomicReference<DecoderImpl> other = new AtomicReference<DecoderImpl>();
+        Thread thread = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                other.set(TransportCodec.decoder());
+            }
+        });
+        thread.start();
+        thread.join();
+
+        assertNotSame(TransportCodec.decoder(), other.get());
+    }
+
+    @Test
+    public void testTransportsOnDifferentThreadsExchangeFrames() throws Exception
+    {
+        final Transport client = Transport.Factory.create();
+        final Connection clientConnection = Connection.Factory.create();
+        clientConnection.setContainer("client");
+        client.bind(clientConnection);
+        clientConnection.open();
+
+        Transport server = Transport.Factory.create();
+        Connection serverConnection = Connection.Factory.create();
+        server.bind(serverConnection);
+
+        // the client writes its open frame on another thread
+        final AtomicReference<byte[]> written = new AtomicReference<byte[]>();
+        Thread thread = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                byte[] bytes = new byte[client.pending()];
+                client.head().get(bytes);
+                client.pop(bytes.length);
+                written.set(bytes);
+            }
+        });
+        thread.start();
+        thread.join();
+
+        server.tail().put(written.get());
+        server.process();
+
+        assertEquals("client", serverConnection.getRemoteContainer());
+        assertNull(server.getCondition());
+    }
+}
@@ -20,37 +20,49 @@
 package org.apache.qpid.proton.engine.impl;
 
 import static org.apache.qpid.proton.engine.impl.AmqpHeader.HEADER;
+import static org.apache.qpid.proton.engine.impl.TransportTestHelper.createBytes;
 import static org.apache.qpid.proton.engine.impl.TransportTestHelper.stringOfLength;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
 
 import org.apache.qpid.proton.Proton;
 import org.apache.qpid.proton.amqp.Binary;
 import org.apache.qpid.proton.amqp.UnsignedInteger;
 import org.apache.qpid.proton.amqp.UnsignedShort;
+import org.apache.qpid.proton.amqp.messaging.Accepted;
 import org.apache.qpid.proton.amqp.messaging.AmqpValue;
 import org.apache.qpid.proton.amqp.messaging.Released;
 import org.apache.qpid.proton.amqp.transport.Attach;
 import org.apache.qpid.proton.amqp.transport.Begin;
 import org.apache.qpid.proton.amqp.transport.Close;
+import org.apache.qpid.proton.amqp.transport.DeliveryState;
 import org.apache.qpid.proton.amqp.transport.Detach;
+import org.apache.qpid.proton.amqp.transport.Disposition;
 import org.apache.qpid.proton.amqp.transport.End;
 import org.apache.qpid.proton.amqp.transport.Flow;
 import org.apache.qpid.proton.amqp.transport.FrameBody;
 import org.apache.qpid.proton.amqp.transport.Open;
 import org.apache.qpid.proton.amqp.transport.Role;
+import org.apache.qpid.proton.amqp.transport.SenderSettleMode;
 import org.apache.qpid.proton.amqp.transport.Transfer;
+import org.apache.qpid.proton.codec.ReadableBuffer;
 import org.apache.qpid.proton.engine.Collector;
 import org.apache.qpid.proton.engine.Connection;
 import org.apache.qpid.proton.engine.Delivery;
@@ -292,14 +304,46 @@ public class TransportImplTest
         }
     }
 
+    @Test
+    public void testSetGetOutputThreshold() throws Exception
+    {
+        Transport transport = Proton.transport();
+        assertEquals("Unexpected default output threshold", 64 * 1024, transport.getOutputThreshold());
+
+        transport.setOutputThreshold(4096);
+        assertEquals("Unexpected output threshold", 4096, transport.getOutputThreshold());
+
+        try {
+            transport.setOutputThreshold(0);
+            fail("Expected exception to be thrown");
+        } catch (IllegalArgumentException iae ){
+            // Expected
+        }
+    }
+
     private class MockTransportImpl extends TransportImpl
     {
         LinkedList<FrameBody> writes = new LinkedList<FrameBody>();
+        long time;
+
+        @Override
+        long currentTime() {
+            return time;
+        }
+
+        // the transport reuses the transfers, flows and dispositions it writes, so copies are kept
         @Override
         protected void writeFrame(int channel, FrameBody frameBody,
                                   ByteBuffer payload, Runnable onPayloadTooLarge) {
             super.writeFrame(channel, frameBody, payload, onPayloadTooLarge);
-            writes.addLast(frameBody);
+            writes.addLast(retainable(frameBody));
+        }
+
+        @Override
+        protected void writeFrameFromBuffers(int channel, FrameBody frameBody,
+                                             ByteBuffer[] payload, Runnable onPayloadTooLarge) {
+            super.writeFrameFromBuffers(channel, frameBody, payload, onPayloadTooLarge);
+            writes.addLast(retainable(frameBody));
         }
     }
 
@@ -1317,6 +1361,149 @@ public class TransportImplTest
         assertEquals("Unexpected frames written: " + getFrameTypesWritten(transport), 5, transport.writes.size());
     }
 
+    @Test
+    public void testDispositionsOfConsecutiveDeliveriesAreCoalesced()
+    {
+        MockTransportImpl transport = new MockTransportImpl();
+        List<Delivery> deliveries = receiveDeliveries(transport, 5);
+
+        for (int i = 0; i < deliveries.size(); i++)
+        {
+            Delivery delivery = deliveries.get(i);
+            delivery.disposition(i == 3 ? Released.getInstance() : Accepted.getInstance());
+            delivery.settle();
+        }
+        pumpMockTransport(transport);
+
+        assertEquals("Unexpected frames written: " + getFrameTypesWritten(transport), 7, transport.writes.size());
+        assertDisposition(transport.writes.get(4), 1, 3, Accepted.getInstance());
+        assertDisposition(transport.writes.get(5), 4, 4, Released.getInstance());
+        assertDisposition(transport.writes.get(6), 5, 5, Accepted.getInstance());
+    }
+
+    @Test
+    public void testDispositionLingerHoldsDispositionsUntilTick()
+    {
+        MockTransportImpl transport = new MockTransportImpl();
+        transport.setDispositionLinger(100);
+        List<Delivery> deliveries = receiveDeliveries(transport, 3);
+
+        transport.time = 1000;
+        deliveries.get(0).disposition(Accepted.getInstance());
+        deliveries.get(0).settle();
+        pumpMockTransport(transport);
+
+        transport.time = 1040;
+        assertEquals("Unexpected deadline", 5060, transport.tick(5000));
+
+        deliveries.get(1).disposition(Accepted.getInstance());
+        deliveries.get(1).settle();
+        deliveries.get(2).disposition(Accepted.getInstance());
+        deliveries.get(2).settle();
+        pumpMockTransport(transport);
+        assertEquals("Unexpected frames written: " + getFrameTypesWritten(transport), 4, transport.writes.size());
+
+        transport.time = 1100;
+        assertEquals("Expected no deadline", 0, transport.tick(5060));
+        assertEquals("Unexpected frames written: " + getFrameTypesWritten(transport), 5, transport.writes.size());
+        assertDisposition(transport.writes.get(4), 1, 3, Accepted.getInstance());
+    }
+
+    @Test
+    public void testLingeringDispositionIsWrittenWithOutputOnceLingerHasPassed()
+    {
+        MockTransportImpl transport = new MockTransportImpl();
+        transport.setDispositionLinger(100);
+        List<Delivery> deliveries = receiveDeliveries(transport, 2);
+
+        transport.time = 1000;
+        deliveries.get(0).disposition(Accepted.getInstance());
+        deliveries.get(0).settle();
+        pumpMockTransport(transport);
+
+        transport.time = 1099;
+        deliveries.get(1).disposition(Accepted.getInstance());
+        deliveries.get(1).settle();
+        pumpMockTransport(transport);
+        assertEquals("Unexpected frames written: " + getFrameTypesWritten(transport), 4, transport.writes.size());
+
+        transport.time = 1100;
+        pumpMockTransport(transport);
+        assertEquals("Unexpected frames written: " + getFrameTypesWritten(transport), 5, transport.writes.size());
+        assertDisposition(transport.writes.get(4), 1, 2, Accepted.getInstance());
+    }
+
+    @Test
+    public void testLingeringDispositionIsWrittenBeforeClose()
+    {
+        MockTransportImpl transport = new MockTransportImpl();
+        transport.setDispositionLinger(100);
+        List<Delivery> deliveries = receiveDeliveries(transport, 1);
+
+        deliveries.get(0).disposition(Accepted.getInstance());
+        deliveries.get(0).settle();
+        transport.getConnectionImpl().close();
+        pumpMockTransport(transport);
+
+        assertEquals("Unexpected frames written: " + getFrameTypesWritten(transport), 6, transport.writes.size());
+        assertDisposition(transport.writes.get(4), 1, 1, Accepted.getInstance());
+        assertTrue("Unexpected frame type", transport.writes.get(5) instanceof Close);
+    }
+
+    private List<Delivery> receiveDeliveries(MockTransportImpl transport, int count)
+    {
+        Connection connection = Proton.connection();
+        transport.bind(connection);
+        connection.open();
+
+        Session session = connection.session();
+        session.open();
+
+        String linkName = "myReceiver";
+        Receiver receiver = session.receiver(linkName);
+        receiver.flow(count);
+        receiver.open();
+
+        pumpMockTransport(transport);
+        assertEquals("Unexpected frames written: " + getFrameTypesWritten(transport), 4, transport.writes.size());
+
+        transport.handleFrame(new TransportFrame(0, new Open(), null));
+
+        Begin begin = new Begin();
+        begin.setRemoteChannel(UnsignedShort.valueOf((short) 0));
+        begin.setNextOutgoingId(UnsignedInteger.ONE);
+        begin.setIncomingWindow(UnsignedInteger.valueOf(1024));
+        begin.setOutgoingWindow(UnsignedInteger.valueOf(1024));
+        transport.handleFrame(new TransportFrame(0, begin, null));
+
+        Attach attach = new Attach();
+        attach.setHandle(UnsignedInteger.ZERO);
+        attach.setRole(Role.SENDER);
+        attach.setName(linkName);
+        attach.setInitialDeliveryCount(UnsignedInteger.ZERO);
+        transport.handleFrame(new TransportFrame(0, attach, null));
+
+        List<Delivery> deliveries = new ArrayList<Delivery>();
+        for (int i = 1; i <= count; i++)
+        {
+            handleTransfer(transport, i, "tag" + i, "content" + i);
+            deliveries.add(verifyDelivery(receiver, "tag" + i, "content" + i));
+            receiver.advance();
+        }
+        return deliveries;
+    }
+
+    private void assertDisposition(FrameBody frameBody, int first, int last, DeliveryState state)
+    {
+        assertTrue("Unexpected frame type", frameBody instanceof Disposition);
+        Disposition disposition = (Disposition) frameBody;
+        assertEquals("Unexpected first", UnsignedInteger.valueOf(first), disposition.getFirst());
+        assertEquals("Unexpected last", UnsignedInteger.valueOf(last), disposition.getLast());
+        assertEquals("Unexpected role", Role.RECEIVER, disposition.getRole());
+        assertTrue("Expected settled", disposition.getSettled());
+        assertSame("Unexpected state", state, disposition.getState());
+    }
+
     /**
      * Verify that no Transfer frame is emitted by the Transport should a Delivery
      * be sendable after the Close frame was sent.
@@ -1637,4 +1824,476 @@ public class TransportImplTest
         assertEquals("Unexpected frames written: " + getFrameTypesWritten(transport), 4, transport.writes.size());
         assertTrue("Unexpected frame type", transport.writes.get(3) instanceof Detach);
     }
+
+    @Test
+    public void testSendNoCopyReleasesBuffersOnceWritten()
+    {
+        MockTransportImpl transport = new MockTransportImpl();
+        TracedPayload traced = new TracedPayload();
+        transport.setProtocolTracer(traced);
+        Sender sender = createSenderWithCredit(transport, null);
+
+        byte[] content = createBytes(100);
+        ReadableBuffer first = new ReadableBuffer.ByteBufferReader(ByteBuffer.wrap(content, 0, 60));
+        ReadableBuffer second = new ReadableBuffer.ByteBufferReader(ByteBuffer.wrap(content, 60, 40));
+        RecordingReleaseCallback callback = new RecordingReleaseCallback();
+
+        Delivery delivery = sender.delivery("tag1".getBytes(StandardCharsets.UTF_8));
+        assertEquals(60, sender.sendNoCopy(first, callback));
+        assertEquals(40, sender.sendNoCopy(second, callback));
+        assertFalse(first.hasRemaining());
+        assertTrue(sender.advance());
+
+        assertEquals(100, delivery.pending());
+        assertTrue("Buffers released before being written", callback.released.isEmpty());
+
+        int framesBefore = transport.writes.size();
+        pumpMockTransport(transport);
+
+        assertEquals("Unexpected frames written: " + getFrameTypesWritten(transport), framesBefore + 1, transport.writes.size());
+        assertTrue("Unexpected frame type", transport.writes.getLast() instanceof Transfer);
+        assertEquals(Arrays.asList(first, second), callback.released);
+        assertArrayEquals(content, traced.getBytes());
+        assertEquals(0, delivery.pending());
+    }
+
+    @Test
+    public void testSendNoCopyAcrossMultipleFrames()
+    {
+        MockTransportImpl transport = new MockTransportImpl();
+        TracedPayload traced = new TracedPayload();
+        transport.setProtocolTracer(traced);
+        Sender sender = createSenderWithCredit(transport, UnsignedInteger.valueOf(512));
+
+        byte[] content = createBytes(2000);
+        ReadableBuffer buffer = new ReadableBuffer.ByteBufferReader(ByteBuffer.wrap(content));
+        final int[] transfersAtRelease = new int[1];
+        final MockTransportImpl mockTransport = transport;
+
+        sender.delivery("tag1".getBytes(StandardCharsets.UTF_8));
+        sender.sendNoCopy(buffer, new Sender.ReleaseCallback()
+        {
+            @Override
+            public void released(ReadableBuffer buffer)
+            {
+                transfersAtRelease[0] = countTransfers(mockTransport);
+            }
+        });
+        assertTrue(sender.advance());
+
+        pumpMockTransport(transport);
+
+        int transfers = countTransfers(transport);
+        assertTrue("Expected the content to span several frames: " + transfers, transfers > 3);
+        assertEquals("Buffer released before the last frame was written", transfers, transfersAtRelease[0]);
+        assertArrayEquals(content, traced.getBytes());
+    }
+
+    @Test
+    public void testSendNoCopyMixedWithCopiedSends()
+    {
+        MockTransportImpl transport = new MockTransportImpl();
+        TracedPayload traced = new TracedPayload();
+        transport.setProtocolTracer(traced);
+        Sender sender = createSenderWithCredit(transport, null);
+
+        byte[] content = createBytes(90);
+        RecordingReleaseCallback callback = new RecordingReleaseCallback();
+        ReadableBuffer referenced = new ReadableBuffer.ByteBufferReader(ByteBuffer.wrap(content, 30, 30));
+
+        Delivery delivery = sender.delivery("tag1".getBytes(StandardCharsets.UTF_8));
+        assertEquals(30, sender.send(content, 0, 30));
+        assertEquals(30, sender.sendNoCopy(referenced, callback));
+        assertEquals(30, sender.send(content, 60, 30));
+        assertTrue(sender.advance());
+
+        assertEquals(90, delivery.pending());
+
+        pumpMockTransport(transport);
+
+        assertEquals(Arrays.asList(referenced), callback.released);
+        assertArrayEquals(content, traced.getBytes());
+    }
+
+    @Test
+    public void testWriteToWritesReferencedPayloadInPlace() throws IOException
+    {
+        MockTransportImpl transport = new MockTransportImpl();
+        Sender sender = createSenderWithCredit(transport, null);
+
+        byte[] content = createBytes(10000);
+        ReadableBuffer buffer = new ReadableBuffer.ByteBufferReader(ByteBuffer.wrap(content));
+        RecordingReleaseCallback callback = new RecordingReleaseCallback();
+
+        sender.delivery("tag1".getBytes(StandardCharsets.UTF_8));
+        sender.sendNoCopy(buffer, callback);
+        assertTrue(sender.advance());
+
+        assertTrue("Expected the transfer to be pending", transport.pending() > 0);
+        assertTrue("Buffer released before being written", callback.released.isEmpty());
+
+        // pending() is limited to what head() can hold, writeTo() is not
+        RecordingGatheringChannel channel = new RecordingGatheringChannel();
+        assertTrue("Expected all the output to be written", transport.writeTo(channel) > content.length);
+        assertEquals("Expected the frame and payload as separate buffers", 2, channel.getLastWriteBuffers());
+        assertEquals(Arrays.asList(buffer), callback.released);
+        assertEquals(0, transport.pending());
+
+        byte[] written = channel.getWritten();
+        assertArrayEquals(content, Arrays.copyOfRange(written, written.length - content.length, written.length));
+    }
+
+    @Test
+    public void testWriteToAcrossPartialWritesMatchesHeadAndPop() throws IOException
+    {
+        MockTransportImpl gathering = new MockTransportImpl();
+        MockTransportImpl copying = new MockTransportImpl();
+        Sender gatheringSender = createSenderWithCredit(gathering, UnsignedInteger.valueOf(4096));
+        Sender copyingSender = createSenderWithCredit(copying, UnsignedInteger.valueOf(4096));
+
+        byte[] content = createBytes(20000);
+        for (Sender sender : Arrays.asList(gatheringSender, copyingSender))
+        {
+            sender.delivery("tag1".getBytes(StandardCharsets.UTF_8));
+            sender.send(content, 0, content.length);
+            sender.advance();
+            sender.delivery("tag2".getBytes(StandardCharsets.UTF_8));
+            sender.send(content, 0, 100);
+            sender.advance();
+        }
+
+        RecordingGatheringChannel channel = new RecordingGatheringChannel(1000);
+        while (gathering.pending() > 0)
+        {
+            assertTrue("Expected progress", gathering.writeTo(channel) > 0);
+        }
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        while (copying.pending() > 0)
+        {
+            ByteBuffer head = copying.head();
+            byte[] bytes = new byte[head.remaining()];
+            head.get(bytes);
+            expected.write(bytes, 0, bytes.length);
+            copying.pop(bytes.length);
+        }
+
+        assertArrayEquals(expected.toByteArray(), channel.getWritten());
+        assertEquals(copying.writes.size(), gathering.writes.size());
+    }
+
+    @Test
+    public void testDeliveriesWaitingForCreditAreSentInOrderOnceGiven()
+    {
+        MockTransportImpl transport = new MockTransportImpl();
+        Sender sender = createSenderWithCredit(transport, null);
+        ConnectionImpl connection = (ConnectionImpl) sender.getSession().getConnection();
+
+        for (int i = 0; i < 15; i++)
+        {
+            sendMessage(sender, "tag" + i, "content" + i);
+        }
+        pumpMockTransport(transport);
+
+        assertEquals("Unexpected transfers sent with 10 credit", 10, countTransfers(transport));
+        assertNull("Deliveries without credit should not stay on the transport work list",
+                   connection.getTransportWorkHead());
+
+        // a flow for the session alone gives the link no credit
+        transport.handleFrame(new TransportFrame(0, createFlow(null, 10, 0, 1024), null));
+        pumpMockTransport(transport);
+        assertEquals("Unexpected transfers sent without credit", 10, countTransfers(transport));
+
+        transport.handleFrame(new TransportFrame(0, createFlow(UnsignedInteger.ZERO, 10, 2, 1024), null));
+        pumpMockTransport(transport);
+        assertEquals("Unexpected transfers sent with 2 more credit", 12, countTransfers(transport));
+
+        transport.handleFrame(new TransportFrame(0, createFlow(UnsignedInteger.ZERO, 12, 10, 1024), null));
+        pumpMockTransport(transport);
+        assertEquals("Unexpected transfers sent", 15, countTransfers(transport));
+        assertTransferTagsInOrder(transport, 15);
+    }
+
+    @Test
+    public void testDeliveriesWaitingForSessionWindowAreSentOnceItOpens()
+    {
+        MockTransportImpl transport = new MockTransportImpl();
+        Sender sender = createSenderWithCredit(transport, null);
+
+        // close the remote incoming window, leaving the link credit in place
+        transport.handleFrame(new TransportFrame(0, createFlow(null, 0, 0, 0), null));
+
+        for (int i = 0; i < 5; i++)
+        {
+            sendMessage(sender, "tag" + i, "content" + i);
+        }
+        pumpMockTransport(transport);
+        assertEquals("Unexpected transfers sent without window", 0, countTransfers(transport));
+
+        transport.handleFrame(new TransportFrame(0, createFlow(null, 0, 0, 3), null));
+        pumpMockTransport(transport);
+        assertEquals("Unexpected transfers sent with a window of 3", 3, countTransfers(transport));
+
+        transport.handleFrame(new TransportFrame(0, createFlow(null, 0, 0, 1024), null));
+        pumpMockTransport(transport);
+        assertEquals("Unexpected transfers sent", 5, countTransfers(transport));
+        assertTransferTagsInOrder(transport, 5);
+    }
+
+    @Test
+    public void testDeliverySettledBeforeItIsSentIsNotTracked()
+    {
+        MockTransportImpl transport = new MockTransportImpl();
+        Sender sender = createSenderWithCredit(transport, null);
+        sender.setSenderSettleMode(SenderSettleMode.SETTLED);
+
+        DeliveryImpl delivery = (DeliveryImpl) sendMessage(sender, "tag0", "content0");
+        assertFalse("Settle mode should not settle the delivery", delivery.isSettled());
+
+        delivery.settle();
+        assertEquals("Unexpected unsettled count", 0, sender.getUnsettled());
+
+        pumpMockTransport(transport);
+
+        assertEquals("Unexpected transfers sent", 1, countTransfers(transport));
+        Transfer transfer = (Transfer) transport.writes.getLast();
+        assertEquals("Transfer should be sent settled", Boolean.TRUE, transfer.getSettled());
+        assertNull("Delivery settled before it was sent should not be tracked",
+                   delivery.getTransportDelivery());
+    }
+
+    @Test
+    public void testReceivedSettledDeliveryIsNoLongerTrackedOnceComplete()
+    {
+        MockTransportImpl transport = new MockTransportImpl();
+        Connection connection = Proton.connection();
+        transport.bind(connection);
+        connection.open();
+
+        Session session = connection.session();
+        session.open();
+
+        String linkName = "myReceiver";
+        Receiver receiver = session.receiver(linkName);
+        receiver.flow(5);
+        receiver.open();
+
+        pumpMockTransport(transport);
+
+        transport.handleFrame(new TransportFrame(0, new Open(), null));
+
+        Begin begin = new Begin();
+        begin.setRemoteChannel(UnsignedShort.valueOf((short) 0));
+        begin.setNextOutgoingId(UnsignedInteger.ONE);
+        begin.setIncomingWindow(UnsignedInteger.valueOf(1024));
+        begin.setOutgoingWindow(UnsignedInteger.valueOf(1024));
+        transport.handleFrame(new TransportFrame(0, begin, null));
+
+        Attach attach = new Attach();
+        attach.setHandle(UnsignedInteger.ZERO);
+        attach.setRole(Role.SENDER);
+        attach.setName(linkName);
+        attach.setInitialDeliveryCount(UnsignedInteger.ZERO);
+        transport.handleFrame(new TransportFrame(0, attach, null));
+
+        Transfer transfer = new Transfer();
+        transfer.setDeliveryId(UnsignedInteger.ONE);
+        transfer.setHandle(UnsignedInteger.ZERO);
+        transfer.setDeliveryTag(new Binary("tag1".getBytes(StandardCharsets.UTF_8)));
+        transfer.setMessageFormat(UnsignedInteger.ZERO);
+        transfer.setSettled(Boolean.TRUE);
+        transport.handleFrame(new TransportFrame(0, transfer, new Binary(new byte[] {1, 2, 3})));
+
+        DeliveryImpl delivery = (DeliveryImpl) receiver.current();
+        assertTrue("Delivery should be remotely settled", delivery.remotelySettled());
+        assertNull("Delivery received settled in one transfer should not be tracked",
+                   delivery.getTransportDelivery());
+
+        // a disposition for the settled delivery is not applied, as it is no longer tracked
+        Disposition disposition = new Disposition();
+        disposition.setRole(Role.SENDER);
+        disposition.setFirst(UnsignedInteger.ONE);
+        disposition.setState(Accepted.getInstance());
+        transport.handleFrame(new TransportFrame(0, disposition, null));
+
+        assertNull("Unexpected remote state", delivery.getRemoteState());
+
+        byte[] received = new byte[3];
+        assertEquals("Unexpected amount received", 3, receiver.recv(received, 0, 3));
+        delivery.settle();
+        assertNull("Settled delivery should no longer be current", receiver.current());
+    }
+
+    @Test
+    public void testDeliveriesTaggedFromSequenceOrArrayRangeAreSentWithTheirTags()
+    {
+        MockTransportImpl transport = new MockTransportImpl();
+        Sender sender = createSenderWithCredit(transport, null);
+
+        Delivery first = sender.delivery();
+        sender.advance();
+        Delivery second = sender.delivery();
+        sender.advance();
+        byte[] tags = "xxtag2xx".getBytes(StandardCharsets.UTF_8);
+        Delivery third = sender.delivery(tags, 2, 4);
+        sender.advance();
+
+        pumpMockTransport(transport);
+
+        assertArrayEquals(new byte[] {0}, first.getTag());
+        assertArrayEquals(new byte[] {1}, second.getTag());
+        assertArrayEquals("tag2".getBytes(StandardCharsets.UTF_8), third.getTag());
+
+        List<Binary> sentTags = new ArrayList<Binary>();
+        for (FrameBody frameBody : transport.writes)
+        {
+            if (frameBody instanceof Transfer)
+            {
+                sentTags.add(((Transfer) frameBody).getDeliveryTag());
+            }
+        }
+        assertEquals(Arrays.asList(new Binary(new byte[] {0}), new Binary(new byte[] {1}),
+                                   new Binary("tag2".getBytes(StandardCharsets.UTF_8))), sentTags);
+    }
+
+    @Test
+    public void testSequenceTagsGrowAsTheSequenceDoes()
+    {
+        Connection connection = Proton.connection();
+        Sender sender = connection.session().sender("mySender");
+
+        Set<Binary> seen = new HashSet<Binary>();
+        Delivery delivery = null;
+        for (int i = 0; i <= 256; i++)
+        {
+            delivery = sender.delivery();
+            assertTrue("Duplicate tag for delivery " + i, seen.add(new Binary(delivery.getTag())));
+        }
+        assertArrayEquals(new byte[] {1, 0}, delivery.getTag());
+    }
+
+    private static Flow createFlow(UnsignedInteger handle, int deliveryCount, int linkCredit, int incomingWindow)
+    {
+        Flow flow = new Flow();
+        flow.setNextOutgoingId(UnsignedInteger.ZERO);
+        flow.setIncomingWindow(UnsignedInteger.valueOf(incomingWindow));
+        flow.setOutgoingWindow(UnsignedInteger.valueOf(1024));
+        if (handle != null)
+        {
+            flow.setHandle(handle);
+            flow.setDeliveryCount(UnsignedInteger.valueOf(deliveryCount));
+            flow.setLinkCredit(UnsignedInteger.valueOf(linkCredit));
+        }
+        return flow;
+    }
+
+    private static void assertTransferTagsInOrder(MockTransportImpl transport, int count)
+    {
+        int i = 0;
+        for (FrameBody frameBody : transport.writes)
+        {
+            if (frameBody instanceof Transfer)
+            {
+                Binary tag = ((Transfer) frameBody).getDeliveryTag();
+                assertEquals("Unexpected delivery tag", new Binary(("tag" + i).getBytes(StandardCharsets.UTF_8)), tag);
+                i++;
+            }
+        }
+        assertEquals("Unexpected transfer count", count, i);
+    }
+
+    private Sender createSenderWithCredit(MockTransportImpl transport, UnsignedInteger remoteMaxFrameSize)
+    {
+        Connection connection = Proton.connection();
+        transport.bind(connection);
+        connection.open();
+
+        Session session = connection.session();
+        session.open();
+
+        String linkName = "mySender";
+        Sender sender = session.sender(linkName);
+        sender.open();
+
+        pumpMockTransport(transport);
+
+        Open open = new Open();
+        if (remoteMaxFrameSize != null)
+        {
+            open.setMaxFrameSize(remoteMaxFrameSize);
+        }
+        transport.handleFrame(new TransportFrame(0, open, null));
+
+        Begin begin = new Begin();
+        begin.setRemoteChannel(UnsignedShort.valueOf((short) 0));
+        transport.handleFrame(new TransportFrame(0, begin, null));
+
+        Attach attach = new Attach();
+        attach.setHandle(UnsignedInteger.ZERO);
+        attach.setRole(Role.RECEIVER);
+        attach.setName(linkName);
+        attach.setInitialDeliveryCount(UnsignedInteger.ZERO);
+        transport.handleFrame(new TransportFrame(0, attach, null));
+
+        Flow flow = new Flow();
+        flow.setHandle(UnsignedInteger.ZERO);
+        flow.setDeliveryCount(UnsignedInteger.ZERO);
+        flow.setNextIncomingId(UnsignedInteger.ONE);
+        flow.setNextOutgoingId(UnsignedInteger.ZERO);
+        flow.setIncomingWindow(UnsignedInteger.valueOf(1024));
+        flow.setOutgoingWindow(UnsignedInteger.valueOf(1024));
+        flow.setLinkCredit(UnsignedInteger.valueOf(10));
+        transport.handleFrame(new TransportFrame(0, flow, null));
+
+        return sender;
+    }
+
+    private static int countTransfers(MockTransportImpl transport)
+    {
+        int transfers = 0;
+        for (FrameBody frameBody : transport.writes)
+        {
+            if (frameBody instanceof Transfer)
+            {
+                transfers++;
+            }
+        }
+        return transfers;
+    }
+
+    private static class RecordingReleaseCallback implements Sender.ReleaseCallback
+    {
+        final List<ReadableBuffer> released = new ArrayList<ReadableBuffer>();
+
+        @Override
+        public void released(ReadableBuffer buffer)
+        {
+            released.add(buffer);
+        }
+    }
+
+    private static class TracedPayload implements ProtocolTracer
+    {
+        private final ByteArrayOutputStream _bytes = new ByteArrayOutputStream();
+
+        @Override
+        public void receivedFrame(TransportFrame transportFrame)
+        {
+        }
+
+        @Override
+        public void sentFrame(TransportFrame transportFrame)
+        {
+            Binary payload = transportFrame.getPayload();
+            if (transportFrame.getBody() instanceof Transfer && payload != null)
+            {
+                _bytes.write(payload.getArray(), payload.getArrayOffset(), payload.getLength());
+            }
+        }
+
+        byte[] getBytes()
+        {
+            return _bytes.toByteArray();
+        }
+    }
 }
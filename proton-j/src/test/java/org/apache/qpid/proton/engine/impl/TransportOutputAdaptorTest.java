@@ -27,7 +27,9 @@ import static org.junit.Assert.fail;
 
 import org.apache.qpid.proton.engine.TransportException;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
 
 import org.junit.Test;
 
@@ -123,11 +125,78 @@ public class TransportOutputAdaptorTest
         }
     }
 
+    @Test
+    public void testPendingDoesNotExceedOutputBuffer()
+    {
+        _transportOutputWriter.setNextCannedOutput(new byte[1500]);
+        assertEquals(1024, _transportOutput.pending());
+    }
+
+    @Test
+    public void testPopOfPendingBytesWithoutHead()
+    {
+        _transportOutputWriter.setNextCannedOutput("abcd".getBytes());
+
+        assertEquals(4, _transportOutput.pending());
+        _transportOutput.pop(3);
+        assertByteBufferContentEquals("d".getBytes(), _transportOutput.head());
+    }
+
+    @Test
+    public void testWriteToWritesStraightFromWriter() throws IOException
+    {
+        byte[] testBytes = "testbytes".getBytes();
+        _transportOutputWriter.setNextCannedOutput(testBytes);
+        RecordingGatheringChannel channel = new RecordingGatheringChannel(4);
+
+        GatheringTransportOutput output = (GatheringTransportOutput) _transportOutput;
+        assertEquals(4, output.writeTo(channel));
+        assertEquals(testBytes.length - 4, _transportOutput.pending());
+        assertEquals(testBytes.length - 4, output.writeTo(new RecordingGatheringChannel()));
+        assertEquals(0, _transportOutput.pending());
+        assertByteArrayContentEquals(copyOfRange(testBytes, 0, 4), channel.getWritten());
+    }
+
+    @Test
+    public void testWriteToWritesOutputCopiedByHeadFirst() throws IOException
+    {
+        _transportOutputWriter.setNextCannedOutput("abcd".getBytes());
+        assertEquals(4, _transportOutput.head().remaining());
+        _transportOutput.pop(2);
+        _transportOutputWriter.setNextCannedOutput("wxyz".getBytes());
+
+        RecordingGatheringChannel channel = new RecordingGatheringChannel();
+        GatheringTransportOutput output = (GatheringTransportOutput) _transportOutput;
+        output.writeTo(channel);
+        output.writeTo(channel);
+        assertByteArrayContentEquals("cdwxyz".getBytes(), channel.getWritten());
+    }
+
     private static final class CannedTransportOutputWriter implements TransportOutputWriter
     {
 
         byte[] _cannedOutput = new byte[0];
 
+        @Override
+        public boolean generateOutput()
+        {
+            return false;
+        }
+
+        @Override
+        public int pendingOutput()
+        {
+            return _cannedOutput.length;
+        }
+
+        @Override
+        public long writeOutputTo(GatheringByteChannel channel) throws IOException
+        {
+            long written = channel.write(new ByteBuffer[] {ByteBuffer.wrap(_cannedOutput)});
+            _cannedOutput = copyOfRange(_cannedOutput, (int) written, _cannedOutput.length);
+            return written;
+        }
+
         @Override
         public boolean writeInto(ByteBuffer outputBuffer)
         {
@@ -51,6 +51,19 @@ public class TransportTestHelper
         return new String(buf, 0, numberRead, StandardCharsets.UTF_8);
     }
 
+    /**
+     * Returns an array of the given length whose bytes count up from 0, wrapping at 256.
+     */
+    public static byte[] createBytes(int length)
+    {
+        byte[] bytes = new byte[length];
+        for(int i = 0; i < length; i++)
+        {
+            bytes[i] = (byte) i;
+        }
+        return bytes;
+    }
+
     public static String stringOfLength(String value, int repeat)
     {
         StringBuilder builder = new StringBuilder();
@@ -0,0 +1,128 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.proton.engine.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class UnsettledDeliveriesTest
+{
+    private final UnsettledDeliveries _unsettled = new UnsettledDeliveries();
+
+    @Test
+    public void testPutGetRemoveInSequence()
+    {
+        DeliveryImpl[] deliveries = createDeliveries(100);
+        for (int i = 0; i < deliveries.length; i++)
+        {
+            _unsettled.put(i + 5, deliveries[i]);
+        }
+        assertEquals("Unexpected size", 100, _unsettled.size());
+        assertNull("Unexpected delivery before the first", _unsettled.get(4));
+        assertNull("Unexpected delivery after the last", _unsettled.get(105));
+
+        // settle out of order
+        for (int i = 0; i < deliveries.length; i += 2)
+        {
+            assertSame("Unexpected delivery removed", deliveries[i], _unsettled.remove(i + 5));
+        }
+        assertNull("Delivery should already have been removed", _unsettled.remove(5));
+        for (int i = 1; i < deliveries.length; i += 2)
+        {
+            assertSame("Unexpected delivery", deliveries[i], _unsettled.get(i + 5));
+        }
+        for (int i = deliveries.length - 1; i > 0; i -= 2)
+        {
+            assertSame("Unexpected delivery removed", deliveries[i], _unsettled.remove(i + 5));
+        }
+        assertTrue("Expected no deliveries", _unsettled.isEmpty());
+    }
+
+    @Test
+    public void testIdsWrapAround()
+    {
+        DeliveryImpl[] deliveries = createDeliveries(40);
+        int first = -20; // 2^32 - 20
+        for (int i = 0; i < deliveries.length; i++)
+        {
+            _unsettled.put(first + i, deliveries[i]);
+        }
+
+        assertSame("Unexpected delivery before the wrap", deliveries[19], _unsettled.get(-1));
+        assertSame("Unexpected delivery after the wrap", deliveries[20], _unsettled.get(0));
+        assertSame("Unexpected delivery removed", deliveries[0], _unsettled.remove(first));
+        assertSame("Unexpected delivery removed", deliveries[39], _unsettled.remove(19));
+        assertEquals("Unexpected size", 38, _unsettled.size());
+    }
+
+    @Test
+    public void testLongUnsettledDeliveryDoesNotStretchRing()
+    {
+        DeliveryImpl stuck = Mockito.mock(DeliveryImpl.class);
+        _unsettled.put(0, stuck);
+
+        DeliveryImpl delivery = Mockito.mock(DeliveryImpl.class);
+        for (int id = 1; id < 100000; id++)
+        {
+            _unsettled.put(id, delivery);
+            _unsettled.remove(id);
+        }
+
+        assertEquals("Unexpected size", 1, _unsettled.size());
+        assertSame("Expected delivery to be kept", stuck, _unsettled.get(0));
+        assertTrue("Ring should not have grown", _unsettled.getCapacity() <= 32);
+
+        assertSame("Unexpected delivery removed", stuck, _unsettled.remove(0));
+        assertTrue("Expected no deliveries", _unsettled.isEmpty());
+    }
+
+    @Test
+    public void testRingIsReleasedOnceEmpty()
+    {
+        DeliveryImpl[] deliveries = createDeliveries(5000);
+        for (int i = 0; i < deliveries.length; i++)
+        {
+            _unsettled.put(i, deliveries[i]);
+        }
+        assertTrue("Expected ring to have grown", _unsettled.getCapacity() >= 5000);
+
+        for (int i = 0; i < deliveries.length; i++)
+        {
+            _unsettled.remove(i);
+        }
+        assertEquals("Expected ring to have been released", 16, _unsettled.getCapacity());
+    }
+
+    private static DeliveryImpl[] createDeliveries(int count)
+    {
+        DeliveryImpl[] deliveries = new DeliveryImpl[count];
+        for (int i = 0; i < count; i++)
+        {
+            deliveries[i] = Mockito.mock(DeliveryImpl.class);
+        }
+        return deliveries;
+    }
+}
@@ -22,11 +22,25 @@ package org.apache.qpid.proton.message.impl;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.messaging.AmqpValue;
+import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
 import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.amqp.messaging.Footer;
+import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
+import org.apache.qpid.proton.codec.CompositeReadableBuffer;
 import org.apache.qpid.proton.message.Message;
 import org.junit.Test;
 
@@ -62,6 +76,183 @@ public class MessageImplTest
         assertEquals("Encoded length different than expected length", encodedLength, encodedBytes.length);
     }
 
+    @Test
+    public void testLazyDecodeReturnsSameSectionsAsEagerDecode()
+    {
+        byte[] encoded = encode(createFullMessage());
+
+        MessageImpl eager = new MessageImpl();
+        eager.decode(encoded, 0, encoded.length);
+
+        MessageImpl lazy = new MessageImpl();
+        lazy.setLazyDecode(true);
+        assertEquals("Unexpected decoded length", encoded.length, lazy.decode(encoded, 0, encoded.length));
+
+        assertEquals(eager.isDurable(), lazy.isDurable());
+        assertEquals(eager.getPriority(), lazy.getPriority());
+        assertEquals(eager.getMessageId(), lazy.getMessageId());
+        assertEquals(eager.getAddress(), lazy.getAddress());
+        assertEquals(eager.getSubject(), lazy.getSubject());
+        assertEquals(eager.getMessageAnnotations().getValue(), lazy.getMessageAnnotations().getValue());
+        assertEquals(eager.getApplicationProperties().getValue(), lazy.getApplicationProperties().getValue());
+        assertEquals(((Data) eager.getBody()).getValue(), ((Data) lazy.getBody()).getValue());
+        assertEquals(eager.getFooter().getValue(), lazy.getFooter().getValue());
+        assertNull(lazy.getDeliveryAnnotations());
+    }
+
+    @Test
+    public void testLazyDecodeReencodesUntouchedSectionsVerbatim()
+    {
+        byte[] encoded = encode(createFullMessage());
+
+        MessageImpl lazy = new MessageImpl();
+        lazy.setLazyDecode(true);
+        lazy.decode(encoded, 0, encoded.length);
+
+        assertArrayEquals("Re-encoded bytes do not match", encoded, encode(lazy));
+
+        lazy.getSubject();
+        lazy.getBody();
+        assertArrayEquals("Re-encoded bytes do not match after reads", encoded, encode(lazy));
+    }
+
+    @Test
+    public void testLazyDecodeReencodesModifiedSections()
+    {
+        MessageImpl expected = createFullMessage();
+        byte[] encoded = encode(expected);
+
+        MessageImpl lazy = new MessageImpl();
+        lazy.setLazyDecode(true);
+        lazy.decode(encoded, 0, encoded.length);
+
+        lazy.setSubject("order-updated");
+        expected.setSubject("order-updated");
+        lazy.setBody(new AmqpValue("replaced"));
+        expected.setBody(new AmqpValue("replaced"));
+        lazy.setFooter(null);
+        expected.setFooter(null);
+
+        assertArrayEquals("Re-encoded bytes do not match", encode(expected), encode(lazy));
+    }
+
+    @Test
+    public void testLazyDecodeFallsBackForUnexpectedSectionOrder()
+    {
+        MessageImpl message = new MessageImpl();
+        message.setBody(new AmqpValue("body"));
+        byte[] body = encode(message);
+        message.setBody(null);
+        message.setSubject("subject");
+        byte[] properties = encode(message);
+
+        // the body is followed by a properties section, which eager decoding stops at
+        byte[] encoded = Arrays.copyOf(body, body.length + properties.length);
+        System.arraycopy(properties, 0, encoded, body.length, properties.length);
+
+        MessageImpl eager = new MessageImpl();
+        int eagerLength = eager.decode(encoded, 0, encoded.length);
+
+        MessageImpl lazy = new MessageImpl();
+        lazy.setLazyDecode(true);
+        assertEquals("Unexpected decoded length", eagerLength, lazy.decode(encoded, 0, encoded.length));
+        assertEquals("body", ((AmqpValue) lazy.getBody()).getValue());
+        assertNull(lazy.getProperties());
+    }
+
+    @Test
+    public void testLazyDecodeOfEmptyMessage()
+    {
+        MessageImpl lazy = new MessageImpl();
+        lazy.setLazyDecode(true);
+        assertTrue(lazy.isLazyDecode());
+        assertEquals(0, lazy.decode(new byte[0], 0, 0));
+        assertNull(lazy.getBody());
+        assertFalse(lazy.isDurable());
+        assertEquals(0, encode(lazy).length);
+    }
+
+    @Test
+    public void testLazyDecodeFromReusedReadableBuffer()
+    {
+        byte[] encoded = encode(createFullMessage());
+
+        // split the message across two regions, followed by bytes that are not part of it
+        byte[] first = Arrays.copyOfRange(encoded, 0, 100);
+        byte[] second = Arrays.copyOf(Arrays.copyOfRange(encoded, 100, encoded.length), encoded.length - 100 + 3);
+        CompositeReadableBuffer buffer = new CompositeReadableBuffer();
+        buffer.append(first, 0, first.length).append(second, 0, second.length);
+        buffer.limit(encoded.length);
+
+        MessageImpl lazy = new MessageImpl();
+        lazy.setLazyDecode(true);
+        lazy.decode(buffer);
+        assertEquals("Unexpected position", encoded.length, buffer.position());
+
+        // the message must not refer to the buffer's regions once decoded
+        Arrays.fill(first, (byte) 0);
+        Arrays.fill(second, (byte) 0);
+
+        assertEquals("order-created", lazy.getSubject());
+        assertArrayEquals("Re-encoded bytes do not match", encoded, encode(lazy));
+    }
+
+    @Test
+    public void testLazyDecodeOfInvalidSectionFailsOnEachAccess()
+    {
+        // an amqp-value section holding a list whose count claims more elements than its size holds
+        byte[] encoded = new byte[] { 0x00, 0x53, 0x77, (byte) 0xC0, 0x02, 0x05, 0x40 };
+
+        MessageImpl lazy = new MessageImpl();
+        lazy.setLazyDecode(true);
+        lazy.decode(encoded, 0, encoded.length);
+
+        for(int i = 0; i < 2; i++)
+        {
+            try
+            {
+                lazy.getBody();
+                fail("Expected the invalid section to fail to decode");
+            }
+            catch(RuntimeException e)
+            {
+                // expected
+            }
+        }
+        assertArrayEquals("Re-encoded bytes do not match", encoded, encode(lazy));
+    }
+
+    private MessageImpl createFullMessage()
+    {
+        MessageImpl message = new MessageImpl();
+        message.setDurable(true);
+        message.setPriority((short) 7);
+        message.setMessageId("ID:1");
+        message.setAddress("queue://orders");
+        message.setSubject("order-created");
+
+        Map<Symbol, Object> annotations = new HashMap<Symbol, Object>();
+        annotations.put(Symbol.valueOf("x-opt-jms-msg-type"), (byte) 3);
+        message.setMessageAnnotations(new MessageAnnotations(annotations));
+
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put("region", "emea");
+        properties.put("customerId", 123456789L);
+        properties.put("tags", Arrays.asList("a", "b"));
+        message.setApplicationProperties(new ApplicationProperties(properties));
+
+        message.setBody(new Data(new Binary(generateByteArray(300))));
+        message.setFooter(new Footer(Collections.singletonMap(Symbol.valueOf("checksum"), 42)));
+        return message;
+    }
+
+    private byte[] encode(Message message)
+    {
+        byte[] buffer = new byte[4096];
+        int length = message.encode(buffer, 0, buffer.length);
+        return Arrays.copyOf(buffer, length);
+    }
+
     private byte[] generateByteArray(int bytesLength)
     {
         byte[] bytes = new byte[bytesLength];
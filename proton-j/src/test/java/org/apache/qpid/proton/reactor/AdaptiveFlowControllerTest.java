@@ -0,0 +1,226 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.apache.qpid.proton.reactor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.transport.Flow;
+import org.apache.qpid.proton.engine.Collector;
+import org.apache.qpid.proton.engine.Connection;
+import org.apache.qpid.proton.engine.Delivery;
+import org.apache.qpid.proton.engine.Event;
+import org.apache.qpid.proton.engine.Receiver;
+import org.apache.qpid.proton.engine.Sender;
+import org.apache.qpid.proton.engine.Session;
+import org.apache.qpid.proton.engine.Transport;
+import org.apache.qpid.proton.engine.impl.ProtocolTracer;
+import org.apache.qpid.proton.engine.impl.TransportImpl;
+import org.apache.qpid.proton.framing.TransportFrame;
+import org.apache.qpid.proton.systemtests.engine.TransportPumper;
+import org.junit.Test;
+
+public class AdaptiveFlowControllerTest {
+
+    /**
+     * A sending connection and a receiving connection whose receiver is flow controlled, with a
+     * clock that only moves when the test says.
+     */
+    private static class Pair {
+        final Transport clientTransport = Proton.transport();
+        final Transport serverTransport = Proton.transport();
+        final TransportPumper pumper = new TransportPumper(clientTransport, serverTransport);
+        final Collector collector = Proton.collector();
+        final Sender sender;
+        final AdaptiveFlowController controller;
+        Receiver receiver;
+        long now;
+        int linkFlows;
+        int received;
+        // whether each delivery is only consumed once the next one arrives, rather than at once
+        boolean lagging;
+
+        Pair(int minWindow, int maxWindow, long linkMemoryBudget) {
+            controller = new AdaptiveFlowController(minWindow, maxWindow, linkMemoryBudget) {
+                @Override
+                long now(Event event) {
+                    return now;
+                }
+            };
+
+            Connection client = Proton.connection();
+            clientTransport.bind(client);
+            client.open();
+            Session session = client.session();
+            session.open();
+            sender = session.sender("link");
+            sender.open();
+
+            Connection server = Proton.connection();
+            serverTransport.bind(server);
+            server.collect(collector);
+            ((TransportImpl) serverTransport).setProtocolTracer(new ProtocolTracer() {
+                @Override
+                public void receivedFrame(TransportFrame transportFrame) {
+                }
+
+                @Override
+                public void sentFrame(TransportFrame transportFrame) {
+                    if (transportFrame.getBody() instanceof Flow
+                        && ((Flow) transportFrame.getBody()).getHandle() != null) {
+                        linkFlows++;
+                    }
+                }
+            });
+
+            exchange();
+        }
+
+        /**
+         * Sends as many of the given number of deliveries as the sender has credit for, each of
+         * the given size.
+         */
+        int send(int count, int size) {
+            int sent = 0;
+            while (sent < count && sender.getCredit() > 0) {
+                sender.delivery(new byte[] {(byte) sent, (byte) (sent >> 8)});
+                sender.send(new byte[size], 0, size);
+                sender.advance();
+                sent++;
+            }
+            return sent;
+        }
+
+        /**
+         * Moves the frames between the two connections, handling the receiver's events and
+         * consuming the deliveries as they arrive.
+         */
+        void exchange() {
+            do {
+                pumper.pumpAll();
+            } while (handleEvents());
+        }
+
+        private boolean handleEvents() {
+            boolean handled = false;
+            Event event;
+            while ((event = collector.peek()) != null) {
+                switch (event.getType()) {
+                case CONNECTION_REMOTE_OPEN:
+                    event.getConnection().open();
+                    break;
+                case SESSION_REMOTE_OPEN:
+                    event.getSession().open();
+                    break;
+                case LINK_REMOTE_OPEN:
+                    receiver = (Receiver) event.getLink();
+                    receiver.setSource(receiver.getRemoteSource());
+                    receiver.setTarget(receiver.getRemoteTarget());
+                    receiver.open();
+                    break;
+                case DELIVERY:
+                    Delivery delivery = event.getDelivery();
+                    if (lagging) {
+                        while (receiver.current() != delivery) {
+                            consume(receiver.current());
+                        }
+                    } else if (delivery.isReadable() && !delivery.isPartial()) {
+                        consume(delivery);
+                    }
+                    break;
+                default:
+                    break;
+                }
+                // as a child handler of the application's, the controller sees each event after it
+                controller.handle(event);
+                collector.pop();
+                handled = true;
+            }
+            return handled;
+        }
+
+        private void consume(Delivery delivery) {
+            byte[] bytes = new byte[delivery.pending()];
+            receiver.recv(bytes, 0, bytes.length);
+            receiver.advance();
+            delivery.settle();
+            received++;
+        }
+    }
+
+    @Test
+    public void testCreditIsIssuedInBatches() {
+        Pair pair = new Pair(16, 16, Long.MAX_VALUE);
+        assertEquals("Unexpected initial credit", 16, pair.sender.getCredit());
+
+        int total = 0;
+        while (total < 160) {
+            total += pair.send(1, 10);
+            pair.exchange();
+        }
+
+        assertEquals("Unexpected deliveries received", 160, pair.received);
+        // one flow to open the window and then one for each half of it consumed
+        assertTrue("Too many flows: " + pair.linkFlows, pair.linkFlows <= 1 + 160 / 8);
+    }
+
+    @Test
+    public void testWindowGrowsForFastConsumerOnSlowLink() {
+        Pair pair = new Pair(4, 1000, Long.MAX_VALUE);
+
+        int window = pair.controller.getWindow(pair.receiver);
+        for (int i = 0; i < 20; i++) {
+            pair.now += 100;
+            pair.send(Integer.MAX_VALUE, 10);
+            pair.exchange();
+        }
+
+        assertTrue("Window should have grown from " + window + " to make up for the delay, but is "
+                   + pair.controller.getWindow(pair.receiver),
+                   pair.controller.getWindow(pair.receiver) > 4 * window);
+        assertTrue("Window should not exceed its maximum", pair.controller.getWindow(pair.receiver) <= 1000);
+    }
+
+    @Test
+    public void testWindowIsKeptWithinLinkMemoryBudget() {
+        Pair pair = new Pair(2, 1000, 10 * 1000);
+        // the controller measures deliveries that are held by the link rather than consumed
+        pair.lagging = true;
+
+        for (int i = 0; i < 20; i++) {
+            pair.now += 100;
+            pair.send(Integer.MAX_VALUE, 1000);
+            pair.exchange();
+        }
+
+        assertTrue("Window should fit in the memory budget, but is " + pair.controller.getWindow(pair.receiver),
+                   pair.controller.getWindow(pair.receiver) <= 10);
+        assertTrue("Credit should fit in the memory budget, but is " + pair.receiver.getCredit(),
+                   pair.receiver.getCredit() <= 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWindowOfOneIsRejected() {
+        new AdaptiveFlowController(1, 10, 1000);
+    }
+}